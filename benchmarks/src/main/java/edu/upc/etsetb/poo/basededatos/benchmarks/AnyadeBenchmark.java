@@ -0,0 +1,112 @@
+package edu.upc.etsetb.poo.basededatos.benchmarks;
+
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Clave;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.ClaveYaExisteException;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Esquema;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.ClaveInexistenteException;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Tabla;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.ValorClaveUnicaException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide {@link Tabla#anyade(FilaDatos)} sobre una tabla sin claves únicas y la
+ * comprobación de unicidad sobre una tabla con clave única.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class AnyadeBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int filas;
+
+    @Param({"10", "1000", "100000"})
+    public int cardinalidad;
+
+    private List<FilaDatos> datos;
+
+    private Tabla tabla;
+
+    /**
+     * Tabla con clave única sobre <code>matricula</code>, con una fila por
+     * matrícula distinta
+     */
+    private Tabla tablaUnica;
+
+    private FilaDatos filaNueva;
+
+    private FilaDatos filaDuplicada;
+
+    @Setup(Level.Trial)
+    public void generaDatos() throws ClaveYaExisteException, ValorClaveUnicaException, ClaveInexistenteException {
+        this.datos = Datos.filas(this.filas, this.cardinalidad);
+        this.filaNueva = Datos.filas(1, this.cardinalidad).get(0);
+
+        Esquema esquema = new Esquema();
+        esquema.addClave(new Clave("matricula", true));
+        esquema.addClave(new Clave("marca"));
+        esquema.addClave(new Clave("cuantía"));
+        this.tablaUnica = new Tabla("coches", esquema);
+        int numUnicas = Math.min(this.filas, this.cardinalidad);
+        for (int i = 0; i < numUnicas; i++) {
+            FilaDatos fila = new FilaDatos();
+            fila.put("matricula", Datos.matricula(i));
+            fila.put("marca", Datos.MARCAS[i % Datos.MARCAS.length]);
+            fila.put("cuantía", Integer.toString(i));
+            this.tablaUnica.anyade(fila);
+        }
+        // Con el índice hash de la clave única el duplicado se detecta sin
+        // recorrer la tabla, así que da igual qué matrícula se repita
+        this.filaDuplicada = new FilaDatos();
+        this.filaDuplicada.put("matricula", Datos.matricula(numUnicas - 1));
+        this.filaDuplicada.put("marca", "Seat");
+        this.filaDuplicada.put("cuantía", "0");
+    }
+
+    @Setup(Level.Iteration)
+    public void creaTablaParaAnyadir() {
+        this.tabla = Datos.tabla(this.datos);
+    }
+
+    /**
+     * Añade una fila a una tabla sin claves únicas, que va creciendo durante
+     * la iteración
+     */
+    @Benchmark
+    public Tabla anyade() throws ValorClaveUnicaException, ClaveInexistenteException {
+        this.tabla.anyade(this.filaNueva);
+        return this.tabla;
+    }
+
+    /**
+     * Intenta añadir una fila cuya clave única ya existe. La tabla no cambia,
+     * así que mide el coste de la comprobación de unicidad sin que la tabla
+     * crezca.
+     */
+    @Benchmark
+    public Exception anyadeClaveDuplicada() throws ClaveInexistenteException {
+        try {
+            this.tablaUnica.anyade(this.filaDuplicada);
+            throw new IllegalStateException("La fila duplicada se ha añadido");
+        } catch (ValorClaveUnicaException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package edu.upc.etsetb.poo.basededatos.benchmarks;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioContiene;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioIgual;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioMayorQue;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioMenorQue;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Tabla;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide {@link Tabla#busca(edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.Criterio)}
+ * con cada subclase de criterio, para distintos tamaños de tabla,
+ * cardinalidades de la columna <code>matricula</code> y selectividades de los
+ * criterios de rango sobre <code>cuantía</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class BuscaBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int filas;
+
+    @Param({"10", "1000", "100000"})
+    public int cardinalidad;
+
+    /**
+     * Fracción de las filas que cumplen los criterios de rango
+     */
+    @Param({"0.001", "0.1", "0.5"})
+    public double selectividad;
+
+    private Tabla tabla;
+
+    private CriterioIgual igual;
+
+    private CriterioContiene contiene;
+
+    private CriterioMayorQue mayorQue;
+
+    private CriterioMenorQue menorQue;
+
+    @Setup(Level.Trial)
+    public void preparaTabla() {
+        this.tabla = Datos.tabla(Datos.filas(this.filas, this.cardinalidad));
+        String matricula = Datos.matricula(0);
+        this.igual = new CriterioIgual("matricula", matricula);
+        this.contiene = new CriterioContiene("matricula", matricula.substring(2, 6).toLowerCase());
+        double limite = this.selectividad * Datos.CUANTIA_MAXIMA;
+        this.mayorQue = new CriterioMayorQue("cuantía", Double.toString(Datos.CUANTIA_MAXIMA - limite));
+        this.menorQue = new CriterioMenorQue("cuantía", Double.toString(limite));
+    }
+
+    @Benchmark
+    public List<FilaDatos> buscaTodo() {
+        return this.tabla.busca(null);
+    }
+
+    @Benchmark
+    public List<FilaDatos> buscaIgual() {
+        return this.tabla.busca(this.igual);
+    }
+
+    @Benchmark
+    public List<FilaDatos> buscaContiene() {
+        return this.tabla.busca(this.contiene);
+    }
+
+    @Benchmark
+    public List<FilaDatos> buscaMayorQue() {
+        return this.tabla.busca(this.mayorQue);
+    }
+
+    @Benchmark
+    public List<FilaDatos> buscaMenorQue() {
+        return this.tabla.busca(this.menorQue);
+    }
+}
@@ -0,0 +1,63 @@
+package edu.upc.etsetb.poo.basededatos.benchmarks;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.ComparadorFilas;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide {@link ComparadorFilas#compare(FilaDatos, FilaDatos)} sobre valores
+ * numéricos (<code>cuantía</code>) y de texto (<code>matricula</code>), que
+ * siguen caminos distintos dentro del comparador.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ComparadorFilasBenchmark {
+
+    /**
+     * Número de filas que se comparan por parejas consecutivas (potencia de 2)
+     */
+    private static final int NUM_FILAS = 1024;
+
+    private List<FilaDatos> filas;
+
+    private ComparadorFilas numerico;
+
+    private ComparadorFilas texto;
+
+    private int i;
+
+    @Setup(Level.Trial)
+    public void generaFilas() {
+        this.filas = Datos.filas(NUM_FILAS, NUM_FILAS);
+        this.numerico = new ComparadorFilas("cuantía", true);
+        this.texto = new ComparadorFilas("matricula", true);
+    }
+
+    @Benchmark
+    public int comparaNumerico() {
+        this.i = (this.i + 1) & (NUM_FILAS - 1);
+        return this.numerico.compare(this.filas.get(this.i), this.filas.get((this.i + 1) & (NUM_FILAS - 1)));
+    }
+
+    @Benchmark
+    public int comparaTexto() {
+        this.i = (this.i + 1) & (NUM_FILAS - 1);
+        return this.texto.compare(this.filas.get(this.i), this.filas.get((this.i + 1) & (NUM_FILAS - 1)));
+    }
+}
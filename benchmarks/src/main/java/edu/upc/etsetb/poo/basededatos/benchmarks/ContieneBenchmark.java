@@ -0,0 +1,131 @@
+package edu.upc.etsetb.poo.basededatos.benchmarks;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioContiene;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Clave;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.ClaveYaExisteException;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Esquema;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.ClaveInexistenteException;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Tabla;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.ValorClaveUnicaException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide cuánto cuesta evaluar {@link CriterioContiene} sobre todas las filas de
+ * una tabla, sobre matrículas y sobre descripciones de modelos de coche:
+ * <ul>
+ * <li><code>anterior</code>: la implementación anterior, que pasa a
+ * minúsculas el valor de cada fila y el del criterio</li>
+ * <li><code>plegadas</code>: el criterio sobre filas añadidas a una tabla,
+ * que tienen sus valores ya plegados</li>
+ * <li><code>sinPlegar</code>: el criterio sobre las mismas filas sin añadir a
+ * ninguna tabla, que busca plegando cada carácter</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ContieneBenchmark {
+
+    private static final String[] MODELOS = {"Ibiza Reference 1.0 MPI", "Focus Titanium EcoBoost",
+        "Clio Intens TCe 90", "208 Allure PureTech", "C3 Aircross Shine", "Corsa Elegance Turbo",
+        "Corolla Hybrid Active Tech", "Golf Life eTSI DSG"};
+
+    @Param({"100000", "1000000"})
+    public int filas;
+
+    /**
+     * Columna y subcadena a buscar
+     */
+    @Param({"matricula:34bb", "modelo:tech", "modelo:elegance turbo"})
+    public String busqueda;
+
+    private List<FilaDatos> plegadas;
+
+    private List<FilaDatos> sinPlegar;
+
+    private String columna;
+
+    private String subcadena;
+
+    private CriterioContiene criterio;
+
+    @Setup(Level.Trial)
+    public void preparaFilas() throws ClaveYaExisteException, ValorClaveUnicaException,
+            ClaveInexistenteException {
+        Esquema esquema = new Esquema();
+        esquema.addClave(new Clave("matricula"));
+        esquema.addClave(new Clave("modelo"));
+        Tabla tabla = new Tabla("coches", esquema);
+        this.sinPlegar = new ArrayList<>(this.filas);
+        Random aleatorio = new Random(20240419L);
+        for (int i = 0; i < this.filas; i++) {
+            String matricula = Datos.matricula(aleatorio.nextInt(100_000));
+            String modelo = Datos.MARCAS[aleatorio.nextInt(Datos.MARCAS.length)] + " "
+                    + MODELOS[aleatorio.nextInt(MODELOS.length)] + " " + (2000 + aleatorio.nextInt(24));
+            FilaDatos fila = new FilaDatos();
+            fila.put("matricula", matricula);
+            fila.put("modelo", modelo);
+            tabla.anyade(fila);
+            FilaDatos copia = new FilaDatos();
+            copia.put("matricula", matricula);
+            copia.put("modelo", modelo);
+            this.sinPlegar.add(copia);
+        }
+        this.plegadas = tabla.buscaTodo();
+        String[] partes = this.busqueda.split(":");
+        this.columna = partes[0];
+        this.subcadena = partes[1];
+        this.criterio = new CriterioContiene(this.columna, this.subcadena);
+    }
+
+    @Benchmark
+    public int anterior() {
+        int cumplen = 0;
+        for (FilaDatos fila : this.sinPlegar) {
+            String valor = fila.get(this.columna);
+            if (valor != null && valor.toLowerCase().contains(this.subcadena.toLowerCase())) {
+                cumplen++;
+            }
+        }
+        return cumplen;
+    }
+
+    @Benchmark
+    public int plegadas() {
+        return cuenta(this.plegadas);
+    }
+
+    @Benchmark
+    public int sinPlegar() {
+        return cuenta(this.sinPlegar);
+    }
+
+    private int cuenta(List<FilaDatos> filas) {
+        int cumplen = 0;
+        for (FilaDatos fila : filas) {
+            if (this.criterio.esCumplido(fila)) {
+                cumplen++;
+            }
+        }
+        return cumplen;
+    }
+}
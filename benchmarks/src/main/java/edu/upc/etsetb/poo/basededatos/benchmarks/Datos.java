@@ -0,0 +1,116 @@
+package edu.upc.etsetb.poo.basededatos.benchmarks;
+
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Clave;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.ClaveYaExisteException;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Esquema;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.ClaveInexistenteException;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Tabla;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.ValorClaveUnicaException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generación de los datos sintéticos que usan los benchmarks. Las filas
+ * imitan la tabla de multas del enunciado:
+ * <ul>
+ * <li><code>matricula</code>: texto con el formato de una matrícula, con
+ * tantos valores distintos como indique la cardinalidad</li>
+ * <li><code>marca</code>: texto de una lista corta de marcas</li>
+ * <li><code>cuantía</code>: número entero uniforme entre 0 y
+ * {@link #CUANTIA_MAXIMA}</li>
+ * </ul>
+ * Los datos se generan con una semilla fija para que los resultados sean
+ * comparables entre ejecuciones.
+ */
+final class Datos {
+
+    /**
+     * Valor máximo (no incluido) de la columna <code>cuantía</code>
+     */
+    static final int CUANTIA_MAXIMA = 100_000;
+
+    /**
+     * Marcas posibles de la columna <code>marca</code>
+     */
+    static final String[] MARCAS = {"Seat", "Ford", "Ferrari", "Renault", "Peugeot",
+        "Citroën", "Opel", "Toyota", "Volkswagen", "Aston_Martin"};
+
+    private static final long SEMILLA = 20240419L;
+
+    private Datos() {
+        // Evita que la clase se instancie
+    }
+
+    /**
+     * Esquema <code>matricula marca cuantía</code>, sin claves únicas
+     *
+     * @return el esquema de las tablas de los benchmarks
+     */
+    static Esquema esquema() {
+        Esquema esquema = new Esquema();
+        try {
+            esquema.addClave(new Clave("matricula"));
+            esquema.addClave(new Clave("marca"));
+            esquema.addClave(new Clave("cuantía"));
+        } catch (ClaveYaExisteException e) {
+            throw new IllegalStateException(e);
+        }
+        return esquema;
+    }
+
+    /**
+     * Matrícula número <code>i</code>, con el formato <code>1234ABC</code>
+     *
+     * @param i número de matrícula
+     * @return la matrícula
+     */
+    static String matricula(int i) {
+        char[] letras = new char[3];
+        int resto = i / 10_000;
+        for (int j = 2; j >= 0; j--) {
+            letras[j] = (char) ('B' + resto % 24);
+            resto /= 24;
+        }
+        return String.format("%04d", i % 10_000) + new String(letras);
+    }
+
+    /**
+     * Genera filas aleatorias
+     *
+     * @param numFilas número de filas
+     * @param cardinalidad número de matrículas distintas
+     * @return las filas generadas
+     */
+    static List<FilaDatos> filas(int numFilas, int cardinalidad) {
+        Random aleatorio = new Random(SEMILLA);
+        List<FilaDatos> filas = new ArrayList<>(numFilas);
+        for (int i = 0; i < numFilas; i++) {
+            FilaDatos fila = new FilaDatos();
+            fila.put("matricula", matricula(aleatorio.nextInt(cardinalidad)));
+            fila.put("marca", MARCAS[aleatorio.nextInt(MARCAS.length)]);
+            fila.put("cuantía", Integer.toString(aleatorio.nextInt(CUANTIA_MAXIMA)));
+            filas.add(fila);
+        }
+        return filas;
+    }
+
+    /**
+     * Crea una tabla con el {@link #esquema()} y le añade las filas dadas
+     *
+     * @param filas filas a añadir
+     * @return la tabla
+     */
+    static Tabla tabla(List<FilaDatos> filas) {
+        Tabla tabla = new Tabla("multas", esquema());
+        try {
+            for (FilaDatos fila : filas) {
+                tabla.anyade(fila);
+            }
+        } catch (ValorClaveUnicaException | ClaveInexistenteException e) {
+            throw new IllegalStateException(e);
+        }
+        return tabla;
+    }
+}
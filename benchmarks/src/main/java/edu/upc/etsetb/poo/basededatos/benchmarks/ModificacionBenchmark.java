@@ -0,0 +1,106 @@
+package edu.upc.etsetb.poo.basededatos.benchmarks;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioIgual;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Tabla;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide las operaciones que modifican las filas existentes de una tabla:
+ * {@link Tabla#elimina(edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.Criterio)}
+ * y {@link Tabla#ordena(String, boolean)}.
+ *
+ * <p>
+ * Como <code>elimina</code> y <code>ordena</code> cambian la tabla, cada
+ * operación se hace sobre una tabla recién construida a partir de las mismas
+ * filas, en el mismo orden aleatorio. Antes de cada iteración (fuera del
+ * tiempo medido) se construyen {@link #LOTE} tablas, y cada iteración es una
+ * única invocación que hace la operación una vez sobre cada una. Así no se
+ * paga el coste de preparar el estado de JMH en cada invocación, que con las
+ * tablas pequeñas es mayor que la propia operación.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+public class ModificacionBenchmark {
+
+    /**
+     * Número de tablas que se modifican en cada invocación
+     */
+    private static final int LOTE = 4;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int filas;
+
+    @Param({"10", "1000", "100000"})
+    public int cardinalidad;
+
+    private List<FilaDatos> datos;
+
+    private Tabla[] tablas;
+
+    private CriterioIgual igual;
+
+    @Setup(Level.Trial)
+    public void generaDatos() {
+        this.datos = Datos.filas(this.filas, this.cardinalidad);
+        this.igual = new CriterioIgual("matricula", Datos.matricula(0));
+    }
+
+    @Setup(Level.Iteration)
+    public void reconstruyeTablas() {
+        // Las tablas de la iteración anterior se pueden liberar antes de
+        // construir las nuevas
+        this.tablas = null;
+        Tabla[] nuevas = new Tabla[LOTE];
+        for (int i = 0; i < LOTE; i++) {
+            nuevas[i] = Datos.tabla(this.datos);
+        }
+        this.tablas = nuevas;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public int elimina() {
+        int eliminadas = 0;
+        for (Tabla tabla : this.tablas) {
+            eliminadas += tabla.elimina(this.igual).size();
+        }
+        return eliminadas;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public Tabla[] ordenaNumerico() {
+        for (Tabla tabla : this.tablas) {
+            tabla.ordena("cuantía", true);
+        }
+        return this.tablas;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOTE)
+    public Tabla[] ordenaTexto() {
+        for (Tabla tabla : this.tablas) {
+            tabla.ordena("matricula", false);
+        }
+        return this.tablas;
+    }
+}
@@ -0,0 +1,94 @@
+package edu.upc.etsetb.poo.basededatos.benchmarks;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.ComparadorFilas;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.orden.OrdenacionParalela;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide cómo escala {@link OrdenacionParalela} con el número de hilos, frente
+ * a {@link Collections#sort(List, java.util.Comparator)} con
+ * {@link ComparadorFilas} (lo que hace
+ * {@link edu.upc.etsetb.poo.basededatos.dominio.tabla.Tabla#ordena(String, boolean)}
+ * por debajo de su umbral).
+ *
+ * <p>
+ * La lista se vuelve a copiar en el orden aleatorio original antes de cada
+ * invocación, fuera del tiempo medido. Con <code>hilos</code> = 1 se mide
+ * sólo la ganancia de convertir cada valor una vez; el resto de valores mide
+ * además el reparto entre procesadores, que sólo escala si la máquina los
+ * tiene.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class OrdenaParaleloBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int filas;
+
+    @Param({"1", "2", "4", "8"})
+    public int hilos;
+
+    private List<FilaDatos> datos;
+
+    private List<FilaDatos> lista;
+
+    private ComparadorFilas numerico;
+
+    private ComparadorFilas texto;
+
+    @Setup(Level.Trial)
+    public void generaDatos() {
+        this.datos = Datos.filas(this.filas, this.filas);
+        this.numerico = new ComparadorFilas("cuantía", true);
+        this.texto = new ComparadorFilas("matricula", false);
+    }
+
+    @Setup(Level.Invocation)
+    public void copiaLista() {
+        this.lista = new ArrayList<>(this.datos);
+    }
+
+    @Benchmark
+    public List<FilaDatos> secuencialNumerico() {
+        Collections.sort(this.lista, this.numerico);
+        return this.lista;
+    }
+
+    @Benchmark
+    public List<FilaDatos> paraleloNumerico() {
+        OrdenacionParalela.ordena(this.lista, this.numerico, this.hilos);
+        return this.lista;
+    }
+
+    @Benchmark
+    public List<FilaDatos> secuencialTexto() {
+        Collections.sort(this.lista, this.texto);
+        return this.lista;
+    }
+
+    @Benchmark
+    public List<FilaDatos> paraleloTexto() {
+        OrdenacionParalela.ordena(this.lista, this.texto, this.hilos);
+        return this.lista;
+    }
+}
@@ -0,0 +1,294 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Cola de ejecución asíncrona de comandos del {@link Controlador}. Cada
+ * comando se envía a un carril, normalmente el de la tabla sobre la que actúa
+ * (ver {@link #envia(String, Callable)}), y se devuelve enseguida un
+ * {@link Future} con su resultado. Los comandos de un mismo carril se ejecutan
+ * uno tras otro y en el orden en que se enviaron, pero los de carriles
+ * distintos se ejecutan a la vez en un conjunto de hilos: un
+ * {@link Controlador#CMD_ORDENA} o un {@link Controlador#CMD_EXPORTA} lento
+ * sobre una tabla no retrasa las búsquedas sobre otra.</p>
+ *
+ * <p>
+ * Los comandos que no son de una sola tabla (los que crean o sustituyen
+ * tablas, como {@link Controlador#CMD_CREA_TABLA},
+ * {@link Controlador#CMD_IMPORTA} o {@link Controlador#CMD_VISTA}, los que
+ * leen varias, como {@link Controlador#CMD_UNE}, y los de las transacciones,
+ * las consultas preparadas y las estadísticas) se envían con
+ * {@link #enviaGlobal(Callable)}: esperan a que terminen todos los comandos
+ * enviados antes, y los enviados después esperan a que terminen ellos.</p>
+ *
+ * <p>
+ * Cada carril admite como mucho un número fijo de comandos pendientes (en
+ * cola o ejecutándose). Cuando está lleno, el envío espera a que termine uno,
+ * de modo que quien envía comandos más deprisa de lo que se ejecutan no puede
+ * acumularlos sin límite en memoria.</p>
+ *
+ * <p>
+ * Los comandos de una vista van al carril de la tabla de la que se calcula,
+ * que la modifica al cambiar: la cola busca ese carril con
+ * {@link Controlador#getTablaBase(String)}. Por ejemplo:</p>
+ * <pre>
+ * Future&lt;List&lt;FilaDatos&gt;&gt; filas = cola.envia("coches", () -&gt; controlador.buscar(palabras));
+ * </pre>
+ */
+public final class ColaComandos {
+
+    /**
+     * Número de comandos pendientes por carril si no se indica otro
+     */
+    public static final int CAPACIDAD_CARRIL = 64;
+
+    /**
+     * Controlador cuyos comandos se ejecutan, que indica a qué tabla
+     * pertenece cada vista
+     */
+    private final Controlador controlador;
+
+    /**
+     * Hilos que ejecutan los comandos
+     */
+    private final ExecutorService ejecutor;
+
+    /**
+     * Número máximo de comandos pendientes de cada carril
+     */
+    private final int capacidad;
+
+    /**
+     * Carril de cada tabla, por nombre
+     */
+    private final Map<String, Carril> carriles;
+
+    /**
+     * Carril de los comandos globales
+     */
+    private final Carril global;
+
+    /**
+     * Último comando global enviado, que deben esperar todos los que se envíen
+     * después
+     */
+    private CompletableFuture<?> barrera;
+
+    /**
+     * Indica si ya no se admiten comandos (ver {@link #cierra()})
+     */
+    private boolean cerrada;
+
+    /**
+     * Instancia una cola con un hilo por procesador y
+     * {@link #CAPACIDAD_CARRIL} comandos pendientes por carril
+     *
+     * @param controlador controlador cuyos comandos se ejecutan
+     */
+    public ColaComandos(Controlador controlador) {
+        this(controlador, Runtime.getRuntime().availableProcessors(), CAPACIDAD_CARRIL);
+    }
+
+    /**
+     * Instancia una cola
+     *
+     * @param controlador controlador cuyos comandos se ejecutan
+     * @param hilos número de hilos que ejecutan los comandos, es decir, de
+     * carriles que pueden avanzar a la vez
+     * @param capacidad número máximo de comandos pendientes de cada carril
+     */
+    public ColaComandos(Controlador controlador, int hilos, int capacidad) {
+        if (hilos < 1 || capacidad < 1) {
+            throw new IllegalArgumentException("El número de hilos y la capacidad deben ser positivos.");
+        }
+        this.controlador = controlador;
+        this.ejecutor = Executors.newFixedThreadPool(hilos);
+        this.capacidad = capacidad;
+        this.carriles = new HashMap<>();
+        this.global = new Carril(capacidad);
+        this.barrera = CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * <p>
+     * Envía un comando al carril de una tabla o, si es una vista, al de la
+     * tabla de la que se calcula. Si el carril está lleno, espera a que
+     * termine alguno de sus comandos.</p>
+     *
+     * <p>
+     * Mientras haya un comando global pendiente, que puede crear o cambiar
+     * vistas, no se sabe aún a qué carril va el comando, así que se envía
+     * como global (ver {@link #enviaGlobal(Callable)}).</p>
+     *
+     * @param <T> tipo del resultado del comando
+     * @param nombreTabla nombre de la tabla o vista
+     * @param comando comando a ejecutar
+     * @return el resultado del comando, cuando termine. Si el comando lanza
+     * una excepción, {@link Future#get()} la lanza dentro de una
+     * {@link java.util.concurrent.ExecutionException}.
+     * @throws InterruptedException si se interrumpe la espera
+     * @throws IllegalStateException si la cola está cerrada
+     */
+    public <T> Future<T> envia(String nombreTabla, Callable<T> comando) throws InterruptedException {
+        while (true) {
+            Carril carril;
+            synchronized (this) {
+                this.compruebaAbierta();
+                carril = this.carril(nombreTabla);
+            }
+            if (carril == null) {
+                return this.enviaGlobal(comando);
+            }
+            carril.plazas.acquire();
+            synchronized (this) {
+                if (this.cerrada) {
+                    carril.plazas.release();
+                    this.compruebaAbierta();
+                }
+                // Mientras se esperaba plaza se puede haber enviado un
+                // comando global: entonces se vuelve a buscar el carril
+                if (this.carril(nombreTabla) == carril) {
+                    CompletableFuture<T> tarea = this.encadena(
+                            CompletableFuture.allOf(carril.ultima, this.barrera), comando, carril);
+                    carril.ultima = tarea;
+                    return tarea;
+                }
+                carril.plazas.release();
+            }
+        }
+    }
+
+    /**
+     * Carril de una tabla o, si es una vista, de la tabla de la que se
+     * calcula. Las vistas sólo cambian con los comandos globales, así que el
+     * carril se conoce cuando ya han terminado todos los enviados.
+     *
+     * @param nombreTabla nombre de la tabla o vista
+     * @return el carril, o <code>null</code> si hay algún comando global
+     * pendiente
+     */
+    private Carril carril(String nombreTabla) {
+        if (!this.barrera.isDone()) {
+            return null;
+        }
+        return this.carriles.computeIfAbsent(this.controlador.getTablaBase(nombreTabla),
+                k -> new Carril(this.capacidad));
+    }
+
+    /**
+     * Envía un comando global, que se ejecuta cuando han terminado todos los
+     * enviados antes y antes que cualquiera de los enviados después. Si el
+     * carril de los comandos globales está lleno, espera a que termine alguno.
+     *
+     * @param <T> tipo del resultado del comando
+     * @param comando comando a ejecutar
+     * @return el resultado del comando, cuando termine
+     * @throws InterruptedException si se interrumpe la espera
+     * @throws IllegalStateException si la cola está cerrada
+     */
+    public <T> Future<T> enviaGlobal(Callable<T> comando) throws InterruptedException {
+        synchronized (this) {
+            this.compruebaAbierta();
+        }
+        this.global.plazas.acquire();
+        synchronized (this) {
+            if (this.cerrada) {
+                this.global.plazas.release();
+                this.compruebaAbierta();
+            }
+            List<CompletableFuture<?>> anteriores = new ArrayList<>(this.carriles.size() + 1);
+            anteriores.add(this.barrera);
+            for (Carril carril : this.carriles.values()) {
+                if (!carril.ultima.isDone()) {
+                    anteriores.add(carril.ultima);
+                }
+            }
+            CompletableFuture<T> tarea = this.encadena(
+                    CompletableFuture.allOf(anteriores.toArray(new CompletableFuture<?>[0])), comando, this.global);
+            this.barrera = tarea;
+            return tarea;
+        }
+    }
+
+    /**
+     * Deja de admitir comandos y espera a que terminen los ya enviados
+     *
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    public void cierra() throws InterruptedException {
+        List<CompletableFuture<?>> pendientes = new ArrayList<>();
+        synchronized (this) {
+            this.cerrada = true;
+            pendientes.add(this.barrera);
+            for (Carril carril : this.carriles.values()) {
+                pendientes.add(carril.ultima);
+            }
+        }
+        try {
+            CompletableFuture.allOf(pendientes.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            // Los errores de los comandos ya se devuelven en sus Future
+        }
+        this.ejecutor.shutdown();
+        this.ejecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    private void compruebaAbierta() {
+        if (this.cerrada) {
+            throw new IllegalStateException("La cola de comandos está cerrada.");
+        }
+    }
+
+    /**
+     * Crea la tarea que ejecuta un comando cuando termina otra (haya terminado
+     * bien o con error), y libera su plaza en el carril al acabar
+     */
+    private <T> CompletableFuture<T> encadena(CompletableFuture<?> anterior, Callable<T> comando, Carril carril) {
+        CompletableFuture<T> tarea = anterior
+                .handle((resultado, error) -> null)
+                .thenApplyAsync(nada -> {
+                    try {
+                        return comando.call();
+                    } catch (RuntimeException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, this.ejecutor);
+        tarea.whenComplete((resultado, error) -> carril.plazas.release());
+        return tarea;
+    }
+
+    /**
+     * Comandos de una tabla, o los globales, que se ejecutan uno tras otro
+     */
+    private static final class Carril {
+
+        /**
+         * Plazas libres para comandos pendientes
+         */
+        private final Semaphore plazas;
+
+        /**
+         * Último comando enviado al carril, que debe esperar el siguiente
+         */
+        private CompletableFuture<?> ultima;
+
+        private Carril(int capacidad) {
+            this.plazas = new Semaphore(capacidad);
+            this.ultima = CompletableFuture.completedFuture(null);
+        }
+    }
+}
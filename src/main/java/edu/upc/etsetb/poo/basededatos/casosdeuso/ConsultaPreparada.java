@@ -0,0 +1,127 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.Criterio;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * Consulta ({@link Controlador#CMD_BUSCA} o {@link Controlador#CMD_ELIMINA})
+ * interpretada una sola vez, que se puede ejecutar tantas veces como se quiera
+ * con distintos valores (ver {@link Controlador#prepara(String, String, String)}
+ * y {@link Controlador#ejecuta(ConsultaPreparada, String)}).</p>
+ *
+ * <p>
+ * El criterio de la consulta puede tener un valor fijo o el parámetro
+ * {@link #PARAMETRO}, que se sustituye por el valor indicado al ejecutarla. Los
+ * últimos {@link #MAX_CRITERIOS} criterios creados se guardan por valor, de
+ * modo que ejecutar la consulta con un valor ya usado no vuelve a crear el
+ * {@link Criterio} (ni, en los criterios numéricos, a convertir el valor a
+ * número).</p>
+ */
+public class ConsultaPreparada {
+
+    /**
+     * Valor del criterio que indica que se indicará al ejecutar la consulta
+     */
+    public static final String PARAMETRO = "?";
+
+    /**
+     * Número máximo de criterios guardados por valor
+     */
+    public static final int MAX_CRITERIOS = 16;
+
+    /**
+     * Nombre de la tabla sobre la que se ejecuta la consulta
+     */
+    private final String nombreTabla;
+
+    /**
+     * Comando a ejecutar: {@link Controlador#CMD_BUSCA} o
+     * {@link Controlador#CMD_ELIMINA}
+     */
+    private final String comando;
+
+    /**
+     * Clave del criterio
+     */
+    private final String nombreClave;
+
+    /**
+     * Operador del criterio (ver {@link Controlador#SIMB_IGUAL} y siguientes)
+     */
+    private final String operador;
+
+    /**
+     * Valor fijo del criterio, o <code>null</code> si es el
+     * {@link #PARAMETRO}
+     */
+    private final String valor;
+
+    /**
+     * Criterios ya creados, por valor y en orden de uso
+     */
+    private final Map<String, Criterio> criterios;
+
+    ConsultaPreparada(String nombreTabla, String comando, String nombreClave, String operador,
+            String valor) {
+        this.nombreTabla = nombreTabla;
+        this.comando = comando;
+        this.nombreClave = nombreClave;
+        this.operador = operador;
+        this.valor = PARAMETRO.equals(valor) ? null : valor;
+        this.criterios = new LinkedHashMap<String, Criterio>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Criterio> masAntiguo) {
+                return this.size() > MAX_CRITERIOS;
+            }
+        };
+    }
+
+    /**
+     * Devuelve el criterio de la consulta para un valor del parámetro
+     *
+     * @param valorParametro valor que sustituye al {@link #PARAMETRO}; se
+     * ignora si la consulta no tiene parámetro
+     * @return el criterio, o <code>null</code> si el criterio es numérico y el
+     * valor no es un número
+     */
+    public Criterio getCriterio(String valorParametro) {
+        String valorCriterio = this.valor != null ? this.valor : valorParametro;
+        Criterio criterio = this.criterios.get(valorCriterio);
+        if (criterio == null) {
+            criterio = Controlador.creaCriterio(this.operador, this.nombreClave, valorCriterio);
+            if (criterio != null) {
+                this.criterios.put(valorCriterio, criterio);
+            }
+        }
+        return criterio;
+    }
+
+    /**
+     * Indica si el criterio de la consulta tiene el {@link #PARAMETRO}
+     *
+     * @return <code>true</code> si hay que dar un valor al ejecutarla
+     */
+    public boolean tieneParametro() {
+        return this.valor == null;
+    }
+
+    /**
+     * Nombre de la tabla sobre la que se ejecuta la consulta
+     *
+     * @return nombre de la tabla
+     */
+    public String getNombreTabla() {
+        return this.nombreTabla;
+    }
+
+    /**
+     * Comando que ejecuta la consulta
+     *
+     * @return {@link Controlador#CMD_BUSCA} o {@link Controlador#CMD_ELIMINA}
+     */
+    public String getComando() {
+        return this.comando;
+    }
+}
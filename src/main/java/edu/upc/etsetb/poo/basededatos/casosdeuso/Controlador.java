@@ -1,9 +1,28 @@
 package edu.upc.etsetb.poo.basededatos.casosdeuso;
 
+import edu.upc.etsetb.poo.basededatos.casosdeuso.agregacion.Acumulador;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.agregacion.TablaGrupos;
 import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.Criterio;
 import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioContiene;
 import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioIgual;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioMayorQue;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioMenorQue;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.cache.CacheResultados;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.csv.EscritorCsv;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.csv.LectorCsv;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.estadisticas.Estadisticas;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.estadisticas.Histograma;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.orden.FilasOrdenadas;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.orden.OrdenacionExterna;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.union.EsquemaUnion;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.union.UnionHash;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.union.UnionMezcla;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.vista.Vista;
+import edu.upc.etsetb.poo.basededatos.dominio.BaseDatosException;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Explicacion;
 import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Plegado;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Seleccion;
 import edu.upc.etsetb.poo.basededatos.dominio.tabla.Tabla;
 import edu.upc.etsetb.poo.basededatos.dominio.esquema.Esquema;
 import edu.upc.etsetb.poo.basededatos.dominio.esquema.Clave;
@@ -11,9 +30,23 @@ import edu.upc.etsetb.poo.basededatos.dominio.esquema.ClaveYaExisteException;
 import edu.upc.etsetb.poo.basededatos.dominio.tabla.ClaveInexistenteException;
 import edu.upc.etsetb.poo.basededatos.dominio.tabla.ValorClaveUnicaException;
 import edu.upc.etsetb.poo.basededatos.iu.InterfazUsuario;
-import java.io.FileWriter;
-import java.io.PrintWriter;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Controlador de la base de datos, que guardará las diferentes tablas y
@@ -69,6 +102,14 @@ public class Controlador {
      */
     public static final String SIMB_MENOR_QUE = "<";
 
+    /**
+     * Símbolos que encierran, en una búsqueda, la lista de columnas a mostrar,
+     * separadas por {@link #SIMB_SEPARA_COLUMNAS}
+     */
+    public static final String SIMB_ABRE_PROYECCION = "[";
+    public static final String SIMB_CIERRA_PROYECCION = "]";
+    public static final String SIMB_SEPARA_COLUMNAS = ",";
+
 
     /**
      * Cuando se muestran las filas de una tabla, el ancho de la columna (en
@@ -76,6 +117,91 @@ public class Controlador {
      */
     public static final int ANCHO_COLUMNA = 15;
 
+    /**
+     * Ancho máximo (en carácteres) que puede tomar una columna cuando su ancho
+     * se calcula automáticamente (opción {@link #OPC_ANCHO_AUTO})
+     */
+    public static final int ANCHO_MAXIMO_COLUMNA = 40;
+
+    /**
+     * Número de filas del resultado que se examinan para calcular el ancho de
+     * las columnas con la opción {@link #OPC_ANCHO_AUTO}
+     */
+    public static final int MUESTRA_ANCHO = 100;
+
+    /**
+     * Número de filas por página cuando se pide una página sin indicar su
+     * tamaño
+     */
+    public static final int TAMAÑO_PAGINA = 20;
+
+    /**
+     * Opción del comando 'busca' que indica qué página del resultado mostrar
+     */
+    public static final String OPC_PAGINA = "pagina";
+
+    /**
+     * Opción del comando 'busca' que indica cuántas filas tiene cada página
+     */
+    public static final String OPC_TAMAÑO = "tamaño";
+
+    /**
+     * Opción del comando 'busca' que indica cómo calcular el ancho de las
+     * columnas
+     */
+    public static final String OPC_ANCHO = "ancho";
+
+    /**
+     * Valor de la opción {@link #OPC_ANCHO} que pide calcular el ancho de cada
+     * columna a partir de una muestra de las filas
+     */
+    public static final String OPC_ANCHO_AUTO = "auto";
+
+    /**
+     * Tamaño (en carácteres) del buffer con el que se escribe cada tabla al
+     * exportarla
+     */
+    private static final int TAMAÑO_BUFFER_EXPORTA = 1 << 16;
+
+    /**
+     * Número máximo de filas que se ordenan a la vez en memoria al exportar
+     * una tabla ordenada. Si la tabla tiene más, se ordena por tramos en
+     * disco (ver {@link OrdenacionExterna}).
+     */
+    public static final int MAX_FILAS_ORDENACION = 100_000;
+
+    /**
+     * Número máximo de búsquedas cuyo resultado se guarda en la caché de
+     * resultados
+     */
+    public static final int CACHE_MAX_BUSQUEDAS = 256;
+
+    /**
+     * Número máximo de filas guardadas en la caché de resultados, sumando
+     * todas las búsquedas
+     */
+    public static final int CACHE_MAX_FILAS = 100_000;
+
+    /**
+     * Número máximo de criterios interpretados que se guardan para no volver a
+     * interpretarlos (ver {@link #interpretaCriterio(String[])})
+     */
+    public static final int CACHE_MAX_CRITERIOS = 256;
+
+    /**
+     * Criterios ya interpretados por {@link #interpretaCriterio(String[])}, por
+     * texto del criterio y en orden de uso. Un criterio no cambia una vez
+     * creado, así que la misma instancia sirve para todas las búsquedas con el
+     * mismo texto.
+     */
+    private static final Map<String, Criterio> CRITERIOS_INTERPRETADOS = Collections.synchronizedMap(
+            new LinkedHashMap<String, Criterio>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Criterio> masAntiguo) {
+                    return this.size() > CACHE_MAX_CRITERIOS;
+                }
+            });
+
     /**
      * Comando 'crear tabla'
      */
@@ -116,6 +242,111 @@ public class Controlador {
      */
     public static final String CMD_ORDENA = "ordena";
 
+    /**
+     * Comando 'importar datos de fichero'
+     */
+    public static final String CMD_IMPORTA = "importa";
+
+    /**
+     * Opción de los comandos 'exporta' e 'importa' que indica que el archivo
+     * está en formato CSV
+     */
+    public static final String OPC_CSV = "csv";
+
+    /**
+     * Comando 'mostrar estadísticas de los comandos ejecutados'
+     */
+    public static final String CMD_ESTADISTICAS = "estadisticas";
+
+    /**
+     * Comando 'explicar cómo se ejecuta una búsqueda'
+     */
+    public static final String CMD_EXPLICA = "explica";
+
+    /**
+     * Comando 'preparar una consulta'
+     */
+    public static final String CMD_PREPARA = "prepara";
+
+    /**
+     * Comando 'ejecutar una consulta preparada'
+     */
+    public static final String CMD_EJECUTA = "ejecuta";
+
+    /**
+     * Comando 'calcular un agregado de una columna'
+     */
+    public static final String CMD_AGREGA = "agrega";
+
+    /**
+     * Comando 'crear un índice ordenado sobre una columna'
+     */
+    public static final String CMD_INDEXA = "indexa";
+
+    /**
+     * Comando 'calcular un agregado por grupos'
+     */
+    public static final String CMD_AGRUPA = "agrupa";
+
+    /**
+     * Número de filas a partir del cual el comando {@link #CMD_AGRUPA} reparte
+     * la tabla entre varios hilos
+     */
+    public static final int UMBRAL_AGRUPA_PARALELO = 100_000;
+
+    /**
+     * Comando 'unir dos tablas por una columna'
+     */
+    public static final String CMD_UNE = "une";
+
+    /**
+     * Número de filas de la tabla menor a partir del cual el comando
+     * {@link #CMD_UNE} une por mezcla en lugar de construir un mapa
+     */
+    public static final int UMBRAL_UNE_MEZCLA = 1_000_000;
+
+    /**
+     * Comando 'crear una vista materializada'
+     */
+    public static final String CMD_VISTA = "vista";
+
+    /**
+     * Comando 'cambiar cómo se comparan los valores de una columna'
+     */
+    public static final String CMD_PLIEGA = "pliega";
+
+    /**
+     * Comando 'comprimir una tabla ordenada por una columna de texto'
+     */
+    public static final String CMD_COMPRIME = "comprime";
+
+    /**
+     * Comando 'empezar una transacción', cuyas filas añadidas no se guardan
+     * hasta {@link #CMD_CONFIRMA}
+     */
+    public static final String CMD_INICIO = "inicio";
+
+    /**
+     * Comando 'añadir de golpe las filas de un archivo'
+     */
+    public static final String CMD_CARGA = "carga";
+
+    /**
+     * Comando 'añadir todas las filas de la transacción, o ninguna'
+     */
+    public static final String CMD_CONFIRMA = "confirma";
+
+    /**
+     * Comando 'descartar las filas de la transacción'
+     */
+    public static final String CMD_ABORTA = "aborta";
+
+    /**
+     * Columna del comando {@link #CMD_AGREGA} que indica que se cuentan todas
+     * las filas (sólo con la función {@link Acumulador#CUENTA})
+     */
+    public static final String OPC_TODAS = "*";
+
     /**
      * Tablas almacenadas por el usuario. La clave del Mapa pertenece al nombre
      * de la tabla.
@@ -127,11 +358,46 @@ public class Controlador {
      */
     private InterfazUsuario iu;
 
+    /**
+     * Medidas de los comandos ejecutados, que muestra el comando
+     * {@link #CMD_ESTADISTICAS}
+     */
+    private Estadisticas estadisticas;
+
+    /**
+     * Resultados de las últimas búsquedas completas (sin paginar), que se
+     * reutilizan mientras la tabla no cambie
+     */
+    private CacheResultados cache;
+
+    /**
+     * Consultas preparadas con el comando {@link #CMD_PREPARA}, por nombre
+     */
+    private Map<String, ConsultaPreparada> preparadas;
+
+    /**
+     * Vistas creadas con el comando {@link #CMD_VISTA}, por nombre, en el
+     * orden en que se crearon. El resultado de cada una está también en
+     * {@link #tablas} con el mismo nombre.
+     */
+    private Map<String, Vista> vistas;
+
+    /**
+     * Filas añadidas durante la transacción abierta con {@link #CMD_INICIO},
+     * por nombre de tabla y en el orden en que se añadieron, o
+     * <code>null</code> si no hay ninguna transacción abierta
+     */
+    private Map<String, List<FilaDatos>> pendientes;
+
     /**
      * Constructor sin argumentos que crea un nuevo mapa vacío
      */
     public Controlador() {
         this.tablas = new HashMap<>();
+        this.estadisticas = new Estadisticas();
+        this.cache = new CacheResultados(CACHE_MAX_BUSQUEDAS, CACHE_MAX_FILAS);
+        this.preparadas = new HashMap<>();
+        this.vistas = Collections.synchronizedMap(new LinkedHashMap<>());
     }
     
     /**
@@ -177,14 +443,20 @@ public class Controlador {
      *                 "duración" }</code>
      */
     public void crearTabla(String[] palabras) {
+        long inicio = System.nanoTime();
+        this.ejecutaCrea(palabras);
+        this.registra(CMD_CREA_TABLA, palabras, 0, 0, inicio);
+    }
+
+    private int ejecutaCrea(String[] palabras) {
          if (palabras.length < 3) {
             iu.println("Error en formato del comando.");
-            return;
+            return 0;
         }
         String nombreTabla = palabras[0];
         if (tablas.containsKey(nombreTabla)) {
             iu.println("Una tabla con ese nombre ya existe.");
-            return;
+            return 0;
         }
 
         Esquema esquema = new Esquema();
@@ -195,13 +467,14 @@ public class Controlador {
                 esquema.addClave(new Clave(nombreClave, esUnica));
             } catch (ClaveYaExisteException e) {
                 iu.println("Error: " + e.getMessage());
-                return;
+                return 0;
             }
         }
 
         Tabla nuevaTabla = new Tabla(nombreTabla, esquema);
         tablas.put(nombreTabla, nuevaTabla);
         iu.println("Tabla " + nombreTabla + " creada con éxito.");
+        return 0;
     }
 
     /**
@@ -224,6 +497,10 @@ public class Controlador {
      * mensaje <code>Error añadiendo datos</code>.</p>
      *
      * <p>
+     * Si hay una transacción abierta (ver {@link #iniciar(String[])}), la
+     * fila no se añade todavía: queda pendiente hasta que se confirme.</p>
+     *
+     * <p>
      * Para facilitar la tarea, asumiremos que los pares clave-valor son cadenas
      * alfanuméricas sin espacios en blanco</p>
      *
@@ -234,36 +511,146 @@ public class Controlador {
      *
      */
     public void anyadir(String[] palabras) {
+        long inicio = System.nanoTime();
+        int filas = this.ejecutaAnyade(palabras);
+        this.registra(CMD_AÑADE, palabras, 0, filas, inicio);
+    }
+
+    private int ejecutaAnyade(String[] palabras) {
             if (palabras.length < 3) {
             iu.println("Error en formato del comando.");
-            return;
+            return 0;
         }
         String nombreTabla = palabras[0];
         Tabla tabla = tablas.get(nombreTabla);
         if (tabla == null) {
             iu.println("La tabla " + nombreTabla + " no existe.");
-            return;
+            return 0;
         }
+        if (this.esVista(nombreTabla)) {
+            return 0;
+        }
+
+        FilaDatos fila = interpretaFila(palabras, 2);
+        if (fila == null) {
+            iu.println("Error en formato del comando.");
+            return 0;
+        }
+
+        if (this.pendientes != null) {
+            this.pendientes.computeIfAbsent(nombreTabla, k -> new ArrayList<>()).add(fila);
+            iu.println("Fila pendiente de añadir a la tabla " + nombreTabla + ".");
+            return 0;
+        }
+        try {
+            tabla.anyade(fila);
+            iu.println("Fila añadida a la tabla " + nombreTabla + ".");
+        } catch (ValorClaveUnicaException | ClaveInexistenteException e) {
+            iu.println("Error: " + e.getMessage());
+            return 0;
+        }
+        return 1;
+    }
 
+    /**
+     * Crea una fila a partir de pares <code>clave=valor</code>
+     *
+     * @param pares palabras con los pares
+     * @param desde posición del primer par
+     * @return la fila, o <code>null</code> si algún par no tiene el formato
+     * correcto
+     */
+    private static FilaDatos interpretaFila(String[] pares, int desde) {
         FilaDatos fila = new FilaDatos();
-        for (int i = 2; i < palabras.length; i++) {
-            String[] par = palabras[i].split("=");
+        for (int i = desde; i < pares.length; i++) {
+            String[] par = pares[i].split("=");
             if (par.length != 2) {
-                iu.println("Error en formato del comando.");
-                return;
+                return null;
             }
             fila.put(par[0], par[1]);
         }
+        return fila;
+    }
+
+    /**
+     * <p>
+     * Gestiona el comando 'carga': añade a una tabla, todas de golpe con
+     * {@link Tabla#anyadeTodas(List)}, las filas de un archivo de texto. Cada
+     * línea no vacía del archivo es una fila, con los mismos pares
+     * <code>clave=valor</code> separados por espacios que el comando
+     * {@link #CMD_AÑADE}. Si alguna fila no se puede añadir, no se añade
+     * ninguna.</p>
+     *
+     * <p>
+     * Si hay una transacción abierta (ver {@link #iniciar(String[])}), las
+     * filas quedan pendientes hasta que se confirme.</p>
+     *
+     * <p>
+     * Formato: <code>nombreTabla carga nombreArchivo</code></p>
+     *
+     * @param palabras Un array con las diferentes palabras que el usuario ha
+     * introducido en la línea de comandos, que conforman la orden completa, por
+     * ejemplo: <code>{ "coches", "carga", "coches.txt" }</code>
+     */
+    public void cargar(String[] palabras) {
+        long inicio = System.nanoTime();
+        int filas = this.ejecutaCarga(palabras);
+        this.registra(CMD_CARGA, palabras, 0, filas, inicio);
+    }
+
+    private int ejecutaCarga(String[] palabras) {
+        if (palabras.length != 3) {
+            iu.println("Error en formato del comando.");
+            return 0;
+        }
+        String nombreTabla = palabras[0];
+        Tabla tabla = tablas.get(nombreTabla);
+        if (tabla == null) {
+            iu.println("La tabla " + nombreTabla + " no existe.");
+            return 0;
+        }
+        if (this.esVista(nombreTabla)) {
+            return 0;
+        }
 
+        List<FilaDatos> lote = new ArrayList<>();
+        try (BufferedReader lector = Files.newBufferedReader(Paths.get(palabras[2]), StandardCharsets.UTF_8)) {
+            int numLinea = 0;
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                numLinea++;
+                linea = linea.trim();
+                if (linea.isEmpty()) {
+                    continue;
+                }
+                FilaDatos fila = interpretaFila(linea.split("\\s+"), 0);
+                if (fila == null) {
+                    iu.println("Error en formato de la línea " + numLinea + ".");
+                    return 0;
+                }
+                lote.add(fila);
+            }
+        } catch (IOException e) {
+            iu.println("Error al leer el archivo: " + e.getMessage());
+            return 0;
+        }
+
+        if (this.pendientes != null) {
+            this.pendientes.computeIfAbsent(nombreTabla, k -> new ArrayList<>()).addAll(lote);
+            iu.println(lote.size() + " fila(s) pendiente(s) de añadir a la tabla " + nombreTabla + ".");
+            return 0;
+        }
         try {
-            tabla.anyade(fila);
-            iu.println("Fila añadida a la tabla " + nombreTabla + ".");
+            tabla.anyadeTodas(lote);
         } catch (ValorClaveUnicaException | ClaveInexistenteException e) {
             iu.println("Error: " + e.getMessage());
+            iu.println("No se ha añadido ninguna fila.");
+            return 0;
         }
+        iu.println(lote.size() + " fila(s) añadida(s) a la tabla " + nombreTabla + ".");
+        return lote.size();
     }
 
-
     /**
      * Retorna una lista con los nombres de las claves de una tabla dada
      *
@@ -292,7 +679,14 @@ public class Controlador {
      *
      * <p>
      * El comando debe considerar el operador de criterio que el usuario
-     * especifique: {@link #SIMB_IGUAL} o {@link #SIMB_CONTIENE}</p>
+     * especifique: {@link #SIMB_IGUAL}, {@link #SIMB_CONTIENE},
+     * {@link #SIMB_MAYOR_QUE} o {@link #SIMB_MENOR_QUE}. Si hay varios, cuenta
+     * el primero, y el resto forma parte del valor.</p>
+     *
+     * <p>
+     * Los criterios interpretados se guardan (hasta
+     * {@link #CACHE_MAX_CRITERIOS}) y se devuelven directamente si se vuelve a
+     * pedir el mismo texto.</p>
      *
      * <p>
      * Para facilitar la tarea, asumiremos que los criterios de búsqueda son
@@ -308,21 +702,86 @@ public class Controlador {
             return null; // Formato incorrecto del comando.
         }
         String criterioTexto = palabras[2];
-        String[] partes = criterioTexto.split("=", 2);
-        if (partes.length < 2) {
-            return null; // Falta el valor para comparar.
+        Criterio criterio = CRITERIOS_INTERPRETADOS.get(criterioTexto);
+        if (criterio == null) {
+            int posicion = posicionOperador(criterioTexto);
+            if (posicion < 0) {
+                return null; // Falta el operador.
+            }
+            criterio = creaCriterio(criterioTexto.substring(posicion, posicion + 1),
+                    criterioTexto.substring(0, posicion), criterioTexto.substring(posicion + 1));
+            if (criterio != null) {
+                CRITERIOS_INTERPRETADOS.put(criterioTexto, criterio);
+            }
+        }
+        return criterio;
+    }
+
+    /**
+     * Posición del primer operador de criterio ({@link #SIMB_IGUAL},
+     * {@link #SIMB_CONTIENE}, {@link #SIMB_MAYOR_QUE} o
+     * {@link #SIMB_MENOR_QUE}) en el texto de un criterio
+     *
+     * @param criterioTexto texto del criterio, por ejemplo
+     * <code>título#Padrino</code>
+     * @return la posición del operador, o -1 si no hay ninguno
+     */
+    static int posicionOperador(String criterioTexto) {
+        for (int i = 0; i < criterioTexto.length(); i++) {
+            if ((SIMB_IGUAL + SIMB_CONTIENE + SIMB_MAYOR_QUE + SIMB_MENOR_QUE)
+                    .indexOf(criterioTexto.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Interpreta la lista de columnas a mostrar de una búsqueda, por ejemplo
+     * <code>[marca,modelo]</code>
+     *
+     * @param texto la lista, entre {@link #SIMB_ABRE_PROYECCION} y
+     * {@link #SIMB_CIERRA_PROYECCION}
+     * @return los nombres de las columnas, o <code>null</code> si la lista
+     * está vacía o tiene algún nombre vacío
+     */
+    static List<String> interpretaProyeccion(String texto) {
+        String lista = texto.substring(SIMB_ABRE_PROYECCION.length(),
+                texto.length() - SIMB_CIERRA_PROYECCION.length());
+        List<String> columnas = new ArrayList<>();
+        for (String columna : lista.split(SIMB_SEPARA_COLUMNAS, -1)) {
+            if (columna.isEmpty()) {
+                return null;
+            }
+            columnas.add(columna);
         }
-        String clave = partes[0];
-        String valor = partes[1];
-            if (criterioTexto.contains(SIMB_IGUAL)) {
+        return columnas;
+    }
+
+    /**
+     * Crea el {@link Criterio} correspondiente a un operador
+     *
+     * @param operador uno de {@link #SIMB_IGUAL}, {@link #SIMB_CONTIENE},
+     * {@link #SIMB_MAYOR_QUE} o {@link #SIMB_MENOR_QUE}
+     * @param clave nombre de la clave del criterio
+     * @param valor valor a comprobar
+     * @return el criterio, o <code>null</code> si el operador no existe o el
+     * valor de un criterio numérico no es un número
+     */
+    static Criterio creaCriterio(String operador, String clave, String valor) {
+        try {
+            if (SIMB_IGUAL.equals(operador)) {
                 return new CriterioIgual(clave, valor);
-                } else if (criterioTexto.contains(SIMB_CONTIENE)) {
-                    return new CriterioContiene(clave, valor);
-                } else if (criterioTexto.contains(SIMB_MAYOR_QUE)) {
-                    // Implementación pendiente del CriterioMayorQue
-                } else if (criterioTexto.contains(SIMB_MENOR_QUE)) {
-                    // Implementación pendiente del CriterioMenorQue
+            } else if (SIMB_CONTIENE.equals(operador)) {
+                return new CriterioContiene(clave, valor);
+            } else if (SIMB_MAYOR_QUE.equals(operador)) {
+                return new CriterioMayorQue(clave, valor);
+            } else if (SIMB_MENOR_QUE.equals(operador)) {
+                return new CriterioMenorQue(clave, valor);
             }
+        } catch (NumberFormatException e) {
+            // El valor de un criterio numérico no es un número
+        }
         return null;
     }
 
@@ -382,6 +841,43 @@ public class Controlador {
      * =================================================
      * </pre>
      *
+     * <p>
+     * Detrás del criterio (o en su lugar) se pueden añadir las opciones
+     * <code>pagina N</code> y <code>tamaño M</code>, que muestran sólo la
+     * página N (empezando por 1) del resultado con M filas por página
+     * ({@link #TAMAÑO_PAGINA} si no se indica; si sólo se indica el tamaño, se
+     * muestra la primera página). N y M deben ser enteros positivos. En ese caso la tabla se recorre
+     * con {@link Tabla#buscaPagina(Criterio, int, int)} y sólo se guardan las
+     * filas de esa página. La opción <code>ancho auto</code> calcula el ancho
+     * de cada columna a partir de las primeras {@link #MUESTRA_ANCHO} filas en
+     * lugar de usar {@link #ANCHO_COLUMNA}. Por ejemplo:
+     * <code>coches busca marca=Seat pagina 2 tamaño 10 ancho auto</code></p>
+     *
+     * <p>
+     * Se pueden dar varios criterios, y se buscan las filas que los cumplen
+     * todos. La búsqueda se hace por pasos sobre las posiciones de las filas
+     * (ver {@link Tabla#selecciona(Criterio)} y
+     * {@link Tabla#filtra(Seleccion, Criterio)}): cada criterio se evalúa sólo
+     * en las filas que cumplen los anteriores, y sólo se obtienen las filas
+     * que se muestran (ver {@link Tabla#materializa(Seleccion, int, int)}).
+     * Por ejemplo: <code>coches busca marca=Seat año&gt;2015</code></p>
+     *
+     * <p>
+     * Delante de los criterios se puede dar la lista de columnas a mostrar,
+     * entre {@link #SIMB_ABRE_PROYECCION} y {@link #SIMB_CIERRA_PROYECCION} y
+     * separadas por {@link #SIMB_SEPARA_COLUMNAS}, sin espacios. Las filas
+     * devueltas sólo tienen esas columnas, y si la tabla está comprimida las
+     * demás no se leen (ver
+     * {@link Tabla#materializa(Seleccion, int, int, List)}). Por ejemplo:
+     * <code>coches busca [marca,modelo] marca=Seat</code></p>
+     *
+     * <p>
+     * Los resultados de las búsquedas sin paginar ni lista de columnas con un
+     * solo criterio se guardan en una
+     * {@link CacheResultados}, de modo que repetir la misma búsqueda sobre una
+     * tabla a la que no se han añadido, eliminado ni ordenado filas no la
+     * vuelve a recorrer.</p>
+     *
      * @param palabras Un array con las diferentes palabras que el usuario ha
      * introducido en la línea de comandos, que conforman la orden completa, por
      * ejemplo: <code>{ "alumnos", "busca", "apellido=Pérez"}</code>
@@ -389,6 +885,13 @@ public class Controlador {
      * si se intenta buscar en una tabla que NO existe
      */
     public List<FilaDatos> buscar(String[] palabras) {
+        long inicio = System.nanoTime();
+        List<FilaDatos> resultado = this.ejecutaBusca(palabras);
+        this.registra(CMD_BUSCA, palabras, 0, resultado.size(), inicio);
+        return resultado;
+    }
+
+    private List<FilaDatos> ejecutaBusca(String[] palabras) {
        if (palabras.length < 2) {
             iu.println("Error en formato del comando.");
             return new ArrayList<>();
@@ -400,79 +903,1161 @@ public class Controlador {
                 return new ArrayList<>();
             }
 
-        Criterio criterio = palabras.length > 2 ? interpretaCriterio(palabras) : null;
-        List<FilaDatos> resultado = tabla.busca(criterio);
+        // Separa los criterios de las opciones de paginación y de ancho
+        List<String> criteriosTexto = new ArrayList<>();
+        List<String> proyeccion = null;
+        int pagina = 0;
+        int tamaño = 0;
+        boolean anchoAuto = false;
+        try {
+            for (int i = 2; i < palabras.length; i++) {
+                if (OPC_PAGINA.equals(palabras[i]) && i + 1 < palabras.length) {
+                    pagina = leePositivo(palabras[++i]);
+                } else if (OPC_TAMAÑO.equals(palabras[i]) && i + 1 < palabras.length) {
+                    tamaño = leePositivo(palabras[++i]);
+                } else if (OPC_ANCHO.equals(palabras[i]) && i + 1 < palabras.length
+                        && OPC_ANCHO_AUTO.equals(palabras[i + 1])) {
+                    anchoAuto = true;
+                    i++;
+                } else if (proyeccion == null && palabras[i].startsWith(SIMB_ABRE_PROYECCION)
+                        && palabras[i].endsWith(SIMB_CIERRA_PROYECCION)) {
+                    proyeccion = interpretaProyeccion(palabras[i]);
+                    if (proyeccion == null) {
+                        iu.println("Error en formato del comando.");
+                        return new ArrayList<>();
+                    }
+                } else {
+                    criteriosTexto.add(palabras[i]);
+                }
+            }
+        } catch (NumberFormatException e) {
+            iu.println("Error en formato del comando.");
+            return new ArrayList<>();
+        }
+        if (tamaño == 0) {
+            tamaño = TAMAÑO_PAGINA;
+        } else if (pagina == 0) {
+            pagina = 1;
+        }
+
+        if (proyeccion != null) {
+            for (String columna : proyeccion) {
+                if (!tabla.getEsquema().getCampos().containsKey(columna)) {
+                    iu.println("La columna " + columna + " no existe.");
+                    return new ArrayList<>();
+                }
+            }
+        }
+
+        List<Criterio> criterios = new ArrayList<>();
+        for (String criterioTexto : criteriosTexto) {
+            Criterio criterio = interpretaCriterio(new String[]{palabras[0], palabras[1], criterioTexto});
+            if (criterio == null) {
+                iu.println("Error en formato del criterio.");
+                return new ArrayList<>();
+            }
+            criterios.add(criterio);
+        }
+        Criterio criterio = criterios.isEmpty() ? null : criterios.get(0);
+        List<FilaDatos> resultado;
+        if (criterios.size() > 1 || proyeccion != null) {
+            Seleccion seleccion = tabla.selecciona(criterio);
+            for (int i = 1; i < criterios.size(); i++) {
+                seleccion = tabla.filtra(seleccion, criterios.get(i));
+            }
+            int desde = pagina > 0 ? (int) Math.min(Integer.MAX_VALUE, (long) (pagina - 1) * tamaño) : 0;
+            int hasta = pagina > 0 ? (int) Math.min(Integer.MAX_VALUE, (long) desde + tamaño) : seleccion.getNumFilas();
+            try {
+                resultado = proyeccion != null
+                        ? tabla.materializa(seleccion, desde, hasta, proyeccion)
+                        : tabla.materializa(seleccion, desde, hasta);
+            } catch (ClaveInexistenteException e) {
+                iu.println("Error: " + e.getMessage());
+                return new ArrayList<>();
+            }
+        } else {
+            resultado = pagina > 0
+                    ? tabla.buscaPagina(criterio, pagina, tamaño)
+                    : this.cache.busca(nombreTabla, tabla, criterio);
+        }
             if (resultado.isEmpty()) {
                 iu.println("No se encontraron filas que cumplan el criterio.");
             } else {
-                List<String> cabeceras = tabla.getCabeceras();
-                iu.presentaResultados(cabeceras, resultado);
+                List<String> cabeceras = proyeccion != null ? proyeccion : tabla.getCabeceras();
+                if (pagina > 0) {
+                    iu.println("Página " + pagina + " (" + tamaño + " filas por página)");
+                }
+                if (anchoAuto) {
+                    iu.presentaResultados(cabeceras, resultado, calculaAnchos(cabeceras, resultado));
+                } else {
+                    iu.presentaResultados(cabeceras, resultado);
+                }
             }
         return resultado;
     }
-    
+
     /**
      * <p>
-     * Gestiona el comando 'elimina'. Para la tabla especificada por el usuario,
-     * elimina todas las filas que cumplan con el criterio.</p>
+     * Gestiona el comando 'explica': ejecuta la misma búsqueda que el comando
+     * {@link #CMD_BUSCA}, muestra las filas encontradas y, a continuación, el
+     * plan que se ha seguido y su coste (ver
+     * {@link Tabla#explica(Criterio)}): el camino de acceso (recorrido completo
+     * de la tabla o índice de una clave única), las filas que se esperaba
+     * examinar y devolver frente a las realmente examinadas y devueltas, y el
+     * tiempo empleado en evaluar el criterio, en construir la lista de
+     * resultados y en presentarlos por pantalla.</p>
      *
      * <p>
-     * Elimina las filas de la tabla cuyo nombre está en
-     * <code>palabras[0]</code> que cumplan el criterio especificado. Una vez
-     * eliminadas ordenará al interfaz de usuario presentar un mensaje que
-     * indique el número de filas eliminadas. Si la tabla no existe, ordenará al
-     * interfaz de usuario presentar un mensaje que lo indique. Si el comando
-     * tiene un error de formato (un criterio erróneo) ordenará al interfaz de
-     * usuario presentar un mensaje que lo indique.</p>
+     * Formato: <code>nombreTabla explica</code> ó
+     * <code>nombreTabla explica criterio</code>, con el criterio escrito como en
+     * el comando {@link #CMD_BUSCA}.</p>
      *
      * <p>
-     * Formato: <code>nombreTabla elimina clave#valor</code> ó
-     * <code>clave=valor</code></p>
+     * Ejemplo:</p>
+     * <pre>COMANDO&gt; coches explica matricula=1234BCD
+     * ...
+     * Plan: índice hash sobre la clave única 'matricula'
+     * Filas examinadas: 1 estimadas, 1 reales
+     * Filas devueltas: 1 estimadas, 1 reales
+     * Tiempo (µs): evaluación 2.1, materialización 0.4, presentación 35.0
+     * </pre>
      *
-     * <p>
-     * Si el usuario no introduce criterio, o éste es erróneo, muestra el
-     * mensaje <code>Error en formato del comando</code>.</p>
+     * @param palabras Un array con las diferentes palabras que el usuario ha
+     * introducido en la línea de comandos, que conforman la orden completa, por
+     * ejemplo: <code>{ "coches", "explica", "marca=Seat"}</code>
+     */
+    public void explicar(String[] palabras) {
+        long inicio = System.nanoTime();
+        int filas = this.ejecutaExplica(palabras);
+        this.registra(CMD_EXPLICA, palabras, 0, filas, inicio);
+    }
+
+    private int ejecutaExplica(String[] palabras) {
+        if (palabras.length < 2 || palabras.length > 3) {
+            iu.println("Error en formato del comando.");
+            return 0;
+        }
+        String nombreTabla = palabras[0];
+        Tabla tabla = tablas.get(nombreTabla);
+        if (tabla == null) {
+            iu.println("La tabla " + nombreTabla + " no existe.");
+            return 0;
+        }
+        Criterio criterio = null;
+        if (palabras.length == 3) {
+            criterio = interpretaCriterio(palabras);
+            if (criterio == null) {
+                iu.println("Error en formato del comando.");
+                return 0;
+            }
+        }
+
+        Explicacion explicacion = tabla.explica(criterio);
+        long inicioPresentacion = System.nanoTime();
+        if (explicacion.getResultado().isEmpty()) {
+            iu.println("No se encontraron filas que cumplan el criterio.");
+        } else {
+            iu.presentaResultados(tabla.getCabeceras(), explicacion.getResultado());
+        }
+        long presentacion = System.nanoTime() - inicioPresentacion;
+
+        iu.println("Plan: " + explicacion.getRuta());
+        iu.println("Filas examinadas: " + explicacion.getFilasExaminadasEstimadas() + " estimadas, "
+                + explicacion.getFilasExaminadas() + " reales");
+        iu.println("Filas devueltas: " + explicacion.getFilasDevueltasEstimadas() + " estimadas, "
+                + explicacion.getFilasDevueltas() + " reales");
+        iu.println("Tiempo (µs): evaluación " + microsegundos(explicacion.getNanosEvaluacion())
+                + ", materialización " + microsegundos(explicacion.getNanosMaterializacion())
+                + ", presentación " + microsegundos(presentacion));
+        return explicacion.getResultado().size();
+    }
+
+    /**
+     * Lee el valor de las opciones {@link #OPC_PAGINA} y {@link #OPC_TAMAÑO}
+     *
+     * @param texto el valor
+     * @return el valor como entero
+     * @throws NumberFormatException si no es un entero positivo
+     */
+    private static int leePositivo(String texto) {
+        int valor = Integer.parseInt(texto);
+        if (valor < 1) {
+            throw new NumberFormatException(texto);
+        }
+        return valor;
+    }
+
+    /**
+     * Calcula el ancho de cada columna a partir de la longitud de su cabecera y
+     * de los valores de las primeras {@link #MUESTRA_ANCHO} filas, sin pasar de
+     * {@link #ANCHO_MAXIMO_COLUMNA}
+     *
+     * @param cabeceras nombres de las columnas a mostrar
+     * @param filas filas que se van a mostrar
+     * @return el ancho de cada columna, en el orden de <code>cabeceras</code>
+     */
+    private static int[] calculaAnchos(List<String> cabeceras, List<FilaDatos> filas) {
+        int[] anchos = new int[cabeceras.size()];
+        int muestra = Math.min(filas.size(), MUESTRA_ANCHO);
+        for (int i = 0; i < anchos.length; i++) {
+            String cabecera = cabeceras.get(i);
+            int ancho = Math.max(1, cabecera.length());
+            for (int j = 0; j < muestra; j++) {
+                String valor = filas.get(j).get(cabecera);
+                if (valor != null && valor.length() > ancho) {
+                    ancho = valor.length();
+                }
+            }
+            anchos[i] = Math.min(ancho, ANCHO_MAXIMO_COLUMNA);
+        }
+        return anchos;
+    }
+    
+    /**
+     * <p>
+     * Gestiona el comando 'elimina'. Para la tabla especificada por el usuario,
+     * elimina todas las filas que cumplan con el criterio.</p>
+     *
+     * <p>
+     * Elimina las filas de la tabla cuyo nombre está en
+     * <code>palabras[0]</code> que cumplan el criterio especificado. Una vez
+     * eliminadas ordenará al interfaz de usuario presentar un mensaje que
+     * indique el número de filas eliminadas. Si la tabla no existe, ordenará al
+     * interfaz de usuario presentar un mensaje que lo indique. Si el comando
+     * tiene un error de formato (un criterio erróneo) ordenará al interfaz de
+     * usuario presentar un mensaje que lo indique.</p>
+     *
+     * <p>
+     * Formato: <code>nombreTabla elimina clave#valor</code> ó
+     * <code>clave=valor</code></p>
+     *
+     * <p>
+     * Si el usuario no introduce criterio, o éste es erróneo, muestra el
+     * mensaje <code>Error en formato del comando</code>.</p>
+     *
+     * <p>
+     * Puede usarse el método auxiliar {@link #interpretaCriterio(String[])}</p>
+     *
+     * <p>
+     * Para facilitar la tarea, asumiremos que los criterios son cadenas
+     * alfanuméricas sin espacios en blanco</p>
+     *
+     * @param palabras Un array con las diferentes palabras que el usuario ha
+     * introducido en la línea de comandos, que conforman la orden completa, por
+     * ejemplo: <code>{ "alumnos", "elimina", "apellido=garcia"}</code>
+     * 
+     * @return la lista de filas eliminadas si se ha eliminado alguna fila. Una 
+     * lista vacía si hay un error en el formato del comando o si el comando 
+     * contiene el nombre de una tabla que no existe
+     */
+    public List<FilaDatos> eliminar(String[] palabras) {
+        long inicio = System.nanoTime();
+        List<FilaDatos> filasEliminadas = this.ejecutaElimina(palabras);
+        this.registra(CMD_ELIMINA, palabras, 0, filasEliminadas.size(), inicio);
+        return filasEliminadas;
+    }
+
+    private List<FilaDatos> ejecutaElimina(String[] palabras) {
+       if (palabras.length < 3) {
+        iu.println("Error en formato del comando.");
+        return new ArrayList<>();
+       }
+        String nombreTabla = palabras[0];
+        Tabla tabla = tablas.get(nombreTabla);
+        if (tabla == null) {
+            iu.println("La tabla " + nombreTabla + " no existe.");
+            return new ArrayList<>();
+        }
+        if (this.esVista(nombreTabla)) {
+            return new ArrayList<>();
+        }
+
+        Criterio criterio = interpretaCriterio(palabras);
+        if (criterio == null) {
+            iu.println("Error en formato del criterio.");
+            return new ArrayList<>();
+        }
+
+        List<FilaDatos> filasEliminadas = tabla.elimina(criterio);
+        if (filasEliminadas.isEmpty()) {
+            iu.println("No se eliminaron filas que cumplan el criterio.");
+        } else {
+            iu.println(filasEliminadas.size() + " fila(s) eliminada(s).");
+        }
+        return filasEliminadas;
+    }
+
+    /**
+     * <p>
+     * Gestiona el comando 'agrega': calcula una función de agregado
+     * ({@link Acumulador#FUNCIONES}) sobre los valores de una columna en las
+     * filas que cumplen un criterio, y muestra el resultado como una tabla de
+     * una fila.</p>
+     *
+     * <p>
+     * Las filas se recorren una sola vez con {@link Tabla#cursor(Criterio)}, sin
+     * construir la lista de resultados; para contar filas
+     * ({@link #OPC_TODAS}) basta con sus posiciones (ver
+     * {@link Tabla#selecciona(Criterio)}). Si no hay criterio, la función es
+     * {@link Acumulador#MINIMO} o {@link Acumulador#MAXIMO} y la columna tiene
+     * índice ordenado (comando {@link #CMD_INDEXA}), el resultado se obtiene del
+     * índice sin recorrer la tabla.</p>
+     *
+     * <p>
+     * Formato: <code>nombreTabla agrega funcion columna [criterio]</code>, donde
+     * la columna puede ser {@link #OPC_TODAS} con la función
+     * {@link Acumulador#CUENTA} para contar filas. Por ejemplo:
+     * <code>multas agrega suma cuantía marca=Seat</code></p>
+     *
+     * @param palabras Un array con las diferentes palabras que el usuario ha
+     * introducido en la línea de comandos, que conforman la orden completa
+     */
+    public void agregar(String[] palabras) {
+        long inicio = System.nanoTime();
+        int filas = this.ejecutaAgrega(palabras);
+        this.registra(CMD_AGREGA, palabras, 0, filas, inicio);
+    }
+
+    private int ejecutaAgrega(String[] palabras) {
+        if (palabras.length < 4 || palabras.length > 5 || !Acumulador.FUNCIONES.contains(palabras[2])) {
+            iu.println("Error en formato del comando.");
+            return 0;
+        }
+        String nombreTabla = palabras[0];
+        Tabla tabla = tablas.get(nombreTabla);
+        if (tabla == null) {
+            iu.println("La tabla " + nombreTabla + " no existe.");
+            return 0;
+        }
+        String funcion = palabras[2];
+        String columna = palabras[3];
+        boolean todas = OPC_TODAS.equals(columna) && Acumulador.CUENTA.equals(funcion);
+        if (!todas && !tabla.getEsquema().getCampos().containsKey(columna)) {
+            iu.println("La columna " + columna + " no existe.");
+            return 0;
+        }
+        Criterio criterio = null;
+        if (palabras.length == 5) {
+            criterio = interpretaCriterio(new String[]{palabras[0], palabras[1], palabras[4]});
+            if (criterio == null) {
+                iu.println("Error en formato del criterio.");
+                return 0;
+            }
+        }
+
+        String resultado;
+        int recorridas = 0;
+        if (criterio == null && tabla.tieneIndiceOrdenado(columna) && Acumulador.MINIMO.equals(funcion)) {
+            resultado = tabla.minimo(columna);
+        } else if (criterio == null && tabla.tieneIndiceOrdenado(columna) && Acumulador.MAXIMO.equals(funcion)) {
+            resultado = tabla.maximo(columna);
+        } else if (todas) {
+            // Sólo se cuentan las filas: basta con sus posiciones
+            recorridas = criterio == null ? tabla.getNumFilas() : tabla.selecciona(criterio).getNumFilas();
+            resultado = Integer.toString(recorridas);
+        } else {
+            Acumulador acumulador = new Acumulador(funcion);
+            Iterator<FilaDatos> it = tabla.cursor(criterio);
+            while (it.hasNext()) {
+                FilaDatos fila = it.next();
+                acumulador.acumula(fila.get(columna));
+                recorridas++;
+            }
+            resultado = acumulador.resultado();
+        }
+
+        String cabecera = funcion + "(" + columna + ")";
+        if (resultado == null) {
+            iu.println("No se encontraron valores para calcular " + cabecera + ".");
+            return recorridas;
+        }
+        FilaDatos fila = new FilaDatos();
+        fila.put(cabecera, resultado);
+        List<String> cabeceras = Collections.singletonList(cabecera);
+        List<FilaDatos> filas = Collections.singletonList(fila);
+        iu.presentaResultados(cabeceras, filas, calculaAnchos(cabeceras, filas));
+        return recorridas;
+    }
+
+    /**
+     * <p>
+     * Gestiona el comando 'agrupa': agrupa las filas que cumplen un criterio
+     * por el valor de una columna y calcula, para cada grupo, una función de
+     * agregado ({@link Acumulador#FUNCIONES}) sobre otra columna. Muestra una
+     * fila por grupo, en el orden en que aparece cada grupo en la tabla.</p>
+     *
+     * <p>
+     * Los grupos se guardan en una {@link TablaGrupos}. Si la tabla tiene al
+     * menos {@link #UMBRAL_AGRUPA_PARALELO} filas, las que cumplen el criterio
+     * se eligen con {@link Tabla#selecciona(Criterio)} (que aprovecha los
+     * índices, los filtros de Bloom y los mapas de zona) y, si también son al
+     * menos {@link #UMBRAL_AGRUPA_PARALELO}, la selección se reparte en tantos
+     * trozos como procesadores, cada hilo agrupa su trozo en su propia
+     * {@link TablaGrupos} y al final se combinan en orden.</p>
+     *
+     * <p>
+     * Formato:
+     * <code>nombreTabla agrupa columnaGrupo funcion columna [criterio]</code>,
+     * donde la columna puede ser {@link #OPC_TODAS} con la función
+     * {@link Acumulador#CUENTA}. Por ejemplo:
+     * <code>multas agrupa matricula suma cuantía</code></p>
+     *
+     * @param palabras Un array con las diferentes palabras que el usuario ha
+     * introducido en la línea de comandos, que conforman la orden completa
+     */
+    public void agrupar(String[] palabras) {
+        long inicio = System.nanoTime();
+        int filas = this.ejecutaAgrupa(palabras);
+        this.registra(CMD_AGRUPA, palabras, 0, filas, inicio);
+    }
+
+    private int ejecutaAgrupa(String[] palabras) {
+        if (palabras.length < 5 || palabras.length > 6 || !Acumulador.FUNCIONES.contains(palabras[3])) {
+            iu.println("Error en formato del comando.");
+            return 0;
+        }
+        String nombreTabla = palabras[0];
+        Tabla tabla = tablas.get(nombreTabla);
+        if (tabla == null) {
+            iu.println("La tabla " + nombreTabla + " no existe.");
+            return 0;
+        }
+        String columnaGrupo = palabras[2];
+        String funcion = palabras[3];
+        String columna = palabras[4];
+        boolean todas = OPC_TODAS.equals(columna) && Acumulador.CUENTA.equals(funcion);
+        for (String nombre : new String[]{columnaGrupo, todas ? columnaGrupo : columna}) {
+            if (!tabla.getEsquema().getCampos().containsKey(nombre)) {
+                iu.println("La columna " + nombre + " no existe.");
+                return 0;
+            }
+        }
+        Criterio criterio = null;
+        if (palabras.length == 6) {
+            criterio = interpretaCriterio(new String[]{palabras[0], palabras[1], palabras[5]});
+            if (criterio == null) {
+                iu.println("Error en formato del criterio.");
+                return 0;
+            }
+        }
+
+        int procesadores = Runtime.getRuntime().availableProcessors();
+        Seleccion seleccion = null;
+        if (tabla.getNumFilas() >= UMBRAL_AGRUPA_PARALELO && procesadores > 1) {
+            seleccion = tabla.selecciona(criterio);
+        }
+        TablaGrupos grupos;
+        if (seleccion != null && seleccion.getNumFilas() >= UMBRAL_AGRUPA_PARALELO) {
+            try {
+                grupos = agrupaEnParalelo(tabla, seleccion, columnaGrupo, funcion,
+                        todas ? null : columna, procesadores);
+            } catch (ExecutionException e) {
+                iu.println("Error al agrupar la tabla: " + e.getCause().getMessage());
+                return 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                iu.println("Error al agrupar la tabla: " + e.getMessage());
+                return 0;
+            }
+        } else {
+            grupos = new TablaGrupos(funcion);
+            Iterator<FilaDatos> it = seleccion != null
+                    ? tabla.materializa(seleccion, 0, seleccion.getNumFilas()).iterator()
+                    : tabla.cursor(criterio);
+            while (it.hasNext()) {
+                FilaDatos fila = it.next();
+                grupos.acumula(fila.get(columnaGrupo), todas ? OPC_TODAS : fila.get(columna));
+            }
+        }
+
+        if (grupos.getNumGrupos() == 0) {
+            iu.println("No se encontraron filas que cumplan el criterio.");
+            return 0;
+        }
+        List<String> cabeceras = Arrays.asList(columnaGrupo, funcion + "(" + columna + ")");
+        List<FilaDatos> filas = new ArrayList<>(grupos.getNumGrupos());
+        for (int i = 0; i < grupos.getNumGrupos(); i++) {
+            FilaDatos fila = new FilaDatos();
+            if (grupos.getClave(i) != null) {
+                fila.put(cabeceras.get(0), grupos.getClave(i));
+            }
+            String resultado = grupos.getAcumulador(i).resultado();
+            if (resultado != null) {
+                fila.put(cabeceras.get(1), resultado);
+            }
+            filas.add(fila);
+        }
+        iu.presentaResultados(cabeceras, filas, calculaAnchos(cabeceras, filas));
+        return filas.size();
+    }
+
+    /**
+     * Agrupa las filas de una selección repartiéndola en trozos consecutivos,
+     * uno por hilo, y combina los resultados parciales en el orden de los
+     * trozos, de modo que los grupos quedan en el mismo orden que al
+     * agruparlas en un solo hilo. Cada hilo obtiene las filas de su trozo con
+     * {@link Tabla#materializa(Seleccion, int, int)}.
+     *
+     * @param tabla tabla de las filas
+     * @param seleccion filas a agrupar
+     * @param columnaGrupo columna de agrupación
+     * @param funcion función de agregado
+     * @param columna columna a agregar, o <code>null</code> para contar filas
+     * @param hilos número de hilos
+     * @return los grupos
+     * @throws ExecutionException si falla algún hilo
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    static TablaGrupos agrupaEnParalelo(Tabla tabla, Seleccion seleccion,
+            String columnaGrupo, String funcion, String columna, int hilos)
+            throws ExecutionException, InterruptedException {
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<TablaGrupos>> parciales = new ArrayList<>();
+            int numFilas = seleccion.getNumFilas();
+            int tamañoTrozo = (numFilas + hilos - 1) / hilos;
+            for (int desde = 0; desde < numFilas; desde += tamañoTrozo) {
+                int inicioTrozo = desde;
+                int finTrozo = Math.min(desde + tamañoTrozo, numFilas);
+                parciales.add(ejecutor.submit(() -> {
+                    TablaGrupos parcial = new TablaGrupos(funcion);
+                    for (FilaDatos fila : tabla.materializa(seleccion, inicioTrozo, finTrozo)) {
+                        parcial.acumula(fila.get(columnaGrupo),
+                                columna == null ? OPC_TODAS : fila.get(columna));
+                    }
+                    return parcial;
+                }));
+            }
+            TablaGrupos grupos = new TablaGrupos(funcion);
+            for (Future<TablaGrupos> parcial : parciales) {
+                grupos.combina(parcial.get());
+            }
+            return grupos;
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * <p>
+     * Gestiona el comando 'une': muestra las filas resultantes de unir cada
+     * fila de una tabla con las filas de otra que tienen el mismo valor
+     * (distinguiendo mayúsculas de minúsculas) en la columna de unión. Las
+     * columnas del resultado son las de las dos tablas (ver
+     * {@link EsquemaUnion}).</p>
+     *
+     * <p>
+     * El método de unión se elige automáticamente:</p>
+     * <ul>
+     * <li>Si la columna de unión de alguna de las tablas tiene clave única, se
+     * busca en su índice recorriendo la otra (si las dos la tienen, se recorre
+     * la menor), con {@link UnionHash}.</li>
+     * <li>Si no, y las dos columnas tienen índice ordenado (ver
+     * {@link #indexar(String[])}), se mezclan los recorridos de los dos
+     * índices con {@link UnionMezcla}.</li>
+     * <li>Si no, y la tabla menor tiene al menos {@link #UMBRAL_UNE_MEZCLA}
+     * filas, se ordenan las dos tablas por la columna de unión y se mezclan
+     * con {@link UnionMezcla}, para no construir un mapa con tantas
+     * filas.</li>
+     * <li>Si no, se construye un mapa con la tabla menor y se recorre la
+     * mayor, con {@link UnionHash}.</li>
+     * </ul>
+     *
+     * <p>
+     * Las filas unidas se presentan a medida que se generan, sin guardarlas en
+     * una lista.</p>
+     *
+     * <p>
+     * Formato: <code>nombreTabla1 une nombreTabla2 columna</code>, o
+     * <code>nombreTabla1 une nombreTabla2 columna1=columna2</code> si la
+     * columna se llama distinto en cada tabla. Por ejemplo:
+     * <code>multas une coches matricula</code></p>
+     *
+     * @param palabras Un array con las diferentes palabras que el usuario ha
+     * introducido en la línea de comandos, que conforman la orden completa
+     */
+    public void unir(String[] palabras) {
+        long inicio = System.nanoTime();
+        long filas = this.ejecutaUne(palabras);
+        this.registra(CMD_UNE, palabras, 0, filas, inicio);
+    }
+
+    private long ejecutaUne(String[] palabras) {
+        if (palabras.length != 4) {
+            iu.println("Error en formato del comando.");
+            return 0;
+        }
+        String nombreIzquierda = palabras[0];
+        String nombreDerecha = palabras[2];
+        for (String nombreTabla : new String[]{nombreIzquierda, nombreDerecha}) {
+            if (!tablas.containsKey(nombreTabla)) {
+                iu.println("La tabla " + nombreTabla + " no existe.");
+                return 0;
+            }
+        }
+        Tabla izquierda = tablas.get(nombreIzquierda);
+        Tabla derecha = tablas.get(nombreDerecha);
+        int posicion = palabras[3].indexOf(SIMB_IGUAL);
+        String columnaIzquierda = posicion < 0 ? palabras[3] : palabras[3].substring(0, posicion);
+        String columnaDerecha = posicion < 0 ? palabras[3] : palabras[3].substring(posicion + 1);
+        if (!izquierda.getEsquema().getCampos().containsKey(columnaIzquierda)) {
+            iu.println("La columna " + columnaIzquierda + " no existe en la tabla " + nombreIzquierda + ".");
+            return 0;
+        }
+        if (!derecha.getEsquema().getCampos().containsKey(columnaDerecha)) {
+            iu.println("La columna " + columnaDerecha + " no existe en la tabla " + nombreDerecha + ".");
+            return 0;
+        }
+
+        EsquemaUnion esquema = new EsquemaUnion(nombreIzquierda, izquierda.getCabeceras(), columnaIzquierda,
+                nombreDerecha, derecha.getCabeceras(), columnaDerecha);
+        boolean izquierdaMenor = izquierda.getNumFilas() <= derecha.getNumFilas();
+        boolean hayUnica = izquierda.esUnica(columnaIzquierda) || derecha.esUnica(columnaDerecha);
+        Iterator<FilaDatos> union;
+        String metodo;
+        if (!hayUnica && izquierda.tieneIndiceOrdenado(columnaIzquierda)
+                && derecha.tieneIndiceOrdenado(columnaDerecha)) {
+            union = new UnionMezcla(esquema, izquierda.recorridoOrdenado(columnaIzquierda), columnaIzquierda,
+                    derecha.recorridoOrdenado(columnaDerecha), columnaDerecha, Tabla::comparaOrdenIndice);
+            metodo = "mezcla de los índices ordenados";
+        } else if (!hayUnica && Math.min(izquierda.getNumFilas(), derecha.getNumFilas()) >= UMBRAL_UNE_MEZCLA) {
+            union = new UnionMezcla(esquema, UnionMezcla.ordenadas(izquierda, columnaIzquierda), columnaIzquierda,
+                    UnionMezcla.ordenadas(derecha, columnaDerecha), columnaDerecha, String::compareTo);
+            metodo = "mezcla ordenada";
+        } else {
+            // Se busca en la tabla con índice de clave única (la mayor, si las
+            // dos lo tienen) o, si ninguna lo tiene, se construye el mapa con la menor
+            boolean construyeDerecha;
+            if (derecha.esUnica(columnaDerecha) && (izquierdaMenor || !izquierda.esUnica(columnaIzquierda))) {
+                construyeDerecha = true;
+            } else if (izquierda.esUnica(columnaIzquierda)) {
+                construyeDerecha = false;
+            } else {
+                construyeDerecha = !izquierdaMenor;
+            }
+            UnionHash hash = construyeDerecha
+                    ? new UnionHash(esquema, izquierda, columnaIzquierda, derecha, columnaDerecha, true)
+                    : new UnionHash(esquema, derecha, columnaDerecha, izquierda, columnaIzquierda, false);
+            union = hash;
+            metodo = (hash.usaIndice() ? "índice de clave única de la tabla " : "hash sobre la tabla ")
+                    + (construyeDerecha ? nombreDerecha : nombreIzquierda);
+        }
+        if (!union.hasNext()) {
+            iu.println("No se encontraron filas que unir.");
+            return 0;
+        }
+        int[] anchos = new int[esquema.getCabeceras().size()];
+        Arrays.fill(anchos, ANCHO_COLUMNA);
+        long filas = iu.presentaResultados(esquema.getCabeceras(), union, anchos);
+        iu.println(filas + " fila(s) unida(s) mediante " + metodo + ".");
+        return filas;
+    }
+
+    /**
+     * <p>
+     * Gestiona el comando 'indexa': crea un índice ordenado sobre una columna
+     * de una tabla (ver {@link Tabla#indexa(String)}), que el comando
+     * {@link #CMD_AGREGA} usa para obtener el mínimo y el máximo de la columna
+     * sin recorrer la tabla. Las vistas no se pueden indexar, porque sus filas
+     * las gestiona la vista.</p>
+     *
+     * <p>
+     * Formato: <code>nombreTabla indexa columna</code></p>
+     *
+     * @param palabras Un array con las diferentes palabras que el usuario ha
+     * introducido en la línea de comandos, que conforman la orden completa
+     */
+    public void indexar(String[] palabras) {
+        if (palabras.length != 3) {
+            iu.println("Error en formato del comando.");
+            return;
+        }
+        String nombreTabla = palabras[0];
+        Tabla tabla = tablas.get(nombreTabla);
+        if (tabla == null) {
+            iu.println("La tabla " + nombreTabla + " no existe.");
+            return;
+        }
+        if (this.esVista(nombreTabla)) {
+            return;
+        }
+        try {
+            tabla.indexa(palabras[2]);
+            iu.println("Índice ordenado creado sobre la columna " + palabras[2]
+                    + " de la tabla " + nombreTabla + ".");
+        } catch (ClaveInexistenteException e) {
+            iu.println("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * <p>
+     * Gestiona el comando 'pliega': cambia cómo se comparan los valores de una
+     * columna de una tabla en los criterios de igualdad y de contención (ver
+     * {@link Tabla#pliega(String, Plegado)}): sin distinguir mayúsculas de
+     * minúsculas ({@link Plegado#MAYUSCULAS}, por defecto) o sin distinguir
+     * tampoco acentos ({@link Plegado#ACENTOS}). Las columnas de las vistas
+     * no se pueden plegar.</p>
+     *
+     * <p>
+     * Formato: <code>nombreTabla pliega columna mayusculas|acentos</code></p>
+     *
+     * @param palabras Un array con las diferentes palabras que el usuario ha
+     * introducido en la línea de comandos, que conforman la orden completa
+     */
+    public void plegar(String[] palabras) {
+        Plegado plegado = palabras.length == 4 ? Plegado.deNombre(palabras[3]) : null;
+        if (plegado == null) {
+            iu.println("Error en formato del comando.");
+            return;
+        }
+        String nombreTabla = palabras[0];
+        Tabla tabla = tablas.get(nombreTabla);
+        if (tabla == null) {
+            iu.println("La tabla " + nombreTabla + " no existe.");
+            return;
+        }
+        if (this.esVista(nombreTabla)) {
+            return;
+        }
+        try {
+            tabla.pliega(palabras[2], plegado);
+            iu.println("La columna " + palabras[2] + " de la tabla " + nombreTabla
+                    + (plegado == Plegado.ACENTOS
+                            ? " se compara sin distinguir mayúsculas ni acentos."
+                            : " se compara sin distinguir mayúsculas."));
+        } catch (ClaveInexistenteException e) {
+            iu.println("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * <p>
+     * Gestiona el comando 'comprime': guarda comprimida una tabla ya ordenada
+     * en orden ascendente por una columna de texto (ver
+     * {@link Tabla#comprime(String)}), de modo que ocupa mucha menos memoria y
+     * las búsquedas de igualdad sobre esa columna se hacen por bisección. La
+     * tabla se vuelve a guardar sin comprimir en cuanto se modifica.</p>
+     *
+     * <p>
+     * Las filas de las vistas no se pueden comprimir, porque la vista las
+     * modifica una a una.</p>
+     *
+     * <p>
+     * Formato: <code>nombreTabla comprime columna</code></p>
+     *
+     * @param palabras Un array con las diferentes palabras que el usuario ha
+     * introducido en la línea de comandos, que conforman la orden completa
+     */
+    public void comprimir(String[] palabras) {
+        if (palabras.length != 3) {
+            iu.println("Error en formato del comando.");
+            return;
+        }
+        String nombreTabla = palabras[0];
+        Tabla tabla = tablas.get(nombreTabla);
+        if (tabla == null) {
+            iu.println("La tabla " + nombreTabla + " no existe.");
+            return;
+        }
+        if (this.esVista(nombreTabla)) {
+            return;
+        }
+        try {
+            if (tabla.comprime(palabras[2])) {
+                iu.println("La tabla " + nombreTabla + " se guarda comprimida por la columna " + palabras[2] + ".");
+            } else {
+                iu.println("La tabla " + nombreTabla + " no está ordenada por la columna " + palabras[2]
+                        + ": ordénala antes con '" + CMD_ORDENA + "'.");
+            }
+        } catch (ClaveInexistenteException e) {
+            iu.println("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * <p>
+     * Gestiona el comando 'vista': crea una vista materializada (ver
+     * {@link Vista}) con el resultado de una función de agregado
+     * ({@link Acumulador#FUNCIONES}) sobre las filas de una tabla que cumplen
+     * un criterio, agrupadas o no por una columna. La vista se guarda como una
+     * tabla más, que se puede consultar con cualquier comando que no la
+     * modifique, y se mantiene al día con cada fila que se añade o se elimina
+     * de la tabla de origen, sin volver a calcularla.</p>
+     *
+     * <p>
+     * Formato:
+     * <code>nombreVista vista nombreTabla columnaGrupo funcion columna [criterio]</code>,
+     * donde la columna de agrupación puede ser {@link #OPC_TODAS} para no
+     * agrupar, y la columna a agregar puede ser {@link #OPC_TODAS} con la
+     * función {@link Acumulador#CUENTA} para contar filas. Por ejemplo:
+     * <code>multasPorCoche vista multas matricula suma cuantía</code></p>
+     *
+     * @param palabras Un array con las diferentes palabras que el usuario ha
+     * introducido en la línea de comandos, que conforman la orden completa
+     */
+    public void crearVista(String[] palabras) {
+        long inicio = System.nanoTime();
+        int filas = this.ejecutaVista(palabras);
+        this.registra(CMD_VISTA, palabras, 0, filas, inicio);
+    }
+
+    private int ejecutaVista(String[] palabras) {
+        if (palabras.length < 6 || palabras.length > 7 || !Acumulador.FUNCIONES.contains(palabras[4])) {
+            iu.println("Error en formato del comando.");
+            return 0;
+        }
+        String nombreVista = palabras[0];
+        if (tablas.containsKey(nombreVista)) {
+            iu.println("Una tabla con ese nombre ya existe.");
+            return 0;
+        }
+        String nombreTabla = palabras[2];
+        Tabla tabla = tablas.get(nombreTabla);
+        if (tabla == null) {
+            iu.println("La tabla " + nombreTabla + " no existe.");
+            return 0;
+        }
+        String columnaGrupo = OPC_TODAS.equals(palabras[3]) ? null : palabras[3];
+        String funcion = palabras[4];
+        String columna = OPC_TODAS.equals(palabras[5]) && Acumulador.CUENTA.equals(funcion) ? null : palabras[5];
+        for (String nombre : new String[]{columnaGrupo, columna}) {
+            if (nombre != null && !tabla.getEsquema().getCampos().containsKey(nombre)) {
+                iu.println("La columna " + nombre + " no existe.");
+                return 0;
+            }
+        }
+        Criterio criterio = null;
+        if (palabras.length == 7) {
+            criterio = interpretaCriterio(new String[]{palabras[0], palabras[1], palabras[6]});
+            if (criterio == null) {
+                iu.println("Error en formato del criterio.");
+                return 0;
+            }
+        }
+
+        Vista vista = new Vista(nombreVista, tabla, criterio, columnaGrupo, funcion, columna,
+                String.join(" ", palabras));
+        this.vistas.put(nombreVista, vista);
+        tablas.put(nombreVista, vista.getResultado());
+        iu.println("Vista " + nombreVista + " creada con éxito ("
+                + vista.getResultado().getNumFilas() + " fila(s)).");
+        return vista.getResultado().getNumFilas();
+    }
+
+    /**
+     * Nombre de la tabla cuyos comandos deben ejecutarse en el mismo carril de
+     * una {@link ColaComandos} que los de una tabla dada: la propia tabla o,
+     * si es una vista, la tabla de la que se calcula (que la modifica al
+     * cambiar)
+     *
+     * @param nombreTabla nombre de la tabla
+     * @return el nombre de la tabla de la que depende
+     */
+    public String getTablaBase(String nombreTabla) {
+        Vista vista = this.vistas.get(nombreTabla);
+        while (vista != null) {
+            nombreTabla = vista.getOrigen().getNombre();
+            vista = this.vistas.get(nombreTabla);
+        }
+        return nombreTabla;
+    }
+
+    /**
+     * Indica si una tabla es el resultado de una vista, que no se puede
+     * modificar con los comandos, y en ese caso avisa al usuario
      *
+     * @param nombreTabla nombre de la tabla
+     * @return <code>true</code> si la tabla es una vista
+     */
+    private boolean esVista(String nombreTabla) {
+        if (this.vistas.containsKey(nombreTabla)) {
+            iu.println("La tabla " + nombreTabla + " es una vista y no se puede modificar.");
+            return true;
+        }
+        return false;
+    }
+
+    /**
      * <p>
-     * Puede usarse el método auxiliar {@link #interpretaCriterio(String[])}</p>
+     * Gestiona el comando 'inicio': abre una transacción. Las filas que se
+     * añadan a partir de entonces con {@link #CMD_AÑADE} quedan pendientes y
+     * se añaden todas juntas con {@link #CMD_CONFIRMA}, o ninguna si alguna no
+     * se puede añadir o se descartan con {@link #CMD_ABORTA}. El resto de
+     * comandos se ejecuta como siempre y no ve las filas pendientes.</p>
      *
      * <p>
-     * Para facilitar la tarea, asumiremos que los criterios son cadenas
-     * alfanuméricas sin espacios en blanco</p>
+     * Formato: <code>inicio</code></p>
      *
      * @param palabras Un array con las diferentes palabras que el usuario ha
-     * introducido en la línea de comandos, que conforman la orden completa, por
-     * ejemplo: <code>{ "alumnos", "elimina", "apellido=garcia"}</code>
-     * 
-     * @return la lista de filas eliminadas si se ha eliminado alguna fila. Una 
-     * lista vacía si hay un error en el formato del comando o si el comando 
-     * contiene el nombre de una tabla que no existe
+     * introducido en la línea de comandos, que conforman la orden completa
      */
-    public List<FilaDatos> eliminar(String[] palabras) {
-       if (palabras.length < 3) {
-        iu.println("Error en formato del comando.");
-        return new ArrayList<>();
-       }
-        String nombreTabla = palabras[0];
+    public void iniciar(String[] palabras) {
+        if (palabras.length != 1) {
+            iu.println("Error en formato del comando.");
+            return;
+        }
+        if (this.pendientes != null) {
+            iu.println("Ya hay una transacción abierta.");
+            return;
+        }
+        this.pendientes = Collections.synchronizedMap(new LinkedHashMap<>());
+        iu.println("Transacción iniciada.");
+    }
+
+    /**
+     * <p>
+     * Gestiona el comando 'confirma': añade las filas pendientes de la
+     * transacción abierta, todas o ninguna. Las filas de cada tabla se añaden
+     * como un solo lote con {@link Tabla#anyadeTodas(List)}, que comprueba las
+     * claves únicas una sola vez contra los índices y entre las filas del
+     * lote. Si la transacción toca varias tablas, antes de añadir ninguna se
+     * comprueban todos los lotes con {@link Tabla#validaLote(List)}. Si alguna fila no se puede añadir, o alguna tabla ya no existe, no se
+     * añade ninguna y la transacción se cierra igualmente.</p>
+     *
+     * <p>
+     * Formato: <code>confirma</code></p>
+     *
+     * @param palabras Un array con las diferentes palabras que el usuario ha
+     * introducido en la línea de comandos, que conforman la orden completa
+     */
+    public void confirmar(String[] palabras) {
+        long inicio = System.nanoTime();
+        int filas = this.ejecutaConfirma(palabras);
+        this.registra(CMD_CONFIRMA, palabras, 0, filas, inicio);
+    }
+
+    private int ejecutaConfirma(String[] palabras) {
+        if (palabras.length != 1) {
+            iu.println("Error en formato del comando.");
+            return 0;
+        }
+        if (this.pendientes == null) {
+            iu.println("No hay ninguna transacción abierta.");
+            return 0;
+        }
+        Map<String, List<FilaDatos>> lotes = this.pendientes;
+        this.pendientes = null;
+        for (Map.Entry<String, List<FilaDatos>> lote : lotes.entrySet()) {
+            Tabla tabla = tablas.get(lote.getKey());
+            if (tabla == null) {
+                iu.println("La tabla " + lote.getKey() + " no existe.");
+                iu.println("Transacción abortada: no se ha añadido ninguna fila.");
+                return 0;
+            }
+            try {
+                // Con una sola tabla basta la comprobación de anyadeTodas
+                if (lotes.size() > 1) {
+                    tabla.validaLote(lote.getValue());
+                }
+            } catch (ValorClaveUnicaException | ClaveInexistenteException e) {
+                iu.println("Error: " + e.getMessage());
+                iu.println("Transacción abortada: no se ha añadido ninguna fila.");
+                return 0;
+            }
+        }
+        int filas = 0;
+        for (Map.Entry<String, List<FilaDatos>> lote : lotes.entrySet()) {
+            Tabla tabla = tablas.get(lote.getKey());
+            try {
+                tabla.anyadeTodas(lote.getValue());
+                filas += lote.getValue().size();
+            } catch (ValorClaveUnicaException | ClaveInexistenteException e) {
+                if (lotes.size() > 1) {
+                    // No puede pasar: las filas ya se han comprobado
+                    throw new IllegalStateException(e);
+                }
+                iu.println("Error: " + e.getMessage());
+                iu.println("Transacción abortada: no se ha añadido ninguna fila.");
+                return 0;
+            }
+        }
+        iu.println("Transacción confirmada: " + filas + " filas añadidas.");
+        return filas;
+    }
+
+    /**
+     * <p>
+     * Gestiona el comando 'aborta': cierra la transacción abierta descartando
+     * sus filas pendientes.</p>
+     *
+     * <p>
+     * Formato: <code>aborta</code></p>
+     *
+     * @param palabras Un array con las diferentes palabras que el usuario ha
+     * introducido en la línea de comandos, que conforman la orden completa
+     */
+    public void abortar(String[] palabras) {
+        if (palabras.length != 1) {
+            iu.println("Error en formato del comando.");
+            return;
+        }
+        if (this.pendientes == null) {
+            iu.println("No hay ninguna transacción abierta.");
+            return;
+        }
+        int filas = 0;
+        for (List<FilaDatos> lote : this.pendientes.values()) {
+            filas += lote.size();
+        }
+        this.pendientes = null;
+        iu.println("Transacción abortada: " + filas + " filas descartadas.");
+    }
+
+    /**
+     * <p>
+     * Gestiona el comando 'prepara': interpreta una consulta una sola vez y la
+     * guarda con un nombre, para ejecutarla después con el comando
+     * {@link #CMD_EJECUTA} sin volver a interpretarla.</p>
+     *
+     * <p>
+     * Formato:
+     * <code>prepara nombreConsulta nombreTabla busca|elimina criterio</code>,
+     * donde el valor del criterio puede ser {@link ConsultaPreparada#PARAMETRO}
+     * para indicarlo al ejecutar la consulta. Por ejemplo:
+     * <code>prepara porMarca coches busca marca=?</code></p>
+     *
+     * <p>
+     * Si ya había una consulta con ese nombre, se sustituye.</p>
+     *
+     * @param palabras Un array con las diferentes palabras que el usuario ha
+     * introducido en la línea de comandos, que conforman la orden completa
+     */
+    public void preparar(String[] palabras) {
+        if (palabras.length != 5) {
+            iu.println("Error en formato del comando.");
+            return;
+        }
+        ConsultaPreparada consulta = this.prepara(palabras[2], palabras[3], palabras[4]);
+        if (consulta != null) {
+            this.preparadas.put(palabras[1], consulta);
+            iu.println("Consulta " + palabras[1] + " preparada.");
+        }
+    }
+
+    /**
+     * <p>
+     * Interpreta una consulta para ejecutarla después, una o más veces, con
+     * {@link #ejecuta(ConsultaPreparada, String)}.</p>
+     *
+     * <p>
+     * Si la tabla no existe, el comando no es {@link #CMD_BUSCA} ni
+     * {@link #CMD_ELIMINA} o el criterio no es válido, lo indica por pantalla y
+     * devuelve <code>null</code>.</p>
+     *
+     * @param nombreTabla nombre de la tabla
+     * @param comando {@link #CMD_BUSCA} o {@link #CMD_ELIMINA}
+     * @param criterioTexto criterio, con el mismo formato que en
+     * {@link #interpretaCriterio(String[])}, cuyo valor puede ser
+     * {@link ConsultaPreparada#PARAMETRO}
+     * @return la consulta preparada, o <code>null</code> si no es válida
+     */
+    public ConsultaPreparada prepara(String nombreTabla, String comando, String criterioTexto) {
+        if (!CMD_BUSCA.equals(comando) && !CMD_ELIMINA.equals(comando)) {
+            iu.println("Error en formato del comando.");
+            return null;
+        }
         Tabla tabla = tablas.get(nombreTabla);
         if (tabla == null) {
             iu.println("La tabla " + nombreTabla + " no existe.");
+            return null;
+        }
+        int posicion = posicionOperador(criterioTexto);
+        if (posicion < 0) {
+            iu.println("Error en formato del criterio.");
+            return null;
+        }
+        ConsultaPreparada consulta = new ConsultaPreparada(nombreTabla, comando,
+                criterioTexto.substring(0, posicion), criterioTexto.substring(posicion, posicion + 1),
+                criterioTexto.substring(posicion + 1));
+        if (!consulta.tieneParametro() && consulta.getCriterio(null) == null) {
+            iu.println("Error en formato del criterio.");
+            return null;
+        }
+        return consulta;
+    }
+
+    /**
+     * <p>
+     * Gestiona el comando 'ejecuta': ejecuta una consulta preparada con el
+     * comando {@link #CMD_PREPARA}, mostrando el resultado igual que los
+     * comandos {@link #CMD_BUSCA} o {@link #CMD_ELIMINA}.</p>
+     *
+     * <p>
+     * Formato: <code>ejecuta nombreConsulta valor</code>, o
+     * <code>ejecuta nombreConsulta</code> si la consulta no tiene parámetro. Por
+     * ejemplo: <code>ejecuta porMarca Seat</code></p>
+     *
+     * @param palabras Un array con las diferentes palabras que el usuario ha
+     * introducido en la línea de comandos, que conforman la orden completa
+     * @return las filas encontradas o eliminadas
+     */
+    public List<FilaDatos> ejecutar(String[] palabras) {
+        if (palabras.length < 2 || palabras.length > 3) {
+            iu.println("Error en formato del comando.");
             return new ArrayList<>();
         }
+        ConsultaPreparada consulta = this.preparadas.get(palabras[1]);
+        if (consulta == null) {
+            iu.println("La consulta " + palabras[1] + " no existe.");
+            return new ArrayList<>();
+        }
+        if (consulta.tieneParametro() != (palabras.length == 3)) {
+            iu.println("Error en formato del comando.");
+            return new ArrayList<>();
+        }
+        return this.ejecuta(consulta, palabras.length == 3 ? palabras[2] : null);
+    }
+
+    /**
+     * Ejecuta una consulta preparada, mostrando el resultado igual que los
+     * comandos {@link #CMD_BUSCA} o {@link #CMD_ELIMINA}
+     *
+     * @param consulta consulta devuelta por
+     * {@link #prepara(String, String, String)}
+     * @param valor valor del parámetro, si la consulta lo tiene
+     * @return las filas encontradas o eliminadas
+     */
+    public List<FilaDatos> ejecuta(ConsultaPreparada consulta, String valor) {
+        long inicio = System.nanoTime();
+        List<FilaDatos> resultado = this.ejecutaPreparada(consulta, valor);
+        this.registra(consulta.getComando(), new String[]{consulta.getNombreTabla()}, 0,
+                resultado.size(), inicio);
+        return resultado;
+    }
 
-        Criterio criterio = interpretaCriterio(Arrays.copyOfRange(palabras, 1, palabras.length));
+    private List<FilaDatos> ejecutaPreparada(ConsultaPreparada consulta, String valor) {
+        String nombreTabla = consulta.getNombreTabla();
+        Tabla tabla = tablas.get(nombreTabla);
+        if (tabla == null) {
+            iu.println("La tabla " + nombreTabla + " no existe.");
+            return new ArrayList<>();
+        }
+        Criterio criterio = consulta.getCriterio(valor);
         if (criterio == null) {
             iu.println("Error en formato del criterio.");
             return new ArrayList<>();
         }
 
-        List<FilaDatos> filasEliminadas = tabla.elimina(criterio);
-        if (filasEliminadas.isEmpty()) {
-            iu.println("No se eliminaron filas que cumplan el criterio.");
+        if (CMD_ELIMINA.equals(consulta.getComando())) {
+            if (this.esVista(nombreTabla)) {
+                return new ArrayList<>();
+            }
+            List<FilaDatos> filasEliminadas = tabla.elimina(criterio);
+            if (filasEliminadas.isEmpty()) {
+                iu.println("No se eliminaron filas que cumplan el criterio.");
+            } else {
+                iu.println(filasEliminadas.size() + " fila(s) eliminada(s).");
+            }
+            return filasEliminadas;
+        }
+        List<FilaDatos> resultado = this.cache.busca(nombreTabla, tabla, criterio);
+        if (resultado.isEmpty()) {
+            iu.println("No se encontraron filas que cumplan el criterio.");
         } else {
-            iu.println(filasEliminadas.size() + " fila(s) eliminada(s).");
+            iu.presentaResultados(tabla.getCabeceras(), resultado);
         }
-        return filasEliminadas;
+        return resultado;
     }
 
     /**
@@ -510,28 +2095,153 @@ public class Controlador {
  coches anyade marca=Ford matricula=4566GGH modelo=Escort
  coches anyade marca=Seat matricula=4456GVG modelo=Córdoba
  </pre>
+     * <p>Cada tabla se escribe en paralelo en un archivo temporal propio, con un buffer de
+     * {@link #TAMAÑO_BUFFER_EXPORTA} carácteres y recorriendo sus filas sin copiarlas; al final
+     * los archivos temporales se concatenan en <code>archivo</code> en el orden de las tablas.</p>
+     * <p>Detrás del comando que crea cada tabla se escribe un comando {@link #CMD_PLIEGA} por cada
+     * columna que no usa el plegado por defecto, para que las búsquedas den lo mismo al importarla.</p>
+     * <p>Las vistas ({@link #CMD_VISTA}) no se exportan fila a fila: al final del archivo se escribe
+     * el comando que crea cada una, en el orden en que se crearon.</p>
      * @param archivo Nombre del archivo en el que se guardará el archivo de exportación
      */
     public void exporta(String archivo) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(archivo))) {
-            for (String nombreTabla : tablas.keySet()) {
+        long inicio = System.nanoTime();
+        int filas = this.ejecutaExporta(archivo);
+        this.registra(CMD_EXPORTA, null, 0, filas, inicio);
+    }
+
+    private int ejecutaExporta(String archivo) {
+        List<String> nombres = new ArrayList<>(tablas.keySet());
+        nombres.removeAll(this.vistas.keySet());
+        Path destino = Paths.get(archivo);
+        int numFilas = this.exportaTablas(nombres, destino);
+        // Las vistas se exportan al final con el comando que las crea, en el
+        // orden en que se crearon (una vista puede usar otra)
+        if (!this.vistas.isEmpty()) {
+            List<String> definiciones = new ArrayList<>();
+            for (Vista vista : this.vistas.values()) {
+                definiciones.add(vista.getDefinicion());
+            }
+            try {
+                Files.write(destino, definiciones, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                iu.println("Error al exportar las vistas: " + e.getMessage());
+            }
+        }
+        return numFilas;
+    }
+
+    private int exportaTablas(List<String> nombres, Path destino) {
+        if (nombres.size() <= 1) {
+            int numFilas = 0;
+            try {
+                Files.deleteIfExists(destino);
+                Files.createFile(destino);
+                for (String nombreTabla : nombres) {
+                    numFilas += exportaTabla(nombreTabla, tablas.get(nombreTabla), destino);
+                }
+            } catch (Exception e) {
+                iu.println("Error al exportar las tablas: " + e.getMessage());
+            }
+            return numFilas;
+        }
+
+        // Cada tabla se serializa en paralelo a su propio archivo temporal, y
+        // luego se concatenan en el orden de recorrido del mapa de tablas
+        List<Path> temporales = new ArrayList<>();
+        int numFilas = 0;
+        ExecutorService ejecutor = Executors.newFixedThreadPool(
+                Math.min(nombres.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            List<Future<Integer>> pendientes = new ArrayList<>();
+            for (String nombreTabla : nombres) {
                 Tabla tabla = tablas.get(nombreTabla);
-                Esquema esquema = tabla.getEsquema();
-                
-                // Exportando el esquema de la tabla
-                writer.println(nombreTabla + " crea " + esquemaComoString(esquema));
-                
-                // Exportando filas de datos
-                for (FilaDatos fila : tabla.buscaTodo()) {
-                    writer.println(nombreTabla + " añade " + filaComoString(fila, esquema));
+                Path temporal = Files.createTempFile("exporta-" + nombreTabla, ".txt");
+                temporales.add(temporal);
+                pendientes.add(ejecutor.submit(() -> exportaTabla(nombreTabla, tabla, temporal)));
+            }
+            try (FileChannel salida = FileChannel.open(destino, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (int i = 0; i < pendientes.size(); i++) {
+                    numFilas += pendientes.get(i).get();
+                    try (FileChannel entrada = FileChannel.open(temporales.get(i), StandardOpenOption.READ)) {
+                        long posicion = 0;
+                        long tamaño = entrada.size();
+                        while (posicion < tamaño) {
+                            posicion += entrada.transferTo(posicion, tamaño - posicion, salida);
+                        }
+                    }
                 }
             }
+        } catch (ExecutionException e) {
+            iu.println("Error al exportar las tablas: " + e.getCause().getMessage());
         } catch (Exception e) {
             iu.println("Error al exportar las tablas: " + e.getMessage());
+        } finally {
+            ejecutor.shutdownNow();
+            for (Path temporal : temporales) {
+                try {
+                    Files.deleteIfExists(temporal);
+                } catch (IOException e) {
+                    // El archivo temporal se quedará en el directorio temporal
+                }
+            }
         }
+        return numFilas;
     }
-    
-    private String esquemaComoString(Esquema esquema) {
+
+    /**
+     * Escribe al final del archivo <code>destino</code> los comandos que
+     * generan una tabla: el comando 'crea' con su esquema, un comando 'pliega'
+     * por cada columna que no usa el plegado por defecto (antes de las filas,
+     * para que se plieguen al añadirlas) y un comando 'añade' por fila. Las filas se leen directamente con {@link Tabla#cursor(Criterio)},
+     * sin copiarlas, y los prefijos <code>clave=</code> de cada columna se
+     * calculan una única vez por tabla.
+     *
+     * @param nombreTabla nombre de la tabla
+     * @param tabla tabla a exportar
+     * @param destino archivo al que se añaden los comandos
+     * @return el número de filas exportadas
+     * @throws IOException si no se puede escribir en el archivo
+     */
+    private static int exportaTabla(String nombreTabla, Tabla tabla, Path destino) throws IOException {
+        Esquema esquema = tabla.getEsquema();
+        List<String> cabeceras = esquema.getCabeceras();
+        String[] prefijos = new String[cabeceras.size()];
+        for (int i = 0; i < prefijos.length; i++) {
+            prefijos[i] = (i == 0 ? "" : " ") + cabeceras.get(i) + "=";
+        }
+        String inicioFila = nombreTabla + " " + CMD_AÑADE + " ";
+        int numFilas = 0;
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(destino, StandardOpenOption.APPEND), StandardCharsets.UTF_8),
+                TAMAÑO_BUFFER_EXPORTA)) {
+            writer.write(nombreTabla + " " + CMD_CREA_TABLA + " " + esquemaComoString(esquema));
+            writer.write(System.lineSeparator());
+            for (String cabecera : cabeceras) {
+                Plegado plegado = tabla.getPlegado(cabecera);
+                if (plegado != Plegado.MAYUSCULAS) {
+                    writer.write(nombreTabla + " " + CMD_PLIEGA + " " + cabecera + " " + plegado.getNombre());
+                    writer.write(System.lineSeparator());
+                }
+            }
+            Iterator<FilaDatos> it = tabla.cursor(null);
+            while (it.hasNext()) {
+                FilaDatos fila = it.next();
+                numFilas++;
+                writer.write(inicioFila);
+                for (int i = 0; i < prefijos.length; i++) {
+                    writer.write(prefijos[i]);
+                    writer.write(String.valueOf(fila.get(cabeceras.get(i))));
+                }
+                writer.write(System.lineSeparator());
+            }
+        }
+        return numFilas;
+    }
+
+    private static String esquemaComoString(Esquema esquema) {
         StringBuilder esquemaStr = new StringBuilder();
         for (String clave : esquema.getCabeceras()) {
             if (esquema.getClave(clave).isUnica()) {
@@ -542,21 +2252,194 @@ public class Controlador {
         return esquemaStr.toString().trim();
     }
 
-    private String filaComoString(FilaDatos fila, Esquema esquema) {
-        StringBuilder filaStr = new StringBuilder();
-        for (String clave : esquema.getCabeceras()) {
-            filaStr.append(clave).append("=").append(fila.get(clave)).append(" ");
+
+    /**
+     * <p>Gestiona el comando 'exporta csv': guarda el contenido de una tabla en un archivo CSV
+     * (en UTF-8, separado por comas). La primera línea contiene los nombres de las columnas
+     * según el {@link Esquema} de la tabla, con las claves únicas precedidas por
+     * {@link #SIMB_CLAVE_ÚNICA}, y cada una de las siguientes líneas una fila de la tabla.
+     * Los valores que contienen comas, comillas o saltos de línea se escriben entre comillas.</p>
+     *
+     * <p>Si se indica una columna, las filas se escriben ordenadas por ella (como con el comando
+     * {@link #CMD_ORDENA}) sin ordenar la tabla. La ordenación es externa (ver
+     * {@link OrdenacionExterna}): se ordenan en memoria tramos de como mucho
+     * {@link #MAX_FILAS_ORDENACION} filas, que se vuelcan a archivos temporales y se mezclan al
+     * escribir el CSV, de modo que la memoria necesaria no depende del tamaño de la tabla.</p>
+     *
+     * <p>Formato: <code>exporta csv nombreTabla nombreArchivo [columna [desc]]</code></p>
+     *
+     * @param palabras Array con las palabras pertenecientes a un comando, por
+     * ejemplo: <code>{ "exporta", "csv", "coches", "coches.csv" }</code> o
+     * <code>{ "exporta", "csv", "multas", "multas.csv", "cuantía", "desc" }</code>
+     */
+    public void exportaCsv(String[] palabras) {
+        long inicio = System.nanoTime();
+        int filas = this.ejecutaExportaCsv(palabras);
+        this.registra(CMD_EXPORTA, palabras, 2, filas, inicio);
+    }
+
+    private int ejecutaExportaCsv(String[] palabras) {
+        if (palabras.length < 4 || palabras.length > 6) {
+            iu.println("Error en formato del comando.");
+            return 0;
+        }
+        String nombreTabla = palabras[2];
+        Tabla tabla = tablas.get(nombreTabla);
+        if (tabla == null) {
+            iu.println("La tabla " + nombreTabla + " no existe.");
+            return 0;
+        }
+        String columnaOrden = palabras.length > 4 ? palabras[4] : null;
+        if (columnaOrden != null && !tabla.getEsquema().contieneClave(columnaOrden)) {
+            iu.println("La columna " + columnaOrden + " no existe.");
+            return 0;
+        }
+        boolean ascendente = palabras.length < 6 || !palabras[5].equals("desc");
+
+        Esquema esquema = tabla.getEsquema();
+        List<String> cabeceras = esquema.getCabeceras();
+        int numFilas = 0;
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(Paths.get(palabras[3])), StandardCharsets.UTF_8), TAMAÑO_BUFFER_EXPORTA);
+                FilasOrdenadas ordenadas = columnaOrden == null ? null
+                        : new OrdenacionExterna(cabeceras, new ComparadorFilas(columnaOrden, ascendente),
+                                MAX_FILAS_ORDENACION).ordena(tabla.cursor(null))) {
+            EscritorCsv csv = new EscritorCsv(writer);
+            for (String cabecera : cabeceras) {
+                csv.escribeCampo(esquema.getClave(cabecera).isUnica() ? SIMB_CLAVE_ÚNICA + cabecera : cabecera);
+            }
+            csv.finRegistro();
+            Iterator<FilaDatos> it = ordenadas != null ? ordenadas : tabla.cursor(null);
+            while (it.hasNext()) {
+                FilaDatos fila = it.next();
+                for (String cabecera : cabeceras) {
+                    csv.escribeCampo(fila.get(cabecera));
+                }
+                csv.finRegistro();
+                numFilas++;
+            }
+        } catch (IOException e) {
+            iu.println("Error al exportar la tabla: " + e.getMessage());
+            return 0;
+        } catch (UncheckedIOException e) {
+            iu.println("Error al exportar la tabla: " + e.getCause().getMessage());
+            return 0;
         }
-        return filaStr.toString().trim();
+        iu.println(numFilas + " fila(s) exportada(s) de la tabla " + nombreTabla + ".");
+        return numFilas;
+    }
+
+    /**
+     * <p>Gestiona el comando 'importa csv': añade a una tabla las filas de un archivo CSV con
+     * el formato que genera {@link #exportaCsv(String[])}. La primera línea del archivo indica
+     * a qué columna corresponde cada campo. Si la tabla no existe, se crea con esas columnas
+     * (las precedidas por {@link #SIMB_CLAVE_ÚNICA} serán claves únicas); si existe, todas las
+     * columnas deben estar en su {@link Esquema} y ser claves únicas si y sólo si van precedidas
+     * por {@link #SIMB_CLAVE_ÚNICA}.</p>
+     *
+     * <p>El archivo se lee con {@link LectorCsv}, que lo proyecta en memoria y no crea un
+     * <code>String</code> por línea. Las filas se añaden todas de golpe con
+     * {@link Tabla#anyadeTodas(List)}: si alguna no se puede añadir, o alguna línea no tiene el
+     * número de campos de la cabecera, no se importa ninguna (y la tabla no se crea).</p>
+     *
+     * <p>Formato: <code>importa csv nombreTabla nombreArchivo</code></p>
+     *
+     * @param palabras Array con las palabras pertenecientes a un comando, por
+     * ejemplo: <code>{ "importa", "csv", "coches", "coches.csv" }</code>
+     */
+    public void importaCsv(String[] palabras) {
+        long inicio = System.nanoTime();
+        int filas = this.ejecutaImportaCsv(palabras);
+        this.registra(CMD_IMPORTA, palabras, 2, filas, inicio);
     }
 
+    private int ejecutaImportaCsv(String[] palabras) {
+        if (palabras.length < 4) {
+            iu.println("Error en formato del comando.");
+            return 0;
+        }
+        String nombreTabla = palabras[2];
+        int numFilas = 0;
+        long linea = 1;
+        try {
+            LectorCsv csv = new LectorCsv(Paths.get(palabras[3]));
+            List<String> campos = new ArrayList<>();
+            if (!csv.siguienteRegistro(campos)) {
+                iu.println("El archivo " + palabras[3] + " está vacío.");
+                return 0;
+            }
+            String[] cabeceras = new String[campos.size()];
+            Esquema esquema = new Esquema();
+            for (int i = 0; i < cabeceras.length; i++) {
+                String campo = campos.get(i);
+                boolean esUnica = !campo.isEmpty() && campo.charAt(0) == SIMB_CLAVE_ÚNICA;
+                cabeceras[i] = esUnica ? campo.substring(1) : campo;
+                esquema.addClave(new Clave(cabeceras[i], esUnica));
+            }
+
+            if (this.esVista(nombreTabla)) {
+                return 0;
+            }
+            Tabla tabla = tablas.get(nombreTabla);
+            boolean nueva = tabla == null;
+            if (nueva) {
+                tabla = new Tabla(nombreTabla, esquema);
+            } else {
+                for (String cabecera : cabeceras) {
+                    if (!tabla.getEsquema().contieneClave(cabecera)) {
+                        throw new ClaveInexistenteException(cabecera);
+                    }
+                    if (tabla.esUnica(cabecera) != esquema.getCampos().get(cabecera).isUnica()) {
+                        iu.println("Error al importar: la columna " + cabecera
+                                + (tabla.esUnica(cabecera) ? " es" : " no es") + " clave única en la tabla "
+                                + nombreTabla + ".");
+                        iu.println("No se ha importado ninguna fila.");
+                        return 0;
+                    }
+                }
+            }
+
+            List<FilaDatos> lote = new ArrayList<>();
+            linea = csv.getLinea();
+            while (csv.siguienteRegistro(campos)) {
+                if (campos.size() != cabeceras.length) {
+                    throw new IOException("Se esperaban " + cabeceras.length + " campos y hay " + campos.size());
+                }
+                FilaDatos fila = new FilaDatos();
+                for (int i = 0; i < cabeceras.length; i++) {
+                    fila.put(cabeceras[i], campos.get(i));
+                }
+                lote.add(fila);
+                linea = csv.getLinea();
+            }
+            try {
+                tabla.anyadeTodas(lote);
+            } catch (BaseDatosException e) {
+                iu.println("Error al importar: " + e.getMessage());
+                iu.println("No se ha importado ninguna fila.");
+                return 0;
+            }
+            if (nueva) {
+                tablas.put(nombreTabla, tabla);
+                iu.println("Tabla " + nombreTabla + " creada con éxito.");
+            }
+            numFilas = lote.size();
+        } catch (IOException | BaseDatosException e) {
+            iu.println("Error al importar la línea " + linea + ": " + e.getMessage());
+            iu.println("No se ha importado ninguna fila.");
+            return 0;
+        }
+        iu.println(numFilas + " fila(s) importada(s) a la tabla " + nombreTabla + ".");
+        return numFilas;
+    }
 
     /**
      * <p>Ordena la tabla cuyo nombre coincide con <code>palabras[0]</code> según la clave cuyo nombre
      * coincide con <code>palabras[2]</code></p>
      *
      * <p>Por defecto se ordena en orden ascendente, pero si se pasa la palabra 'desc' dentro de
-     * <code>palabras[3]</code>, se ordenan en orden descendente.</p>
+     * <code>palabras[3]</code>, se ordenan en orden descendente. Las vistas no se pueden ordenar,
+     * porque sus filas las gestiona la vista.</p>
      * 
      * <p>Si la tabla cuyo nombre se pasa en el array de Strings no existe, 
      * invocar al método iu.println() con el argumento "Error. Tabla inexistente"</p>
@@ -569,30 +2452,124 @@ public class Controlador {
      * ejemplo: <code>{ "peliculas", "ordena", "título" } o { "peliculas", "ordena", "año", "desc" }</code>
      */
     public void ordenar(String[] palabras) {
+        long inicio = System.nanoTime();
+        int filas = this.ejecutaOrdena(palabras);
+        this.registra(CMD_ORDENA, palabras, 0, filas, inicio);
+    }
+
+    private int ejecutaOrdena(String[] palabras) {
         if (palabras.length < 3) {
             iu.println("Error en formato del comando.");
-            return;
+            return 0;
         }
         String nombreTabla = palabras[0];
         Tabla tabla = tablas.get(nombreTabla);
         if (tabla == null) {
             iu.println("La tabla " + nombreTabla + " no existe.");
-            return;
+            return 0;
+        }
+        if (this.esVista(nombreTabla)) {
+            return 0;
         }
         
         String columnaAOrdenar = palabras[2];
         boolean ascendente = palabras.length < 4 || !palabras[3].equals("desc");
         tabla.ordena(columnaAOrdenar, ascendente);
         iu.println("Tabla " + nombreTabla + " ordenada por " + columnaAOrdenar + (ascendente ? " (ascendente)." : " (descendente)."));
+        return tabla.getNumFilas();
     }
     
 
+    /**
+     * <p>Gestiona el comando 'estadisticas': muestra, para cada comando y para cada pareja
+     * [tabla, comando], cuántas veces se ha ejecutado, cuántas filas ha tocado en total y
+     * los percentiles 50 y 99 y el máximo de su latencia, en microsegundos.</p>
+     *
+     * <p>Las filas de la columna <code>tabla</code> con valor <code>*</code> agrupan todas las
+     * ejecuciones del comando, sea cual sea la tabla.</p>
+     *
+     * <p>Después muestra los aciertos de la caché de búsquedas y, para cada tabla cuyas búsquedas
+     * han usado filtros de Bloom (igualdad) o mapas de zona (rangos), qué parte de los bloques de
+     * filas se ha saltado.</p>
+     */
+    public void muestraEstadisticas() {
+        Map<String, Estadisticas.Medidas> porComando = this.estadisticas.getPorComando();
+        if (porComando.isEmpty()) {
+            iu.println("Todavía no se ha ejecutado ningún comando.");
+            return;
+        }
+        List<String> cabeceras = Arrays.asList("comando", "tabla", "ejecuciones", "filas",
+                "p50 (µs)", "p99 (µs)", "max (µs)");
+        List<FilaDatos> filas = new ArrayList<>();
+        for (Map.Entry<String, Estadisticas.Medidas> entry : porComando.entrySet()) {
+            filas.add(filaEstadisticas(cabeceras, entry.getKey(), "*", entry.getValue()));
+        }
+        for (Map.Entry<String, Map<String, Estadisticas.Medidas>> porTabla : this.estadisticas.getPorTabla().entrySet()) {
+            for (Map.Entry<String, Estadisticas.Medidas> entry : porTabla.getValue().entrySet()) {
+                filas.add(filaEstadisticas(cabeceras, entry.getKey(), porTabla.getKey(), entry.getValue()));
+            }
+        }
+        iu.presentaResultados(cabeceras, filas, calculaAnchos(cabeceras, filas));
+        iu.println("Caché de búsquedas: " + this.cache.getAciertos() + " aciertos, "
+                + this.cache.getFallos() + " fallos.");
+        for (Map.Entry<String, Tabla> entry : this.tablas.entrySet()) {
+            long saltados = entry.getValue().getBloquesSaltados();
+            long total = saltados + entry.getValue().getBloquesExaminados();
+            if (total > 0) {
+                iu.println("Búsquedas por bloques en la tabla " + entry.getKey() + ": " + saltados + " de " + total
+                        + " bloques saltados (" + String.format(Locale.ROOT, "%.1f", 100.0 * saltados / total) + "%).");
+            }
+        }
+    }
+
+    private static FilaDatos filaEstadisticas(List<String> cabeceras, String comando, String nombreTabla,
+            Estadisticas.Medidas medidas) {
+        Histograma latencia = medidas.getLatencia();
+        FilaDatos fila = new FilaDatos();
+        fila.put(cabeceras.get(0), comando);
+        fila.put(cabeceras.get(1), nombreTabla);
+        fila.put(cabeceras.get(2), Long.toString(medidas.getEjecuciones()));
+        fila.put(cabeceras.get(3), Long.toString(medidas.getFilas()));
+        fila.put(cabeceras.get(4), microsegundos(latencia.percentil(50)));
+        fila.put(cabeceras.get(5), microsegundos(latencia.percentil(99)));
+        fila.put(cabeceras.get(6), microsegundos(latencia.getMaximo()));
+        return fila;
+    }
+
+    private static String microsegundos(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1000.0);
+    }
+
+    /**
+     * Registra en {@link #estadisticas} una ejecución de un comando
+     *
+     * @param comando nombre del comando
+     * @param palabras palabras del comando
+     * @param posicionTabla posición del nombre de la tabla en
+     * <code>palabras</code>. Si no hay ninguna tabla con ese nombre, la
+     * ejecución sólo cuenta para el comando en general.
+     * @param filas número de filas tocadas por el comando
+     * @param inicio instante de inicio de la ejecución, según
+     * {@link System#nanoTime()}
+     */
+    private void registra(String comando, String[] palabras, int posicionTabla, long filas, long inicio) {
+        long nanos = System.nanoTime() - inicio;
+        String nombreTabla = palabras != null && palabras.length > posicionTabla
+                && tablas.containsKey(palabras[posicionTabla]) ? palabras[posicionTabla] : null;
+        this.estadisticas.registra(comando, nombreTabla, filas, nanos);
+    }
+
     public Map<String, Tabla> getTablas() {
         return tablas;
     }
 
     public void setTablas(Map<String, Tabla> tablas) {
         this.tablas = tablas;
+        this.cache.vacia();
+        for (Vista vista : this.vistas.values()) {
+            vista.desconecta();
+        }
+        this.vistas.clear();
     }
     
 }
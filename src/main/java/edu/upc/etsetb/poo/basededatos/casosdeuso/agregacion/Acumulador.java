@@ -0,0 +1,273 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.agregacion;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * Calcula una función de agregado sobre los valores de una columna, recibiendo
+ * los valores de uno en uno y sin guardarlos.</p>
+ *
+ * <p>
+ * Las funciones disponibles son:</p>
+ * <ul>
+ * <li>{@link #CUENTA}: número de valores no nulos</li>
+ * <li>{@link #SUMA} y {@link #MEDIA}: suma y media de los valores que se
+ * pueden convertir a número con {@link Double#parseDouble(String)}; el resto
+ * se ignoran</li>
+ * <li>{@link #MINIMO} y {@link #MAXIMO}: menor y mayor de los valores
+ * numéricos, comparados como números; si no hay ninguno, el primero y el
+ * último alfabéticamente de los no numéricos</li>
+ * </ul>
+ */
+public class Acumulador {
+
+    /**
+     * Función 'número de valores'
+     */
+    public static final String CUENTA = "cuenta";
+
+    /**
+     * Función 'suma de los valores'
+     */
+    public static final String SUMA = "suma";
+
+    /**
+     * Función 'media de los valores'
+     */
+    public static final String MEDIA = "media";
+
+    /**
+     * Función 'valor mínimo'
+     */
+    public static final String MINIMO = "min";
+
+    /**
+     * Función 'valor máximo'
+     */
+    public static final String MAXIMO = "max";
+
+    /**
+     * Nombres de todas las funciones disponibles
+     */
+    public static final List<String> FUNCIONES = Arrays.asList(CUENTA, SUMA, MEDIA, MINIMO, MAXIMO);
+
+    /**
+     * Función a calcular
+     */
+    private final String funcion;
+
+    /**
+     * Número de valores no nulos recibidos
+     */
+    private long cuenta;
+
+    /**
+     * Número de valores numéricos recibidos
+     */
+    private long numericos;
+
+    /**
+     * Suma de los valores numéricos, y término de compensación del error de
+     * redondeo (suma de Kahan)
+     */
+    private double suma;
+    private double compensacion;
+
+    /**
+     * Menor y mayor valor numérico recibido, y su texto original
+     */
+    private double minimoNumerico;
+    private double maximoNumerico;
+    private String textoMinimoNumerico;
+    private String textoMaximoNumerico;
+
+    /**
+     * Primer y último valor no numérico recibido, en orden alfabético
+     */
+    private String minimoTexto;
+    private String maximoTexto;
+
+    /**
+     * Instancia un acumulador vacío
+     *
+     * @param funcion una de las {@link #FUNCIONES}
+     * @throws IllegalArgumentException si la función no existe
+     */
+    public Acumulador(String funcion) {
+        if (!FUNCIONES.contains(funcion)) {
+            throw new IllegalArgumentException("La función '" + funcion + "' no existe.");
+        }
+        this.funcion = funcion;
+    }
+
+    /**
+     * Acumula un valor. Los valores <code>null</code> se ignoran.
+     *
+     * @param valor valor de la columna en una fila
+     */
+    public void acumula(String valor) {
+        if (valor == null) {
+            return;
+        }
+        this.cuenta++;
+        if (CUENTA.equals(this.funcion)) {
+            return;
+        }
+        double numero;
+        try {
+            numero = Double.parseDouble(valor);
+        } catch (NumberFormatException e) {
+            this.acumulaTexto(valor, valor);
+            return;
+        }
+        this.acumulaExtremos(numero, valor, numero, valor);
+        this.numericos++;
+        this.sumaCompensada(numero);
+    }
+
+    /**
+     * <p>
+     * Quita un valor acumulado antes, como si no se hubiera recibido. Sirve
+     * para mantener el agregado al día cuando se eliminan filas, sin volver a
+     * recorrerlas.</p>
+     *
+     * <p>
+     * Para {@link #MINIMO} y {@link #MAXIMO}, como los valores no se guardan,
+     * quitar uno de los extremos deja el acumulador sin poder saber cuál es el
+     * nuevo: en ese caso devuelve <code>false</code> y hay que volver a
+     * acumular los valores que quedan en un acumulador nuevo.</p>
+     *
+     * @param valor valor a quitar, que se debe haber acumulado antes. Los
+     * valores <code>null</code> se ignoran.
+     * @return <code>true</code> si el resultado sigue siendo correcto
+     */
+    public boolean descuenta(String valor) {
+        if (valor == null) {
+            return true;
+        }
+        this.cuenta--;
+        if (CUENTA.equals(this.funcion)) {
+            return true;
+        }
+        boolean extremos = MINIMO.equals(this.funcion) || MAXIMO.equals(this.funcion);
+        double numero;
+        try {
+            numero = Double.parseDouble(valor);
+        } catch (NumberFormatException e) {
+            return !extremos || !(valor.equals(this.minimoTexto) || valor.equals(this.maximoTexto));
+        }
+        this.numericos--;
+        if (this.numericos == 0) {
+            this.suma = 0;
+            this.compensacion = 0;
+        } else {
+            this.sumaCompensada(-numero);
+        }
+        return !extremos || !(numero == this.minimoNumerico || numero == this.maximoNumerico);
+    }
+
+    /**
+     * <p>
+     * Añade a este acumulador los valores acumulados por otro de la misma
+     * función, como si este hubiera recibido también todos sus valores. Sirve
+     * para calcular un agregado por partes (por ejemplo, en paralelo) y
+     * juntar después los resultados.</p>
+     *
+     * @param otro acumulador a combinar con este
+     * @throws IllegalArgumentException si el otro acumulador calcula otra
+     * función
+     */
+    public void combina(Acumulador otro) {
+        if (!this.funcion.equals(otro.funcion)) {
+            throw new IllegalArgumentException("No se pueden combinar " + this.funcion
+                    + " y " + otro.funcion + ".");
+        }
+        this.cuenta += otro.cuenta;
+        if (otro.numericos > 0) {
+            this.acumulaExtremos(otro.minimoNumerico, otro.textoMinimoNumerico,
+                    otro.maximoNumerico, otro.textoMaximoNumerico);
+            this.numericos += otro.numericos;
+            this.sumaCompensada(otro.suma);
+            this.sumaCompensada(-otro.compensacion);
+        }
+        if (otro.minimoTexto != null) {
+            this.acumulaTexto(otro.minimoTexto, otro.maximoTexto);
+        }
+    }
+
+    private void acumulaTexto(String minimo, String maximo) {
+        if (this.minimoTexto == null || minimo.compareTo(this.minimoTexto) < 0) {
+            this.minimoTexto = minimo;
+        }
+        if (this.maximoTexto == null || maximo.compareTo(this.maximoTexto) > 0) {
+            this.maximoTexto = maximo;
+        }
+    }
+
+    private void acumulaExtremos(double minimo, String textoMinimo, double maximo, String textoMaximo) {
+        if (this.numericos == 0 || minimo < this.minimoNumerico) {
+            this.minimoNumerico = minimo;
+            this.textoMinimoNumerico = textoMinimo;
+        }
+        if (this.numericos == 0 || maximo > this.maximoNumerico) {
+            this.maximoNumerico = maximo;
+            this.textoMaximoNumerico = textoMaximo;
+        }
+    }
+
+    /**
+     * Suma un número a {@link #suma} compensando el error de redondeo
+     *
+     * @param numero número a sumar
+     */
+    private void sumaCompensada(double numero) {
+        double y = numero - this.compensacion;
+        double t = this.suma + y;
+        this.compensacion = (t - this.suma) - y;
+        this.suma = t;
+    }
+
+    /**
+     * Resultado de la función sobre los valores acumulados
+     *
+     * @return el resultado, o <code>null</code> si no hay valores con los que
+     * calcularlo (salvo {@link #CUENTA}, que en ese caso es 0)
+     */
+    public String resultado() {
+        switch (this.funcion) {
+            case CUENTA:
+                return Long.toString(this.cuenta);
+            case SUMA:
+                return this.numericos == 0 ? null : formatea(this.suma);
+            case MEDIA:
+                return this.numericos == 0 ? null : formatea(this.suma / this.numericos);
+            case MINIMO:
+                return this.numericos > 0 ? this.textoMinimoNumerico : this.minimoTexto;
+            default:
+                return this.numericos > 0 ? this.textoMaximoNumerico : this.maximoTexto;
+        }
+    }
+
+    /**
+     * Función que calcula el acumulador
+     *
+     * @return una de las {@link #FUNCIONES}
+     */
+    public String getFuncion() {
+        return this.funcion;
+    }
+
+    /**
+     * Convierte un número a texto, sin decimales si es entero
+     *
+     * @param numero número a convertir
+     * @return el número como texto
+     */
+    private static String formatea(double numero) {
+        if (numero == Math.rint(numero) && Math.abs(numero) < 1e15) {
+            return Long.toString((long) numero);
+        }
+        return Double.toString(numero);
+    }
+}
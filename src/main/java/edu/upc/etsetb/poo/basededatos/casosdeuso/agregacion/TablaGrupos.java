@@ -0,0 +1,182 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.agregacion;
+
+import java.util.Objects;
+
+/**
+ * <p>
+ * Tabla hash de direccionamiento abierto (sondeo lineal) que asocia a cada
+ * valor de una columna de agrupación un {@link Acumulador}, para calcular un
+ * agregado por grupos recorriendo las filas una sola vez.</p>
+ *
+ * <p>
+ * Las claves y los acumuladores se guardan en dos arrays paralelos, sin crear
+ * una entrada por grupo, y la tabla dobla su capacidad cuando queda llena a la
+ * mitad. El valor <code>null</code> (filas sin valor en la columna de
+ * agrupación) forma un grupo como cualquier otro. Los grupos se recorren en
+ * el orden en que aparecieron por primera vez.</p>
+ */
+public class TablaGrupos {
+
+    /**
+     * Capacidad inicial de la tabla. Debe ser potencia de 2.
+     */
+    private static final int CAPACIDAD_INICIAL = 16;
+
+    /**
+     * Función de agregado de los acumuladores
+     */
+    private final String funcion;
+
+    /**
+     * Clave de cada posición de la tabla
+     */
+    private String[] claves;
+
+    /**
+     * Acumulador de cada posición de la tabla, o <code>null</code> si la
+     * posición está libre
+     */
+    private Acumulador[] acumuladores;
+
+    /**
+     * Posiciones ocupadas, en el orden en que se ocuparon
+     */
+    private int[] orden;
+
+    /**
+     * Número de grupos
+     */
+    private int numGrupos;
+
+    /**
+     * Instancia una tabla de grupos vacía
+     *
+     * @param funcion una de las {@link Acumulador#FUNCIONES}
+     */
+    public TablaGrupos(String funcion) {
+        this.funcion = funcion;
+        this.claves = new String[CAPACIDAD_INICIAL];
+        this.acumuladores = new Acumulador[CAPACIDAD_INICIAL];
+        this.orden = new int[CAPACIDAD_INICIAL / 2];
+    }
+
+    /**
+     * Acumula un valor en el grupo de una clave, creando el grupo si no
+     * existe
+     *
+     * @param clave valor de la columna de agrupación
+     * @param valor valor a acumular
+     */
+    public void acumula(String clave, String valor) {
+        this.acumulador(clave).acumula(valor);
+    }
+
+    /**
+     * Añade a esta tabla los grupos de otra con la misma función, combinando
+     * los acumuladores de los grupos que estén en ambas (ver
+     * {@link Acumulador#combina(Acumulador)}). Los grupos nuevos se añaden al
+     * final, en el orden de la otra tabla.
+     *
+     * @param otra tabla a combinar con esta
+     */
+    public void combina(TablaGrupos otra) {
+        for (int i = 0; i < otra.numGrupos; i++) {
+            int posicion = otra.orden[i];
+            this.acumulador(otra.claves[posicion]).combina(otra.acumuladores[posicion]);
+        }
+    }
+
+    /**
+     * Número de grupos
+     *
+     * @return número de grupos
+     */
+    public int getNumGrupos() {
+        return this.numGrupos;
+    }
+
+    /**
+     * Clave de un grupo
+     *
+     * @param i número de grupo, en orden de aparición (de 0 a
+     * {@link #getNumGrupos()} - 1)
+     * @return la clave del grupo
+     */
+    public String getClave(int i) {
+        return this.claves[this.orden[i]];
+    }
+
+    /**
+     * Acumulador de un grupo
+     *
+     * @param i número de grupo, en orden de aparición (de 0 a
+     * {@link #getNumGrupos()} - 1)
+     * @return el acumulador del grupo
+     */
+    public Acumulador getAcumulador(int i) {
+        return this.acumuladores[this.orden[i]];
+    }
+
+    /**
+     * Devuelve el acumulador de una clave, creándolo si no existe
+     *
+     * @param clave clave del grupo
+     * @return el acumulador del grupo
+     */
+    private Acumulador acumulador(String clave) {
+        int mascara = this.claves.length - 1;
+        int posicion = dispersa(clave) & mascara;
+        while (this.acumuladores[posicion] != null) {
+            if (Objects.equals(this.claves[posicion], clave)) {
+                return this.acumuladores[posicion];
+            }
+            posicion = (posicion + 1) & mascara;
+        }
+        Acumulador acumulador = new Acumulador(this.funcion);
+        this.claves[posicion] = clave;
+        this.acumuladores[posicion] = acumulador;
+        this.orden[this.numGrupos++] = posicion;
+        if (this.numGrupos == this.orden.length) {
+            this.amplia();
+        }
+        return acumulador;
+    }
+
+    /**
+     * Dobla la capacidad de la tabla y recoloca los grupos, conservando su
+     * orden de aparición
+     */
+    private void amplia() {
+        String[] clavesAntiguas = this.claves;
+        Acumulador[] acumuladoresAntiguos = this.acumuladores;
+        int[] ordenAntiguo = this.orden;
+        int capacidad = clavesAntiguas.length * 2;
+        int mascara = capacidad - 1;
+        this.claves = new String[capacidad];
+        this.acumuladores = new Acumulador[capacidad];
+        this.orden = new int[capacidad / 2];
+        for (int i = 0; i < this.numGrupos; i++) {
+            int antigua = ordenAntiguo[i];
+            int posicion = dispersa(clavesAntiguas[antigua]) & mascara;
+            while (this.acumuladores[posicion] != null) {
+                posicion = (posicion + 1) & mascara;
+            }
+            this.claves[posicion] = clavesAntiguas[antigua];
+            this.acumuladores[posicion] = acumuladoresAntiguos[antigua];
+            this.orden[i] = posicion;
+        }
+    }
+
+    /**
+     * Código hash de una clave, mezclando sus bits para que las claves
+     * parecidas no caigan en posiciones consecutivas
+     *
+     * @param clave clave, o <code>null</code>
+     * @return el código hash
+     */
+    private static int dispersa(String clave) {
+        int h = clave == null ? 0 : clave.hashCode();
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
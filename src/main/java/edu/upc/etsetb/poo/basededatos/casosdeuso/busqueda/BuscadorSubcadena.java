@@ -0,0 +1,119 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Búsqueda de una subcadena fija, preparada una vez para buscarla en muchos
+ * textos sin crear objetos. El patrón se da ya plegado, y el texto puede estar
+ * plegado también o no.</p>
+ *
+ * <p>
+ * En un texto sin plegar (ver {@link #estaEnSinMayusculas(String)}) se usa el
+ * algoritmo de Boyer-Moore-Horspool, plegando cada carácter del texto al
+ * compararlo, sin distinguir mayúsculas de minúsculas como
+ * {@link String#equalsIgnoreCase(String)}; la tabla de saltos se calcula al
+ * crear el buscador. En un texto ya plegado (ver {@link #estaEn(String)}) se
+ * usa {@link String#indexOf(String)}, que la máquina virtual compila con
+ * instrucciones vectoriales y es más rápido que Horspool en Java con patrones
+ * cortos como los de una matrícula o un modelo.</p>
+ *
+ * <p>
+ * La tabla de saltos se indexa con los 8 bits bajos de cada carácter; si dos
+ * caracteres del patrón comparten entrada, se guarda el salto menor, que es
+ * siempre seguro.</p>
+ */
+final class BuscadorSubcadena {
+
+    /**
+     * Número de entradas de la tabla de saltos
+     */
+    private static final int TAMAÑO_TABLA = 256;
+
+    /**
+     * Patrón plegado
+     */
+    private final String cadena;
+
+    /**
+     * Caracteres del patrón plegado
+     */
+    private final char[] patron;
+
+    /**
+     * Cuánto se puede avanzar la ventana según el carácter del texto alineado
+     * con el último del patrón
+     */
+    private final int[] saltos;
+
+    /**
+     * Instancia un buscador
+     *
+     * @param patron subcadena a buscar, ya plegada
+     */
+    BuscadorSubcadena(String patron) {
+        this.cadena = patron;
+        this.patron = patron.toCharArray();
+        this.saltos = new int[TAMAÑO_TABLA];
+        int m = this.patron.length;
+        Arrays.fill(this.saltos, Math.max(1, m));
+        for (int i = 0; i < m - 1; i++) {
+            this.saltos[this.patron[i] & (TAMAÑO_TABLA - 1)] = m - 1 - i;
+        }
+    }
+
+    /**
+     * Indica si el patrón aparece en un texto ya plegado
+     *
+     * @param texto texto plegado
+     * @return <code>true</code> si el texto contiene el patrón
+     */
+    boolean estaEn(String texto) {
+        return texto.indexOf(this.cadena) >= 0;
+    }
+
+    /**
+     * Indica si el patrón aparece en un texto sin plegar, plegando cada
+     * carácter del texto al compararlo
+     *
+     * @param texto texto sin plegar
+     * @return <code>true</code> si el texto contiene el patrón sin distinguir
+     * mayúsculas de minúsculas
+     */
+    boolean estaEnSinMayusculas(String texto) {
+        char[] p = this.patron;
+        int m = p.length;
+        if (m == 0) {
+            return true;
+        } else if (m == 1) {
+            for (int i = 0; i < texto.length(); i++) {
+                if (pliega(texto.charAt(i)) == p[0]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        int ultimo = texto.length() - m;
+        int i = 0;
+        while (i <= ultimo) {
+            char c = pliega(texto.charAt(i + m - 1));
+            if (c == p[m - 1]) {
+                int j = m - 2;
+                while (j >= 0 && pliega(texto.charAt(i + j)) == p[j]) {
+                    j--;
+                }
+                if (j < 0) {
+                    return true;
+                }
+            }
+            i += this.saltos[c & (TAMAÑO_TABLA - 1)];
+        }
+        return false;
+    }
+
+    private static char pliega(char c) {
+        return c < 0x80
+                ? (c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c)
+                : Character.toLowerCase(Character.toUpperCase(c));
+    }
+}
@@ -1,6 +1,7 @@
 package edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda;
 
 import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Plegado;
 
 /**
  * Clase abstracta superclase de los criterios concretos.
@@ -14,13 +15,20 @@ public abstract class Criterio {
      * Clave de la {@link FilaDatos} cuyo valor se comparará con
      * {@link #valorAComprobar}
      */
-    protected String nombreClave;
+    protected final String nombreClave;
 
     /**
      * Valor de búsqueda, a comparar con la nombreClave de la {@link FilaDatos} cuyo
      * nombre coincide con la propiedad {@link #nombreClave} del criterio.
      */
-    protected String valorAComprobar;
+    protected final String valorAComprobar;
+
+    /**
+     * Forma plegada de {@link #valorAComprobar} con cada {@link Plegado}, por
+     * ordinal, calculada al crear el criterio para que pueda usarse desde
+     * varios hilos a la vez
+     */
+    private final String[] valoresPlegados;
 
     /**
      * Instancia un criterio de búsqueda
@@ -33,6 +41,43 @@ public abstract class Criterio {
     public Criterio(String clave, String valorAComprobar) {
         this.nombreClave = clave;
         this.valorAComprobar = valorAComprobar;
+        this.valoresPlegados = new String[Plegado.values().length];
+        if (valorAComprobar != null) {
+            for (Plegado plegado : Plegado.values()) {
+                this.valoresPlegados[plegado.ordinal()] = plegado.pliega(valorAComprobar);
+            }
+        }
+    }
+
+    /**
+     * Retorna el nombre de la clave cuyo valor comprueba el criterio
+     *
+     * @return el nombre de la clave
+     */
+    public String getNombreClave() {
+        return this.nombreClave;
+    }
+
+    /**
+     * Retorna el valor con el que el criterio compara el de la fila
+     *
+     * @return el valor a comprobar
+     */
+    public String getValorAComprobar() {
+        return this.valorAComprobar;
+    }
+
+    /**
+     * Forma plegada del valor a comprobar, con la que se compara la forma
+     * plegada del valor de la fila (ver
+     * {@link FilaDatos#getPlegado(int, String)})
+     *
+     * @param plegado plegado de la columna en la fila
+     * @return el valor a comprobar plegado, o <code>null</code> si el valor a
+     * comprobar es <code>null</code>
+     */
+    protected String getValorPlegado(Plegado plegado) {
+        return this.valoresPlegados[plegado.ordinal()];
     }
 
     /**
@@ -1,6 +1,8 @@
 package edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda;
 
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.ColumnasPlegadas;
 import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Plegado;
 
 /**
  * Clase que implementa el criterio "Contiene", en el que la
@@ -9,11 +11,25 @@ import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
  * subcadena) el valor de la propiedad <code>valorAComprobar</code>.
  */
 public class CriterioContiene extends Criterio {
+
+    /**
+     * Buscador del valor a comprobar plegado con cada {@link Plegado}, por
+     * ordinal. Se crean todos con el criterio, que así puede usarse desde
+     * varios hilos a la vez.
+     */
+    private final BuscadorSubcadena[] buscadores;
+
     /**
      * {@inheritDoc}
      */
     public CriterioContiene(String nombreClave, String valorAComprobar) {
         super(nombreClave, valorAComprobar);
+        this.buscadores = new BuscadorSubcadena[Plegado.values().length];
+        if (valorAComprobar != null) {
+            for (Plegado plegado : Plegado.values()) {
+                this.buscadores[plegado.ordinal()] = new BuscadorSubcadena(this.getValorPlegado(plegado));
+            }
+        }
     }
 
     /**
@@ -25,6 +41,12 @@ public class CriterioContiene extends Criterio {
      * <p>Las comprobaciones antes mencionadas <b>NO</b> deben distinguir entre mayúsculas
      * y minúsculas.</p>
      *
+     * <p>La subcadena se busca con un {@link BuscadorSubcadena}, sin crear
+     * cadenas nuevas: en la forma plegada del valor de la fila, según el
+     * {@link Plegado} de la columna, si la fila la tiene (ver
+     * {@link FilaDatos#getPlegado(int, String)}), o en el propio valor,
+     * plegando cada carácter al compararlo, si no.</p>
+     *
      * @param f Fila sobre la cual comprobar si se cumple el criterio
      * @return true si el criterio se cumple. false en caso contrario
      */
@@ -34,6 +56,14 @@ public class CriterioContiene extends Criterio {
         if (valor == null) {
             return false; // Si el valor es null, no puede contener ninguna subcadena, por lo tanto, retorna falso.
         }
-        return valor.toLowerCase().contains(this.valorAComprobar.toLowerCase());
+        ColumnasPlegadas columnas = f.getColumnasPlegadas();
+        if (columnas != null) {
+            int posicion = columnas.posicion(this.nombreClave);
+            String plegado = f.getPlegado(posicion, valor);
+            if (plegado != null) {
+                return this.buscadores[columnas.getPlegado(posicion).ordinal()].estaEn(plegado);
+            }
+        }
+        return this.buscadores[Plegado.MAYUSCULAS.ordinal()].estaEnSinMayusculas(valor);
     }
 }
@@ -1,6 +1,8 @@
 package edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda;
 
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.ColumnasPlegadas;
 import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Plegado;
 
 /**
  * Clase que implementa el criterio "igual", en el que que la
@@ -25,6 +27,10 @@ public class CriterioIgual extends Criterio {
      * <p>Las comprobaciones antes mencionadas <b>NO</b> deben distinguir entre mayúsculas
      * y minúsculas.</p>
      *
+     * <p>Si la fila tiene la forma plegada de su valor (ver
+     * {@link FilaDatos#getPlegado(int, String)}), se compara con ella, sin
+     * crear cadenas nuevas y según el {@link Plegado} de la columna.</p>
+     *
      * @param f Fila sobre la cual comprobar si se cumple el criterio
      * @return true si el criterio se cumple. false en caso contrario
      */
@@ -34,6 +40,14 @@ public class CriterioIgual extends Criterio {
         if (valor == null) {
             return this.valorAComprobar == null;
         }
+        ColumnasPlegadas columnas = f.getColumnasPlegadas();
+        if (columnas != null && this.valorAComprobar != null) {
+            int posicion = columnas.posicion(this.nombreClave);
+            String plegado = f.getPlegado(posicion, valor);
+            if (plegado != null) {
+                return plegado.equals(this.getValorPlegado(columnas.getPlegado(posicion)));
+            }
+        }
         return valor.equalsIgnoreCase(this.valorAComprobar);
     }
 }
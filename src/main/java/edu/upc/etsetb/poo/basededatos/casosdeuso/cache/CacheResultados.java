@@ -0,0 +1,219 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.cache;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.Criterio;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Tabla;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>
+ * Caché de resultados de búsqueda. Guarda las filas devueltas por
+ * {@link Tabla#busca(Criterio)} para cada combinación de tabla, tipo de
+ * criterio, columna y valor, de modo que repetir una búsqueda sobre una tabla
+ * que no ha cambiado no vuelve a recorrerla.</p>
+ *
+ * <p>
+ * Cada resultado se guarda junto con la {@link Tabla#getVersion()} de la tabla
+ * en el momento de calcularlo; si al consultarlo la versión es otra (se han
+ * añadido, eliminado u ordenado filas), el resultado se descarta. La caché
+ * tiene un número máximo de búsquedas y de filas guardadas, y cuando se supera
+ * alguno de ellos se descartan las búsquedas usadas hace más tiempo.</p>
+ *
+ * <p>
+ * La caché se puede usar desde varios hilos a la vez, como hace
+ * {@link edu.upc.etsetb.poo.basededatos.casosdeuso.ColaComandos}; la búsqueda
+ * en la tabla se hace fuera del cerrojo, de modo que búsquedas sobre tablas
+ * distintas no se esperan entre sí.</p>
+ */
+public class CacheResultados {
+
+    /**
+     * Búsqueda guardada en la caché: identifica la consulta
+     */
+    private static final class Consulta {
+
+        private final String nombreTabla;
+        private final String tipo;
+        private final String columna;
+        private final String valor;
+
+        Consulta(String nombreTabla, Criterio criterio) {
+            this.nombreTabla = nombreTabla;
+            this.tipo = criterio != null ? criterio.getClass().getName() : null;
+            this.columna = criterio != null ? criterio.getNombreClave() : null;
+            this.valor = criterio != null ? criterio.getValorAComprobar() : null;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Consulta)) {
+                return false;
+            }
+            Consulta otra = (Consulta) o;
+            return this.nombreTabla.equals(otra.nombreTabla)
+                    && Objects.equals(this.tipo, otra.tipo)
+                    && Objects.equals(this.columna, otra.columna)
+                    && Objects.equals(this.valor, otra.valor);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.nombreTabla, this.tipo, this.columna, this.valor);
+        }
+    }
+
+    /**
+     * Resultado guardado en la caché, con la tabla y la versión para las que
+     * es válido
+     */
+    private static final class Resultado {
+
+        private final Tabla tabla;
+        private final long version;
+        private final List<FilaDatos> filas;
+
+        Resultado(Tabla tabla, long version, List<FilaDatos> filas) {
+            this.tabla = tabla;
+            this.version = version;
+            this.filas = filas;
+        }
+    }
+
+    /**
+     * Número máximo de búsquedas guardadas
+     */
+    private final int maxConsultas;
+
+    /**
+     * Número máximo de filas guardadas, sumando todos los resultados
+     */
+    private final int maxFilas;
+
+    /**
+     * Resultados guardados, en orden de uso (el primero es el usado hace más
+     * tiempo)
+     */
+    private final LinkedHashMap<Consulta, Resultado> resultados;
+
+    /**
+     * Número de filas guardadas, sumando todos los resultados
+     */
+    private int numFilas;
+
+    /**
+     * Número de búsquedas servidas desde la caché
+     */
+    private long aciertos;
+
+    /**
+     * Número de búsquedas que no estaban en la caché o cuyo resultado ya no
+     * era válido
+     */
+    private long fallos;
+
+    /**
+     * Instancia una caché vacía
+     *
+     * @param maxConsultas número máximo de búsquedas guardadas
+     * @param maxFilas número máximo de filas guardadas, sumando todos los
+     * resultados. Los resultados con más filas no se guardan.
+     */
+    public CacheResultados(int maxConsultas, int maxFilas) {
+        this.maxConsultas = maxConsultas;
+        this.maxFilas = maxFilas;
+        this.resultados = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Devuelve las filas que cumplen un criterio, desde la caché si la tabla
+     * no ha cambiado desde que se guardó el resultado, o buscándolas en la
+     * tabla (y guardándolas) en caso contrario
+     *
+     * @param nombreTabla nombre de la tabla
+     * @param tabla la tabla
+     * @param criterio criterio de búsqueda, o <code>null</code> para todas
+     * las filas
+     * @return una lista nueva con las filas que cumplen el criterio, en el
+     * mismo orden que {@link Tabla#busca(Criterio)}
+     */
+    public List<FilaDatos> busca(String nombreTabla, Tabla tabla, Criterio criterio) {
+        Consulta consulta = new Consulta(nombreTabla, criterio);
+        long version = tabla.getVersion();
+        synchronized (this) {
+            Resultado resultado = this.resultados.get(consulta);
+            if (resultado != null && resultado.tabla == tabla && resultado.version == version) {
+                this.aciertos++;
+                return new ArrayList<>(resultado.filas);
+            }
+            this.fallos++;
+            if (resultado != null) {
+                this.quita(consulta);
+            }
+        }
+        List<FilaDatos> filas = tabla.busca(criterio);
+        if (filas.size() <= this.maxFilas) {
+            Resultado nuevo = new Resultado(tabla, version, new ArrayList<>(filas));
+            synchronized (this) {
+                this.quita(consulta);
+                this.resultados.put(consulta, nuevo);
+                this.numFilas += filas.size();
+                this.desaloja();
+            }
+        }
+        return filas;
+    }
+
+    /**
+     * Descarta todos los resultados guardados
+     */
+    public synchronized void vacia() {
+        this.resultados.clear();
+        this.numFilas = 0;
+    }
+
+    /**
+     * Número de búsquedas servidas desde la caché
+     *
+     * @return número de aciertos
+     */
+    public synchronized long getAciertos() {
+        return this.aciertos;
+    }
+
+    /**
+     * Número de búsquedas que han tenido que recorrer la tabla
+     *
+     * @return número de fallos
+     */
+    public synchronized long getFallos() {
+        return this.fallos;
+    }
+
+    private void quita(Consulta consulta) {
+        Resultado resultado = this.resultados.remove(consulta);
+        if (resultado != null) {
+            this.numFilas -= resultado.filas.size();
+        }
+    }
+
+    /**
+     * Descarta los resultados usados hace más tiempo hasta que no se supera
+     * ninguno de los dos límites
+     */
+    private void desaloja() {
+        Iterator<Map.Entry<Consulta, Resultado>> it = this.resultados.entrySet().iterator();
+        while ((this.resultados.size() > this.maxConsultas || this.numFilas > this.maxFilas)
+                && it.hasNext()) {
+            this.numFilas -= it.next().getValue().filas.size();
+            it.remove();
+        }
+    }
+}
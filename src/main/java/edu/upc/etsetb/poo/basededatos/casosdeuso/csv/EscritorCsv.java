@@ -0,0 +1,88 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.csv;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Escritor de archivos CSV, que escribe los campos de cada registro
+ * separados por {@link LectorCsv#SEPARADOR}, poniendo entre comillas sólo los
+ * campos que lo necesitan (los vacíos y los que contienen separadores, comillas
+ * o saltos de línea), de modo que {@link LectorCsv} los pueda volver a leer.
+ */
+public class EscritorCsv {
+
+    /**
+     * Canal donde se escribe el CSV
+     */
+    private final Writer writer;
+
+    /**
+     * Si el siguiente campo es el primero del registro
+     */
+    private boolean primerCampo;
+
+    /**
+     * Instancia un escritor de CSV sobre un canal de escritura
+     *
+     * @param writer canal donde se escribe el CSV (es responsabilidad de quien
+     * lo crea ponerle buffer y cerrarlo)
+     */
+    public EscritorCsv(Writer writer) {
+        this.writer = writer;
+        this.primerCampo = true;
+    }
+
+    /**
+     * Escribe un campo del registro actual. Un valor <code>null</code> se
+     * escribe como un campo vacío.
+     *
+     * @param valor valor del campo
+     * @throws IOException si no se puede escribir
+     */
+    public void escribeCampo(String valor) throws IOException {
+        if (!this.primerCampo) {
+            this.writer.write(LectorCsv.SEPARADOR);
+        }
+        this.primerCampo = false;
+        if (valor == null) {
+            return;
+        }
+        if (!necesitaComillas(valor)) {
+            this.writer.write(valor);
+            return;
+        }
+        this.writer.write(LectorCsv.COMILLAS);
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == LectorCsv.COMILLAS) {
+                this.writer.write(LectorCsv.COMILLAS);
+            }
+            this.writer.write(c);
+        }
+        this.writer.write(LectorCsv.COMILLAS);
+    }
+
+    /**
+     * Termina el registro actual
+     *
+     * @throws IOException si no se puede escribir
+     */
+    public void finRegistro() throws IOException {
+        this.writer.write('\n');
+        this.primerCampo = true;
+    }
+
+    private static boolean necesitaComillas(String valor) {
+        if (valor.isEmpty()) {
+            // Para no confundir un registro de un único campo vacío con una línea en blanco
+            return true;
+        }
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == LectorCsv.SEPARADOR || c == LectorCsv.COMILLAS || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
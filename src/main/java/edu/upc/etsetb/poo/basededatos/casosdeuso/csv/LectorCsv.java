@@ -0,0 +1,219 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.csv;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * <p>
+ * Lector de archivos CSV (separados por comas, en UTF-8) que proyecta el
+ * archivo en memoria y lo recorre byte a byte, sin crear un
+ * <code>String</code> por línea: cada campo se copia a un buffer reutilizable
+ * y sólo se convierte a <code>String</code> el valor final del campo.</p>
+ *
+ * <p>
+ * Los campos pueden ir entre comillas dobles, en cuyo caso pueden contener
+ * comas, saltos de línea y comillas (escritas como dos comillas seguidas). Se
+ * aceptan finales de línea <code>\n</code> y <code>\r\n</code>, y se ignoran
+ * las líneas en blanco.</p>
+ */
+public class LectorCsv {
+
+    /**
+     * Separador de campos
+     */
+    public static final byte SEPARADOR = ',';
+
+    /**
+     * Carácter que delimita los campos entre comillas
+     */
+    public static final byte COMILLAS = '"';
+
+    /**
+     * Contenido del archivo, proyectado en memoria
+     */
+    private final MappedByteBuffer datos;
+
+    /**
+     * Posición del siguiente byte a leer de {@link #datos}
+     */
+    private int posicion;
+
+    /**
+     * Línea del archivo en la que empieza el siguiente registro (empezando por
+     * 1)
+     */
+    private long linea;
+
+    /**
+     * Buffer donde se acumulan los bytes del campo que se está leyendo
+     */
+    private byte[] campo;
+
+    /**
+     * Proyecta en memoria el archivo a leer
+     *
+     * @param archivo archivo CSV
+     * @throws IOException si no se puede abrir el archivo o es demasiado
+     * grande para proyectarlo en memoria de una vez (más de 2 GB)
+     */
+    public LectorCsv(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IOException("El archivo " + archivo + " es demasiado grande para leerlo de una vez.");
+            }
+            this.datos = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+        this.campo = new byte[256];
+        this.linea = 1;
+        // Marca de orden de bytes UTF-8
+        if (this.datos.limit() >= 3 && this.datos.get(0) == (byte) 0xEF
+                && this.datos.get(1) == (byte) 0xBB && this.datos.get(2) == (byte) 0xBF) {
+            this.posicion = 3;
+        }
+    }
+
+    /**
+     * Lee el siguiente registro del archivo
+     *
+     * @param campos lista que se vacía y se rellena con los campos del registro
+     * @return <code>true</code> si se ha leído un registro, <code>false</code>
+     * si se ha llegado al final del archivo
+     * @throws IOException si el registro está mal formado (comillas sin cerrar
+     * o texto tras unas comillas de cierre)
+     */
+    public boolean siguienteRegistro(List<String> campos) throws IOException {
+        int limite = this.datos.limit();
+        // Salta las líneas en blanco
+        while (this.posicion < limite && esFinDeLinea(this.datos.get(this.posicion))) {
+            this.saltaFinDeLinea();
+        }
+        if (this.posicion >= limite) {
+            return false;
+        }
+        campos.clear();
+        while (true) {
+            int longitud = this.datos.get(this.posicion) == COMILLAS
+                    ? this.leeCampoEntreComillas() : this.leeCampoSimple();
+            campos.add(new String(this.campo, 0, longitud, StandardCharsets.UTF_8));
+            if (this.posicion >= limite) {
+                return true;
+            }
+            byte b = this.datos.get(this.posicion);
+            if (b == SEPARADOR) {
+                this.posicion++;
+                if (this.posicion >= limite || esFinDeLinea(this.datos.get(this.posicion))) {
+                    // Un separador al final de la línea deja un último campo vacío
+                    campos.add("");
+                    this.saltaFinDeLinea();
+                    return true;
+                }
+            } else if (esFinDeLinea(b)) {
+                this.saltaFinDeLinea();
+                return true;
+            } else {
+                throw new IOException("Carácter inesperado tras las comillas en la línea " + this.linea + ".");
+            }
+        }
+    }
+
+    /**
+     * Línea del archivo en la que empieza el siguiente registro
+     *
+     * @return número de línea, empezando por 1
+     */
+    public long getLinea() {
+        return this.linea;
+    }
+
+    /**
+     * Copia a {@link #campo} los bytes de un campo sin comillas, que termina
+     * en un separador, un final de línea o el final del archivo
+     *
+     * @return número de bytes del campo
+     */
+    private int leeCampoSimple() {
+        int inicio = this.posicion;
+        int limite = this.datos.limit();
+        while (this.posicion < limite) {
+            byte b = this.datos.get(this.posicion);
+            if (b == SEPARADOR || esFinDeLinea(b)) {
+                break;
+            }
+            this.posicion++;
+        }
+        int longitud = this.posicion - inicio;
+        this.aseguraCapacidad(longitud);
+        this.datos.position(inicio);
+        this.datos.get(this.campo, 0, longitud);
+        return longitud;
+    }
+
+    /**
+     * Copia a {@link #campo} el contenido de un campo entre comillas,
+     * convirtiendo cada pareja de comillas en unas comillas simples
+     *
+     * @return número de bytes del campo
+     * @throws IOException si el archivo acaba antes de cerrar las comillas
+     */
+    private int leeCampoEntreComillas() throws IOException {
+        long lineaInicio = this.linea;
+        int limite = this.datos.limit();
+        int longitud = 0;
+        this.posicion++;
+        while (true) {
+            if (this.posicion >= limite) {
+                throw new IOException("Comillas sin cerrar en la línea " + lineaInicio + ".");
+            }
+            byte b = this.datos.get(this.posicion++);
+            if (b == COMILLAS) {
+                if (this.posicion < limite && this.datos.get(this.posicion) == COMILLAS) {
+                    this.posicion++;
+                } else {
+                    return longitud;
+                }
+            } else if (b == '\n') {
+                this.linea++;
+            }
+            this.aseguraCapacidad(longitud + 1);
+            this.campo[longitud++] = b;
+        }
+    }
+
+    /**
+     * Avanza sobre un final de línea (<code>\n</code>, <code>\r</code> o
+     * <code>\r\n</code>), si lo hay en la posición actual
+     */
+    private void saltaFinDeLinea() {
+        int limite = this.datos.limit();
+        if (this.posicion < limite && this.datos.get(this.posicion) == '\r') {
+            this.posicion++;
+        }
+        if (this.posicion < limite && this.datos.get(this.posicion) == '\n') {
+            this.posicion++;
+        }
+        this.linea++;
+    }
+
+    /**
+     * Hace crecer {@link #campo} si no tiene sitio para <code>capacidad</code>
+     * bytes
+     *
+     * @param capacidad número de bytes que debe poder guardar
+     */
+    private void aseguraCapacidad(int capacidad) {
+        if (capacidad > this.campo.length) {
+            byte[] nuevo = new byte[Math.max(capacidad, this.campo.length * 2)];
+            System.arraycopy(this.campo, 0, nuevo, 0, this.campo.length);
+            this.campo = nuevo;
+        }
+    }
+
+    private static boolean esFinDeLinea(byte b) {
+        return b == '\n' || b == '\r';
+    }
+}
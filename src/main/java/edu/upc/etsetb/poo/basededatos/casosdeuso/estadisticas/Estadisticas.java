@@ -0,0 +1,141 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.estadisticas;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Registro de las medidas de los comandos ejecutados por el
+ * {@link edu.upc.etsetb.poo.basededatos.casosdeuso.Controlador}: para cada
+ * comando, y para cada pareja [tabla, comando], cuántas veces se ha ejecutado,
+ * cuántas filas ha tocado en total y un {@link Histograma} de su latencia.
+ */
+public class Estadisticas {
+
+    /**
+     * Medidas acumuladas de un comando (en general o sobre una tabla concreta)
+     */
+    public static class Medidas {
+
+        /**
+         * Número total de filas tocadas por las ejecuciones del comando
+         */
+        private long filas;
+
+        /**
+         * Latencia de cada ejecución, en nanosegundos
+         */
+        private final Histograma latencia;
+
+        private Medidas() {
+            this.latencia = new Histograma();
+        }
+
+        private Medidas(Medidas otras) {
+            this.filas = otras.filas;
+            this.latencia = new Histograma(otras.latencia);
+        }
+
+        private void registra(long filas, long nanos) {
+            this.filas += filas;
+            this.latencia.registra(nanos);
+        }
+
+        /**
+         * Número de veces que se ha ejecutado el comando
+         *
+         * @return número de ejecuciones
+         */
+        public long getEjecuciones() {
+            return this.latencia.getTotal();
+        }
+
+        /**
+         * Número total de filas tocadas por el comando
+         *
+         * @return número total de filas
+         */
+        public long getFilas() {
+            return this.filas;
+        }
+
+        /**
+         * Histograma de la latencia del comando, en nanosegundos
+         *
+         * @return histograma de latencias
+         */
+        public Histograma getLatencia() {
+            return this.latencia;
+        }
+    }
+
+    /**
+     * Medidas por comando. La clave del mapa es el nombre del comando.
+     */
+    private final Map<String, Medidas> porComando;
+
+    /**
+     * Medidas por tabla y comando. La clave del mapa externo es el nombre de
+     * la tabla, y la del interno el del comando.
+     */
+    private final Map<String, Map<String, Medidas>> porTabla;
+
+    /**
+     * Instancia un registro de estadísticas vacío
+     */
+    public Estadisticas() {
+        this.porComando = new TreeMap<>();
+        this.porTabla = new TreeMap<>();
+    }
+
+    /**
+     * Registra una ejecución de un comando
+     *
+     * @param comando nombre del comando (por ejemplo, <code>busca</code>)
+     * @param nombreTabla tabla sobre la que se ha ejecutado, o
+     * <code>null</code> si el comando no es de una tabla concreta
+     * @param filas número de filas tocadas (añadidas, devueltas, eliminadas,
+     * ordenadas o exportadas)
+     * @param nanos duración de la ejecución en nanosegundos
+     */
+    public synchronized void registra(String comando, String nombreTabla, long filas, long nanos) {
+        this.porComando.computeIfAbsent(comando, c -> new Medidas()).registra(filas, nanos);
+        if (nombreTabla != null) {
+            this.porTabla.computeIfAbsent(nombreTabla, t -> new TreeMap<>())
+                    .computeIfAbsent(comando, c -> new Medidas()).registra(filas, nanos);
+        }
+    }
+
+    /**
+     * Copia de las medidas por comando, ordenadas por nombre de comando. Se
+     * toma de una vez, así que no cambia si se registran más ejecuciones
+     * mientras se recorre.
+     *
+     * @return mapa cuya clave es el nombre del comando
+     */
+    public synchronized Map<String, Medidas> getPorComando() {
+        return copia(this.porComando);
+    }
+
+    /**
+     * Copia de las medidas por tabla y comando, ordenadas por nombre de tabla
+     * y de comando. Se toma de una vez, como la de {@link #getPorComando()}.
+     *
+     * @return mapa cuya clave es el nombre de la tabla y cuyo valor es un mapa
+     * cuya clave es el nombre del comando
+     */
+    public synchronized Map<String, Map<String, Medidas>> getPorTabla() {
+        Map<String, Map<String, Medidas>> copia = new TreeMap<>();
+        for (Map.Entry<String, Map<String, Medidas>> entry : this.porTabla.entrySet()) {
+            copia.put(entry.getKey(), copia(entry.getValue()));
+        }
+        return copia;
+    }
+
+    private static Map<String, Medidas> copia(Map<String, Medidas> medidas) {
+        Map<String, Medidas> copia = new TreeMap<>();
+        for (Map.Entry<String, Medidas> entry : medidas.entrySet()) {
+            copia.put(entry.getKey(), new Medidas(entry.getValue()));
+        }
+        return copia;
+    }
+}
@@ -0,0 +1,173 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.estadisticas;
+
+/**
+ * <p>
+ * Histograma de valores enteros no negativos (por ejemplo, latencias en
+ * nanosegundos) con precisión relativa acotada, al estilo de HdrHistogram: los
+ * valores menores que {@link #SUBCUBOS} se cuentan de forma exacta, y a partir
+ * de ahí cada potencia de 2 se divide en {@link #SUBCUBOS}/2 cubos del mismo
+ * ancho, de modo que el error de cualquier percentil es menor del 3,2% del
+ * valor.</p>
+ *
+ * <p>
+ * Ocupa siempre la misma memoria, independientemente del número de valores
+ * registrados, y registrar un valor no reserva memoria.</p>
+ */
+public class Histograma {
+
+    /**
+     * Número de cubos exactos al principio del histograma. Debe ser potencia
+     * de 2.
+     */
+    public static final int SUBCUBOS = 64;
+
+    /**
+     * log2({@link #SUBCUBOS})
+     */
+    private static final int BITS_SUBCUBOS = Integer.numberOfTrailingZeros(SUBCUBOS);
+
+    /**
+     * Número de cubos en que se divide cada potencia de 2
+     */
+    private static final int MITAD = SUBCUBOS / 2;
+
+    /**
+     * Número de valores registrados en cada cubo
+     */
+    private final long[] cuentas;
+
+    /**
+     * Número total de valores registrados
+     */
+    private long total;
+
+    /**
+     * Suma de todos los valores registrados
+     */
+    private long suma;
+
+    /**
+     * Valor más alto registrado
+     */
+    private long maximo;
+
+    /**
+     * Instancia un histograma vacío
+     */
+    public Histograma() {
+        this.cuentas = new long[indice(Long.MAX_VALUE) + 1];
+    }
+
+    /**
+     * Instancia una copia de otro histograma
+     *
+     * @param otro histograma a copiar
+     */
+    public Histograma(Histograma otro) {
+        this.cuentas = otro.cuentas.clone();
+        this.total = otro.total;
+        this.suma = otro.suma;
+        this.maximo = otro.maximo;
+    }
+
+    /**
+     * Registra un valor. Los valores negativos se registran como 0.
+     *
+     * @param valor valor a registrar
+     */
+    public void registra(long valor) {
+        if (valor < 0) {
+            valor = 0;
+        }
+        this.cuentas[indice(valor)]++;
+        this.total++;
+        this.suma += valor;
+        if (valor > this.maximo) {
+            this.maximo = valor;
+        }
+    }
+
+    /**
+     * Devuelve el valor por debajo del cual (o igual) queda el porcentaje dado
+     * de los valores registrados
+     *
+     * @param porcentaje porcentaje entre 0 y 100
+     * @return el percentil pedido, o 0 si no se ha registrado ningún valor
+     */
+    public long percentil(double porcentaje) {
+        if (this.total == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(porcentaje / 100.0 * this.total));
+        long acumulado = 0;
+        for (int i = 0; i < this.cuentas.length; i++) {
+            acumulado += this.cuentas[i];
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), this.maximo);
+            }
+        }
+        return this.maximo;
+    }
+
+    /**
+     * Número de valores registrados
+     *
+     * @return número de valores registrados
+     */
+    public long getTotal() {
+        return this.total;
+    }
+
+    /**
+     * Valor más alto registrado
+     *
+     * @return valor más alto registrado, o 0 si no se ha registrado ninguno
+     */
+    public long getMaximo() {
+        return this.maximo;
+    }
+
+    /**
+     * Media de los valores registrados
+     *
+     * @return media de los valores registrados, o 0 si no se ha registrado
+     * ninguno
+     */
+    public double getMedia() {
+        return this.total == 0 ? 0 : (double) this.suma / this.total;
+    }
+
+    /**
+     * Cubo en el que se cuenta un valor
+     *
+     * @param valor valor no negativo
+     * @return índice del cubo
+     */
+    private static int indice(long valor) {
+        if (valor < SUBCUBOS) {
+            return (int) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        int desplazamiento = exponente - BITS_SUBCUBOS + 1;
+        int mantisa = (int) (valor >>> desplazamiento);
+        return SUBCUBOS + (exponente - BITS_SUBCUBOS) * MITAD + (mantisa - MITAD);
+    }
+
+    /**
+     * Mayor valor que se cuenta en un cubo
+     *
+     * @param indice índice del cubo
+     * @return mayor valor del cubo
+     */
+    private static long limiteSuperior(int indice) {
+        if (indice < SUBCUBOS) {
+            return indice;
+        }
+        int relativo = indice - SUBCUBOS;
+        int exponente = relativo / MITAD + BITS_SUBCUBOS;
+        long mantisa = relativo % MITAD + MITAD;
+        int desplazamiento = exponente - BITS_SUBCUBOS + 1;
+        long siguiente = (mantisa + 1) << desplazamiento;
+        return siguiente < 0 ? Long.MAX_VALUE : siguiente - 1;
+    }
+}
@@ -0,0 +1,210 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.orden;
+
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * <p>
+ * Resultado de una {@link OrdenacionExterna}: recorre las filas ordenadas,
+ * bien de un solo tramo en memoria, bien mezclando los tramos volcados a
+ * archivos temporales.</p>
+ *
+ * <p>
+ * La mezcla guarda en una cola de prioridad la siguiente fila de cada tramo;
+ * a igualdad de fila va antes la del tramo anterior, para que la ordenación
+ * sea estable. Los errores al leer los archivos se lanzan como
+ * {@link UncheckedIOException}. Hay que cerrarlo para borrar los archivos
+ * temporales.</p>
+ */
+public class FilasOrdenadas implements Iterator<FilaDatos>, Closeable {
+
+    /**
+     * Filas del único tramo en memoria, o <code>null</code> si se mezclan
+     * tramos en disco
+     */
+    private final Iterator<FilaDatos> enMemoria;
+
+    /**
+     * Archivos temporales de los tramos
+     */
+    private final List<Path> archivos;
+
+    /**
+     * Canal de lectura de cada tramo
+     */
+    private final List<DataInputStream> entradas;
+
+    /**
+     * Columnas de las filas
+     */
+    private final List<String> columnas;
+
+    /**
+     * Siguiente fila de cada tramo que aún tiene filas
+     */
+    private final PriorityQueue<Cabeza> cabezas;
+
+    /**
+     * Instancia el resultado de ordenar un solo tramo en memoria
+     *
+     * @param filas filas ordenadas
+     */
+    FilasOrdenadas(Iterator<FilaDatos> filas) {
+        this.enMemoria = filas;
+        this.archivos = Collections.emptyList();
+        this.entradas = Collections.emptyList();
+        this.columnas = null;
+        this.cabezas = null;
+    }
+
+    /**
+     * Instancia la mezcla de varios tramos ordenados en disco
+     *
+     * @param archivos archivos de los tramos, en el orden en que se leyeron
+     * sus filas
+     * @param columnas columnas de las filas
+     * @param comparador orden de las filas
+     * @throws IOException si no se pueden abrir o leer los archivos
+     */
+    FilasOrdenadas(List<Path> archivos, List<String> columnas, Comparator<FilaDatos> comparador)
+            throws IOException {
+        this.enMemoria = null;
+        this.archivos = archivos;
+        this.entradas = new ArrayList<>(archivos.size());
+        this.columnas = columnas;
+        this.cabezas = new PriorityQueue<>(Math.max(1, archivos.size()),
+                Comparator.comparing((Cabeza c) -> c.fila, comparador).thenComparingInt(c -> c.tramo));
+        try {
+            for (Path archivo : archivos) {
+                this.entradas.add(new DataInputStream(new BufferedInputStream(
+                        Files.newInputStream(archivo), OrdenacionExterna.TAMAÑO_BUFFER)));
+            }
+            for (int i = 0; i < this.entradas.size(); i++) {
+                this.avanza(i);
+            }
+        } catch (IOException | RuntimeException e) {
+            this.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Número de tramos que se mezclan
+     *
+     * @return el número de archivos temporales, o 1 si las filas se han
+     * ordenado en memoria
+     */
+    public int getNumTramos() {
+        return this.enMemoria != null ? 1 : this.archivos.size();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.enMemoria != null ? this.enMemoria.hasNext() : !this.cabezas.isEmpty();
+    }
+
+    @Override
+    public FilaDatos next() {
+        if (this.enMemoria != null) {
+            return this.enMemoria.next();
+        }
+        Cabeza cabeza = this.cabezas.poll();
+        if (cabeza == null) {
+            throw new NoSuchElementException();
+        }
+        try {
+            this.avanza(cabeza.tramo);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return cabeza.fila;
+    }
+
+    /**
+     * Cierra y borra los archivos temporales
+     *
+     * @throws IOException si no se puede borrar alguno
+     */
+    @Override
+    public void close() throws IOException {
+        for (DataInputStream entrada : this.entradas) {
+            entrada.close();
+        }
+        this.entradas.clear();
+        borra(this.archivos);
+    }
+
+    /**
+     * Borra los archivos temporales que existan
+     *
+     * @param archivos archivos a borrar
+     * @throws IOException si no se puede borrar alguno
+     */
+    static void borra(List<Path> archivos) throws IOException {
+        IOException error = null;
+        for (Path archivo : archivos) {
+            try {
+                Files.deleteIfExists(archivo);
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Lee la siguiente fila de un tramo y la pone en la cola, si quedan
+     */
+    private void avanza(int tramo) throws IOException {
+        DataInputStream entrada = this.entradas.get(tramo);
+        boolean tieneValor;
+        try {
+            tieneValor = entrada.readBoolean();
+        } catch (EOFException e) {
+            return;
+        }
+        FilaDatos fila = new FilaDatos();
+        for (int i = 0; i < this.columnas.size(); i++) {
+            if (i > 0) {
+                tieneValor = entrada.readBoolean();
+            }
+            if (tieneValor) {
+                byte[] bytes = new byte[entrada.readInt()];
+                entrada.readFully(bytes);
+                fila.put(this.columnas.get(i), new String(bytes, StandardCharsets.UTF_8));
+            }
+        }
+        this.cabezas.add(new Cabeza(fila, tramo));
+    }
+
+    /**
+     * Siguiente fila de un tramo
+     */
+    private static class Cabeza {
+
+        private final FilaDatos fila;
+        private final int tramo;
+
+        private Cabeza(FilaDatos fila, int tramo) {
+            this.fila = fila;
+            this.tramo = tramo;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.orden;
+
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * <p>
+ * Ordenación externa por mezcla: ordena una secuencia de filas de cualquier
+ * tamaño guardando en memoria como mucho un número fijo de filas.</p>
+ *
+ * <p>
+ * Las filas se leen en tramos de {@link #maxFilas} filas; cada tramo se
+ * ordena en memoria y se vuelca a un archivo temporal. Al final, los tramos
+ * se mezclan a la vez (ver {@link FilasOrdenadas}) leyendo una fila de cada
+ * uno. Si todas las filas caben en un solo tramo, se ordenan en memoria sin
+ * usar el disco. La ordenación es estable: las filas iguales según el
+ * comparador quedan en el orden en que se leyeron.</p>
+ */
+public class OrdenacionExterna {
+
+    /**
+     * Tamaño (en bytes) del buffer de cada archivo temporal
+     */
+    static final int TAMAÑO_BUFFER = 1 << 16;
+
+    /**
+     * Columnas de las filas que se guardan en los archivos temporales
+     */
+    private final List<String> columnas;
+
+    /**
+     * Orden de las filas
+     */
+    private final Comparator<FilaDatos> comparador;
+
+    /**
+     * Número máximo de filas de cada tramo, que es el máximo de filas que se
+     * tienen a la vez en memoria para ordenarlas
+     */
+    private final int maxFilas;
+
+    /**
+     * Instancia una ordenación
+     *
+     * @param columnas columnas de las filas (las demás se pierden si las
+     * filas pasan por el disco)
+     * @param comparador orden de las filas
+     * @param maxFilas número máximo de filas de cada tramo
+     */
+    public OrdenacionExterna(List<String> columnas, Comparator<FilaDatos> comparador, int maxFilas) {
+        if (maxFilas < 1) {
+            throw new IllegalArgumentException("El tamaño de tramo debe ser positivo.");
+        }
+        this.columnas = columnas;
+        this.comparador = comparador;
+        this.maxFilas = maxFilas;
+    }
+
+    /**
+     * Ordena las filas. Las filas devueltas son las originales si caben en un
+     * tramo y, si no, copias leídas de los archivos temporales, que se borran
+     * al cerrar el resultado.
+     *
+     * @param filas filas a ordenar
+     * @return las filas ordenadas, que hay que cerrar al terminar de leerlas
+     * @throws IOException si no se pueden escribir los archivos temporales
+     */
+    public FilasOrdenadas ordena(Iterator<FilaDatos> filas) throws IOException {
+        List<FilaDatos> tramo = new ArrayList<>();
+        this.llena(tramo, filas);
+        if (!filas.hasNext()) {
+            tramo.sort(this.comparador);
+            return new FilasOrdenadas(tramo.iterator());
+        }
+
+        List<Path> archivos = new ArrayList<>();
+        try {
+            while (!tramo.isEmpty()) {
+                tramo.sort(this.comparador);
+                archivos.add(this.vuelca(tramo));
+                this.llena(tramo, filas);
+            }
+            return new FilasOrdenadas(archivos, this.columnas, this.comparador);
+        } catch (IOException | RuntimeException e) {
+            FilasOrdenadas.borra(archivos);
+            throw e;
+        }
+    }
+
+    /**
+     * Sustituye el contenido del tramo por tantas filas como quepan
+     */
+    private void llena(List<FilaDatos> tramo, Iterator<FilaDatos> filas) {
+        tramo.clear();
+        while (tramo.size() < this.maxFilas && filas.hasNext()) {
+            tramo.add(filas.next());
+        }
+    }
+
+    /**
+     * Escribe un tramo ordenado en un archivo temporal. Cada valor se escribe
+     * como un booleano (si hay valor) seguido de su longitud en bytes y sus
+     * bytes en UTF-8.
+     *
+     * @return el archivo temporal
+     */
+    private Path vuelca(List<FilaDatos> tramo) throws IOException {
+        Path archivo = Files.createTempFile("ordena-", ".tmp");
+        try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(archivo), TAMAÑO_BUFFER))) {
+            for (FilaDatos fila : tramo) {
+                for (String columna : this.columnas) {
+                    String valor = fila.get(columna);
+                    salida.writeBoolean(valor != null);
+                    if (valor != null) {
+                        byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+                        salida.writeInt(bytes.length);
+                        salida.write(bytes);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(archivo);
+            throw e;
+        }
+        return archivo;
+    }
+}
@@ -0,0 +1,150 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.orden;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.ComparadorFilas;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ * Ordenación por mezcla en paralelo de las filas de una tabla, con el mismo
+ * resultado que {@link Collections#sort(List, Comparator)} con un
+ * {@link ComparadorFilas}.</p>
+ *
+ * <p>
+ * Antes de ordenar, el valor de cada fila en la columna de ordenación se lee
+ * y se convierte a número una sola vez (ver
+ * {@link ComparadorFilas#comparaValores(String, Double, String, Double)}), en
+ * lugar de en cada comparación. Las filas se reparten en tantos trozos
+ * consecutivos como hilos; cada hilo prepara y ordena su trozo, y después los
+ * trozos se mezclan por parejas, también en paralelo, hasta que queda uno.
+ * Tanto la ordenación de cada trozo como las mezclas son estables, así que
+ * las filas iguales conservan su orden.</p>
+ */
+public class OrdenacionParalela {
+
+    private OrdenacionParalela() {
+        // Evita que la clase se instancie
+    }
+
+    /**
+     * Ordena una lista de filas
+     *
+     * @param filas filas a ordenar, que se reordenan en la misma lista
+     * @param comparador orden de las filas
+     * @param hilos número de hilos
+     */
+    public static void ordena(List<FilaDatos> filas, ComparadorFilas comparador, int hilos) {
+        FilaDatos[] originales = filas.toArray(new FilaDatos[0]);
+        int numTrozos = Math.max(1, Math.min(hilos, originales.length));
+        int[] limites = new int[numTrozos + 1];
+        for (int i = 0; i <= numTrozos; i++) {
+            limites[i] = (int) ((long) originales.length * i / numTrozos);
+        }
+        FilaConValor[] claves = new FilaConValor[originales.length];
+        Comparator<FilaConValor> orden = (a, b) -> comparador.comparaValores(a.valor, a.numero, b.valor, b.numero);
+        String columna = comparador.getClaveAComparar();
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(numTrozos);
+        try {
+            List<Future<?>> pendientes = new ArrayList<>(numTrozos);
+            for (int t = 0; t < numTrozos; t++) {
+                int desde = limites[t];
+                int hasta = limites[t + 1];
+                pendientes.add(ejecutor.submit(() -> {
+                    for (int i = desde; i < hasta; i++) {
+                        claves[i] = new FilaConValor(originales[i], columna);
+                    }
+                    Arrays.sort(claves, desde, hasta, orden);
+                }));
+            }
+            espera(pendientes);
+
+            // Mezcla los trozos por parejas hasta que queda uno
+            FilaConValor[] origen = claves;
+            FilaConValor[] destino = new FilaConValor[claves.length];
+            for (int ancho = 1; ancho < numTrozos; ancho *= 2) {
+                pendientes.clear();
+                for (int t = 0; t < numTrozos; t += 2 * ancho) {
+                    int desde = limites[t];
+                    int medio = limites[Math.min(t + ancho, numTrozos)];
+                    int hasta = limites[Math.min(t + 2 * ancho, numTrozos)];
+                    FilaConValor[] de = origen;
+                    FilaConValor[] a = destino;
+                    pendientes.add(ejecutor.submit(() -> mezcla(de, a, desde, medio, hasta, orden)));
+                }
+                espera(pendientes);
+                FilaConValor[] intercambio = origen;
+                origen = destino;
+                destino = intercambio;
+            }
+
+            ListIterator<FilaDatos> it = filas.listIterator();
+            for (FilaConValor clave : origen) {
+                it.next();
+                it.set(clave.fila);
+            }
+        } catch (InterruptedException e) {
+            // La lista no se ha tocado: se ordena en este hilo
+            Thread.currentThread().interrupt();
+            Collections.sort(filas, comparador);
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Mezcla dos tramos ordenados consecutivos de un array en las mismas
+     * posiciones de otro. A igualdad, va antes la fila del primer tramo.
+     */
+    private static void mezcla(FilaConValor[] de, FilaConValor[] a, int desde, int medio, int hasta,
+            Comparator<FilaConValor> orden) {
+        int i = desde;
+        int j = medio;
+        int k = desde;
+        while (i < medio && j < hasta) {
+            a[k++] = orden.compare(de[j], de[i]) < 0 ? de[j++] : de[i++];
+        }
+        System.arraycopy(de, i, a, k, medio - i);
+        System.arraycopy(de, j, a, k + medio - i, hasta - j);
+    }
+
+    private static void espera(List<Future<?>> pendientes) throws InterruptedException {
+        try {
+            for (Future<?> pendiente : pendientes) {
+                pendiente.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException) {
+                throw (RuntimeException) causa;
+            }
+            throw new IllegalStateException(causa);
+        }
+    }
+
+    /**
+     * Fila junto con su valor en la columna de ordenación, ya convertido a
+     * número si se puede
+     */
+    private static class FilaConValor {
+
+        private final FilaDatos fila;
+        private final String valor;
+        private final Double numero;
+
+        private FilaConValor(FilaDatos fila, String columna) {
+            this.fila = fila;
+            this.valor = fila.get(columna);
+            this.numero = ComparadorFilas.numero(this.valor);
+        }
+    }
+}
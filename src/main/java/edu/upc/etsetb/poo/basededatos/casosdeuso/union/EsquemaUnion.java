@@ -0,0 +1,112 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.union;
+
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * Columnas del resultado de unir dos tablas y forma de construir cada fila
+ * unida a partir de una fila de cada tabla.</p>
+ *
+ * <p>
+ * El resultado tiene primero las columnas de la tabla izquierda y luego las de
+ * la derecha, en el orden de sus cabeceras. La columna de unión de la tabla
+ * derecha se omite si se llama igual que la de la izquierda (los valores son
+ * los mismos). Si otra columna se llama igual en las dos tablas, en el
+ * resultado se le antepone el nombre de su tabla y un punto; si se une una
+ * tabla consigo misma, el nombre de la tabla lleva detrás un 1 (izquierda) o
+ * un 2 (derecha).</p>
+ */
+public class EsquemaUnion {
+
+    /**
+     * Columnas del resultado
+     */
+    private final List<String> cabeceras;
+
+    /**
+     * Columnas de la tabla izquierda que pasan al resultado, y su nombre en el
+     * resultado
+     */
+    private final String[] origenIzquierda;
+    private final String[] destinoIzquierda;
+
+    /**
+     * Columnas de la tabla derecha que pasan al resultado, y su nombre en el
+     * resultado
+     */
+    private final String[] origenDerecha;
+    private final String[] destinoDerecha;
+
+    /**
+     * Instancia el esquema de la unión de dos tablas
+     *
+     * @param nombreIzquierda nombre de la tabla izquierda
+     * @param cabecerasIzquierda columnas de la tabla izquierda
+     * @param columnaIzquierda columna de unión de la tabla izquierda
+     * @param nombreDerecha nombre de la tabla derecha
+     * @param cabecerasDerecha columnas de la tabla derecha
+     * @param columnaDerecha columna de unión de la tabla derecha
+     */
+    public EsquemaUnion(String nombreIzquierda, List<String> cabecerasIzquierda, String columnaIzquierda,
+            String nombreDerecha, List<String> cabecerasDerecha, String columnaDerecha) {
+        List<String> derecha = new ArrayList<>(cabecerasDerecha);
+        if (columnaIzquierda.equals(columnaDerecha)) {
+            derecha.remove(columnaDerecha);
+        }
+        List<String> todas = new ArrayList<>();
+        if (nombreIzquierda.equals(nombreDerecha)) {
+            nombreIzquierda += "1";
+            nombreDerecha += "2";
+        }
+        this.origenIzquierda = cabecerasIzquierda.toArray(new String[0]);
+        this.destinoIzquierda = new String[this.origenIzquierda.length];
+        for (int i = 0; i < this.origenIzquierda.length; i++) {
+            String columna = this.origenIzquierda[i];
+            this.destinoIzquierda[i] = derecha.contains(columna) ? nombreIzquierda + "." + columna : columna;
+            todas.add(this.destinoIzquierda[i]);
+        }
+        this.origenDerecha = derecha.toArray(new String[0]);
+        this.destinoDerecha = new String[this.origenDerecha.length];
+        for (int i = 0; i < this.origenDerecha.length; i++) {
+            String columna = this.origenDerecha[i];
+            this.destinoDerecha[i] = cabecerasIzquierda.contains(columna) ? nombreDerecha + "." + columna : columna;
+            todas.add(this.destinoDerecha[i]);
+        }
+        this.cabeceras = Collections.unmodifiableList(todas);
+    }
+
+    /**
+     * Columnas del resultado
+     *
+     * @return las cabeceras del resultado
+     */
+    public List<String> getCabeceras() {
+        return this.cabeceras;
+    }
+
+    /**
+     * Construye una fila del resultado
+     *
+     * @param izquierda fila de la tabla izquierda
+     * @param derecha fila de la tabla derecha
+     * @return la fila unida
+     */
+    public FilaDatos une(FilaDatos izquierda, FilaDatos derecha) {
+        FilaDatos fila = new FilaDatos();
+        copia(izquierda, this.origenIzquierda, this.destinoIzquierda, fila);
+        copia(derecha, this.origenDerecha, this.destinoDerecha, fila);
+        return fila;
+    }
+
+    private static void copia(FilaDatos origen, String[] columnas, String[] destinos, FilaDatos destino) {
+        for (int i = 0; i < columnas.length; i++) {
+            String valor = origen.get(columnas[i]);
+            if (valor != null) {
+                destino.put(destinos[i], valor);
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.union;
+
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Tabla;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * Unión por igualdad (distinguiendo mayúsculas de minúsculas) de dos tablas
+ * mediante una tabla hash: se recorre una de las tablas (la de sondeo) y, para
+ * cada fila, se buscan en la otra (la de construcción) las filas con el mismo
+ * valor en la columna de unión.</p>
+ *
+ * <p>
+ * Si la columna de unión de la tabla de construcción tiene clave única, se
+ * usa su índice ({@link Tabla#buscaUnica(String, String)}) y no se construye
+ * nada; si no, se construye un mapa con todas sus filas por valor. Las filas
+ * unidas se generan a medida que se piden, en el orden de la tabla de sondeo.
+ * Las filas sin valor en la columna de unión no se unen con ninguna.</p>
+ */
+public class UnionHash implements Iterator<FilaDatos> {
+
+    /**
+     * Columnas del resultado y construcción de cada fila unida
+     */
+    private final EsquemaUnion esquema;
+
+    /**
+     * Filas de la tabla de sondeo
+     */
+    private final Iterator<FilaDatos> sondeo;
+
+    /**
+     * Columna de unión de la tabla de sondeo
+     */
+    private final String columnaSondeo;
+
+    /**
+     * Indica si la tabla de sondeo es la izquierda de la unión
+     */
+    private final boolean sondeoIzquierda;
+
+    /**
+     * Tabla de construcción, si se usa su índice de clave única, o
+     * <code>null</code>
+     */
+    private final Tabla indexada;
+
+    /**
+     * Columna de unión de la tabla de construcción
+     */
+    private final String columnaConstruccion;
+
+    /**
+     * Filas de la tabla de construcción por valor de la columna de unión, si
+     * no se usa su índice, o <code>null</code>
+     */
+    private final Map<String, List<FilaDatos>> construccion;
+
+    /**
+     * Fila de la tabla de sondeo que se está uniendo, y filas de la tabla de
+     * construcción que le quedan por unir
+     */
+    private FilaDatos actual;
+    private Iterator<FilaDatos> coincidencias;
+
+    /**
+     * Instancia una unión
+     *
+     * @param esquema esquema del resultado
+     * @param sondeo tabla que se recorre
+     * @param columnaSondeo columna de unión de la tabla que se recorre
+     * @param construccion tabla en la que se buscan las filas que se unen
+     * @param columnaConstruccion columna de unión de la tabla en la que se
+     * buscan
+     * @param sondeoIzquierda <code>true</code> si la tabla que se recorre es
+     * la izquierda de la unión
+     */
+    public UnionHash(EsquemaUnion esquema, Tabla sondeo, String columnaSondeo,
+            Tabla construccion, String columnaConstruccion, boolean sondeoIzquierda) {
+        this.esquema = esquema;
+        this.sondeo = sondeo.cursor(null);
+        this.columnaSondeo = columnaSondeo;
+        this.sondeoIzquierda = sondeoIzquierda;
+        this.columnaConstruccion = columnaConstruccion;
+        if (construccion.esUnica(columnaConstruccion)) {
+            this.indexada = construccion;
+            this.construccion = null;
+        } else {
+            this.indexada = null;
+            this.construccion = new HashMap<>();
+            Iterator<FilaDatos> it = construccion.cursor(null);
+            while (it.hasNext()) {
+                FilaDatos fila = it.next();
+                String valor = fila.get(columnaConstruccion);
+                if (valor != null) {
+                    this.construccion.computeIfAbsent(valor, v -> new ArrayList<>(1)).add(fila);
+                }
+            }
+        }
+        this.coincidencias = Collections.emptyIterator();
+    }
+
+    /**
+     * Indica si la unión usa el índice de clave única de la tabla de
+     * construcción en lugar de construir un mapa
+     *
+     * @return <code>true</code> si usa el índice
+     */
+    public boolean usaIndice() {
+        return this.indexada != null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!this.coincidencias.hasNext() && this.sondeo.hasNext()) {
+            this.actual = this.sondeo.next();
+            String valor = this.actual.get(this.columnaSondeo);
+            this.coincidencias = valor == null ? Collections.emptyIterator() : this.busca(valor);
+        }
+        return this.coincidencias.hasNext();
+    }
+
+    @Override
+    public FilaDatos next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        FilaDatos otra = this.coincidencias.next();
+        return this.sondeoIzquierda ? this.esquema.une(this.actual, otra) : this.esquema.une(otra, this.actual);
+    }
+
+    private Iterator<FilaDatos> busca(String valor) {
+        if (this.indexada != null) {
+            FilaDatos fila = this.indexada.buscaUnica(this.columnaConstruccion, valor);
+            return fila == null ? Collections.emptyIterator() : Collections.singletonList(fila).iterator();
+        }
+        List<FilaDatos> filas = this.construccion.get(valor);
+        return filas == null ? Collections.emptyIterator() : filas.iterator();
+    }
+}
@@ -0,0 +1,207 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.union;
+
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Tabla;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * Unión por igualdad (distinguiendo mayúsculas de minúsculas) de dos tablas
+ * por mezcla: se recorren a la vez las filas de las dos tablas ordenadas por
+ * su columna de unión y se unen las que tienen el mismo valor, sin construir
+ * ninguna tabla hash.</p>
+ *
+ * <p>
+ * Las filas de cada tabla se obtienen, por orden, de su índice ordenado
+ * ({@link Tabla#recorridoOrdenado(String)}) si lo tiene o, si no, ordenando un
+ * array con referencias a sus filas (ver {@link #ordenadas(Tabla, String)}).
+ * Sólo se guardan a la vez las filas de cada tabla que comparten el valor que
+ * se está uniendo. Las filas unidas se generan a medida que se piden,
+ * ordenadas por el valor de la columna de unión. Las filas sin valor en la
+ * columna de unión no se unen con ninguna.</p>
+ */
+public class UnionMezcla implements Iterator<FilaDatos> {
+
+    /**
+     * Columnas del resultado y construcción de cada fila unida
+     */
+    private final EsquemaUnion esquema;
+
+    /**
+     * Orden en el que están las filas de las dos tablas
+     */
+    private final Comparator<String> orden;
+
+    /**
+     * Filas de cada tabla, ordenadas por su columna de unión
+     */
+    private final Iterator<FilaDatos> izquierda;
+    private final Iterator<FilaDatos> derecha;
+
+    /**
+     * Columna de unión de cada tabla
+     */
+    private final String columnaIzquierda;
+    private final String columnaDerecha;
+
+    /**
+     * Primera fila de cada tabla que aún no se ha leído en un grupo, o
+     * <code>null</code> si ya no quedan
+     */
+    private FilaDatos siguienteIzquierda;
+    private FilaDatos siguienteDerecha;
+
+    /**
+     * Filas de cada tabla con el valor que se está uniendo
+     */
+    private final List<FilaDatos> grupoIzquierda;
+    private final List<FilaDatos> grupoDerecha;
+
+    /**
+     * Posición, en los grupos, de la siguiente pareja de filas a comprobar
+     */
+    private int i;
+    private int j;
+
+    /**
+     * Siguiente fila unida, o <code>null</code> si aún no se ha buscado o ya
+     * no quedan
+     */
+    private FilaDatos siguiente;
+
+    /**
+     * Instancia una unión
+     *
+     * @param esquema esquema del resultado
+     * @param izquierda filas de la tabla izquierda, ordenadas por su columna
+     * de unión según <code>orden</code>
+     * @param columnaIzquierda columna de unión de la tabla izquierda
+     * @param derecha filas de la tabla derecha, ordenadas por su columna de
+     * unión según <code>orden</code>
+     * @param columnaDerecha columna de unión de la tabla derecha
+     * @param orden orden de las filas de las dos tablas. Dos valores iguales
+     * deben ocupar el mismo lugar en el orden, pero dos valores que ocupan el
+     * mismo lugar pueden ser distintos.
+     */
+    public UnionMezcla(EsquemaUnion esquema, Iterator<FilaDatos> izquierda, String columnaIzquierda,
+            Iterator<FilaDatos> derecha, String columnaDerecha, Comparator<String> orden) {
+        this.esquema = esquema;
+        this.orden = orden;
+        this.izquierda = izquierda;
+        this.derecha = derecha;
+        this.columnaIzquierda = columnaIzquierda;
+        this.columnaDerecha = columnaDerecha;
+        this.siguienteIzquierda = lee(izquierda, columnaIzquierda);
+        this.siguienteDerecha = lee(derecha, columnaDerecha);
+        this.grupoIzquierda = new ArrayList<>();
+        this.grupoDerecha = new ArrayList<>();
+    }
+
+    /**
+     * Devuelve las filas de una tabla que tienen valor en una columna,
+     * ordenadas alfabéticamente por ese valor. Para ello ordena un array con
+     * referencias a las filas, sin copiarlas.
+     *
+     * @param tabla tabla
+     * @param columna columna por la que ordenar
+     * @return un iterador sobre las filas ordenadas
+     */
+    public static Iterator<FilaDatos> ordenadas(Tabla tabla, String columna) {
+        FilaDatos[] filas = new FilaDatos[tabla.getNumFilas()];
+        int numFilas = 0;
+        Iterator<FilaDatos> it = tabla.cursor(null);
+        while (it.hasNext()) {
+            FilaDatos fila = it.next();
+            if (fila.get(columna) != null) {
+                filas[numFilas++] = fila;
+            }
+        }
+        Arrays.sort(filas, 0, numFilas, Comparator.comparing((FilaDatos f) -> f.get(columna)));
+        return Arrays.asList(filas).subList(0, numFilas).iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (this.siguiente == null) {
+            if (this.i < this.grupoIzquierda.size()) {
+                // Parejas pendientes de los grupos actuales
+                FilaDatos filaIzquierda = this.grupoIzquierda.get(this.i);
+                FilaDatos filaDerecha = this.grupoDerecha.get(this.j);
+                if (++this.j == this.grupoDerecha.size()) {
+                    this.j = 0;
+                    this.i++;
+                }
+                if (filaIzquierda.get(this.columnaIzquierda).equals(filaDerecha.get(this.columnaDerecha))) {
+                    this.siguiente = this.esquema.une(filaIzquierda, filaDerecha);
+                }
+            } else if (this.siguienteIzquierda == null || this.siguienteDerecha == null) {
+                return false;
+            } else {
+                // Avanza la tabla con el valor menor hasta que coincidan
+                int comparacion = this.orden.compare(this.siguienteIzquierda.get(this.columnaIzquierda),
+                        this.siguienteDerecha.get(this.columnaDerecha));
+                if (comparacion < 0) {
+                    this.siguienteIzquierda = lee(this.izquierda, this.columnaIzquierda);
+                } else if (comparacion > 0) {
+                    this.siguienteDerecha = lee(this.derecha, this.columnaDerecha);
+                } else {
+                    this.siguienteIzquierda = this.leeGrupo(this.izquierda, this.columnaIzquierda,
+                            this.siguienteIzquierda, this.grupoIzquierda);
+                    this.siguienteDerecha = this.leeGrupo(this.derecha, this.columnaDerecha,
+                            this.siguienteDerecha, this.grupoDerecha);
+                    this.i = 0;
+                    this.j = 0;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public FilaDatos next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        FilaDatos fila = this.siguiente;
+        this.siguiente = null;
+        return fila;
+    }
+
+    /**
+     * Lee en <code>grupo</code> la fila <code>primera</code> y las siguientes
+     * que ocupan su mismo lugar en el orden
+     *
+     * @return la primera fila que ya no pertenece al grupo, o
+     * <code>null</code> si no quedan
+     */
+    private FilaDatos leeGrupo(Iterator<FilaDatos> filas, String columna, FilaDatos primera,
+            List<FilaDatos> grupo) {
+        grupo.clear();
+        grupo.add(primera);
+        String valor = primera.get(columna);
+        FilaDatos fila = lee(filas, columna);
+        while (fila != null && this.orden.compare(valor, fila.get(columna)) == 0) {
+            grupo.add(fila);
+            fila = lee(filas, columna);
+        }
+        return fila;
+    }
+
+    /**
+     * Siguiente fila con valor en la columna
+     */
+    private static FilaDatos lee(Iterator<FilaDatos> filas, String columna) {
+        while (filas.hasNext()) {
+            FilaDatos fila = filas.next();
+            if (fila.get(columna) != null) {
+                return fila;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,325 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.vista;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.agregacion.Acumulador;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.Criterio;
+import edu.upc.etsetb.poo.basededatos.dominio.BaseDatosException;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Clave;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.ClaveYaExisteException;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Esquema;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.OyenteTabla;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Tabla;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * <p>
+ * Vista materializada: el resultado de una función de agregado
+ * ({@link Acumulador#FUNCIONES}) sobre las filas de una tabla de origen que
+ * cumplen un criterio, opcionalmente agrupadas por el valor de una columna,
+ * guardado en una {@link Tabla} que se puede consultar como cualquier
+ * otra.</p>
+ *
+ * <p>
+ * La vista se calcula al crearla y después se mantiene con los cambios que
+ * avisa la tabla de origen (ver {@link OyenteTabla}): cada fila añadida o
+ * eliminada sólo actualiza el acumulador de su grupo y la fila de ese grupo
+ * en el resultado, sin volver a recorrer la tabla. Sólo hay que recorrerla
+ * si se elimina el valor mínimo o máximo de un grupo (y entonces sólo se
+ * vuelven a calcular esos grupos; ver {@link Acumulador#descuenta(String)}) o
+ * si la tabla de origen se ha cambiado sin pasar por sus métodos.</p>
+ *
+ * <p>
+ * Si hay columna de agrupación, el resultado tiene esa columna (con clave
+ * única) y la del agregado, y una fila por grupo, en el orden en que aparece
+ * cada grupo; los grupos que se quedan sin filas desaparecen. Si no, tiene
+ * sólo la columna del agregado y siempre una fila.</p>
+ */
+public class Vista implements OyenteTabla {
+
+    /**
+     * Tabla de la que se calcula la vista
+     */
+    private final Tabla origen;
+
+    /**
+     * Criterio que deben cumplir las filas de origen, o <code>null</code>
+     */
+    private final Criterio criterio;
+
+    /**
+     * Columna de agrupación, o <code>null</code> si no se agrupa
+     */
+    private final String columnaGrupo;
+
+    /**
+     * Función de agregado
+     */
+    private final String funcion;
+
+    /**
+     * Columna a agregar, o <code>null</code> para contar filas
+     */
+    private final String columna;
+
+    /**
+     * Nombre de la columna del agregado en el resultado
+     */
+    private final String columnaAgregado;
+
+    /**
+     * Comando con el que se creó la vista, para poder volver a crearla
+     */
+    private final String definicion;
+
+    /**
+     * Resultado de la vista
+     */
+    private final Tabla resultado;
+
+    /**
+     * Estado de cada grupo, por valor de la columna de agrupación
+     * (<code>null</code> para las filas sin valor y si no se agrupa), en el
+     * orden en que aparece cada grupo
+     */
+    private final Map<String, Grupo> grupos;
+
+    /**
+     * Instancia una vista y calcula su resultado a partir de las filas
+     * actuales de la tabla de origen
+     *
+     * @param nombre nombre de la vista, que es también el de la tabla con su
+     * resultado
+     * @param origen tabla de origen
+     * @param criterio criterio que deben cumplir las filas, o
+     * <code>null</code>
+     * @param columnaGrupo columna de agrupación, o <code>null</code> para no
+     * agrupar
+     * @param funcion una de las {@link Acumulador#FUNCIONES}
+     * @param columna columna a agregar, o <code>null</code> para contar filas
+     * @param definicion comando con el que se crea la vista
+     */
+    public Vista(String nombre, Tabla origen, Criterio criterio, String columnaGrupo,
+            String funcion, String columna, String definicion) {
+        this.origen = origen;
+        this.criterio = criterio;
+        this.columnaGrupo = columnaGrupo;
+        this.funcion = funcion;
+        this.columna = columna;
+        this.columnaAgregado = funcion + "(" + (columna == null ? "*" : columna) + ")";
+        this.definicion = definicion;
+        Esquema esquema = new Esquema();
+        try {
+            if (columnaGrupo != null) {
+                esquema.addClave(new Clave(columnaGrupo, true));
+            }
+            esquema.addClave(new Clave(this.columnaAgregado));
+        } catch (ClaveYaExisteException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        this.resultado = new Tabla(nombre, esquema);
+        this.grupos = new LinkedHashMap<>();
+        // Sincroniza la tabla de origen antes de escucharla, para que no avise
+        // de un cambio que ya se tiene en cuenta
+        origen.getVersion();
+        this.recalcula();
+        origen.anyadeOyente(this);
+    }
+
+    /**
+     * Tabla con el resultado de la vista. Sólo debe modificarla la vista.
+     *
+     * @return el resultado
+     */
+    public Tabla getResultado() {
+        return this.resultado;
+    }
+
+    /**
+     * Tabla de origen de la vista
+     *
+     * @return la tabla de origen
+     */
+    public Tabla getOrigen() {
+        return this.origen;
+    }
+
+    /**
+     * Comando con el que se creó la vista
+     *
+     * @return el comando
+     */
+    public String getDefinicion() {
+        return this.definicion;
+    }
+
+    /**
+     * Deja de mantener la vista al día con los cambios de la tabla de origen
+     */
+    public void desconecta() {
+        this.origen.quitaOyente(this);
+    }
+
+    @Override
+    public void filaAnyadida(Tabla tabla, FilaDatos fila) {
+        if (this.criterio != null && !this.criterio.esCumplido(fila)) {
+            return;
+        }
+        String clave = this.clave(fila);
+        Grupo grupo = this.grupos.computeIfAbsent(clave, c -> new Grupo(this.funcion));
+        grupo.numFilas++;
+        grupo.acumulador.acumula(this.valor(fila));
+        this.actualiza(clave, grupo);
+    }
+
+    @Override
+    public void filasEliminadas(Tabla tabla, List<FilaDatos> filas) {
+        Set<String> tocados = new LinkedHashSet<>();
+        Set<String> inexactos = new HashSet<>();
+        for (FilaDatos fila : filas) {
+            if (this.criterio != null && !this.criterio.esCumplido(fila)) {
+                continue;
+            }
+            String clave = this.clave(fila);
+            Grupo grupo = this.grupos.get(clave);
+            if (grupo == null) {
+                continue;
+            }
+            grupo.numFilas--;
+            if (!grupo.acumulador.descuenta(this.valor(fila))) {
+                inexactos.add(clave);
+            }
+            tocados.add(clave);
+        }
+        if (!inexactos.isEmpty()) {
+            this.recalcula(inexactos);
+        }
+        for (String clave : tocados) {
+            this.actualiza(clave, this.grupos.get(clave));
+        }
+    }
+
+    @Override
+    public void tablaCambiada(Tabla tabla) {
+        this.recalcula();
+    }
+
+    /**
+     * Vuelve a calcular la vista desde cero recorriendo la tabla de origen
+     */
+    private void recalcula() {
+        this.resultado.vacia();
+        this.grupos.clear();
+        if (this.columnaGrupo == null) {
+            this.grupos.put(null, new Grupo(this.funcion));
+        }
+        Iterator<FilaDatos> it = this.origen.cursor(this.criterio);
+        while (it.hasNext()) {
+            FilaDatos fila = it.next();
+            Grupo grupo = this.grupos.computeIfAbsent(this.clave(fila), c -> new Grupo(this.funcion));
+            grupo.numFilas++;
+            grupo.acumulador.acumula(this.valor(fila));
+        }
+        for (Map.Entry<String, Grupo> entry : this.grupos.entrySet()) {
+            this.actualiza(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Vuelve a calcular los acumuladores de algunos grupos recorriendo la
+     * tabla de origen. Las filas de los grupos en el resultado no cambian.
+     *
+     * @param claves grupos a calcular
+     */
+    private void recalcula(Set<String> claves) {
+        for (String clave : claves) {
+            this.grupos.get(clave).acumulador = new Acumulador(this.funcion);
+        }
+        Iterator<FilaDatos> it = this.origen.cursor(this.criterio);
+        while (it.hasNext()) {
+            FilaDatos fila = it.next();
+            String clave = this.clave(fila);
+            if (claves.contains(clave)) {
+                this.grupos.get(clave).acumulador.acumula(this.valor(fila));
+            }
+        }
+    }
+
+    /**
+     * Lleva el estado de un grupo a su fila del resultado: la añade si el
+     * grupo es nuevo, la quita si se ha quedado sin filas y, si no, cambia el
+     * valor del agregado si es distinto
+     *
+     * @param clave clave del grupo
+     * @param grupo estado del grupo
+     */
+    private void actualiza(String clave, Grupo grupo) {
+        String valor = grupo.acumulador.resultado();
+        try {
+            if (grupo.numFilas == 0 && this.columnaGrupo != null) {
+                this.grupos.remove(clave);
+                if (grupo.fila != null) {
+                    this.resultado.quita(grupo.fila);
+                }
+            } else if (grupo.fila == null) {
+                FilaDatos fila = new FilaDatos();
+                if (this.columnaGrupo != null) {
+                    fila.put(this.columnaGrupo, clave);
+                }
+                fila.put(this.columnaAgregado, valor);
+                this.resultado.anyade(fila);
+                grupo.fila = fila;
+            } else if (!Objects.equals(valor, grupo.fila.get(this.columnaAgregado))) {
+                this.resultado.modifica(grupo.fila, this.columnaAgregado, valor);
+            }
+        } catch (BaseDatosException e) {
+            // Cada grupo tiene una clave distinta y las columnas son las del
+            // esquema del resultado
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private String clave(FilaDatos fila) {
+        return this.columnaGrupo == null ? null : fila.get(this.columnaGrupo);
+    }
+
+    /**
+     * Valor de una fila que se acumula. Si se cuentan filas, cualquier valor
+     * no nulo.
+     */
+    private String valor(FilaDatos fila) {
+        return this.columna == null ? "" : fila.get(this.columna);
+    }
+
+    /**
+     * Estado de un grupo de la vista
+     */
+    private static class Grupo {
+
+        /**
+         * Acumulador del agregado de las filas del grupo
+         */
+        private Acumulador acumulador;
+
+        /**
+         * Número de filas de origen del grupo
+         */
+        private long numFilas;
+
+        /**
+         * Fila del grupo en el resultado, o <code>null</code> si aún no se
+         * ha añadido
+         */
+        private FilaDatos fila;
+
+        private Grupo(String funcion) {
+            this.acumulador = new Acumulador(funcion);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package edu.upc.etsetb.poo.basededatos.dominio.tabla;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * <p>
+ * Valores de una columna guardados con codificación frontal: cada valor se
+ * guarda como el número de caracteres que comparte al principio con el valor
+ * anterior y el resto de sus caracteres. En una columna ordenada, como las
+ * matrículas después de {@link Tabla#ordena(String, boolean)}, los valores
+ * vecinos comparten casi todo el principio y sólo se guardan unos pocos
+ * caracteres de cada uno.</p>
+ *
+ * <p>
+ * Cada {@link #INTERVALO_REINICIO} valores hay un punto de reinicio, un valor
+ * que se guarda entero, de modo que para leer un valor sólo hay que
+ * decodificar desde el punto de reinicio anterior, y una búsqueda en una
+ * columna ordenada puede hacerse por bisección sobre los puntos de reinicio
+ * (ver {@link #primeroNoMenor(String, Plegado)}).</p>
+ *
+ * <p>
+ * Todos los valores se guardan seguidos en un único array de caracteres. Las
+ * longitudes ocupan un carácter si son menores que 2<sup>15</sup> y dos si
+ * no. Los valores <code>null</code> se guardan como cadenas vacías y se
+ * marcan aparte.</p>
+ */
+final class ColumnaFrontal {
+
+    /**
+     * Número de valores entre dos puntos de reinicio
+     */
+    static final int INTERVALO_REINICIO = 16;
+
+    /**
+     * Bit que indica que una longitud ocupa dos caracteres
+     */
+    private static final int LONGITUD_LARGA = 0x8000;
+
+    /**
+     * Valores codificados
+     */
+    private char[] datos;
+
+    /**
+     * Número de caracteres usados de {@link #datos}
+     */
+    private int numCaracteres;
+
+    /**
+     * Posición en {@link #datos} de cada punto de reinicio
+     */
+    private int[] reinicios;
+
+    /**
+     * Posiciones de los valores <code>null</code>
+     */
+    private final BitSet nulos;
+
+    /**
+     * Número de valores
+     */
+    private int numValores;
+
+    /**
+     * Último valor añadido, con el que se compara el siguiente
+     */
+    private String anterior;
+
+    /**
+     * Instancia una columna vacía
+     *
+     * @param capacidad número de valores que se espera añadir
+     */
+    ColumnaFrontal(int capacidad) {
+        this.datos = new char[Math.max(16, capacidad * 4)];
+        this.reinicios = new int[capacidad / INTERVALO_REINICIO + 1];
+        this.nulos = new BitSet();
+        this.anterior = "";
+    }
+
+    /**
+     * Añade un valor al final de la columna
+     *
+     * @param valor valor a añadir, o <code>null</code>
+     */
+    void anyade(String valor) {
+        if (valor == null) {
+            this.nulos.set(this.numValores);
+            valor = "";
+        }
+        int comun = 0;
+        if (this.numValores % INTERVALO_REINICIO == 0) {
+            int bloque = this.numValores / INTERVALO_REINICIO;
+            if (bloque == this.reinicios.length) {
+                this.reinicios = Arrays.copyOf(this.reinicios, bloque * 2);
+            }
+            this.reinicios[bloque] = this.numCaracteres;
+        } else {
+            int maximo = Math.min(valor.length(), this.anterior.length());
+            while (comun < maximo && valor.charAt(comun) == this.anterior.charAt(comun)) {
+                comun++;
+            }
+            this.escribeLongitud(comun);
+        }
+        this.escribeLongitud(valor.length() - comun);
+        this.reserva(valor.length() - comun);
+        valor.getChars(comun, valor.length(), this.datos, this.numCaracteres);
+        this.numCaracteres += valor.length() - comun;
+        this.anterior = valor;
+        this.numValores++;
+    }
+
+    /**
+     * Ajusta los arrays al número de valores añadidos, cuando ya no se van a
+     * añadir más
+     */
+    void ajusta() {
+        this.datos = Arrays.copyOf(this.datos, this.numCaracteres);
+        this.reinicios = Arrays.copyOf(this.reinicios,
+                (this.numValores + INTERVALO_REINICIO - 1) / INTERVALO_REINICIO);
+        this.anterior = "";
+    }
+
+    /**
+     * Valor de una posición, decodificado desde el punto de reinicio anterior
+     *
+     * @param indice posición del valor
+     * @return el valor, o <code>null</code>
+     */
+    String get(int indice) {
+        return this.lector(indice).siguiente();
+    }
+
+    /**
+     * Número de valores
+     *
+     * @return el número de valores
+     */
+    int getNumValores() {
+        return this.numValores;
+    }
+
+    /**
+     * Lector que decodifica los valores uno tras otro a partir de una
+     * posición
+     *
+     * @param desde posición del primer valor a leer
+     * @return el lector
+     */
+    Lector lector(int desde) {
+        Lector lector = new Lector(desde / INTERVALO_REINICIO * INTERVALO_REINICIO);
+        while (lector.indice < desde) {
+            lector.avanza();
+        }
+        return lector;
+    }
+
+    /**
+     * <p>
+     * Primera posición cuyo valor no es menor que el buscado, comparando con
+     * {@link String#compareTo(String)} las formas plegadas de los valores (o
+     * los valores tal cual, si no se da plegado). Los valores
+     * <code>null</code> van antes que cualquier otro.</p>
+     *
+     * <p>
+     * Sólo tiene sentido si la columna está ordenada según ese mismo orden:
+     * se buscan por bisección los puntos de reinicio y luego se decodifica un
+     * único intervalo.</p>
+     *
+     * @param buscado valor buscado, ya plegado
+     * @param plegado plegado de los valores, o <code>null</code>
+     * @return la posición, o {@link #getNumValores()} si todos los valores son
+     * menores
+     */
+    int primeroNoMenor(String buscado, Plegado plegado) {
+        // Primer punto de reinicio cuyo valor no es menor que el buscado
+        int desde = 0;
+        int hasta = this.reinicios.length;
+        while (desde < hasta) {
+            int medio = (desde + hasta) >>> 1;
+            int indice = medio * INTERVALO_REINICIO;
+            if (compara(new Lector(indice).siguiente(), buscado, plegado) < 0) {
+                desde = medio + 1;
+            } else {
+                hasta = medio;
+            }
+        }
+        if (desde == 0) {
+            return 0;
+        }
+        // El primero no menor está en el intervalo anterior o es ese punto
+        Lector lector = new Lector((desde - 1) * INTERVALO_REINICIO);
+        int fin = Math.min(desde * INTERVALO_REINICIO, this.numValores);
+        while (lector.indice < fin) {
+            int indice = lector.indice;
+            if (compara(lector.siguiente(), buscado, plegado) >= 0) {
+                return indice;
+            }
+        }
+        return fin;
+    }
+
+    /**
+     * Compara un valor de la columna con el buscado
+     */
+    static int compara(String valor, String buscado, Plegado plegado) {
+        if (valor == null) {
+            return -1;
+        }
+        return (plegado == null ? valor : plegado.pliega(valor)).compareTo(buscado);
+    }
+
+    private void escribeLongitud(int longitud) {
+        this.reserva(2);
+        if (longitud < LONGITUD_LARGA) {
+            this.datos[this.numCaracteres++] = (char) longitud;
+        } else {
+            this.datos[this.numCaracteres++] = (char) (LONGITUD_LARGA | (longitud >>> 15));
+            this.datos[this.numCaracteres++] = (char) (longitud & (LONGITUD_LARGA - 1));
+        }
+    }
+
+    private void reserva(int caracteres) {
+        if (this.numCaracteres + caracteres > this.datos.length) {
+            this.datos = Arrays.copyOf(this.datos,
+                    Math.max(this.datos.length * 2, this.numCaracteres + caracteres));
+        }
+    }
+
+    /**
+     * Decodifica los valores de la columna uno tras otro, reconstruyendo cada
+     * uno a partir del anterior en un mismo array de caracteres
+     */
+    final class Lector {
+
+        /**
+         * Posición del siguiente valor
+         */
+        private int indice;
+
+        /**
+         * Posición en {@link #datos} del siguiente valor
+         */
+        private int posicion;
+
+        /**
+         * Caracteres del último valor decodificado
+         */
+        private char[] actual;
+        private int longitud;
+
+        /**
+         * Instancia un lector en un punto de reinicio
+         *
+         * @param indice posición de un punto de reinicio
+         */
+        private Lector(int indice) {
+            this.indice = indice;
+            this.posicion = indice < numValores ? reinicios[indice / INTERVALO_REINICIO] : numCaracteres;
+            this.actual = new char[16];
+        }
+
+        /**
+         * Indica si quedan valores por leer
+         *
+         * @return <code>true</code> si quedan valores
+         */
+        boolean hayMas() {
+            return this.indice < numValores;
+        }
+
+        /**
+         * Decodifica el siguiente valor
+         *
+         * @return el valor, o <code>null</code>
+         */
+        String siguiente() {
+            int indiceValor = this.indice;
+            this.avanza();
+            return nulos.get(indiceValor) ? null : new String(this.actual, 0, this.longitud);
+        }
+
+        /**
+         * Decodifica el siguiente valor sin crear la cadena
+         */
+        private void avanza() {
+            int comun = this.indice % INTERVALO_REINICIO == 0 ? 0 : this.leeLongitud();
+            int resto = this.leeLongitud();
+            this.longitud = comun + resto;
+            if (this.longitud > this.actual.length) {
+                this.actual = Arrays.copyOf(this.actual, Math.max(this.longitud, this.actual.length * 2));
+            }
+            System.arraycopy(datos, this.posicion, this.actual, comun, resto);
+            this.posicion += resto;
+            this.indice++;
+        }
+
+        private int leeLongitud() {
+            int longitud = datos[this.posicion++];
+            if ((longitud & LONGITUD_LARGA) != 0) {
+                longitud = ((longitud & (LONGITUD_LARGA - 1)) << 15) | datos[this.posicion++];
+            }
+            return longitud;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package edu.upc.etsetb.poo.basededatos.dominio.tabla;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Columnas de una {@link Tabla} y el {@link Plegado} de cada una, en el orden
+ * de su esquema. Las filas de la tabla guardan la forma plegada de cada valor
+ * en la misma posición que su columna (ver
+ * {@link FilaDatos#getPlegado(int, String)}).</p>
+ *
+ * <p>
+ * Es inmutable: la tabla crea otra cuando cambia su esquema o el plegado de
+ * alguna columna, y vuelve a plegar sus filas.</p>
+ */
+public final class ColumnasPlegadas {
+
+    /**
+     * Nombres de las columnas, por posición
+     */
+    private final String[] columnas;
+
+    /**
+     * Plegado de cada columna, por posición
+     */
+    private final Plegado[] plegados;
+
+    /**
+     * Posición de cada columna, por nombre
+     */
+    private final Map<String, Integer> posiciones;
+
+    /**
+     * Instancia las columnas plegadas de una tabla
+     *
+     * @param columnas nombres de las columnas
+     * @param plegados plegado de las columnas que no usan el de por defecto
+     * ({@link Plegado#MAYUSCULAS}), por nombre, o <code>null</code>
+     */
+    ColumnasPlegadas(List<String> columnas, Map<String, Plegado> plegados) {
+        this.columnas = columnas.toArray(new String[0]);
+        this.plegados = new Plegado[this.columnas.length];
+        this.posiciones = new HashMap<>();
+        for (int i = 0; i < this.columnas.length; i++) {
+            Plegado plegado = plegados == null ? null : plegados.get(this.columnas[i]);
+            this.plegados[i] = plegado == null ? Plegado.MAYUSCULAS : plegado;
+            this.posiciones.put(this.columnas[i], i);
+        }
+    }
+
+    /**
+     * Posición de una columna
+     *
+     * @param columna nombre de la columna
+     * @return la posición, o -1 si la columna no está
+     */
+    public int posicion(String columna) {
+        Integer posicion = this.posiciones.get(columna);
+        return posicion == null ? -1 : posicion;
+    }
+
+    /**
+     * Plegado de la columna de una posición
+     *
+     * @param posicion posición de la columna
+     * @return el plegado
+     */
+    public Plegado getPlegado(int posicion) {
+        return this.plegados[posicion];
+    }
+
+    /**
+     * Número de columnas
+     *
+     * @return el número de columnas
+     */
+    int getNumColumnas() {
+        return this.columnas.length;
+    }
+
+    /**
+     * Nombre de la columna de una posición
+     *
+     * @param posicion posición de la columna
+     * @return el nombre
+     */
+    String getColumna(int posicion) {
+        return this.columnas[posicion];
+    }
+}
@@ -0,0 +1,134 @@
+package edu.upc.etsetb.poo.basededatos.dominio.tabla;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.Criterio;
+import java.util.List;
+
+/**
+ * Resultado de {@link Tabla#explica(Criterio)}: el camino de acceso que se ha
+ * elegido para una búsqueda, las filas que se esperaba examinar y devolver y
+ * las que realmente se han examinado y devuelto, el tiempo empleado y las
+ * propias filas encontradas.
+ */
+public class Explicacion {
+
+    /**
+     * Descripción del camino de acceso elegido
+     */
+    private final String ruta;
+
+    /**
+     * Número estimado de filas a examinar, antes de ejecutar la búsqueda
+     */
+    private final long filasExaminadasEstimadas;
+
+    /**
+     * Número estimado de filas a devolver, antes de ejecutar la búsqueda
+     */
+    private final long filasDevueltasEstimadas;
+
+    /**
+     * Número de filas sobre las que se ha evaluado el criterio
+     */
+    private final long filasExaminadas;
+
+    /**
+     * Tiempo empleado en localizar las filas y evaluar el criterio, en
+     * nanosegundos
+     */
+    private final long nanosEvaluacion;
+
+    /**
+     * Tiempo empleado en construir la lista de resultados, en nanosegundos
+     */
+    private final long nanosMaterializacion;
+
+    /**
+     * Filas que cumplen el criterio, en el mismo orden que devolvería
+     * {@link Tabla#busca(Criterio)}
+     */
+    private final List<FilaDatos> resultado;
+
+    Explicacion(String ruta, long filasExaminadasEstimadas, long filasDevueltasEstimadas,
+            long filasExaminadas, long nanosEvaluacion, long nanosMaterializacion,
+            List<FilaDatos> resultado) {
+        this.ruta = ruta;
+        this.filasExaminadasEstimadas = filasExaminadasEstimadas;
+        this.filasDevueltasEstimadas = filasDevueltasEstimadas;
+        this.filasExaminadas = filasExaminadas;
+        this.nanosEvaluacion = nanosEvaluacion;
+        this.nanosMaterializacion = nanosMaterializacion;
+        this.resultado = resultado;
+    }
+
+    /**
+     * Descripción del camino de acceso elegido (recorrido completo o índice)
+     *
+     * @return descripción del camino de acceso
+     */
+    public String getRuta() {
+        return this.ruta;
+    }
+
+    /**
+     * Número estimado de filas a examinar
+     *
+     * @return filas a examinar según la estimación
+     */
+    public long getFilasExaminadasEstimadas() {
+        return this.filasExaminadasEstimadas;
+    }
+
+    /**
+     * Número estimado de filas a devolver
+     *
+     * @return filas a devolver según la estimación
+     */
+    public long getFilasDevueltasEstimadas() {
+        return this.filasDevueltasEstimadas;
+    }
+
+    /**
+     * Número de filas sobre las que se ha evaluado el criterio
+     *
+     * @return filas examinadas
+     */
+    public long getFilasExaminadas() {
+        return this.filasExaminadas;
+    }
+
+    /**
+     * Número de filas devueltas
+     *
+     * @return filas devueltas
+     */
+    public long getFilasDevueltas() {
+        return this.resultado.size();
+    }
+
+    /**
+     * Tiempo empleado en localizar las filas y evaluar el criterio
+     *
+     * @return tiempo en nanosegundos
+     */
+    public long getNanosEvaluacion() {
+        return this.nanosEvaluacion;
+    }
+
+    /**
+     * Tiempo empleado en construir la lista de resultados
+     *
+     * @return tiempo en nanosegundos
+     */
+    public long getNanosMaterializacion() {
+        return this.nanosMaterializacion;
+    }
+
+    /**
+     * Filas que cumplen el criterio
+     *
+     * @return las filas encontradas
+     */
+    public List<FilaDatos> getResultado() {
+        return this.resultado;
+    }
+}
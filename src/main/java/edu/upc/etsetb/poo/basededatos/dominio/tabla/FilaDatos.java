@@ -18,6 +18,21 @@ public class FilaDatos {
      * Mapa de parejas [nombre de clave, valor de la clave] para la fila de datos
      */
     private Map<String,String> clavesValor ;
+
+    /**
+     * Columnas plegadas de la tabla a la que se añadió la fila, o
+     * <code>null</code> si no se ha añadido a ninguna (ver
+     * {@link #pliega(ColumnasPlegadas)})
+     */
+    private ColumnasPlegadas columnasPlegadas;
+
+    /**
+     * Valores de la fila cuando se plegaron y su forma plegada, por posición
+     * de columna en {@link #columnasPlegadas}. No forman parte de la fila: no
+     * cuentan en {@link #equals(Object)} ni en {@link #toString()}.
+     */
+    private String[] originales;
+    private String[] plegados;
     
     /**
      * Constructor sin argumentos que crea un nuevo mapa clavesValor vacío.
@@ -34,6 +49,12 @@ public class FilaDatos {
      */
     public void put(String nombreClave, String valor) {
         this.clavesValor.put(nombreClave, valor);
+        if (this.columnasPlegadas != null) {
+            int posicion = this.columnasPlegadas.posicion(nombreClave);
+            if (posicion >= 0) {
+                this.pliega(posicion, valor);
+            }
+        }
     }
 
     /**
@@ -48,6 +69,54 @@ public class FilaDatos {
         return this.clavesValor.get(nombreClave);
     }
 
+    /**
+     * Forma plegada del valor de una columna, calculada al añadir la fila a
+     * una tabla, que permite compararlo sin distinguir mayúsculas de
+     * minúsculas sin crear cadenas nuevas
+     *
+     * @param posicion posición de la columna en {@link #getColumnasPlegadas()}
+     * @param valor valor actual de la columna ({@link #get(String)})
+     * @return el valor plegado, o <code>null</code> si el valor es
+     * <code>null</code> o no es el que se plegó (la fila se ha cambiado sin
+     * pasar por {@link #put(String, String)})
+     */
+    public String getPlegado(int posicion, String valor) {
+        if (valor == null || posicion < 0 || this.originales[posicion] != valor) {
+            return null;
+        }
+        return this.plegados[posicion];
+    }
+
+    /**
+     * Columnas plegadas de la tabla a la que se añadió la fila
+     *
+     * @return las columnas, o <code>null</code> si la fila no tiene valores
+     * plegados
+     */
+    public ColumnasPlegadas getColumnasPlegadas() {
+        return this.columnasPlegadas;
+    }
+
+    /**
+     * Calcula la forma plegada de los valores de todas las columnas
+     *
+     * @param columnas columnas plegadas de la tabla a la que se añade la fila
+     */
+    void pliega(ColumnasPlegadas columnas) {
+        this.columnasPlegadas = columnas;
+        this.originales = new String[columnas.getNumColumnas()];
+        this.plegados = new String[columnas.getNumColumnas()];
+        for (int i = 0; i < this.originales.length; i++) {
+            this.pliega(i, this.clavesValor.get(columnas.getColumna(i)));
+        }
+    }
+
+    private void pliega(int posicion, String valor) {
+        this.originales[posicion] = valor;
+        this.plegados[posicion] = valor == null ? null
+                : this.columnasPlegadas.getPlegado(posicion).pliega(valor);
+    }
+
     /**
      * Comprueba si la fila es válida para dicho esquema.
      * Una fila NO será válida:
@@ -0,0 +1,498 @@
+package edu.upc.etsetb.poo.basededatos.dominio.tabla;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.Criterio;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioIgual;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.function.IntPredicate;
+
+/**
+ * <p>
+ * Filas de una {@link Tabla} comprimida (ver {@link Tabla#comprime(String)}),
+ * guardadas por columnas en lugar de como una {@link FilaDatos} por fila: la
+ * columna por la que está ordenada la tabla, con codificación frontal (ver
+ * {@link ColumnaFrontal}), y las demás en un array de valores cada una. Así
+ * no se guardan el mapa de cada fila ni sus formas plegadas.</p>
+ *
+ * <p>
+ * Es una lista de sólo lectura: cada vez que se lee una fila se crea una
+ * {@link FilaDatos} nueva con sus valores, ya plegada, de modo que las filas
+ * que se obtienen son copias y no se pueden usar para modificar la tabla. La
+ * tabla vuelve a guardar sus filas sin comprimir antes de cualquier cambio.</p>
+ *
+ * <p>
+ * Las búsquedas (ver {@link #examinadas(Criterio, BitSet)}) sólo crean las
+ * filas que cumplen el criterio: el criterio se evalúa sobre una fila de
+ * prueba con el valor de su columna. Si la columna comprimida también está
+ * ordenada según su plegado, un criterio de igualdad sobre ella se resuelve
+ * por bisección, sin recorrer la columna.</p>
+ */
+final class FilasComprimidas extends AbstractList<FilaDatos> implements RandomAccess {
+
+    /**
+     * Columnas de la tabla, con el plegado de las filas que se crean
+     */
+    private final ColumnasPlegadas columnas;
+
+    /**
+     * Posición de la columna comprimida en {@link #columnas}
+     */
+    private final int posicion;
+
+    /**
+     * Valores de la columna comprimida
+     */
+    private final ColumnaFrontal comprimida;
+
+    /**
+     * Valores de las demás columnas, por posición de columna y de fila
+     */
+    private final String[][] valores;
+
+    /**
+     * Número de filas
+     */
+    private final int numFilas;
+
+    /**
+     * Indica si los valores de la columna comprimida están en orden
+     * alfabético, distinguiendo mayúsculas, y si lo están también sus formas
+     * plegadas
+     */
+    private final boolean ordenada;
+    private final boolean ordenadaPlegada;
+
+    /**
+     * Comprime unas filas
+     *
+     * @param filas filas a comprimir, con exactamente las columnas de la tabla
+     * @param columna columna a comprimir, por la que están ordenadas
+     * @param columnas columnas plegadas de la tabla
+     */
+    FilasComprimidas(List<FilaDatos> filas, String columna, ColumnasPlegadas columnas) {
+        this.columnas = columnas;
+        this.posicion = columnas.posicion(columna);
+        this.numFilas = filas.size();
+        this.comprimida = new ColumnaFrontal(this.numFilas);
+        this.valores = new String[columnas.getNumColumnas()][];
+        for (int c = 0; c < this.valores.length; c++) {
+            if (c != this.posicion) {
+                this.valores[c] = new String[this.numFilas];
+            }
+        }
+        Plegado plegado = columnas.getPlegado(this.posicion);
+        boolean enOrden = true;
+        boolean enOrdenPlegado = true;
+        String anterior = null;
+        String anteriorPlegado = null;
+        int f = 0;
+        for (FilaDatos fila : filas) {
+            for (int c = 0; c < this.valores.length; c++) {
+                if (c != this.posicion) {
+                    this.valores[c][f] = fila.get(columnas.getColumna(c));
+                }
+            }
+            String valor = fila.get(columna);
+            this.comprimida.anyade(valor);
+            if (valor != null) {
+                String valorPlegado = plegado.pliega(valor);
+                enOrden &= anterior == null || anterior.compareTo(valor) <= 0;
+                enOrdenPlegado &= anteriorPlegado == null || anteriorPlegado.compareTo(valorPlegado) <= 0;
+                anterior = valor;
+                anteriorPlegado = valorPlegado;
+            } else {
+                enOrden &= anterior == null;
+                enOrdenPlegado &= anterior == null;
+            }
+            f++;
+        }
+        this.comprimida.ajusta();
+        this.ordenada = enOrden;
+        this.ordenadaPlegada = enOrdenPlegado;
+    }
+
+    @Override
+    public FilaDatos get(int indice) {
+        if (indice < 0 || indice >= this.numFilas) {
+            throw new IndexOutOfBoundsException("Fila: " + indice + ", filas: " + this.numFilas);
+        }
+        return this.fila(indice, this.comprimida.get(indice));
+    }
+
+    @Override
+    public int size() {
+        return this.numFilas;
+    }
+
+    /**
+     * Recorre las filas decodificando la columna comprimida de una vez, sin
+     * volver a cada punto de reinicio
+     */
+    @Override
+    public Iterator<FilaDatos> iterator() {
+        return new Iterator<FilaDatos>() {
+            private final ColumnaFrontal.Lector lector = comprimida.lector(0);
+            private int indice;
+
+            @Override
+            public boolean hasNext() {
+                return this.indice < numFilas;
+            }
+
+            @Override
+            public FilaDatos next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return fila(this.indice++, this.lector.siguiente());
+            }
+        };
+    }
+
+    /**
+     * Nombre de la columna comprimida
+     *
+     * @return el nombre de la columna
+     */
+    String getColumna() {
+        return this.columnas.getColumna(this.posicion);
+    }
+
+    /**
+     * Indica si un criterio se resuelve por bisección sobre la columna
+     * comprimida: un criterio de igualdad con valor sobre ella, si está
+     * ordenada según su plegado
+     *
+     * @param criterio criterio de búsqueda
+     * @return <code>true</code> si se resuelve por bisección
+     */
+    boolean resuelve(Criterio criterio) {
+        return this.ordenadaPlegada && criterio instanceof CriterioIgual
+                && criterio.getValorAComprobar() != null && this.getColumna().equals(criterio.getNombreClave());
+    }
+
+    /**
+     * Filas a examinar para un criterio: las que tienen el valor buscado, si
+     * el criterio se resuelve por bisección (ver {@link #resuelve(Criterio)}),
+     * o si no, las que cumplen el criterio en una fila de prueba con sólo el
+     * valor de su columna
+     *
+     * @param criterio criterio de búsqueda
+     * @param bloques números de los bloques de {@link FiltrosBloque#FILAS_POR_BLOQUE}
+     * filas a recorrer, o <code>null</code> para recorrer todas
+     * @return un iterador sobre las filas a examinar, en orden
+     */
+    Iterator<FilaDatos> examinadas(Criterio criterio, BitSet bloques) {
+        if (this.resuelve(criterio)) {
+            return this.iguales(criterio.getValorAComprobar()).iterator();
+        }
+        return new Recorrido(criterio, bloques);
+    }
+
+    /**
+     * Busca la fila cuyo valor en una columna es exactamente (distinguiendo
+     * mayúsculas de minúsculas) el valor dado, por bisección si es la columna
+     * comprimida y está ordenada y recorriendo la columna si no
+     *
+     * @param columna nombre de la columna
+     * @param valor valor a buscar
+     * @return la primera fila con ese valor, o <code>null</code> si no hay
+     * ninguna
+     */
+    FilaDatos buscaExacto(String columna, String valor) {
+        int c = this.columnas.posicion(columna);
+        if (c < 0 || valor == null) {
+            return null;
+        } else if (c != this.posicion) {
+            for (int f = 0; f < this.numFilas; f++) {
+                if (valor.equals(this.valores[c][f])) {
+                    return this.get(f);
+                }
+            }
+            return null;
+        }
+        int desde = this.ordenada ? this.comprimida.primeroNoMenor(valor, null) : 0;
+        ColumnaFrontal.Lector lector = this.comprimida.lector(desde);
+        for (int f = desde; lector.hayMas(); f++) {
+            String leido = lector.siguiente();
+            if (valor.equals(leido)) {
+                return this.fila(f, leido);
+            } else if (this.ordenada && leido != null && leido.compareTo(valor) > 0) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Posiciones de las filas cuyo valor en la columna comprimida es igual,
+     * según su plegado, al valor dado, buscando por bisección la primera. Sólo
+     * vale si el criterio de igualdad se resuelve por bisección (ver
+     * {@link #resuelve(Criterio)}).
+     *
+     * @param valor valor buscado, sin plegar
+     * @return la primera posición y la siguiente a la última
+     */
+    int[] rango(String valor) {
+        Plegado plegado = this.columnas.getPlegado(this.posicion);
+        String buscado = plegado.pliega(valor);
+        int desde = this.comprimida.primeroNoMenor(buscado, plegado);
+        int hasta = desde;
+        ColumnaFrontal.Lector lector = this.comprimida.lector(desde);
+        while (lector.hayMas() && ColumnaFrontal.compara(lector.siguiente(), buscado, plegado) == 0) {
+            hasta++;
+        }
+        return new int[]{desde, hasta};
+    }
+
+    /**
+     * Evaluación de un criterio sobre las filas por su posición, sin
+     * crearlas: el criterio se evalúa sobre una fila de prueba con sólo el
+     * valor de su columna. Las posiciones se deben pedir en orden creciente
+     * para que la columna comprimida se lea sin volver a cada punto de
+     * reinicio.
+     *
+     * @param criterio criterio de búsqueda
+     * @return si la fila de cada posición cumple el criterio
+     */
+    IntPredicate cumple(Criterio criterio) {
+        return new Prueba(criterio);
+    }
+
+    /**
+     * Crea las filas de una parte de una selección, con todas las columnas o
+     * sólo con algunas. En este caso sólo se leen esas columnas: si no está la
+     * comprimida, no se decodifica, y las filas no se pliegan.
+     *
+     * @param seleccion selección de filas de la tabla
+     * @param desde número en la selección de la primera fila
+     * @param hasta número en la selección de la siguiente a la última fila
+     * @param proyeccion posiciones de las columnas a leer, o <code>null</code>
+     * para todas
+     * @return un iterador sobre las filas, en orden
+     */
+    Iterator<FilaDatos> filas(Seleccion seleccion, int desde, int hasta, int[] proyeccion) {
+        boolean leeComprimida = proyeccion == null;
+        for (int c = 0; proyeccion != null && c < proyeccion.length; c++) {
+            leeComprimida |= proyeccion[c] == this.posicion;
+        }
+        boolean decodifica = leeComprimida;
+        return new Iterator<FilaDatos>() {
+            private ColumnaFrontal.Lector lector;
+            private int posicionLector = -1;
+            private int indice = desde;
+
+            @Override
+            public boolean hasNext() {
+                return this.indice < hasta;
+            }
+
+            @Override
+            public FilaDatos next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int f = seleccion.getPosicion(this.indice++);
+                String valor = null;
+                if (decodifica) {
+                    if (this.posicionLector != f) {
+                        this.lector = comprimida.lector(f);
+                    }
+                    this.posicionLector = f + 1;
+                    valor = this.lector.siguiente();
+                }
+                return proyeccion == null ? fila(f, valor) : proyecta(f, valor, proyeccion);
+            }
+        };
+    }
+
+    /**
+     * Filas cuyo valor en la columna comprimida es igual, según su plegado, al
+     * valor dado
+     */
+    private List<FilaDatos> iguales(String valor) {
+        int[] rango = this.rango(valor);
+        List<FilaDatos> iguales = new ArrayList<>(rango[1] - rango[0]);
+        ColumnaFrontal.Lector lector = this.comprimida.lector(rango[0]);
+        for (int f = rango[0]; f < rango[1]; f++) {
+            iguales.add(this.fila(f, lector.siguiente()));
+        }
+        return iguales;
+    }
+
+    /**
+     * Crea la fila de una posición, con el valor ya decodificado de la
+     * columna comprimida
+     */
+    private FilaDatos fila(int indice, String valorComprimido) {
+        FilaDatos fila = new FilaDatos();
+        for (int c = 0; c < this.valores.length; c++) {
+            fila.put(this.columnas.getColumna(c), c == this.posicion ? valorComprimido : this.valores[c][indice]);
+        }
+        fila.pliega(this.columnas);
+        return fila;
+    }
+
+    /**
+     * Crea una fila con sólo algunas columnas de una posición, sin plegarla
+     */
+    private FilaDatos proyecta(int indice, String valorComprimido, int[] proyeccion) {
+        FilaDatos fila = new FilaDatos();
+        for (int c : proyeccion) {
+            fila.put(this.columnas.getColumna(c), c == this.posicion ? valorComprimido : this.valores[c][indice]);
+        }
+        return fila;
+    }
+
+    /**
+     * Evalúa un criterio sobre una fila de prueba con el valor de su columna
+     * en cada posición
+     */
+    private class Prueba implements IntPredicate {
+
+        private final Criterio criterio;
+
+        /**
+         * Posición de la columna del criterio en {@link #columnas}, o -1 si
+         * no está
+         */
+        private final int columnaCriterio;
+
+        /**
+         * Fila con sólo el valor de la columna del criterio
+         */
+        private final FilaDatos prueba;
+
+        /**
+         * Lector de la columna comprimida, si es la del criterio, y posición
+         * del siguiente valor que leerá
+         */
+        private ColumnaFrontal.Lector lector;
+        private int posicionLector = -1;
+
+        /**
+         * Último valor leído de la columna del criterio
+         */
+        private String valor;
+
+        Prueba(Criterio criterio) {
+            this.criterio = criterio;
+            this.columnaCriterio = columnas.posicion(criterio.getNombreClave());
+            this.prueba = new FilaDatos();
+            this.prueba.pliega(columnas);
+        }
+
+        @Override
+        public boolean test(int f) {
+            this.valor = this.valor(f);
+            if (this.columnaCriterio >= 0) {
+                this.prueba.put(this.criterio.getNombreClave(), this.valor);
+            }
+            return this.criterio.esCumplido(this.prueba);
+        }
+
+        /**
+         * Crea la fila de la última posición evaluada
+         */
+        FilaDatos fila(int f) {
+            return FilasComprimidas.this.fila(f, this.columnaCriterio == posicion ? this.valor : comprimida.get(f));
+        }
+
+        /**
+         * Valor de la columna del criterio en una posición, leyendo la columna
+         * comprimida en orden mientras las posiciones son consecutivas
+         */
+        private String valor(int f) {
+            if (this.columnaCriterio < 0) {
+                return null;
+            } else if (this.columnaCriterio != posicion) {
+                return valores[this.columnaCriterio][f];
+            }
+            if (this.posicionLector != f) {
+                this.lector = comprimida.lector(f);
+            }
+            this.posicionLector = f + 1;
+            return this.lector.siguiente();
+        }
+    }
+
+    /**
+     * Recorre las filas de algunos bloques y se detiene sólo en las que
+     * cumplen un criterio en una fila de prueba (ver {@link Prueba}), creando
+     * sólo esas filas
+     */
+    private class Recorrido implements Iterator<FilaDatos> {
+
+        private final Prueba prueba;
+
+        /**
+         * Bloques a recorrer, o <code>null</code> para todos
+         */
+        private final BitSet bloques;
+
+        /**
+         * Siguiente posición a examinar y final del bloque en el que está
+         */
+        private int indice;
+        private int finBloque;
+
+        /**
+         * Siguiente fila a devolver, o <code>null</code> si aún no se ha
+         * buscado o ya no quedan
+         */
+        private FilaDatos siguiente;
+
+        Recorrido(Criterio criterio, BitSet bloques) {
+            this.prueba = new Prueba(criterio);
+            this.bloques = bloques;
+            if (bloques == null) {
+                this.finBloque = numFilas;
+            } else {
+                this.saltaA(bloques.nextSetBit(0));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (this.siguiente == null && this.indice < numFilas) {
+                if (this.indice == this.finBloque) {
+                    this.saltaA(this.bloques.nextSetBit(this.indice / FiltrosBloque.FILAS_POR_BLOQUE));
+                    continue;
+                }
+                int f = this.indice++;
+                if (this.prueba.test(f)) {
+                    this.siguiente = this.prueba.fila(f);
+                }
+            }
+            return this.siguiente != null;
+        }
+
+        @Override
+        public FilaDatos next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            FilaDatos fila = this.siguiente;
+            this.siguiente = null;
+            return fila;
+        }
+
+        /**
+         * Pasa al principio de un bloque, o al final de las filas si no
+         * quedan bloques
+         */
+        private void saltaA(int bloque) {
+            if (bloque < 0) {
+                this.indice = numFilas;
+            } else {
+                this.indice = bloque * FiltrosBloque.FILAS_POR_BLOQUE;
+                this.finBloque = Math.min(this.indice + FiltrosBloque.FILAS_POR_BLOQUE, numFilas);
+            }
+        }
+    }
+}
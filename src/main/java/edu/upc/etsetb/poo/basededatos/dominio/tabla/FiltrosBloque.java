@@ -0,0 +1,197 @@
+package edu.upc.etsetb.poo.basededatos.dominio.tabla;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * Filtros de Bloom de una {@link Tabla} por bloques de
+ * {@link #FILAS_POR_BLOQUE} filas consecutivas: para cada bloque y cada
+ * columna, un conjunto de bits en el que se marcan los valores plegados (ver
+ * {@link Plegado}) de las filas del bloque. Un criterio de igualdad sólo tiene
+ * que examinar los bloques cuyo filtro puede contener su valor; los demás
+ * seguro que no tienen ninguna fila que lo cumpla.</p>
+ *
+ * <p>
+ * Cada valor marca {@link #NUM_FUNCIONES} bits, calculados a partir de su
+ * {@link String#hashCode()}. Con {@link #BITS_POR_FILTRO} bits por filtro, si
+ * todas las filas de un bloque tienen valores distintos, un valor que no está
+ * en el bloque lo deja pasar alrededor del 2% de las veces.</p>
+ *
+ * <p>
+ * Si alguna fila de un bloque no tiene la forma plegada de su valor con el
+ * plegado de la columna (ver {@link FilaDatos#getPlegado(int, String)}), el
+ * bloque deja de tener filtro para esa columna y siempre se examina.</p>
+ */
+class FiltrosBloque {
+
+    /**
+     * Número de filas de cada bloque
+     */
+    static final int FILAS_POR_BLOQUE = 1024;
+
+    /**
+     * Número de bits de cada filtro (potencia de 2)
+     */
+    private static final int BITS_POR_FILTRO = 8 * FILAS_POR_BLOQUE;
+
+    /**
+     * Número de bits que marca cada valor
+     */
+    private static final int NUM_FUNCIONES = 5;
+
+    /**
+     * Marca de un bloque sin filtro para una columna
+     */
+    private static final long[] SIN_FILTRO = new long[0];
+
+    /**
+     * Columnas de la tabla, con el plegado que usan los filtros
+     */
+    private final ColumnasPlegadas columnas;
+
+    /**
+     * Filtro de cada bloque y cada columna, por posición de columna
+     */
+    private final List<long[][]> bloques;
+
+    /**
+     * Número de filas añadidas a los filtros
+     */
+    private int numFilas;
+
+    /**
+     * Instancia filtros vacíos
+     *
+     * @param columnas columnas de la tabla
+     */
+    FiltrosBloque(ColumnasPlegadas columnas) {
+        this.columnas = columnas;
+        this.bloques = new ArrayList<>();
+    }
+
+    /**
+     * Añade una fila al final del último bloque, o de uno nuevo si está lleno
+     *
+     * @param fila fila a añadir
+     */
+    void anyade(FilaDatos fila) {
+        if (this.numFilas % FILAS_POR_BLOQUE == 0) {
+            this.bloques.add(new long[this.columnas.getNumColumnas()][]);
+        }
+        long[][] bloque = this.bloques.get(this.bloques.size() - 1);
+        ColumnasPlegadas deLaFila = fila.getColumnasPlegadas();
+        for (int i = 0; i < bloque.length; i++) {
+            if (bloque[i] == SIN_FILTRO) {
+                continue;
+            }
+            String columna = this.columnas.getColumna(i);
+            String valor = fila.get(columna);
+            if (valor == null) {
+                continue;
+            }
+            int posicion = deLaFila == null ? -1 : deLaFila.posicion(columna);
+            String plegado = fila.getPlegado(posicion, valor);
+            if (plegado == null || deLaFila.getPlegado(posicion) != this.columnas.getPlegado(i)) {
+                bloque[i] = SIN_FILTRO;
+                continue;
+            }
+            if (bloque[i] == null) {
+                bloque[i] = new long[BITS_POR_FILTRO / 64];
+            }
+            int h1 = plegado.hashCode();
+            int h2 = segundoHash(h1);
+            for (int k = 0; k < NUM_FUNCIONES; k++) {
+                int bit = (h1 + k * h2) & (BITS_POR_FILTRO - 1);
+                bloque[i][bit >>> 6] |= 1L << bit;
+            }
+        }
+        this.numFilas++;
+    }
+
+    /**
+     * Bloques que pueden tener filas con un valor en una columna
+     *
+     * @param columna nombre de la columna
+     * @param valor valor buscado, sin plegar
+     * @return los números de los bloques a examinar
+     */
+    BitSet bloquesPosibles(String columna, String valor) {
+        BitSet posibles = new BitSet(this.bloques.size());
+        int posicion = this.columnas.posicion(columna);
+        String plegado = this.columnas.getPlegado(posicion).pliega(valor);
+        int h1 = plegado.hashCode();
+        int h2 = segundoHash(h1);
+        for (int b = 0; b < this.bloques.size(); b++) {
+            long[] filtro = this.bloques.get(b)[posicion];
+            boolean puede = filtro != null;
+            if (puede && filtro != SIN_FILTRO) {
+                for (int k = 0; k < NUM_FUNCIONES && puede; k++) {
+                    int bit = (h1 + k * h2) & (BITS_POR_FILTRO - 1);
+                    puede = (filtro[bit >>> 6] & (1L << bit)) != 0;
+                }
+            }
+            if (puede) {
+                posibles.set(b);
+            }
+        }
+        return posibles;
+    }
+
+    /**
+     * Número de bloques
+     *
+     * @return el número de bloques
+     */
+    int getNumBloques() {
+        return this.bloques.size();
+    }
+
+    /**
+     * Recorre las filas de algunos bloques
+     *
+     * @param filas filas de la tabla, en una lista con acceso directo
+     * @param bloques números de los bloques a recorrer
+     * @return un iterador sobre las filas de esos bloques, en orden
+     */
+    static Iterator<FilaDatos> recorrido(List<FilaDatos> filas, BitSet bloques) {
+        return new Iterator<FilaDatos>() {
+            private int siguienteBloque = bloques.nextSetBit(0);
+            private Iterator<FilaDatos> actual = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!this.actual.hasNext() && this.siguienteBloque >= 0) {
+                    int desde = this.siguienteBloque * FILAS_POR_BLOQUE;
+                    int hasta = Math.min(desde + FILAS_POR_BLOQUE, filas.size());
+                    this.actual = filas.subList(Math.min(desde, hasta), hasta).iterator();
+                    this.siguienteBloque = bloques.nextSetBit(this.siguienteBloque + 1);
+                }
+                return this.actual.hasNext();
+            }
+
+            @Override
+            public FilaDatos next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return this.actual.next();
+            }
+        };
+    }
+
+    /**
+     * Segundo hash de un valor, impar para que los bits de un mismo valor
+     * sean distintos
+     */
+    private static int segundoHash(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h | 1;
+    }
+}
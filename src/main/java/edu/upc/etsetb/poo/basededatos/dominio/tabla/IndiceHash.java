@@ -0,0 +1,160 @@
+package edu.upc.etsetb.poo.basededatos.dominio.tabla;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Índice hash sobre una columna de una {@link Tabla}, que permite encontrar
+ * las filas con un valor dado sin recorrer la tabla entera.</p>
+ *
+ * <p>
+ * Las filas se agrupan por el valor plegado de la columna, sin distinguir
+ * mayúsculas de minúsculas (ver {@link Plegado}), de modo que el índice sirve tanto
+ * para comprobar la unicidad de una clave única (que sí distingue mayúsculas y
+ * minúsculas) como para resolver un criterio de igualdad (que no las
+ * distingue). Las filas cuyo valor es <code>null</code> no se indexan.</p>
+ */
+class IndiceHash {
+
+    /**
+     * Nombre de la columna indexada
+     */
+    private final String columna;
+
+    /**
+     * Plegado de los valores de la columna
+     */
+    private final Plegado plegado;
+
+    /**
+     * Filas indexadas. La clave es el valor plegado de la columna; el valor es
+     * la única {@link FilaDatos} con ese valor plegado o, si hay varias, una
+     * lista con todas ellas en el orden en que se añadieron.
+     */
+    private final Map<String, Object> entradas;
+
+    /**
+     * Instancia un índice vacío sobre una columna
+     *
+     * @param columna nombre de la columna indexada
+     * @param plegado plegado de los valores de la columna
+     */
+    IndiceHash(String columna, Plegado plegado) {
+        this.columna = columna;
+        this.plegado = plegado;
+        this.entradas = new HashMap<>();
+    }
+
+    /**
+     * Añade una fila al índice
+     *
+     * @param fila fila a añadir
+     */
+    @SuppressWarnings("unchecked")
+    void anyade(FilaDatos fila) {
+        String valor = fila.get(this.columna);
+        if (valor == null) {
+            return;
+        }
+        String clave = this.plegado.pliega(valor);
+        Object actual = this.entradas.get(clave);
+        if (actual == null) {
+            this.entradas.put(clave, fila);
+        } else if (actual instanceof FilaDatos) {
+            List<FilaDatos> lista = new ArrayList<>(2);
+            lista.add((FilaDatos) actual);
+            lista.add(fila);
+            this.entradas.put(clave, lista);
+        } else {
+            ((List<FilaDatos>) actual).add(fila);
+        }
+    }
+
+    /**
+     * Quita una fila del índice. La fila se identifica por referencia, no por
+     * {@link FilaDatos#equals(Object)}.
+     *
+     * @param fila fila a quitar
+     */
+    @SuppressWarnings("unchecked")
+    void elimina(FilaDatos fila) {
+        String valor = fila.get(this.columna);
+        if (valor == null) {
+            return;
+        }
+        String clave = this.plegado.pliega(valor);
+        Object actual = this.entradas.get(clave);
+        if (actual == fila) {
+            this.entradas.remove(clave);
+        } else if (actual instanceof List) {
+            List<FilaDatos> lista = (List<FilaDatos>) actual;
+            for (int i = 0; i < lista.size(); i++) {
+                if (lista.get(i) == fila) {
+                    lista.remove(i);
+                    break;
+                }
+            }
+            if (lista.size() == 1) {
+                this.entradas.put(clave, lista.get(0));
+            }
+        }
+    }
+
+    /**
+     * Devuelve las filas cuyo valor es igual, según el plegado de la columna,
+     * al valor dado
+     *
+     * @param valor valor a buscar
+     * @return las filas con ese valor, en el orden en que se añadieron al
+     * índice
+     */
+    @SuppressWarnings("unchecked")
+    List<FilaDatos> busca(String valor) {
+        Object actual = this.entradas.get(this.plegado.pliega(valor));
+        if (actual == null) {
+            return Collections.emptyList();
+        } else if (actual instanceof FilaDatos) {
+            return Collections.singletonList((FilaDatos) actual);
+        }
+        return (List<FilaDatos>) actual;
+    }
+
+    /**
+     * Devuelve una fila cuyo valor es exactamente (distinguiendo mayúsculas de
+     * minúsculas) el valor dado
+     *
+     * @param valor valor a buscar
+     * @return una fila con ese valor, o <code>null</code> si no hay ninguna
+     */
+    FilaDatos buscaExacto(String valor) {
+        for (FilaDatos fila : this.busca(valor)) {
+            if (valor.equals(fila.get(this.columna))) {
+                return fila;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Número de valores distintos (según el plegado de la columna) de la
+     * columna
+     *
+     * @return número de valores distintos
+     */
+    int getNumValores() {
+        return this.entradas.size();
+    }
+
+    /**
+     * Nombre de la columna indexada
+     *
+     * @return nombre de la columna
+     */
+    String getColumna() {
+        return this.columna;
+    }
+}
@@ -0,0 +1,186 @@
+package edu.upc.etsetb.poo.basededatos.dominio.tabla;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p>
+ * Índice ordenado sobre una columna de una {@link Tabla}, que permite conocer
+ * el valor mínimo y el máximo de la columna en tiempo logarítmico.</p>
+ *
+ * <p>
+ * Los valores que se pueden convertir a número con
+ * {@link Double#parseDouble(String)} se ordenan numéricamente, y el resto
+ * alfabéticamente en un árbol aparte. Las filas cuyo valor es
+ * <code>null</code> no se indexan.</p>
+ */
+class IndiceOrdenado {
+
+    /**
+     * Nombre de la columna indexada
+     */
+    private final String columna;
+
+    /**
+     * Filas con valor numérico, por valor
+     */
+    private final TreeMap<Double, List<FilaDatos>> numericos;
+
+    /**
+     * Filas con valor no numérico, por valor
+     */
+    private final TreeMap<String, List<FilaDatos>> textos;
+
+    /**
+     * Instancia un índice vacío sobre una columna
+     *
+     * @param columna nombre de la columna indexada
+     */
+    IndiceOrdenado(String columna) {
+        this.columna = columna;
+        this.numericos = new TreeMap<>();
+        this.textos = new TreeMap<>();
+    }
+
+    /**
+     * Añade una fila al índice
+     *
+     * @param fila fila a añadir
+     */
+    void anyade(FilaDatos fila) {
+        String valor = fila.get(this.columna);
+        if (valor == null) {
+            return;
+        }
+        Double numero = numero(valor);
+        List<FilaDatos> lista = numero != null
+                ? this.numericos.computeIfAbsent(numero, n -> new ArrayList<>(1))
+                : this.textos.computeIfAbsent(valor, t -> new ArrayList<>(1));
+        lista.add(fila);
+    }
+
+    /**
+     * Quita una fila del índice. La fila se identifica por referencia.
+     *
+     * @param fila fila a quitar
+     */
+    void elimina(FilaDatos fila) {
+        String valor = fila.get(this.columna);
+        if (valor == null) {
+            return;
+        }
+        Double numero = numero(valor);
+        if (numero != null) {
+            quita(this.numericos, numero, fila);
+        } else {
+            quita(this.textos, valor, fila);
+        }
+    }
+
+    /**
+     * Valor mínimo de la columna: el menor de los valores numéricos o, si no
+     * hay ninguno, el primero alfabéticamente
+     *
+     * @return el valor mínimo, o <code>null</code> si no hay filas indexadas
+     */
+    String minimo() {
+        if (!this.numericos.isEmpty()) {
+            return this.numericos.firstEntry().getValue().get(0).get(this.columna);
+        }
+        return this.textos.isEmpty() ? null : this.textos.firstKey();
+    }
+
+    /**
+     * Valor máximo de la columna: el mayor de los valores numéricos o, si no
+     * hay ninguno, el último alfabéticamente
+     *
+     * @return el valor máximo, o <code>null</code> si no hay filas indexadas
+     */
+    String maximo() {
+        if (!this.numericos.isEmpty()) {
+            return this.numericos.lastEntry().getValue().get(0).get(this.columna);
+        }
+        return this.textos.isEmpty() ? null : this.textos.lastKey();
+    }
+
+    /**
+     * Recorre las filas indexadas en el orden del índice (ver
+     * {@link #compara(String, String)}); las filas con el mismo valor, en el
+     * orden en que se añadieron
+     *
+     * @return un iterador sobre las filas indexadas
+     */
+    Iterator<FilaDatos> recorrido() {
+        List<Collection<List<FilaDatos>>> arboles = new ArrayList<>(2);
+        arboles.add(this.numericos.values());
+        arboles.add(this.textos.values());
+        return arboles.stream().flatMap(Collection::stream).flatMap(List::stream).iterator();
+    }
+
+    /**
+     * Orden del índice: los valores numéricos van antes que los no numéricos,
+     * y se comparan numéricamente; los no numéricos se comparan
+     * alfabéticamente. Dos valores distintos pueden ser iguales en este orden
+     * (por ejemplo, <code>1</code> y <code>1.0</code>).
+     *
+     * @param a un valor
+     * @param b otro valor
+     * @return un número menor que 0, 0 o mayor que 0 si <code>a</code> va
+     * antes, en el mismo lugar o después que <code>b</code>
+     */
+    static int compara(String a, String b) {
+        Double numeroA = numero(a);
+        Double numeroB = numero(b);
+        if (numeroA != null && numeroB != null) {
+            return numeroA.compareTo(numeroB);
+        } else if (numeroA != null) {
+            return -1;
+        } else if (numeroB != null) {
+            return 1;
+        }
+        return a.compareTo(b);
+    }
+
+    /**
+     * Convierte un valor a número
+     *
+     * @param valor valor a convertir
+     * @return el número, o <code>null</code> si el valor no es numérico
+     */
+    static Double numero(String valor) {
+        // Descarta sin lanzar la excepción los valores cuyo primer carácter
+        // (tras los espacios) no puede empezar un número
+        int i = 0;
+        while (i < valor.length() && valor.charAt(i) <= ' ') {
+            i++;
+        }
+        if (i == valor.length() || "0123456789+-.IN".indexOf(valor.charAt(i)) < 0) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(valor);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static <K> void quita(Map<K, List<FilaDatos>> arbol, K clave, FilaDatos fila) {
+        List<FilaDatos> lista = arbol.get(clave);
+        if (lista == null) {
+            return;
+        }
+        for (int i = 0; i < lista.size(); i++) {
+            if (lista.get(i) == fila) {
+                lista.remove(i);
+                break;
+            }
+        }
+        if (lista.isEmpty()) {
+            arbol.remove(clave);
+        }
+    }
+}
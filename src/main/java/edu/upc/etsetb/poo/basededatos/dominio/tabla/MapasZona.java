@@ -0,0 +1,168 @@
+package edu.upc.etsetb.poo.basededatos.dominio.tabla;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Mapas de zona de una {@link Tabla}: para cada bloque de
+ * {@link FiltrosBloque#FILAS_POR_BLOQUE} filas consecutivas y cada columna,
+ * el menor y el mayor de sus valores numéricos. Un criterio de rango (mayor
+ * que o menor que) sólo tiene que examinar los bloques cuyo intervalo puede
+ * tener valores que lo cumplan, ya que los valores no numéricos nunca los
+ * cumplen. Si las filas están más o menos ordenadas por la columna (por
+ * ejemplo, después de {@link Tabla#ordena(String, boolean)}), se salta casi
+ * toda la tabla.</p>
+ *
+ * <p>
+ * Para no tener que intentar convertir cada valor de una columna de texto, un
+ * valor sólo se convierte si tiene la forma de un número decimal sencillo
+ * (signo opcional, dígitos y, opcionalmente, un punto y más dígitos). Si un
+ * bloque tiene en una columna algún otro valor que no sea <code>null</code>,
+ * el bloque se queda sin mapa para esa columna y siempre se examina.</p>
+ */
+class MapasZona {
+
+    /**
+     * Nombres de las columnas, por posición
+     */
+    private final String[] columnas;
+
+    /**
+     * Posición de cada columna, por nombre
+     */
+    private final Map<String, Integer> posiciones;
+
+    /**
+     * Zona de cada bloque
+     */
+    private final List<Zona> zonas;
+
+    /**
+     * Número de filas añadidas a los mapas
+     */
+    private int numFilas;
+
+    /**
+     * Instancia mapas vacíos
+     *
+     * @param columnas nombres de las columnas de la tabla
+     */
+    MapasZona(List<String> columnas) {
+        this.columnas = columnas.toArray(new String[0]);
+        this.posiciones = new HashMap<>();
+        for (int i = 0; i < this.columnas.length; i++) {
+            this.posiciones.put(this.columnas[i], i);
+        }
+        this.zonas = new ArrayList<>();
+    }
+
+    /**
+     * Añade una fila al final del último bloque, o de uno nuevo si está lleno
+     *
+     * @param fila fila a añadir
+     */
+    void anyade(FilaDatos fila) {
+        if (this.numFilas % FiltrosBloque.FILAS_POR_BLOQUE == 0) {
+            this.zonas.add(new Zona(this.columnas.length));
+        }
+        Zona zona = this.zonas.get(this.zonas.size() - 1);
+        for (int i = 0; i < this.columnas.length; i++) {
+            if (zona.sinMapa[i]) {
+                continue;
+            }
+            String valor = fila.get(this.columnas[i]);
+            if (valor == null) {
+                continue;
+            }
+            if (!esDecimal(valor)) {
+                zona.sinMapa[i] = true;
+                continue;
+            }
+            double numero = Double.parseDouble(valor);
+            zona.minimo[i] = Math.min(zona.minimo[i], numero);
+            zona.maximo[i] = Math.max(zona.maximo[i], numero);
+        }
+        this.numFilas++;
+    }
+
+    /**
+     * Bloques que pueden tener filas cuyo valor numérico en una columna es
+     * mayor o menor que un límite
+     *
+     * @param columna nombre de la columna
+     * @param limite límite del criterio
+     * @param mayor <code>true</code> para valores mayores que el límite,
+     * <code>false</code> para valores menores
+     * @return los números de los bloques a examinar
+     */
+    BitSet bloquesPosibles(String columna, double limite, boolean mayor) {
+        BitSet posibles = new BitSet(this.zonas.size());
+        int posicion = this.posiciones.get(columna);
+        for (int b = 0; b < this.zonas.size(); b++) {
+            Zona zona = this.zonas.get(b);
+            if (zona.sinMapa[posicion]
+                    || (mayor ? zona.maximo[posicion] > limite : zona.minimo[posicion] < limite)) {
+                posibles.set(b);
+            }
+        }
+        return posibles;
+    }
+
+    /**
+     * Número de bloques
+     *
+     * @return el número de bloques
+     */
+    int getNumBloques() {
+        return this.zonas.size();
+    }
+
+    /**
+     * Indica si un valor tiene la forma de un número decimal sencillo, que
+     * {@link Double#parseDouble(String)} convierte sin error
+     */
+    private static boolean esDecimal(String valor) {
+        int i = valor.isEmpty() || (valor.charAt(0) != '-' && valor.charAt(0) != '+') ? 0 : 1;
+        int digitos = 0;
+        boolean punto = false;
+        for (; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digitos++;
+            } else if (c == '.' && !punto) {
+                punto = true;
+            } else {
+                return false;
+            }
+        }
+        return digitos > 0;
+    }
+
+    /**
+     * Menor y mayor valor numérico de cada columna en un bloque
+     */
+    private static class Zona {
+
+        private final double[] minimo;
+        private final double[] maximo;
+
+        /**
+         * Columnas en las que el bloque tiene valores que no se han
+         * convertido, y cuyo intervalo no se conoce
+         */
+        private final boolean[] sinMapa;
+
+        private Zona(int numColumnas) {
+            this.minimo = new double[numColumnas];
+            this.maximo = new double[numColumnas];
+            this.sinMapa = new boolean[numColumnas];
+            Arrays.fill(this.minimo, Double.POSITIVE_INFINITY);
+            Arrays.fill(this.maximo, Double.NEGATIVE_INFINITY);
+        }
+    }
+}
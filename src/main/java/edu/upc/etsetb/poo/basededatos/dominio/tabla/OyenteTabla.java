@@ -0,0 +1,42 @@
+package edu.upc.etsetb.poo.basededatos.dominio.tabla;
+
+import java.util.List;
+
+/**
+ * <p>
+ * Objeto al que una {@link Tabla} avisa de los cambios en sus filas, para que
+ * pueda mantener al día datos calculados a partir de ellas sin volver a
+ * recorrer la tabla (ver {@link Tabla#anyadeOyente(OyenteTabla)}).</p>
+ *
+ * <p>
+ * La tabla avisa cuando el cambio ya está hecho. Una modificación de una fila
+ * se avisa como la eliminación de la fila anterior seguida de la adición de
+ * la nueva.</p>
+ */
+public interface OyenteTabla {
+
+    /**
+     * Se ha añadido una fila a la tabla
+     *
+     * @param tabla tabla modificada
+     * @param fila fila añadida
+     */
+    void filaAnyadida(Tabla tabla, FilaDatos fila);
+
+    /**
+     * Se han eliminado filas de la tabla
+     *
+     * @param tabla tabla modificada
+     * @param filas filas eliminadas, con los valores que tenían en la tabla
+     */
+    void filasEliminadas(Tabla tabla, List<FilaDatos> filas);
+
+    /**
+     * Las filas de la tabla se han cambiado sin pasar por sus métodos, y no se
+     * sabe qué ha cambiado: hay que volver a calcular a partir de todas las
+     * filas
+     *
+     * @param tabla tabla modificada
+     */
+    void tablaCambiada(Tabla tabla);
+}
@@ -0,0 +1,109 @@
+package edu.upc.etsetb.poo.basededatos.dominio.tabla;
+
+import java.text.Normalizer;
+
+/**
+ * <p>
+ * Forma de plegar los valores de una columna de una {@link Tabla} para
+ * compararlos en los criterios de igualdad y de contención, que no distinguen
+ * mayúsculas de minúsculas: dos valores son iguales si y sólo si sus formas
+ * plegadas son iguales.</p>
+ *
+ * <p>
+ * Cada columna tiene un plegado (ver {@link Tabla#pliega(String, Plegado)});
+ * por defecto, {@link #MAYUSCULAS}.</p>
+ */
+public enum Plegado {
+
+    /**
+     * No distingue mayúsculas de minúsculas: cada carácter se pasa a
+     * mayúscula y luego a minúscula, que es exactamente la equivalencia que
+     * usa {@link String#equalsIgnoreCase(String)}
+     */
+    MAYUSCULAS("mayusculas") {
+        @Override
+        public String pliega(String valor) {
+            for (int i = 0; i < valor.length(); i++) {
+                char c = valor.charAt(i);
+                if (Character.toLowerCase(Character.toUpperCase(c)) != c) {
+                    char[] plegado = valor.toCharArray();
+                    for (int j = i; j < plegado.length; j++) {
+                        plegado[j] = Character.toLowerCase(Character.toUpperCase(plegado[j]));
+                    }
+                    return new String(plegado);
+                }
+            }
+            return valor;
+        }
+    },
+
+    /**
+     * No distingue mayúsculas de minúsculas ni letras con o sin acento
+     * (<code>Córdoba</code> es igual a <code>cordoba</code>): quita las marcas
+     * diacríticas de la descomposición canónica de cada carácter y pliega el
+     * resultado como {@link #MAYUSCULAS}
+     */
+    ACENTOS("acentos") {
+        @Override
+        public String pliega(String valor) {
+            int i = 0;
+            while (i < valor.length() && valor.charAt(i) < 0x80) {
+                i++;
+            }
+            if (i == valor.length()) {
+                return MAYUSCULAS.pliega(valor);
+            }
+            String descompuesto = Normalizer.normalize(valor, Normalizer.Form.NFD);
+            StringBuilder sinAcentos = new StringBuilder(descompuesto.length());
+            for (int j = 0; j < descompuesto.length(); j++) {
+                char c = descompuesto.charAt(j);
+                if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                    sinAcentos.append(c);
+                }
+            }
+            String plegado = MAYUSCULAS.pliega(sinAcentos.toString());
+            return plegado.equals(valor) ? valor : plegado;
+        }
+    };
+
+    /**
+     * Nombre del plegado en los comandos
+     */
+    private final String nombre;
+
+    private Plegado(String nombre) {
+        this.nombre = nombre;
+    }
+
+    /**
+     * Convierte un valor a su forma plegada
+     *
+     * @param valor valor a plegar, no <code>null</code>
+     * @return el valor plegado (el mismo objeto si no cambia)
+     */
+    public abstract String pliega(String valor);
+
+    /**
+     * Nombre del plegado en los comandos
+     *
+     * @return el nombre
+     */
+    public String getNombre() {
+        return this.nombre;
+    }
+
+    /**
+     * Busca un plegado por su nombre en los comandos
+     *
+     * @param nombre nombre del plegado
+     * @return el plegado, o <code>null</code> si no hay ninguno con ese nombre
+     */
+    public static Plegado deNombre(String nombre) {
+        for (Plegado plegado : values()) {
+            if (plegado.nombre.equals(nombre)) {
+                return plegado;
+            }
+        }
+        return null;
+    }
+}
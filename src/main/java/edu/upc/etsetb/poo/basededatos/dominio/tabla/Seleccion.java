@@ -0,0 +1,127 @@
+package edu.upc.etsetb.poo.basededatos.dominio.tabla;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.Criterio;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Resultado de una búsqueda en una {@link Tabla} guardado como las posiciones
+ * de las filas que cumplen el criterio, en orden, en lugar de como una lista
+ * de {@link FilaDatos} (ver {@link Tabla#selecciona(Criterio)}). Una búsqueda
+ * de varios pasos va reduciendo la selección con
+ * {@link Tabla#filtra(Seleccion, Criterio)} sin crear ninguna lista de filas,
+ * y las filas sólo se obtienen al final, con
+ * {@link Tabla#materializa(Seleccion, int, int)}, y sólo las que se
+ * necesitan.</p>
+ *
+ * <p>
+ * Las posiciones sólo son válidas mientras no cambien las filas de la tabla:
+ * la selección guarda la versión de la tabla (ver {@link Tabla#getVersion()})
+ * en que se hizo.</p>
+ */
+public final class Seleccion {
+
+    /**
+     * Tabla de cuyas filas son las posiciones
+     */
+    private final Tabla tabla;
+
+    /**
+     * Versión de la tabla cuando se hizo la selección
+     */
+    private final long version;
+
+    /**
+     * Posiciones de las filas seleccionadas, en orden creciente; sólo se usan
+     * las {@link #numFilas} primeras
+     */
+    private int[] posiciones;
+
+    /**
+     * Número de filas seleccionadas
+     */
+    private int numFilas;
+
+    /**
+     * Única fila seleccionada, si la ha encontrado el índice de una clave
+     * única (ver {@link #anyadeFila(FilaDatos)}), o <code>null</code>
+     */
+    private FilaDatos fila;
+
+    /**
+     * Instancia una selección vacía, a la que la tabla añade posiciones
+     *
+     * @param tabla tabla de las filas
+     * @param version versión actual de la tabla
+     * @param capacidad número de posiciones que se espera añadir
+     */
+    Seleccion(Tabla tabla, long version, int capacidad) {
+        this.tabla = tabla;
+        this.version = version;
+        this.posiciones = new int[Math.max(8, capacidad)];
+    }
+
+    /**
+     * Número de filas seleccionadas
+     *
+     * @return el número de filas
+     */
+    public int getNumFilas() {
+        return this.numFilas;
+    }
+
+    /**
+     * Añade la posición de una fila, mayor que las ya añadidas
+     *
+     * @param posicion posición de la fila en la tabla
+     */
+    void anyade(int posicion) {
+        if (this.numFilas == this.posiciones.length) {
+            this.posiciones = Arrays.copyOf(this.posiciones, this.numFilas * 2);
+        }
+        this.posiciones[this.numFilas++] = posicion;
+    }
+
+    /**
+     * Selecciona una fila sin saber su posición en la tabla, para no tener que
+     * buscarla recorriendo las filas. Sólo puede hacerse en una selección
+     * vacía, que ya no admite más filas.
+     *
+     * @param fila fila de la tabla
+     */
+    void anyadeFila(FilaDatos fila) {
+        this.fila = fila;
+        this.numFilas = 1;
+    }
+
+    /**
+     * Fila seleccionada con {@link #anyadeFila(FilaDatos)}
+     *
+     * @return la fila, o <code>null</code> si las filas se han seleccionado
+     * por posición
+     */
+    FilaDatos getFila() {
+        return this.fila;
+    }
+
+    /**
+     * Posición en la tabla de una de las filas seleccionadas
+     *
+     * @param indice número de la fila en la selección
+     * @return la posición de la fila en la tabla
+     */
+    int getPosicion(int indice) {
+        return this.posiciones[indice];
+    }
+
+    /**
+     * Indica si la selección se hizo sobre una tabla en una versión
+     *
+     * @param tabla tabla
+     * @param version versión de la tabla
+     * @return <code>true</code> si las posiciones siguen siendo válidas
+     */
+    boolean esDe(Tabla tabla, long version) {
+        return this.tabla == tabla && this.version == version;
+    }
+}
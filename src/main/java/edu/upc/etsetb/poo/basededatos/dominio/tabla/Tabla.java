@@ -2,9 +2,15 @@ package edu.upc.etsetb.poo.basededatos.dominio.tabla;
 
 import edu.upc.etsetb.poo.basededatos.casosdeuso.ComparadorFilas;
 import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.Criterio;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioContiene;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioIgual;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioMayorQue;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioMenorQue;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.orden.OrdenacionParalela;
 import edu.upc.etsetb.poo.basededatos.dominio.esquema.Clave;
 import edu.upc.etsetb.poo.basededatos.dominio.esquema.Esquema;
 import java.util.*;
+import java.util.function.IntPredicate;
 
 /**
  * Una tabla guarda, siguiendo un {@link Esquema} que indica qué columnas tiene
@@ -32,10 +38,111 @@ public class Tabla {
 
     /**
      * Los datos en cuestión. Cada {@link FilaDatos} indica una entrada en la
-     * tabla.
+     * tabla. Si la tabla está comprimida, es una {@link FilasComprimidas} de
+     * sólo lectura (ver {@link #comprime(String)}).
      */
     private List<FilaDatos> filas;
 
+    /**
+     * Fracción de filas que se estima que cumplen un criterio de igualdad
+     * cuando no hay índice que lo resuelva
+     */
+    private static final double SELECTIVIDAD_IGUAL = 0.1;
+
+    /**
+     * Fracción de filas que se estima que cumplen un criterio de contención
+     */
+    private static final double SELECTIVIDAD_CONTIENE = 0.25;
+
+    /**
+     * Fracción de filas que se estima que cumplen un criterio de rango
+     * (mayor que o menor que)
+     */
+    private static final double SELECTIVIDAD_RANGO = 1.0 / 3;
+
+    /**
+     * Número de filas a partir del cual {@link #ordena(String, boolean)}
+     * ordena con {@link OrdenacionParalela}
+     */
+    public static final int UMBRAL_ORDENA_PARALELO = 100_000;
+
+    /**
+     * Índices hash de las columnas con clave única, por nombre de columna. Se
+     * construyen la primera vez que se necesitan y se mantienen al añadir y
+     * eliminar filas (ver {@link #indices()}).
+     */
+    private Map<String, IndiceHash> indices;
+
+    /**
+     * Columnas sobre las que se ha pedido un índice ordenado con
+     * {@link #indexa(String)}, o <code>null</code> si no hay ninguna
+     */
+    private Set<String> columnasOrdenadas;
+
+    /**
+     * Índices ordenados de las {@link #columnasOrdenadas}, por nombre de
+     * columna. Se construyen la primera vez que se necesitan y se mantienen al
+     * añadir y eliminar filas (ver {@link #indicesOrdenados()}).
+     */
+    private Map<String, IndiceOrdenado> indicesOrdenados;
+
+    /**
+     * Versión del contenido de la tabla: aumenta cada vez que se añaden,
+     * modifican, eliminan u ordenan filas (ver {@link #getVersion()})
+     */
+    private long version;
+
+    /**
+     * Lista de filas, esquema y número de filas que tenía la tabla la última
+     * vez que se modificó a través de sus métodos (ver {@link #sincroniza()})
+     */
+    private List<FilaDatos> filasConocidas;
+    private Esquema esquemaConocido;
+    private int numFilasConocidas;
+
+    /**
+     * Objetos a los que se avisa de los cambios en las filas, o
+     * <code>null</code> si no hay ninguno (ver
+     * {@link #anyadeOyente(OyenteTabla)})
+     */
+    private List<OyenteTabla> oyentes;
+
+    /**
+     * Plegado de las columnas que no usan el de por defecto, por nombre de
+     * columna, o <code>null</code> si no hay ninguna (ver
+     * {@link #pliega(String, Plegado)})
+     */
+    private Map<String, Plegado> plegados;
+
+    /**
+     * Columnas plegadas con las que se pliegan las filas al añadirlas. Se
+     * construyen la primera vez que se necesitan (ver
+     * {@link #columnasPlegadas()}).
+     */
+    private ColumnasPlegadas columnasPlegadas;
+
+    /**
+     * Filtros de Bloom por bloques de filas (ver {@link FiltrosBloque}). Se
+     * construyen la primera vez que los usa una búsqueda de igualdad y se
+     * mantienen al añadir filas; se descartan al eliminar, modificar u ordenar
+     * filas, porque cambian las filas de cada bloque.
+     */
+    private FiltrosBloque filtros;
+
+    /**
+     * Mapas de zona por bloques de filas (ver {@link MapasZona}). Se
+     * construyen la primera vez que los usa una búsqueda de rango y se
+     * mantienen como los {@link #filtros}.
+     */
+    private MapasZona zonas;
+
+    /**
+     * Bloques examinados y saltados por las búsquedas con los
+     * {@link #filtros} o las {@link #zonas}, desde que se creó la tabla
+     */
+    private long bloquesExaminados;
+    private long bloquesSaltados;
+
     /** 
      * Constructor sin argumentos para el corrector: ¡NO TOCAR!
      */
@@ -76,24 +183,139 @@ public class Tabla {
     public void anyade(FilaDatos datos) throws ValorClaveUnicaException, ClaveInexistenteException {
         // Verificación de la correspondencia con el esquema
         datos.valida(this.esquema);
+        this.descomprime();
         
-        // Luego, verifica la unicidad de las claves que deben ser únicas.
-        for (Map.Entry<String, Clave> entry : this.esquema.getCampos().entrySet()) {
-        String nombreClave = entry.getKey();
-        Clave clave = entry.getValue();
-
-        if (clave.isUnica()) {
+        // Luego, verifica la unicidad de las claves que deben ser únicas,
+        // consultando el índice de cada una en lugar de recorrer la tabla.
+        Map<String, IndiceHash> indicesTabla = this.indices();
+        for (String nombreClave : this.esquema.getCampos().keySet()) {
+            IndiceHash indice = indicesTabla.get(nombreClave);
             String valorClaveUnica = datos.get(nombreClave);
-            for (FilaDatos filaExistente : this.filas) {
-                String valorExistente = filaExistente.get(nombreClave);
-                if (valorClaveUnica != null && valorClaveUnica.equals(valorExistente)) {
-                    throw new ValorClaveUnicaException(nombreClave,valorClaveUnica);
-                }
+            if (indice != null && valorClaveUnica != null
+                    && indice.buscaExacto(valorClaveUnica) != null) {
+                throw new ValorClaveUnicaException(nombreClave, valorClaveUnica);
             }
         }
-    }
         
+        Map<String, IndiceOrdenado> ordenados = this.indicesOrdenados();
+        datos.pliega(this.columnasPlegadas());
         this.filas.add(datos);
+        if (this.filtros != null) {
+            this.filtros.anyade(datos);
+        }
+        if (this.zonas != null) {
+            this.zonas.anyade(datos);
+        }
+        for (IndiceHash indice : indicesTabla.values()) {
+            indice.anyade(datos);
+        }
+        for (IndiceOrdenado indice : ordenados.values()) {
+            indice.anyade(datos);
+        }
+        this.modificada();
+        if (this.oyentes != null) {
+            for (OyenteTabla oyente : new ArrayList<>(this.oyentes)) {
+                oyente.filaAnyadida(this, datos);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Comprueba, sin añadirlas, que todas las filas de un lote se pueden
+     * añadir a la tabla: que corresponden al esquema y que ninguna repite el
+     * valor de una clave única, ni de las filas de la tabla ni de otra fila
+     * del lote. Los valores de cada clave única se comprueban con su índice
+     * (ver {@link #buscaUnica(String, String)}) y con los ya vistos en el lote,
+     * en una sola pasada.</p>
+     *
+     * <p>
+     * Si no lanza ninguna excepción, añadir las filas una tras otra con
+     * {@link #anyade(FilaDatos)} no puede fallar mientras la tabla no cambie.</p>
+     *
+     * @param lote filas a comprobar
+     * @throws ValorClaveUnicaException si alguna fila repite el valor de una
+     * clave única
+     * @throws ClaveInexistenteException si alguna fila tiene una clave que no
+     * está en el esquema
+     */
+    public void validaLote(List<FilaDatos> lote) throws ValorClaveUnicaException, ClaveInexistenteException {
+        Map<String, Set<String>> vistos = new HashMap<>();
+        for (Map.Entry<String, Clave> entry : this.esquema.getCampos().entrySet()) {
+            if (entry.getValue().isUnica()) {
+                vistos.put(entry.getKey(), new HashSet<>());
+            }
+        }
+        for (FilaDatos fila : lote) {
+            fila.valida(this.esquema);
+            for (Map.Entry<String, Set<String>> entry : vistos.entrySet()) {
+                String valor = fila.get(entry.getKey());
+                if (valor != null && (!entry.getValue().add(valor)
+                        || this.buscaUnica(entry.getKey(), valor) != null)) {
+                    throw new ValorClaveUnicaException(entry.getKey(), valor);
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Añade a la tabla todas las filas de un lote, o ninguna si alguna no se
+     * puede añadir por los mismos motivos que en {@link #anyade(FilaDatos)}.
+     * Las filas se comprueban todas antes de añadir ninguna con
+     * {@link #validaLote(List)}, que busca cada valor de clave única en su
+     * índice y en un único conjunto con los valores del lote, en lugar de
+     * comprobar las filas una a una.</p>
+     *
+     * <p>
+     * Luego la lista de filas se amplía una sola vez para que quepan todas,
+     * se añaden de golpe y la {@link #version} aumenta una sola vez. Los
+     * {@link #oyentes} reciben un aviso por fila, como con
+     * {@link #anyade(FilaDatos)}.</p>
+     *
+     * @param lote filas a añadir, en orden
+     * @throws ValorClaveUnicaException si alguna fila repite el valor de una
+     * clave única
+     * @throws ClaveInexistenteException si alguna fila tiene una clave que no
+     * está en el esquema
+     */
+    public void anyadeTodas(List<FilaDatos> lote) throws ValorClaveUnicaException, ClaveInexistenteException {
+        this.descomprime();
+        this.validaLote(lote);
+        if (lote.isEmpty()) {
+            return;
+        }
+
+        Map<String, IndiceHash> indicesTabla = this.indices();
+        Map<String, IndiceOrdenado> ordenados = this.indicesOrdenados();
+        ColumnasPlegadas columnas = this.columnasPlegadas();
+        for (FilaDatos datos : lote) {
+            datos.pliega(columnas);
+            if (this.filtros != null) {
+                this.filtros.anyade(datos);
+            }
+            if (this.zonas != null) {
+                this.zonas.anyade(datos);
+            }
+            for (IndiceHash indice : indicesTabla.values()) {
+                indice.anyade(datos);
+            }
+            for (IndiceOrdenado indice : ordenados.values()) {
+                indice.anyade(datos);
+            }
+        }
+        if (this.filas instanceof ArrayList) {
+            ((ArrayList<FilaDatos>) this.filas).ensureCapacity(this.filas.size() + lote.size());
+        }
+        this.filas.addAll(lote);
+        this.modificada();
+        if (this.oyentes != null) {
+            for (OyenteTabla oyente : new ArrayList<>(this.oyentes)) {
+                for (FilaDatos datos : lote) {
+                    oyente.filaAnyadida(this, datos);
+                }
+            }
+        }
     }
 
     /**
@@ -126,7 +348,9 @@ public class Tabla {
         }
 
         List<FilaDatos> resultado = new ArrayList<>();
-        for (FilaDatos fila : this.filas) {
+        Iterator<FilaDatos> it = this.examinadas(criterio);
+        while (it.hasNext()) {
+            FilaDatos fila = it.next();
             if (criterio.esCumplido(fila)) {
                 resultado.add(fila);
             }
@@ -134,6 +358,337 @@ public class Tabla {
         return resultado;
     }
 
+    /**
+     * <p>
+     * Devuelve un iterador que recorre, sin copiarlas a una lista intermedia,
+     * las {@link FilaDatos} de la tabla que cumplen el criterio pasado por
+     * parámetro. Las filas se evalúan a medida que se piden, de modo que quien
+     * lo use puede parar el recorrido en cuanto tenga las filas que necesita.</p>
+     *
+     * <p>
+     * Si el criterio es <code>null</code>, recorre todas las filas. El
+     * iterador no permite eliminar filas y deja de ser válido si la tabla se
+     * modifica durante el recorrido.</p>
+     *
+     * @param criterio Criterio que deben cumplir las filas recorridas.
+     * @return un iterador sobre las filas que cumplen el criterio
+     */
+    public Iterator<FilaDatos> cursor(Criterio criterio) {
+        return new Cursor(criterio != null ? this.examinadas(criterio) : this.filas.iterator(), criterio);
+    }
+
+    /**
+     * <p>
+     * Ejecuta una búsqueda igual que {@link #busca(Criterio)}, pero
+     * devolviendo, además de las filas encontradas, cómo se han buscado: si se
+     * ha recorrido la tabla entera o se ha usado el índice de una clave única,
+     * cuántas filas se esperaba examinar y devolver antes de empezar y cuántas
+     * se han examinado y devuelto realmente, y el tiempo empleado en evaluar
+     * el criterio y en construir la lista de resultados.</p>
+     *
+     * <p>
+     * A falta de estadísticas sobre los valores de cada columna, el número de
+     * filas a devolver en un recorrido completo se estima con una fracción fija
+     * según el tipo de criterio.</p>
+     *
+     * @param criterio Criterio que deben cumplir las filas devueltas (o
+     * <code>null</code> para todas)
+     * @return la explicación de la búsqueda, con las filas encontradas
+     */
+    public Explicacion explica(Criterio criterio) {
+        int numFilas = this.filas.size();
+        FilasComprimidas comprimidas = this.comprimidas();
+        boolean biseccion = criterio != null && comprimidas != null && comprimidas.resuelve(criterio);
+        IndiceHash indice = criterio != null ? this.indicePara(criterio) : null;
+        BitSet bloques = criterio != null && indice == null && !biseccion ? this.bloquesPosibles(criterio) : null;
+
+        // Plan y estimación, antes de ejecutar
+        String ruta;
+        long examinadasEstimadas;
+        long devueltasEstimadas;
+        if (indice != null) {
+            ruta = "índice hash sobre la clave única '" + indice.getColumna() + "'";
+            examinadasEstimadas = 1;
+            devueltasEstimadas = 1;
+        } else if (biseccion) {
+            ruta = "bisección sobre la columna comprimida '" + comprimidas.getColumna() + "'";
+            devueltasEstimadas = Math.round(numFilas * selectividad(criterio));
+            examinadasEstimadas = devueltasEstimadas;
+        } else if (bloques != null) {
+            int numBloques = (numFilas + FiltrosBloque.FILAS_POR_BLOQUE - 1) / FiltrosBloque.FILAS_POR_BLOQUE;
+            ruta = (criterio instanceof CriterioIgual ? "filtros de Bloom" : "mapas de zona")
+                    + " por bloques de " + FiltrosBloque.FILAS_POR_BLOQUE + " filas sobre '"
+                    + criterio.getNombreClave() + "' (" + (numBloques - bloques.cardinality()) + " de "
+                    + numBloques + " bloques saltados)";
+            examinadasEstimadas = Math.min(numFilas, (long) bloques.cardinality() * FiltrosBloque.FILAS_POR_BLOQUE);
+            devueltasEstimadas = Math.min(examinadasEstimadas, Math.round(numFilas * selectividad(criterio)));
+        } else {
+            ruta = "recorrido completo de la tabla";
+            examinadasEstimadas = numFilas;
+            devueltasEstimadas = Math.round(numFilas * selectividad(criterio));
+        }
+
+        // Evaluación: se marcan las filas que cumplen el criterio
+        long inicio = System.nanoTime();
+        List<FilaDatos> candidatas = indice != null ? this.candidatasPorIndice(criterio) : null;
+        if (indice != null && candidatas == null) {
+            ruta += ", descartado por haber varios valores que sólo difieren en"
+                    + " mayúsculas o acentos; recorrido completo de la tabla";
+        }
+        Collection<FilaDatos> examinadas = candidatas != null ? candidatas : this.filas;
+        if (biseccion) {
+            List<FilaDatos> iguales = new ArrayList<>();
+            comprimidas.examinadas(criterio, null).forEachRemaining(iguales::add);
+            examinadas = iguales;
+        } else if (bloques != null) {
+            List<FilaDatos> deBloques = new ArrayList<>();
+            FiltrosBloque.recorrido(this.filas, bloques).forEachRemaining(deBloques::add);
+            examinadas = deBloques;
+        }
+        BitSet cumplen = new BitSet(examinadas.size());
+        int posicion = 0;
+        for (FilaDatos fila : examinadas) {
+            if (criterio == null || criterio.esCumplido(fila)) {
+                cumplen.set(posicion);
+            }
+            posicion++;
+        }
+        long evaluacion = System.nanoTime() - inicio;
+
+        // Materialización: se copian las filas marcadas a la lista de resultados
+        inicio = System.nanoTime();
+        List<FilaDatos> resultado = new ArrayList<>(cumplen.cardinality());
+        posicion = 0;
+        for (FilaDatos fila : examinadas) {
+            if (cumplen.get(posicion++)) {
+                resultado.add(fila);
+            }
+        }
+        long materializacion = System.nanoTime() - inicio;
+
+        return new Explicacion(ruta, examinadasEstimadas, devueltasEstimadas,
+                examinadas.size(), evaluacion, materializacion, resultado);
+    }
+
+    /**
+     * <p>
+     * Devuelve únicamente la ventana de resultados correspondiente a una
+     * página de una búsqueda, recorriendo la tabla con {@link #cursor(Criterio)}
+     * y sin construir la lista completa de resultados.</p>
+     *
+     * <p>
+     * Las páginas se numeran a partir de 1. Si la página pedida queda más allá
+     * del último resultado, devuelve una lista vacía.</p>
+     *
+     * @param criterio Criterio que deben cumplir las filas devueltas (o
+     * <code>null</code> para todas)
+     * @param pagina número de página, empezando por 1
+     * @param tamaño número máximo de filas por página
+     * @return las filas de la página pedida
+     */
+    public List<FilaDatos> buscaPagina(Criterio criterio, int pagina, int tamaño) {
+        List<FilaDatos> ventana = new ArrayList<>(tamaño);
+        long aSaltar = (long) (pagina - 1) * tamaño;
+        Iterator<FilaDatos> it = this.cursor(criterio);
+        while (it.hasNext() && ventana.size() < tamaño) {
+            FilaDatos fila = it.next();
+            if (aSaltar > 0) {
+                aSaltar--;
+            } else {
+                ventana.add(fila);
+            }
+        }
+        return ventana;
+    }
+
+    /**
+     * <p>
+     * Busca, como {@link #busca(Criterio)}, las filas que cumplen un
+     * criterio, pero devuelve sólo sus posiciones en la tabla (ver
+     * {@link Seleccion}), sin construir ninguna lista de filas. Si la tabla
+     * está comprimida (ver {@link #comprime(String)}), tampoco se crea ninguna
+     * fila.</p>
+     *
+     * <p>
+     * Si el índice de una clave única resuelve el criterio, la selección
+     * guarda directamente la fila que devuelve (ver
+     * {@link Seleccion#anyadeFila(FilaDatos)}), sin buscar su posición en la
+     * tabla ni evaluar el criterio en las demás.</p>
+     *
+     * @param criterio Criterio que deben cumplir las filas (o <code>null</code>
+     * para todas)
+     * @return la selección de las filas que cumplen el criterio
+     */
+    public Seleccion selecciona(Criterio criterio) {
+        long versionActual = this.getVersion();
+        int numFilas = this.filas.size();
+        if (criterio == null) {
+            Seleccion todas = new Seleccion(this, versionActual, numFilas);
+            for (int f = 0; f < numFilas; f++) {
+                todas.anyade(f);
+            }
+            return todas;
+        }
+        Seleccion seleccion = new Seleccion(this, versionActual, 0);
+        FilasComprimidas comprimidas = this.comprimidas();
+        if (comprimidas != null && comprimidas.resuelve(criterio)) {
+            int[] rango = comprimidas.rango(criterio.getValorAComprobar());
+            for (int f = rango[0]; f < rango[1]; f++) {
+                seleccion.anyade(f);
+            }
+            return seleccion;
+        }
+        List<FilaDatos> candidatas = this.candidatasPorIndice(criterio);
+        if (candidatas != null) {
+            if (!candidatas.isEmpty() && criterio.esCumplido(candidatas.get(0))) {
+                seleccion.anyadeFila(candidatas.get(0));
+            }
+            return seleccion;
+        }
+        BitSet bloques = this.bloquesPosibles(criterio);
+        if (comprimidas == null && bloques == null) {
+            int f = 0;
+            for (FilaDatos fila : this.filas) {
+                if (criterio.esCumplido(fila)) {
+                    seleccion.anyade(f);
+                }
+                f++;
+            }
+            return seleccion;
+        }
+        // Acceso directo: la tabla está comprimida o tiene bloques
+        IntPredicate cumple = comprimidas != null ? comprimidas.cumple(criterio)
+                : f -> criterio.esCumplido(this.filas.get(f));
+        if (bloques == null) {
+            for (int f = 0; f < numFilas; f++) {
+                if (cumple.test(f)) {
+                    seleccion.anyade(f);
+                }
+            }
+            return seleccion;
+        }
+        for (int b = bloques.nextSetBit(0); b >= 0; b = bloques.nextSetBit(b + 1)) {
+            int hasta = Math.min((b + 1) * FiltrosBloque.FILAS_POR_BLOQUE, numFilas);
+            for (int f = b * FiltrosBloque.FILAS_POR_BLOQUE; f < hasta; f++) {
+                if (cumple.test(f)) {
+                    seleccion.anyade(f);
+                }
+            }
+        }
+        return seleccion;
+    }
+
+    /**
+     * Reduce una selección a las filas que además cumplen otro criterio,
+     * evaluándolo sólo en las filas seleccionadas y sin construir ninguna
+     * lista de filas
+     *
+     * @param seleccion selección hecha sobre esta tabla con
+     * {@link #selecciona(Criterio)} o con este método
+     * @param criterio Criterio que deben cumplir además las filas (o
+     * <code>null</code> para no reducirla)
+     * @return la selección de las filas que cumplen los dos
+     * @throws IllegalArgumentException si la selección no es de esta tabla o
+     * la tabla ha cambiado desde que se hizo
+     */
+    public Seleccion filtra(Seleccion seleccion, Criterio criterio) {
+        this.compruebaSeleccion(seleccion);
+        if (criterio == null) {
+            return seleccion;
+        }
+        Seleccion filtrada = new Seleccion(this, this.version, 0);
+        if (seleccion.getFila() != null) {
+            if (criterio.esCumplido(seleccion.getFila())) {
+                filtrada.anyadeFila(seleccion.getFila());
+            }
+            return filtrada;
+        }
+        FilasComprimidas comprimidas = this.comprimidas();
+        if (comprimidas != null) {
+            IntPredicate cumple = comprimidas.cumple(criterio);
+            for (int i = 0; i < seleccion.getNumFilas(); i++) {
+                if (cumple.test(seleccion.getPosicion(i))) {
+                    filtrada.anyade(seleccion.getPosicion(i));
+                }
+            }
+            return filtrada;
+        }
+        Iterator<FilaDatos> it = this.recorrido(seleccion, 0, seleccion.getNumFilas());
+        for (int i = 0; it.hasNext(); i++) {
+            if (criterio.esCumplido(it.next())) {
+                filtrada.anyade(seleccion.getPosicion(i));
+            }
+        }
+        return filtrada;
+    }
+
+    /**
+     * Obtiene las filas de una parte de una selección, en el orden de la
+     * tabla. Si la tabla está comprimida, sólo se crean esas filas.
+     *
+     * @param seleccion selección hecha sobre esta tabla
+     * @param desde número en la selección de la primera fila, empezando por 0
+     * @param hasta número en la selección de la siguiente a la última fila
+     * (como mucho {@link Seleccion#getNumFilas()})
+     * @return las filas
+     * @throws IllegalArgumentException si la selección no es de esta tabla o
+     * la tabla ha cambiado desde que se hizo
+     */
+    public List<FilaDatos> materializa(Seleccion seleccion, int desde, int hasta) {
+        this.compruebaSeleccion(seleccion);
+        hasta = Math.min(hasta, seleccion.getNumFilas());
+        List<FilaDatos> resultado = new ArrayList<>(Math.max(0, hasta - desde));
+        this.recorrido(seleccion, desde, hasta).forEachRemaining(resultado::add);
+        return resultado;
+    }
+
+    /**
+     * Obtiene, como {@link #materializa(Seleccion, int, int)}, las filas de
+     * una parte de una selección, pero sólo con algunas columnas: cada fila
+     * devuelta es una fila nueva con los valores de esas columnas. Si la tabla
+     * está comprimida, las demás columnas no se leen.
+     *
+     * @param seleccion selección hecha sobre esta tabla
+     * @param desde número en la selección de la primera fila, empezando por 0
+     * @param hasta número en la selección de la siguiente a la última fila
+     * @param columnas nombres de las columnas a obtener
+     * @return las filas, con sólo esas columnas
+     * @throws ClaveInexistenteException si alguna columna no está en el
+     * esquema
+     * @throws IllegalArgumentException si la selección no es de esta tabla o
+     * la tabla ha cambiado desde que se hizo
+     */
+    public List<FilaDatos> materializa(Seleccion seleccion, int desde, int hasta, List<String> columnas)
+            throws ClaveInexistenteException {
+        for (String columna : columnas) {
+            if (!this.esquema.getCampos().containsKey(columna)) {
+                throw new ClaveInexistenteException(columna);
+            }
+        }
+        this.compruebaSeleccion(seleccion);
+        hasta = Math.min(hasta, seleccion.getNumFilas());
+        List<FilaDatos> resultado = new ArrayList<>(Math.max(0, hasta - desde));
+        FilasComprimidas comprimidas = this.comprimidas();
+        if (comprimidas != null && seleccion.getFila() == null) {
+            int[] proyeccion = new int[columnas.size()];
+            for (int c = 0; c < proyeccion.length; c++) {
+                proyeccion[c] = this.columnasPlegadas().posicion(columnas.get(c));
+            }
+            comprimidas.filas(seleccion, desde, hasta, proyeccion).forEachRemaining(resultado::add);
+            return resultado;
+        }
+        Iterator<FilaDatos> it = this.recorrido(seleccion, desde, hasta);
+        while (it.hasNext()) {
+            FilaDatos fila = it.next();
+            FilaDatos proyectada = new FilaDatos();
+            for (String columna : columnas) {
+                proyectada.put(columna, fila.get(columna));
+            }
+            resultado.add(proyectada);
+        }
+        return resultado;
+    }
+
     /**
      * <p>
      * Elimina todas las {@link FilaDatos} de la tabla que cumplen el criterio
@@ -154,6 +709,9 @@ public class Tabla {
             return Collections.emptyList(); // Retorna una lista vacía
         }
 
+        this.descomprime();
+        Map<String, IndiceHash> indicesTabla = this.indices();
+        Map<String, IndiceOrdenado> ordenados = this.indicesOrdenados();
         List<FilaDatos> eliminadas = new ArrayList<>();
         Iterator<FilaDatos> iterator = this.filas.iterator();
 
@@ -165,9 +723,253 @@ public class Tabla {
             }
         }
 
+        for (FilaDatos fila : eliminadas) {
+            for (IndiceHash indice : indicesTabla.values()) {
+                indice.elimina(fila);
+            }
+            for (IndiceOrdenado indice : ordenados.values()) {
+                indice.elimina(fila);
+            }
+        }
+        if (!eliminadas.isEmpty()) {
+            this.filtros = null;
+            this.zonas = null;
+            this.modificada();
+            this.avisaEliminadas(eliminadas);
+        }
+        return eliminadas;
+    }
+
+    /**
+     * <p>
+     * Cambia el valor de una columna en una fila de la tabla, sin cambiarla de
+     * posición y manteniendo los índices. Se comprueba la clave única de la
+     * columna como en {@link #anyade(FilaDatos)}.</p>
+     *
+     * <p>
+     * La fila se identifica por referencia y debe ser una de las filas de la
+     * tabla (por ejemplo, una devuelta por {@link #buscaUnica(String, String)}),
+     * no una copia.</p>
+     *
+     * @param fila fila a modificar
+     * @param columna columna a cambiar
+     * @param valor nuevo valor, o <code>null</code> para dejar la columna sin
+     * valor
+     * @throws ValorClaveUnicaException si la columna tiene clave única y otra
+     * fila tiene ya ese valor
+     * @throws ClaveInexistenteException si la columna no está en el esquema
+     */
+    public void modifica(FilaDatos fila, String columna, String valor)
+            throws ValorClaveUnicaException, ClaveInexistenteException {
+        if (!this.esquema.getCampos().containsKey(columna)) {
+            throw new ClaveInexistenteException(columna);
+        }
+        this.descomprime();
+        IndiceHash indice = this.indices().get(columna);
+        if (indice != null && valor != null) {
+            FilaDatos existente = indice.buscaExacto(valor);
+            if (existente != null && existente != fila) {
+                throw new ValorClaveUnicaException(columna, valor);
+            }
+        }
+        IndiceOrdenado ordenado = this.indicesOrdenados().get(columna);
+        FilaDatos anterior = this.oyentes == null ? null : this.copia(fila);
+        if (indice != null) {
+            indice.elimina(fila);
+        }
+        if (ordenado != null) {
+            ordenado.elimina(fila);
+        }
+        fila.put(columna, valor);
+        if (indice != null) {
+            indice.anyade(fila);
+        }
+        if (ordenado != null) {
+            ordenado.anyade(fila);
+        }
+        this.filtros = null;
+        this.zonas = null;
+        this.modificada();
+        if (this.oyentes != null) {
+            this.avisaEliminadas(Collections.singletonList(anterior));
+            for (OyenteTabla oyente : new ArrayList<>(this.oyentes)) {
+                oyente.filaAnyadida(this, fila);
+            }
+        }
+    }
+
+    /**
+     * Elimina una fila de la tabla. La fila se identifica por referencia, como
+     * en {@link #modifica(FilaDatos, String, String)}.
+     *
+     * @param fila fila a eliminar
+     * @return <code>true</code> si la fila estaba en la tabla
+     */
+    public boolean quita(FilaDatos fila) {
+        this.descomprime();
+        Map<String, IndiceHash> indicesTabla = this.indices();
+        Map<String, IndiceOrdenado> ordenados = this.indicesOrdenados();
+        Iterator<FilaDatos> it = this.filas.iterator();
+        while (it.hasNext()) {
+            if (it.next() == fila) {
+                it.remove();
+                for (IndiceHash indice : indicesTabla.values()) {
+                    indice.elimina(fila);
+                }
+                for (IndiceOrdenado indice : ordenados.values()) {
+                    indice.elimina(fila);
+                }
+                this.filtros = null;
+                this.zonas = null;
+                this.modificada();
+                this.avisaEliminadas(Collections.singletonList(fila));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Elimina todas las filas de la tabla, conservando su esquema y las
+     * columnas con índice ordenado
+     *
+     * @return las filas eliminadas
+     */
+    public List<FilaDatos> vacia() {
+        this.sincroniza();
+        this.descomprime();
+        List<FilaDatos> eliminadas = new ArrayList<>(this.filas);
+        this.filas.clear();
+        this.indices = null;
+        this.indicesOrdenados = null;
+        this.filtros = null;
+        this.zonas = null;
+        this.modificada();
+        if (!eliminadas.isEmpty()) {
+            this.avisaEliminadas(eliminadas);
+        }
         return eliminadas;
     }
 
+    /**
+     * Empieza a avisar a un objeto de los cambios en las filas de la tabla
+     *
+     * @param oyente objeto al que avisar
+     */
+    public void anyadeOyente(OyenteTabla oyente) {
+        if (this.oyentes == null) {
+            this.oyentes = new ArrayList<>();
+        }
+        this.oyentes.add(oyente);
+    }
+
+    /**
+     * Deja de avisar a un objeto de los cambios en las filas de la tabla
+     *
+     * @param oyente objeto al que se avisaba
+     */
+    public void quitaOyente(OyenteTabla oyente) {
+        if (this.oyentes != null) {
+            this.oyentes.remove(oyente);
+        }
+    }
+
+    /**
+     * <p>
+     * Cambia cómo se comparan los valores de una columna en los criterios de
+     * igualdad y de contención y en el índice de su clave única (ver
+     * {@link Plegado}). Las formas plegadas de los valores de cada fila se
+     * vuelven a calcular ahora, de modo que las búsquedas no tienen que
+     * plegarlos en cada comparación.</p>
+     *
+     * <p>
+     * Las filas que se cambian sin pasar por los métodos de la tabla no tienen
+     * forma plegada y se comparan sin distinguir mayúsculas de minúsculas.</p>
+     *
+     * @param columna columna a cambiar
+     * @param plegado nuevo plegado de la columna
+     * @throws ClaveInexistenteException si la columna no está en el esquema
+     */
+    public void pliega(String columna, Plegado plegado) throws ClaveInexistenteException {
+        if (!this.esquema.getCampos().containsKey(columna)) {
+            throw new ClaveInexistenteException(columna);
+        }
+        if (this.getPlegado(columna) == plegado) {
+            return;
+        }
+        this.descomprime();
+        if (this.plegados == null) {
+            this.plegados = new HashMap<>();
+        }
+        this.plegados.put(columna, plegado);
+        this.sincroniza();
+        this.columnasPlegadas = null;
+        ColumnasPlegadas columnas = this.columnasPlegadas();
+        for (FilaDatos fila : this.filas) {
+            fila.pliega(columnas);
+        }
+        this.indices = null;
+        this.filtros = null;
+        this.modificada();
+        if (this.oyentes != null) {
+            for (OyenteTabla oyente : new ArrayList<>(this.oyentes)) {
+                oyente.tablaCambiada(this);
+            }
+        }
+    }
+
+    /**
+     * Plegado de una columna
+     *
+     * @param columna nombre de la columna
+     * @return el plegado de la columna, {@link Plegado#MAYUSCULAS} si no se
+     * ha cambiado
+     */
+    public Plegado getPlegado(String columna) {
+        Plegado plegado = this.plegados == null ? null : this.plegados.get(columna);
+        return plegado == null ? Plegado.MAYUSCULAS : plegado;
+    }
+
+    /**
+     * Número de bloques de filas que han examinado las búsquedas de igualdad
+     * con filtros de Bloom (ver {@link FiltrosBloque}) y las de rango con
+     * mapas de zona (ver {@link MapasZona})
+     *
+     * @return el número de bloques examinados
+     */
+    public long getBloquesExaminados() {
+        return this.bloquesExaminados;
+    }
+
+    /**
+     * Número de bloques de filas que las búsquedas han saltado porque su
+     * filtro de Bloom no contenía el valor buscado o su mapa de zona no
+     * tenía valores en el rango buscado
+     *
+     * @return el número de bloques saltados
+     */
+    public long getBloquesSaltados() {
+        return this.bloquesSaltados;
+    }
+
+    /**
+     * Retorna el nombre de la tabla
+     *
+     * @return el nombre de la tabla
+     */
+    public String getNombre() {
+        return this.nombre;
+    }
+
+    /**
+     * Retorna el número de filas de la tabla
+     *
+     * @return el número de filas de la tabla
+     */
+    public int getNumFilas() {
+        return this.filas.size();
+    }
+
     /**
      * Retorna el esquema de la tabla
      *
@@ -202,12 +1004,649 @@ public class Tabla {
      * {@link Collections#sort(List, Comparator)}, y como instancia de
      * {@link Comparator} a pasarle, debéis usar la clase
      * {@link ComparadorFilas}</p>
+     * <p>
+     * Si la tabla tiene al menos {@link #UMBRAL_ORDENA_PARALELO} filas, se
+     * ordena con {@link OrdenacionParalela}, con un hilo por procesador, que
+     * da el mismo resultado convirtiendo cada valor a número una sola
+     * vez.</p>
      *
      * @param columnaAOrdenar La columna por la cual se debe ordenar la tabla
      * @param ascendente Si se debe ordenar en ascendente o descendente.
      */
     public void ordena(String columnaAOrdenar, boolean ascendente) {
         ComparadorFilas comparador = new ComparadorFilas(columnaAOrdenar, ascendente);
-        Collections.sort(this.filas, comparador);
+        this.sincroniza();
+        this.descomprime();
+        if (this.filas.size() >= UMBRAL_ORDENA_PARALELO) {
+            OrdenacionParalela.ordena(this.filas, comparador, Runtime.getRuntime().availableProcessors());
+        } else {
+            Collections.sort(this.filas, comparador);
+        }
+        this.filtros = null;
+        this.zonas = null;
+        this.modificada();
+    }
+
+    /**
+     * <p>
+     * Comprime la tabla, ya ordenada en orden ascendente por una columna de
+     * texto con {@link #ordena(String, boolean)}: las filas se guardan por
+     * columnas en una {@link FilasComprimidas}, y los valores de esa columna,
+     * que comparten casi todo el principio con el anterior, con codificación
+     * frontal (ver {@link ColumnaFrontal}). Así se deja de guardar un mapa por
+     * fila y la columna ocupa una fracción de lo que ocupaba.</p>
+     *
+     * <p>
+     * Las búsquedas sólo crean las filas que devuelven, y las de igualdad sobre
+     * la columna comprimida y {@link #buscaUnica(String, String)} buscan por
+     * bisección. Las filas que se obtienen de una tabla comprimida son copias:
+     * no sirven para {@link #modifica(FilaDatos, String, String)} ni
+     * {@link #quita(FilaDatos)}. Cualquier cambio en la tabla (añadir,
+     * eliminar, modificar u ordenar filas o cambiar el plegado de una columna)
+     * la vuelve a guardar sin comprimir.</p>
+     *
+     * @param columna columna por la que está ordenada la tabla
+     * @return <code>true</code> si la tabla queda comprimida, o
+     * <code>false</code> si no está ordenada por esa columna o tiene filas con
+     * columnas que no son las de su esquema
+     * @throws ClaveInexistenteException si la columna no está en el esquema
+     */
+    public boolean comprime(String columna) throws ClaveInexistenteException {
+        if (!this.esquema.getCampos().containsKey(columna)) {
+            throw new ClaveInexistenteException(columna);
+        }
+        this.sincroniza();
+        if (columna.equals(this.getColumnaComprimida())) {
+            return true;
+        }
+        this.descomprime();
+        ComparadorFilas comparador = new ComparadorFilas(columna, true);
+        FilaDatos anterior = null;
+        for (FilaDatos fila : this.filas) {
+            try {
+                fila.valida(this.esquema);
+            } catch (ClaveInexistenteException e) {
+                return false;
+            }
+            if (anterior != null && comparador.compare(anterior, fila) > 0) {
+                return false;
+            }
+            anterior = fila;
+        }
+        this.filas = new FilasComprimidas(this.filas, columna, this.columnasPlegadas());
+        this.filasConocidas = this.filas;
+        // Los índices guardan las filas sin comprimir; los filtros y las
+        // zonas siguen valiendo, porque las filas no cambian de posición
+        this.indices = null;
+        this.indicesOrdenados = null;
+        return true;
+    }
+
+    /**
+     * Columna comprimida de la tabla (ver {@link #comprime(String)})
+     *
+     * @return el nombre de la columna, o <code>null</code> si la tabla no está
+     * comprimida
+     */
+    public String getColumnaComprimida() {
+        FilasComprimidas comprimidas = this.comprimidas();
+        return comprimidas == null ? null : comprimidas.getColumna();
+    }
+
+    /**
+     * Indica si una columna de la tabla tiene clave única
+     *
+     * @param columna nombre de la columna
+     * @return <code>true</code> si la columna está en el esquema y es
+     * {@link Clave#isUnica()}
+     */
+    public boolean esUnica(String columna) {
+        Clave clave = this.esquema.getCampos().get(columna);
+        return clave != null && clave.isUnica();
+    }
+
+    /**
+     * Busca, con el índice de la clave única de una columna y sin recorrer la
+     * tabla, la fila cuyo valor en esa columna es exactamente (distinguiendo
+     * mayúsculas de minúsculas) el valor dado. Si la tabla está comprimida,
+     * busca por bisección en la columna comprimida o recorre la columna.
+     *
+     * @param columna columna con clave única (ver {@link #esUnica(String)})
+     * @param valor valor a buscar
+     * @return la fila, o <code>null</code> si no hay ninguna con ese valor
+     * @throws IllegalArgumentException si la columna no tiene clave única
+     */
+    public FilaDatos buscaUnica(String columna, String valor) {
+        FilasComprimidas comprimidas = this.comprimidas();
+        if (comprimidas != null && this.esUnica(columna)) {
+            return comprimidas.buscaExacto(columna, valor);
+        }
+        IndiceHash indice = this.indices().get(columna);
+        if (indice == null) {
+            throw new IllegalArgumentException("La columna '" + columna + "' no tiene clave única.");
+        }
+        return indice.buscaExacto(valor);
+    }
+
+    /**
+     * <p>
+     * Crea un índice ordenado sobre una columna, con el que
+     * {@link #minimo(String)} y {@link #maximo(String)} se responden sin
+     * recorrer la tabla. El índice se mantiene al añadir y eliminar filas.</p>
+     *
+     * <p>
+     * Si la columna ya tenía índice ordenado, no hace nada.</p>
+     *
+     * @param columna columna a indexar
+     * @throws ClaveInexistenteException si la columna no está en el esquema
+     */
+    public void indexa(String columna) throws ClaveInexistenteException {
+        if (!this.esquema.getCampos().containsKey(columna)) {
+            throw new ClaveInexistenteException(columna);
+        }
+        if (this.columnasOrdenadas == null) {
+            this.columnasOrdenadas = new LinkedHashSet<>();
+        }
+        if (this.columnasOrdenadas.add(columna)) {
+            this.indicesOrdenados = null;
+        }
+    }
+
+    /**
+     * Indica si una columna tiene índice ordenado
+     *
+     * @param columna nombre de la columna
+     * @return <code>true</code> si se ha llamado a {@link #indexa(String)}
+     * con esa columna
+     */
+    public boolean tieneIndiceOrdenado(String columna) {
+        return this.columnasOrdenadas != null && this.columnasOrdenadas.contains(columna);
+    }
+
+    /**
+     * Valor mínimo de una columna con índice ordenado: el menor de sus valores
+     * numéricos o, si no tiene ninguno, el primero alfabéticamente
+     *
+     * @param columna nombre de la columna
+     * @return el valor mínimo, o <code>null</code> si ninguna fila tiene valor
+     * en esa columna
+     * @throws IllegalStateException si la columna no tiene índice ordenado
+     */
+    public String minimo(String columna) {
+        return this.indiceOrdenado(columna).minimo();
+    }
+
+    /**
+     * Valor máximo de una columna con índice ordenado: el mayor de sus valores
+     * numéricos o, si no tiene ninguno, el último alfabéticamente
+     *
+     * @param columna nombre de la columna
+     * @return el valor máximo, o <code>null</code> si ninguna fila tiene valor
+     * en esa columna
+     * @throws IllegalStateException si la columna no tiene índice ordenado
+     */
+    public String maximo(String columna) {
+        return this.indiceOrdenado(columna).maximo();
+    }
+
+    /**
+     * Recorre las filas con valor en una columna con índice ordenado, en el
+     * orden de {@link #comparaOrdenIndice(String, String)} y sin recorrer el
+     * resto de la tabla. El iterador deja de ser válido si la tabla se
+     * modifica durante el recorrido.
+     *
+     * @param columna nombre de la columna
+     * @return un iterador sobre las filas, ordenadas por su valor en la
+     * columna
+     * @throws IllegalStateException si la columna no tiene índice ordenado
+     */
+    public Iterator<FilaDatos> recorridoOrdenado(String columna) {
+        return this.indiceOrdenado(columna).recorrido();
+    }
+
+    /**
+     * Orden en que {@link #recorridoOrdenado(String)} devuelve las filas: los
+     * valores numéricos van antes que los no numéricos y se comparan
+     * numéricamente, y los no numéricos se comparan alfabéticamente
+     *
+     * @param a un valor
+     * @param b otro valor
+     * @return un número menor que 0, 0 o mayor que 0 si <code>a</code> va
+     * antes, en el mismo lugar o después que <code>b</code>
+     */
+    public static int comparaOrdenIndice(String a, String b) {
+        return IndiceOrdenado.compara(a, b);
+    }
+
+    /**
+     * <p>
+     * Versión del contenido de la tabla. Dos llamadas devuelven el mismo valor
+     * si y sólo si entre ellas no se han añadido, eliminado ni ordenado filas,
+     * de modo que sirve para saber si un resultado calculado antes sigue siendo
+     * válido.</p>
+     *
+     * @return la versión actual de la tabla
+     */
+    public long getVersion() {
+        this.sincroniza();
+        return this.version;
+    }
+
+    /**
+     * <p>
+     * Comprueba si las filas o el esquema de la tabla se han cambiado sin pasar
+     * por sus métodos (la lista de filas o el esquema son otros, o el número de
+     * filas no coincide con el último conocido). En ese caso descarta los
+     * {@link #indices}, las {@link #columnasPlegadas}, los {@link #filtros} y
+     * las {@link #zonas}, aumenta la {@link #version} y avisa a los
+     * {@link #oyentes} con {@link OyenteTabla#tablaCambiada(Tabla)}.</p>
+     */
+    private void sincroniza() {
+        if (this.filasConocidas != this.filas || this.esquemaConocido != this.esquema
+                || this.numFilasConocidas != this.filas.size()) {
+            this.indices = null;
+            this.indicesOrdenados = null;
+            this.columnasPlegadas = null;
+            this.filtros = null;
+            this.zonas = null;
+            this.modificada();
+            if (this.oyentes != null) {
+                for (OyenteTabla oyente : new ArrayList<>(this.oyentes)) {
+                    oyente.tablaCambiada(this);
+                }
+            }
+        }
+    }
+
+    private void avisaEliminadas(List<FilaDatos> eliminadas) {
+        if (this.oyentes != null) {
+            for (OyenteTabla oyente : new ArrayList<>(this.oyentes)) {
+                oyente.filasEliminadas(this, eliminadas);
+            }
+        }
+    }
+
+    /**
+     * Copia los valores de las columnas del esquema de una fila
+     */
+    private FilaDatos copia(FilaDatos fila) {
+        FilaDatos copia = new FilaDatos();
+        for (String columna : this.esquema.getCampos().keySet()) {
+            copia.put(columna, fila.get(columna));
+        }
+        return copia;
+    }
+
+    /**
+     * Anota que la tabla se ha modificado a través de sus métodos: aumenta la
+     * {@link #version} y guarda la lista de filas, el esquema y el número de
+     * filas actuales
+     */
+    private void modificada() {
+        this.version++;
+        this.filasConocidas = this.filas;
+        this.esquemaConocido = this.esquema;
+        this.numFilasConocidas = this.filas.size();
+    }
+
+    /**
+     * Comprueba que una selección se hizo sobre esta tabla y en su versión
+     * actual, de modo que sus posiciones siguen siendo válidas
+     */
+    private void compruebaSeleccion(Seleccion seleccion) {
+        if (!seleccion.esDe(this, this.getVersion())) {
+            throw new IllegalArgumentException("La selección no corresponde al contenido actual de la tabla '"
+                    + this.nombre + "'.");
+        }
+    }
+
+    /**
+     * Recorre las filas de una parte de una selección: por posición si la
+     * lista de filas permite el acceso directo y avanzando por la lista si
+     * no
+     */
+    private Iterator<FilaDatos> recorrido(Seleccion seleccion, int desde, int hasta) {
+        if (seleccion.getFila() != null) {
+            return desde < hasta ? Collections.singletonList(seleccion.getFila()).iterator()
+                    : Collections.<FilaDatos>emptyIterator();
+        }
+        FilasComprimidas comprimidas = this.comprimidas();
+        if (comprimidas != null) {
+            return comprimidas.filas(seleccion, desde, hasta, null);
+        }
+        boolean directo = this.filas instanceof RandomAccess;
+        Iterator<FilaDatos> todas = directo ? null : this.filas.iterator();
+        return new Iterator<FilaDatos>() {
+            private int indice = desde;
+            private int posicion = -1;
+            private FilaDatos actual;
+
+            @Override
+            public boolean hasNext() {
+                return this.indice < hasta;
+            }
+
+            @Override
+            public FilaDatos next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int f = seleccion.getPosicion(this.indice++);
+                if (directo) {
+                    return filas.get(f);
+                }
+                while (this.posicion < f) {
+                    this.actual = todas.next();
+                    this.posicion++;
+                }
+                return this.actual;
+            }
+        };
+    }
+
+    /**
+     * Filas de la tabla si está comprimida (ver {@link #comprime(String)})
+     *
+     * @return las filas comprimidas, o <code>null</code>
+     */
+    private FilasComprimidas comprimidas() {
+        return this.filas instanceof FilasComprimidas ? (FilasComprimidas) this.filas : null;
+    }
+
+    /**
+     * Vuelve a guardar las filas sin comprimir, antes de cambiarlas. No cambia
+     * la {@link #version}, porque las filas son las mismas.
+     */
+    private void descomprime() {
+        if (this.filas instanceof FilasComprimidas) {
+            this.filas = new ArrayList<>(this.filas);
+            this.filasConocidas = this.filas;
+            this.indices = null;
+            this.indicesOrdenados = null;
+        }
+    }
+
+    /**
+     * <p>
+     * Devuelve los índices de las claves únicas, construyéndolos desde
+     * {@link #filas} si aún no existen o si la tabla se ha cambiado sin pasar
+     * por sus métodos (ver {@link #sincroniza()}).</p>
+     *
+     * @return los índices, por nombre de columna
+     */
+    private Map<String, IndiceHash> indices() {
+        this.sincroniza();
+        if (this.indices == null) {
+            Map<String, IndiceHash> nuevos = new HashMap<>();
+            for (Map.Entry<String, Clave> entry : this.esquema.getCampos().entrySet()) {
+                if (entry.getValue().isUnica()) {
+                    nuevos.put(entry.getKey(), new IndiceHash(entry.getKey(), this.getPlegado(entry.getKey())));
+                }
+            }
+            for (FilaDatos fila : this.filas) {
+                for (IndiceHash indice : nuevos.values()) {
+                    indice.anyade(fila);
+                }
+            }
+            this.indices = nuevos;
+        }
+        return this.indices;
+    }
+
+    /**
+     * Devuelve las columnas plegadas de la tabla, construyéndolas desde el
+     * esquema y los {@link #plegados} si aún no existen o si la tabla se ha
+     * cambiado sin pasar por sus métodos (ver {@link #sincroniza()}).
+     *
+     * @return las columnas plegadas
+     */
+    private ColumnasPlegadas columnasPlegadas() {
+        this.sincroniza();
+        if (this.columnasPlegadas == null) {
+            this.columnasPlegadas = new ColumnasPlegadas(this.esquema.getCabeceras(), this.plegados);
+        }
+        return this.columnasPlegadas;
+    }
+
+    /**
+     * Devuelve los índices ordenados de las {@link #columnasOrdenadas},
+     * construyéndolos desde {@link #filas} si aún no existen o si la tabla se
+     * ha cambiado sin pasar por sus métodos (ver {@link #sincroniza()}).
+     *
+     * @return los índices ordenados, por nombre de columna
+     */
+    private Map<String, IndiceOrdenado> indicesOrdenados() {
+        this.sincroniza();
+        if (this.indicesOrdenados == null) {
+            Map<String, IndiceOrdenado> nuevos = new HashMap<>();
+            if (this.columnasOrdenadas != null) {
+                for (String columna : this.columnasOrdenadas) {
+                    nuevos.put(columna, new IndiceOrdenado(columna));
+                }
+                for (FilaDatos fila : this.filas) {
+                    for (IndiceOrdenado indice : nuevos.values()) {
+                        indice.anyade(fila);
+                    }
+                }
+            }
+            if (this.filas instanceof FilasComprimidas) {
+                // Tendrían una copia de cada fila: se construyen cada vez
+                return nuevos;
+            }
+            this.indicesOrdenados = nuevos;
+        }
+        return this.indicesOrdenados;
+    }
+
+    private IndiceOrdenado indiceOrdenado(String columna) {
+        IndiceOrdenado indice = this.indicesOrdenados().get(columna);
+        if (indice == null) {
+            throw new IllegalStateException("La columna '" + columna + "' no tiene índice ordenado.");
+        }
+        return indice;
+    }
+
+    /**
+     * Índice con el que se puede resolver un criterio: sólo los criterios de
+     * igualdad con valor sobre una columna con clave única, si la tabla no
+     * está comprimida
+     *
+     * @param criterio criterio de búsqueda
+     * @return el índice, o <code>null</code> si hay que recorrer la tabla
+     */
+    private IndiceHash indicePara(Criterio criterio) {
+        if (!(criterio instanceof CriterioIgual) || criterio.getValorAComprobar() == null
+                || this.filas instanceof FilasComprimidas) {
+            return null;
+        }
+        return this.indices().get(criterio.getNombreClave());
+    }
+
+    /**
+     * <p>
+     * Filas candidatas a cumplir un criterio según el índice de su columna.</p>
+     *
+     * <p>
+     * Si el índice devuelve más de una fila (valores de la clave única que sólo
+     * se distinguen por mayúsculas y minúsculas), no se usa, porque el índice
+     * no guarda el orden de las filas en la tabla y el resultado debe
+     * respetarlo.</p>
+     *
+     * @param criterio criterio de búsqueda
+     * @return las filas candidatas, o <code>null</code> si hay que recorrer la
+     * tabla
+     */
+    private List<FilaDatos> candidatasPorIndice(Criterio criterio) {
+        IndiceHash indice = this.indicePara(criterio);
+        if (indice == null) {
+            return null;
+        }
+        List<FilaDatos> candidatas = indice.busca(criterio.getValorAComprobar());
+        return candidatas.size() <= 1 ? candidatas : null;
+    }
+
+    /**
+     * Filas a examinar para un criterio: las candidatas del índice de su
+     * columna, las de los bloques cuyo filtro de Bloom o mapa de zona admite
+     * que cumplan el criterio o, si no, todas. Si la tabla está comprimida,
+     * sólo se crean las filas que cumplen el criterio (ver
+     * {@link FilasComprimidas#examinadas(Criterio, BitSet)}).
+     *
+     * @param criterio criterio de búsqueda
+     * @return un iterador sobre las filas a examinar, en el orden de la tabla
+     */
+    private Iterator<FilaDatos> examinadas(Criterio criterio) {
+        FilasComprimidas comprimidas = this.comprimidas();
+        if (comprimidas != null) {
+            return comprimidas.examinadas(criterio,
+                    comprimidas.resuelve(criterio) ? null : this.bloquesPosibles(criterio));
+        }
+        List<FilaDatos> candidatas = this.candidatasPorIndice(criterio);
+        if (candidatas != null) {
+            return candidatas.iterator();
+        }
+        BitSet bloques = this.bloquesPosibles(criterio);
+        return bloques != null ? FiltrosBloque.recorrido(this.filas, bloques) : this.filas.iterator();
+    }
+
+    /**
+     * <p>
+     * Bloques de filas que pueden tener filas que cumplen un criterio según
+     * los {@link #filtros} (criterios de igualdad con valor) o las
+     * {@link #zonas} (criterios de rango), que se construyen si aún no
+     * existen. Cuenta los bloques examinados y saltados.</p>
+     *
+     * <p>
+     * Sólo se usan en tablas de más de un bloque cuya lista de filas permite
+     * el acceso directo a cada bloque.</p>
+     *
+     * @param criterio criterio de búsqueda
+     * @return los números de los bloques a examinar, o <code>null</code> si
+     * hay que recorrer la tabla
+     */
+    private BitSet bloquesPosibles(Criterio criterio) {
+        if (!(this.filas instanceof RandomAccess) || this.filas.size() <= FiltrosBloque.FILAS_POR_BLOQUE
+                || !this.esquema.getCampos().containsKey(criterio.getNombreClave())) {
+            return null;
+        }
+        BitSet bloques;
+        if (criterio instanceof CriterioIgual && criterio.getValorAComprobar() != null) {
+            bloques = this.filtros().bloquesPosibles(criterio.getNombreClave(), criterio.getValorAComprobar());
+        } else if (criterio instanceof CriterioMayorQue || criterio instanceof CriterioMenorQue) {
+            bloques = this.zonas().bloquesPosibles(criterio.getNombreClave(),
+                    Double.parseDouble(criterio.getValorAComprobar()), criterio instanceof CriterioMayorQue);
+        } else {
+            return null;
+        }
+        int numBloques = (this.filas.size() + FiltrosBloque.FILAS_POR_BLOQUE - 1) / FiltrosBloque.FILAS_POR_BLOQUE;
+        this.bloquesExaminados += bloques.cardinality();
+        this.bloquesSaltados += numBloques - bloques.cardinality();
+        return bloques;
+    }
+
+    /**
+     * Devuelve los filtros de Bloom de la tabla, construyéndolos desde
+     * {@link #filas} si aún no existen o si la tabla se ha cambiado sin pasar
+     * por sus métodos (ver {@link #sincroniza()}).
+     *
+     * @return los filtros
+     */
+    private FiltrosBloque filtros() {
+        ColumnasPlegadas columnas = this.columnasPlegadas();
+        if (this.filtros == null) {
+            FiltrosBloque nuevos = new FiltrosBloque(columnas);
+            for (FilaDatos fila : this.filas) {
+                nuevos.anyade(fila);
+            }
+            this.filtros = nuevos;
+        }
+        return this.filtros;
+    }
+
+    /**
+     * Devuelve los mapas de zona de la tabla, construyéndolos desde
+     * {@link #filas} si aún no existen o si la tabla se ha cambiado sin pasar
+     * por sus métodos (ver {@link #sincroniza()}).
+     *
+     * @return los mapas de zona
+     */
+    private MapasZona zonas() {
+        this.sincroniza();
+        if (this.zonas == null) {
+            MapasZona nuevos = new MapasZona(this.esquema.getCabeceras());
+            for (FilaDatos fila : this.filas) {
+                nuevos.anyade(fila);
+            }
+            this.zonas = nuevos;
+        }
+        return this.zonas;
+    }
+
+    /**
+     * Fracción estimada de las filas de la tabla que cumplen un criterio
+     *
+     * @param criterio criterio de búsqueda, o <code>null</code>
+     * @return fracción entre 0 y 1
+     */
+    private static double selectividad(Criterio criterio) {
+        if (criterio == null) {
+            return 1;
+        } else if (criterio instanceof CriterioIgual) {
+            return SELECTIVIDAD_IGUAL;
+        } else if (criterio instanceof CriterioContiene) {
+            return SELECTIVIDAD_CONTIENE;
+        }
+        return SELECTIVIDAD_RANGO;
+    }
+
+    /**
+     * Iterador que avanza sobre un iterador de filas (las de {@link #filas} o
+     * las candidatas de un índice) y se detiene sólo en las filas que cumplen
+     * el criterio, adelantando una posición para poder responder a
+     * {@link #hasNext()}.
+     */
+    private static class Cursor implements Iterator<FilaDatos> {
+
+        /**
+         * Criterio que deben cumplir las filas devueltas, o <code>null</code>
+         */
+        private final Criterio criterio;
+
+        /**
+         * Filas a examinar
+         */
+        private final Iterator<FilaDatos> origen;
+
+        /**
+         * Siguiente fila a devolver, o <code>null</code> si aún no se ha
+         * buscado o ya no quedan
+         */
+        private FilaDatos siguiente;
+
+        Cursor(Iterator<FilaDatos> origen, Criterio criterio) {
+            this.origen = origen;
+            this.criterio = criterio;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (this.siguiente == null && this.origen.hasNext()) {
+                FilaDatos fila = this.origen.next();
+                if (this.criterio == null || this.criterio.esCumplido(fila)) {
+                    this.siguiente = fila;
+                }
+            }
+            return this.siguiente != null;
+        }
+
+        @Override
+        public FilaDatos next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            FilaDatos fila = this.siguiente;
+            this.siguiente = null;
+            return fila;
+        }
     }
 }
@@ -1,8 +1,12 @@
 package edu.upc.etsetb.poo.basededatos.iu;
 
+import java.util.Iterator;
 import java.util.List;
 import edu.upc.etsetb.poo.basededatos.casosdeuso.Controlador;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.ConsultaPreparada;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.agregacion.Acumulador;
 import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Plegado;
 
 /**
  * Clase que implementa la interfaz de usuario.
@@ -59,8 +63,24 @@ public class InterfazUsuario {
                 return true;
             } else if (Controlador.CMD_AYUDA.equals(cmd[0])) {
                 ayuda();
+            } else if (Controlador.CMD_EXPORTA.equals(cmd[0]) && cmd.length > 1 && Controlador.OPC_CSV.equals(cmd[1])) {
+                this.controlador.exportaCsv(cmd);
             } else if (Controlador.CMD_EXPORTA.equals(cmd[0])) {
                 this.controlador.exporta(cmd[1]);
+            } else if (Controlador.CMD_IMPORTA.equals(cmd[0]) && cmd.length > 1 && Controlador.OPC_CSV.equals(cmd[1])) {
+                this.controlador.importaCsv(cmd);
+            } else if (Controlador.CMD_ESTADISTICAS.equals(cmd[0])) {
+                this.controlador.muestraEstadisticas();
+            } else if (Controlador.CMD_INICIO.equals(cmd[0])) {
+                this.controlador.iniciar(cmd);
+            } else if (Controlador.CMD_CONFIRMA.equals(cmd[0])) {
+                this.controlador.confirmar(cmd);
+            } else if (Controlador.CMD_ABORTA.equals(cmd[0])) {
+                this.controlador.abortar(cmd);
+            } else if (Controlador.CMD_PREPARA.equals(cmd[0])) {
+                this.controlador.preparar(cmd);
+            } else if (Controlador.CMD_EJECUTA.equals(cmd[0])) {
+                this.controlador.ejecutar(cmd);
             } else if (cmd.length > 1) {
                 switch (cmd[1]) {
                     case Controlador.CMD_CREA_TABLA:
@@ -78,6 +98,33 @@ public class InterfazUsuario {
                     case Controlador.CMD_ORDENA:
                         this.controlador.ordenar(cmd);
                         break;
+                    case Controlador.CMD_EXPLICA:
+                        this.controlador.explicar(cmd);
+                        break;
+                    case Controlador.CMD_AGREGA:
+                        this.controlador.agregar(cmd);
+                        break;
+                    case Controlador.CMD_AGRUPA:
+                        this.controlador.agrupar(cmd);
+                        break;
+                    case Controlador.CMD_UNE:
+                        this.controlador.unir(cmd);
+                        break;
+                    case Controlador.CMD_INDEXA:
+                        this.controlador.indexar(cmd);
+                        break;
+                    case Controlador.CMD_VISTA:
+                        this.controlador.crearVista(cmd);
+                        break;
+                    case Controlador.CMD_PLIEGA:
+                        this.controlador.plegar(cmd);
+                        break;
+                    case Controlador.CMD_CARGA:
+                        this.controlador.cargar(cmd);
+                        break;
+                    case Controlador.CMD_COMPRIME:
+                        this.controlador.comprimir(cmd);
+                        break;
                     default:
                         System.out.println("Error! Comando no reconocido.");
                         System.out.println("Escribe '" + Controlador.CMD_AYUDA + "' para conocer la lista de comandos.");
@@ -209,6 +256,11 @@ public class InterfazUsuario {
         System.out.println("\t  Las claves cuyo nombre tiene delante asterisco '*' son claves únicas");
         System.out.println("\t  Ejemplo: coches añade matricula=12345XD marca=Seat modelo=Ibiza año=2000");
 
+        System.out.println("\n<nombreTabla> " + Controlador.CMD_CARGA + " <nombreArchivo>\n");
+        System.out.println("\t- Añade de golpe las filas de un archivo, una por línea con pares <clave>=<valor> como en "
+                + Controlador.CMD_AÑADE + "; si alguna no se puede añadir, no se añade ninguna");
+        System.out.println("\t  Ejemplo: coches carga coches.txt");
+
         System.out.println("\n<nombreTabla> " + Controlador.CMD_BUSCA + "\n");
         System.out.println("\t- Muestra TODOS los datos de la tabla");
 
@@ -219,15 +271,85 @@ public class InterfazUsuario {
         System.out.println("\t  Ejemplo: coches busca matricula#123 --> devolverá todos los coches cuya matrícula contenga la sucesión de números '123'");
         System.out.println("\t           coches busca marca=Seat --> devolverá todos los coches cuya marca sea exactamente igual a Seat");
 
+        System.out.println("\n<nombreTabla> " + Controlador.CMD_BUSCA + " <criterio> <criterio> ...\n");
+        System.out.println("\t- Busca las filas que cumplen TODOS los criterios; cada criterio sólo se comprueba en las filas que cumplen los anteriores");
+        System.out.println("\t  Ejemplo: coches busca marca=Seat año>2015");
+
+        System.out.println("\n<nombreTabla> " + Controlador.CMD_BUSCA + " " + Controlador.SIMB_ABRE_PROYECCION + "<clave>"
+                + Controlador.SIMB_SEPARA_COLUMNAS + "<clave>..." + Controlador.SIMB_CIERRA_PROYECCION + " [ <criterio> ... ]\n");
+        System.out.println("\t- Muestra sólo las columnas indicadas de las filas encontradas");
+        System.out.println("\t  Ejemplo: coches busca [marca,modelo] marca=Seat");
+
+        System.out.println("\n<nombreTabla> " + Controlador.CMD_BUSCA + " [ <criterio> ] [ " + Controlador.OPC_PAGINA + " <n> [ "
+                + Controlador.OPC_TAMAÑO + " <m> ] ] [ " + Controlador.OPC_ANCHO + " " + Controlador.OPC_ANCHO_AUTO + " ]\n");
+        System.out.println("\t- Muestra sólo la página <n> (empezando por 1) del resultado, con <m> filas por página");
+        System.out.println("\t- Con '" + Controlador.OPC_ANCHO + " " + Controlador.OPC_ANCHO_AUTO
+                + "' el ancho de cada columna se calcula a partir de una muestra de las filas");
+        System.out.println("\t  Ejemplo: coches busca marca=Seat pagina 2 tamaño 10 ancho auto");
+
         System.out.println("\n<nombreTabla> " + Controlador.CMD_ELIMINA + " <clave>=<valor> ó <clave>#<valor>\n");
         System.out.println("\t- Elimina filas según UN criterio especificado por una clave y un valor.");
         System.out.println("\t  El uso es análogo al del comando " + Controlador.CMD_BUSCA);
 
+        System.out.println("\n<nombreTabla> " + Controlador.CMD_EXPLICA + " [ <criterio> ]\n");
+        System.out.println("\t- Ejecuta la búsqueda como " + Controlador.CMD_BUSCA + " y muestra cómo se ha hecho: camino de acceso,");
+        System.out.println("\t  filas examinadas y devueltas (estimadas y reales) y tiempo de evaluación, materialización y presentación");
+
         System.out.println("\n<nombreTabla> " + Controlador.CMD_ORDENA + " <clave> [ desc ]\n");
         System.out.println("\t- Ordena la tabla según el valor de la clave de cada fila.");
         System.out.println("\t- Si se proporciona el argumento 'desc', ordena en orden descendente. Si no, ascendente");
 
+        System.out.println("\n<nombreTabla> " + Controlador.CMD_AGREGA + " <función> <clave> [ <criterio> ]\n");
+        System.out.println("\t- Calcula una función de agregado (" + String.join(", ", Acumulador.FUNCIONES)
+                + ") sobre la columna <clave> de las filas que cumplen el criterio");
+        System.out.println("\t  Con la función " + Acumulador.CUENTA + ", <clave> puede ser '" + Controlador.OPC_TODAS + "' para contar filas");
+        System.out.println("\t  Ejemplo: multas agrega suma cuantía marca=Seat");
+
+        System.out.println("\n<nombreTabla> " + Controlador.CMD_AGRUPA + " <claveGrupo> <función> <clave> [ <criterio> ]\n");
+        System.out.println("\t- Como " + Controlador.CMD_AGREGA + ", pero calculando la función para cada valor distinto de <claveGrupo>");
+        System.out.println("\t  Ejemplo: multas agrupa matricula suma cuantía");
+
+        System.out.println("\n<nombreTabla1> " + Controlador.CMD_UNE + " <nombreTabla2> <clave> ó <clave1>=<clave2>\n");
+        System.out.println("\t- Une cada fila de <nombreTabla1> con las filas de <nombreTabla2> que tienen el mismo valor en la clave");
+        System.out.println("\t  Si las dos claves tienen índice ordenado (" + Controlador.CMD_INDEXA + "), las filas se unen mezclando los índices");
+        System.out.println("\t  Ejemplo: multas une coches matricula");
+
+        System.out.println("\n<nombreTabla> " + Controlador.CMD_INDEXA + " <clave>\n");
+        System.out.println("\t- Crea un índice ordenado sobre la columna <clave>, con el que " + Controlador.CMD_AGREGA + " "
+                + Acumulador.MINIMO + " y " + Acumulador.MAXIMO + " no recorren la tabla");
+
+        System.out.println("\n<nombreTabla> " + Controlador.CMD_PLIEGA + " <clave> " + Plegado.MAYUSCULAS.getNombre()
+                + "|" + Plegado.ACENTOS.getNombre() + "\n");
+        System.out.println("\t- Indica si " + Controlador.CMD_BUSCA + " y " + Controlador.CMD_ELIMINA
+                + " comparan la columna <clave> sin distinguir sólo mayúsculas (por defecto) o tampoco acentos");
+        System.out.println("\t  Ejemplo: multas pliega ciudad acentos");
+
+        System.out.println("\n<nombreTabla> " + Controlador.CMD_COMPRIME + " <clave>\n");
+        System.out.println("\t- Guarda comprimida una tabla ya ordenada (" + Controlador.CMD_ORDENA
+                + ") por la columna de texto <clave>, hasta que se modifica");
+        System.out.println("\t  Ejemplo: coches ordena matricula --> coches comprime matricula");
+
+        System.out.println("\n<nombreVista> " + Controlador.CMD_VISTA + " <nombreTabla> <claveGrupo> <función> <clave> [ <criterio> ]\n");
+        System.out.println("\t- Crea una tabla con el resultado de " + Controlador.CMD_AGRUPA + " (o de " + Controlador.CMD_AGREGA
+                + " si <claveGrupo> es '" + Controlador.OPC_TODAS + "'), que se mantiene al día al añadir y eliminar filas de <nombreTabla>");
+        System.out.println("\t  Ejemplo: cochesPorMarca vista coches marca cuenta *");
+
         System.out.println("\n" + Controlador.CMD_EXPORTA + "<nombreArchivo> : exporta el contenido de la base de datos a un archivo\n");
+
+        System.out.println(Controlador.CMD_EXPORTA + " " + Controlador.OPC_CSV + " <nombreTabla> <nombreArchivo> [ <clave> [desc] ] : exporta una tabla a un archivo CSV, ordenada por <clave> si se indica");
+        System.out.println(Controlador.CMD_IMPORTA + " " + Controlador.OPC_CSV + " <nombreTabla> <nombreArchivo> : añade a una tabla (creándola si no existe) las filas de un archivo CSV\n");
+
+        System.out.println(Controlador.CMD_PREPARA + " <nombreConsulta> <nombreTabla> " + Controlador.CMD_BUSCA + "|" + Controlador.CMD_ELIMINA
+                + " <clave><operador><valor>|<clave><operador>" + ConsultaPreparada.PARAMETRO + " : prepara una consulta para ejecutarla varias veces");
+        System.out.println(Controlador.CMD_EJECUTA + " <nombreConsulta> [ <valor> ] : ejecuta una consulta preparada, con <valor> en lugar de '"
+                + ConsultaPreparada.PARAMETRO + "'");
+        System.out.println("\t  Ejemplo: prepara porMarca coches busca marca=? --> ejecuta porMarca Seat\n");
+        System.out.println(Controlador.CMD_INICIO + " : abre una transacción; las filas añadidas con " + Controlador.CMD_AÑADE
+                + " quedan pendientes hasta confirmarla");
+        System.out.println(Controlador.CMD_CONFIRMA + " : añade todas las filas pendientes, o ninguna si alguna no se puede añadir");
+        System.out.println(Controlador.CMD_ABORTA + " : descarta las filas pendientes");
+        System.out.println("\t  Ejemplo: inicio --> coches añade ... --> coches añade ... --> confirma\n");
+        System.out.println(Controlador.CMD_ESTADISTICAS + " : muestra, por comando y por tabla, el número de ejecuciones, las filas tocadas y la latencia (p50, p99 y máxima)\n");
     }
     /**
      * Método que presenta por pantalla los resultados 
@@ -259,5 +381,62 @@ public class InterfazUsuario {
         System.out.println() ;
 
     }
-   
+
+    /**
+     * Método que presenta por pantalla los resultados en forma de tabla, como
+     * {@link #presentaResultados(List, List)}, pero con un ancho propio para
+     * cada columna en lugar de {@link Controlador#ANCHO_COLUMNA}
+     *
+     * @param cabecerasTabla una lista de las cabeceras de la tabla sobre la que
+     * se ha obtenido el resultado
+     * @param result lista de objetos FilaDatos que contienen las filas del resultado
+     * @param anchos ancho, en caracteres, de cada columna, en el mismo orden que
+     * <code>cabecerasTabla</code>
+     */
+    public void presentaResultados(List<String> cabecerasTabla, List<FilaDatos> result, int[] anchos) {
+        this.presentaResultados(cabecerasTabla, result.iterator(), anchos);
+    }
+
+    /**
+     * Método que presenta por pantalla los resultados en forma de tabla, como
+     * {@link #presentaResultados(List, List, int[])}, pero pidiendo las filas
+     * a un iterador a medida que se escriben, de modo que el resultado no
+     * tiene que estar entero en memoria
+     *
+     * @param cabecerasTabla una lista de las cabeceras de la tabla sobre la que
+     * se ha obtenido el resultado
+     * @param result iterador sobre las filas del resultado
+     * @param anchos ancho, en caracteres, de cada columna, en el mismo orden que
+     * <code>cabecerasTabla</code>
+     * @return el número de filas presentadas
+     */
+    public long presentaResultados(List<String> cabecerasTabla, Iterator<FilaDatos> result, int[] anchos) {
+        int anchoTabla = 1;
+        for (int ancho : anchos) {
+            anchoTabla += ancho + 1;
+        }
+        repite('=', anchoTabla);
+        System.out.println();
+        for (int i = 0; i < cabecerasTabla.size(); i++) {
+            System.out.print("|");
+            anchoFijo(cabecerasTabla.get(i), anchos[i]);
+        }
+        System.out.println("|");
+        repite('-', anchoTabla);
+        System.out.println();
+        long numFilas = 0;
+        while (result.hasNext()) {
+            FilaDatos fila = result.next();
+            for (int i = 0; i < cabecerasTabla.size(); i++) {
+                System.out.print("|");
+                anchoFijo(fila.get(cabecerasTabla.get(i)), anchos[i]);
+            }
+            System.out.println("|");
+            numFilas++;
+        }
+        repite('=', anchoTabla);
+        System.out.println();
+        return numFilas;
+    }
+
 }
@@ -0,0 +1,96 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.agregacion.Acumulador;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.agregacion.TablaGrupos;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioMenorQue;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Seleccion;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Tabla;
+import edu.upc.etsetb.poo.basededatos.iu.InterfazUsuarioGrabadora;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pruebas del comando 'agrupa': repartido entre varios hilos debe dar el
+ * mismo resultado, y en el mismo orden, que en uno solo
+ */
+public class AgrupaTest {
+
+    private static final int NUM_FILAS = Controlador.UMBRAL_AGRUPA_PARALELO + 1000;
+
+    private Controlador controlador;
+    private InterfazUsuarioGrabadora iu;
+
+    @Before
+    public void setUp() throws Exception {
+        this.controlador = new Controlador();
+        this.iu = new InterfazUsuarioGrabadora(this.controlador);
+        this.controlador.crearTabla("multas crea *id matricula cuantia".split(" "));
+        List<FilaDatos> lote = new ArrayList<>(NUM_FILAS);
+        for (int i = 0; i < NUM_FILAS; i++) {
+            FilaDatos fila = new FilaDatos();
+            fila.put("id", String.format("%06d", i));
+            fila.put("matricula", "m" + (i * 7919 % 1013));
+            fila.put("cuantia", String.valueOf(i % 50));
+            lote.add(fila);
+        }
+        this.controlador.getTablas().get("multas").anyadeTodas(lote);
+    }
+
+    private static List<String> resultado(TablaGrupos grupos) {
+        List<String> resultado = new ArrayList<>(grupos.getNumGrupos());
+        for (int i = 0; i < grupos.getNumGrupos(); i++) {
+            resultado.add(grupos.getClave(i) + "=" + grupos.getAcumulador(i).resultado());
+        }
+        return resultado;
+    }
+
+    private static List<String> resultado(List<FilaDatos> filas) {
+        List<String> resultado = new ArrayList<>(filas.size());
+        for (FilaDatos fila : filas) {
+            resultado.add(fila.get("matricula") + "=" + fila.get("suma(cuantia)"));
+        }
+        return resultado;
+    }
+
+    private TablaGrupos agrupaEnUnHilo(Seleccion seleccion) {
+        Tabla multas = this.controlador.getTablas().get("multas");
+        TablaGrupos grupos = new TablaGrupos(Acumulador.SUMA);
+        for (FilaDatos fila : multas.materializa(seleccion, 0, seleccion.getNumFilas())) {
+            grupos.acumula(fila.get("matricula"), fila.get("cuantia"));
+        }
+        return grupos;
+    }
+
+    @Test
+    public void enParaleloDaLosMismosGruposEnElMismoOrden() throws Exception {
+        Tabla multas = this.controlador.getTablas().get("multas");
+        Seleccion seleccion = multas.selecciona(new CriterioMenorQue("id", "090000"));
+        List<String> esperado = resultado(agrupaEnUnHilo(seleccion));
+        for (int hilos = 2; hilos <= 7; hilos++) {
+            assertEquals(esperado, resultado(Controlador.agrupaEnParalelo(
+                    multas, seleccion, "matricula", Acumulador.SUMA, "cuantia", hilos)));
+        }
+    }
+
+    @Test
+    public void elComandoDaElMismoResultadoQueEnUnHilo() {
+        Tabla multas = this.controlador.getTablas().get("multas");
+        List<String> esperado = resultado(agrupaEnUnHilo(multas.selecciona(null)));
+        this.controlador.agrupar("multas agrupa matricula suma cuantia".split(" "));
+        assertEquals(esperado, resultado(this.iu.getFilas()));
+    }
+
+    @Test
+    public void conCriterioSoloAgrupaLasFilasQueLoCumplen() {
+        Tabla multas = this.controlador.getTablas().get("multas");
+        List<String> esperado = resultado(agrupaEnUnHilo(
+                multas.selecciona(new CriterioMenorQue("id", "000500"))));
+        this.controlador.agrupar("multas agrupa matricula suma cuantia id<000500".split(" "));
+        assertEquals(esperado, resultado(this.iu.getFilas()));
+    }
+}
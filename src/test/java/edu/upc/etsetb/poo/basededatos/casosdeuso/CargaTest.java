@@ -0,0 +1,85 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso;
+
+import edu.upc.etsetb.poo.basededatos.iu.InterfazUsuarioGrabadora;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pruebas del comando 'carga': se añaden todas las filas del archivo o
+ * ninguna
+ */
+public class CargaTest {
+
+    private Controlador controlador;
+    private InterfazUsuarioGrabadora iu;
+    private Path archivo;
+
+    @Before
+    public void setUp() throws IOException {
+        this.controlador = new Controlador();
+        this.iu = new InterfazUsuarioGrabadora(this.controlador);
+        this.archivo = Files.createTempFile("carga", ".txt");
+        this.controlador.crearTabla("coches crea *matricula marca".split(" "));
+        this.controlador.anyadir("coches añade matricula=1 marca=Seat".split(" "));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.archivo);
+    }
+
+    private void carga(String... lineas) throws IOException {
+        Files.write(this.archivo, Arrays.asList(lineas), StandardCharsets.UTF_8);
+        this.controlador.cargar(new String[]{"coches", "carga", this.archivo.toString()});
+    }
+
+    private int numFilas() {
+        return this.controlador.getTablas().get("coches").getNumFilas();
+    }
+
+    @Test
+    public void cargaTodasLasFilas() throws IOException {
+        carga("matricula=2 marca=Ford", "", "  matricula=3   marca=Kia  ");
+        assertEquals("2 fila(s) añadida(s) a la tabla coches.", this.iu.getUltimoMensaje());
+        assertEquals(3, numFilas());
+        assertEquals("Kia", this.controlador.getTablas().get("coches").buscaUnica("matricula", "3").get("marca"));
+    }
+
+    @Test
+    public void unaClaveRepetidaNoCargaNinguna() throws IOException {
+        carga("matricula=2 marca=Ford", "matricula=1 marca=Opel", "matricula=3 marca=Kia");
+        assertEquals("No se ha añadido ninguna fila.", this.iu.getUltimoMensaje());
+        assertEquals(1, numFilas());
+        carga("matricula=2 marca=Ford", "matricula=2 marca=Kia");
+        assertEquals(1, numFilas());
+    }
+
+    @Test
+    public void unaLineaMalFormadaNoCargaNinguna() throws IOException {
+        carga("matricula=2 marca=Ford", "matricula=3 marca");
+        assertEquals("Error en formato de la línea 2.", this.iu.getUltimoMensaje());
+        carga("matricula=2 marca=Ford", "matricula=3");
+        assertEquals("No se ha añadido ninguna fila.", this.iu.getUltimoMensaje());
+        assertEquals(1, numFilas());
+    }
+
+    @Test
+    public void enUnaTransaccionLasFilasQuedanPendientes() throws IOException {
+        this.controlador.iniciar(new String[]{"inicio"});
+        carga("matricula=2 marca=Ford", "matricula=3 marca=Kia");
+        assertEquals("2 fila(s) pendiente(s) de añadir a la tabla coches.", this.iu.getUltimoMensaje());
+        assertEquals(1, numFilas());
+        this.controlador.anyadir("coches añade matricula=3 marca=Opel".split(" "));
+        this.controlador.confirmar(new String[]{"confirma"});
+        assertEquals("Transacción abortada: no se ha añadido ninguna fila.", this.iu.getUltimoMensaje());
+        assertEquals(1, numFilas());
+    }
+}
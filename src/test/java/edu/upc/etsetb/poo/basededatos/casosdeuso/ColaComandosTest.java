@@ -0,0 +1,281 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso;
+
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Tabla;
+import edu.upc.etsetb.poo.basededatos.iu.InterfazUsuarioGrabadora;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Pruebas de {@link ColaComandos}: el orden de los comandos de un carril, las
+ * barreras de los comandos globales, el límite de comandos pendientes y el
+ * cierre
+ */
+public class ColaComandosTest {
+
+    /**
+     * Tiempo que se espera para comprobar que un comando no ha avanzado
+     */
+    private static final long ESPERA_MS = 200;
+
+    private Controlador controlador;
+
+    private ColaComandos cola;
+
+    /**
+     * Comandos ejecutados, en el orden en que se han ejecutado
+     */
+    private List<String> ejecutados;
+
+    @Before
+    public void setUp() {
+        this.controlador = new Controlador();
+        new InterfazUsuarioGrabadora(this.controlador);
+        this.cola = new ColaComandos(this.controlador, 4, 64);
+        this.ejecutados = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        this.cola.cierra();
+    }
+
+    /**
+     * Comando que anota su nombre al ejecutarse
+     */
+    private Future<String> envia(String nombreTabla, String nombre) throws InterruptedException {
+        return this.cola.envia(nombreTabla, () -> {
+            this.ejecutados.add(nombre);
+            return nombre;
+        });
+    }
+
+    /**
+     * Comando que espera a que se abra una barrera antes de anotar su nombre
+     */
+    private Future<String> enviaBloqueado(String nombreTabla, String nombre, CountDownLatch suelta)
+            throws InterruptedException {
+        return this.cola.envia(nombreTabla, () -> {
+            assertTrue(suelta.await(5, TimeUnit.SECONDS));
+            this.ejecutados.add(nombre);
+            return nombre;
+        });
+    }
+
+    @Test
+    public void losComandosDeUnCarrilSeEjecutanEnOrden() throws Exception {
+        List<String> esperados = new ArrayList<>();
+        Future<String> ultimo = null;
+        for (int i = 0; i < 50; i++) {
+            esperados.add(String.valueOf(i));
+            ultimo = envia("coches", String.valueOf(i));
+        }
+        assertEquals("49", ultimo.get(5, TimeUnit.SECONDS));
+        assertEquals(esperados, this.ejecutados);
+    }
+
+    @Test
+    public void unComandoGlobalEsperaALosAnterioresYBloqueaALosPosteriores() throws Exception {
+        CountDownLatch suelta = new CountDownLatch(1);
+        Future<String> anterior = enviaBloqueado("coches", "coches", suelta);
+        Future<String> global = this.cola.enviaGlobal(() -> {
+            this.ejecutados.add("global");
+            return "global";
+        });
+        Future<String> posterior = envia("multas", "multas");
+        Thread.sleep(ESPERA_MS);
+        assertFalse(global.isDone());
+        assertFalse(posterior.isDone());
+        assertTrue(this.ejecutados.isEmpty());
+        suelta.countDown();
+        posterior.get(5, TimeUnit.SECONDS);
+        assertTrue(anterior.isDone());
+        assertTrue(global.isDone());
+        assertEquals(Arrays.asList("coches", "global", "multas"), this.ejecutados);
+    }
+
+    @Test
+    public void elEnvioEsperaSiElCarrilEstaLleno() throws Exception {
+        this.cola.cierra();
+        this.cola = new ColaComandos(this.controlador, 2, 2);
+        CountDownLatch suelta = new CountDownLatch(1);
+        enviaBloqueado("coches", "1", suelta);
+        enviaBloqueado("coches", "2", suelta);
+        List<Future<String>> tercero = Collections.synchronizedList(new ArrayList<>());
+        Thread enviador = new Thread(() -> {
+            try {
+                tercero.add(envia("coches", "3"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        enviador.start();
+        enviador.join(ESPERA_MS);
+        assertTrue(enviador.isAlive());
+        assertTrue(tercero.isEmpty());
+        // Los otros carriles no están llenos
+        assertEquals("multas", envia("multas", "multas").get(5, TimeUnit.SECONDS));
+        suelta.countDown();
+        enviador.join(5000);
+        assertFalse(enviador.isAlive());
+        assertEquals("3", tercero.get(0).get(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("multas", "1", "2", "3"), this.ejecutados);
+    }
+
+    @Test
+    public void alCerrarSeTerminanLosPendientesYNoSeAdmitenMas() throws Exception {
+        AtomicInteger terminados = new AtomicInteger();
+        List<Future<Integer>> pendientes = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            pendientes.add(this.cola.envia("coches", () -> {
+                Thread.sleep(20);
+                return terminados.incrementAndGet();
+            }));
+        }
+        pendientes.add(this.cola.enviaGlobal(() -> terminados.incrementAndGet()));
+        this.cola.cierra();
+        assertEquals(6, terminados.get());
+        for (Future<Integer> pendiente : pendientes) {
+            assertTrue(pendiente.isDone());
+        }
+        try {
+            envia("coches", "tarde");
+            fail("La cola debería estar cerrada");
+        } catch (IllegalStateException e) {
+            assertEquals("La cola de comandos está cerrada.", e.getMessage());
+        }
+        try {
+            this.cola.enviaGlobal(() -> null);
+            fail("La cola debería estar cerrada");
+        } catch (IllegalStateException e) {
+            assertEquals("La cola de comandos está cerrada.", e.getMessage());
+        }
+        assertTrue(this.ejecutados.isEmpty());
+    }
+
+    /**
+     * Crea la tabla multas, con las vistas sumas (por matrícula) y total
+     * (sobre sumas), y la tabla coches
+     */
+    private void creaTablasYVistas() {
+        this.controlador.crearTabla("multas crea *id matricula cuantia".split(" "));
+        this.controlador.crearTabla("coches crea *matricula marca".split(" "));
+        this.controlador.crearVista("sumas vista multas matricula suma cuantia".split(" "));
+        this.controlador.crearVista("total vista sumas * max suma(cuantia)".split(" "));
+    }
+
+    /**
+     * Suma de los valores de una columna de una tabla
+     */
+    private double suma(String nombreTabla, String columna) {
+        double suma = 0;
+        for (FilaDatos fila : this.controlador.getTablas().get(nombreTabla).buscaTodo()) {
+            suma += Double.parseDouble(fila.get(columna));
+        }
+        return suma;
+    }
+
+    @Test
+    public void losComandosDeUnaVistaVanAlCarrilDeSuTablaDeOrigen() throws Exception {
+        creaTablasYVistas();
+        CountDownLatch suelta = new CountDownLatch(1);
+        Future<String> anyade = this.cola.envia("multas", () -> {
+            assertTrue(suelta.await(5, TimeUnit.SECONDS));
+            this.controlador.anyadir("multas añade id=1 matricula=A cuantia=10".split(" "));
+            return "multas";
+        });
+        Future<String> vista = this.cola.envia("total", () -> {
+            Tabla total = this.controlador.getTablas().get("total");
+            FilaDatos fila = total.buscaTodo().iterator().next();
+            return fila.get(total.getCabeceras().iterator().next());
+        });
+        Future<String> otra = envia("coches", "coches");
+        assertEquals("coches", otra.get(5, TimeUnit.SECONDS));
+        Thread.sleep(ESPERA_MS);
+        assertFalse(vista.isDone());
+        suelta.countDown();
+        assertEquals("multas", anyade.get(5, TimeUnit.SECONDS));
+        assertEquals("10", vista.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void unaVistaYSuTablaSePuedenUsarALaVez() throws Exception {
+        creaTablasYVistas();
+        List<Future<?>> lecturas = Collections.synchronizedList(new ArrayList<>());
+        Thread lector = new Thread(() -> {
+            try {
+                for (int i = 0; i < 200; i++) {
+                    // Cada lectura ve la vista al día con todas las filas
+                    // añadidas antes a la tabla de origen
+                    lecturas.add(this.cola.envia(i % 2 == 0 ? "sumas" : "total", () -> {
+                        assertEquals(suma("multas", "cuantia"), suma("sumas", "suma(cuantia)"), 0);
+                        return null;
+                    }));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        lector.start();
+        List<Future<?>> escrituras = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String comando = "multas añade id=" + i + " matricula=" + (char) ('A' + i % 7) + " cuantia=" + i;
+            escrituras.add(this.cola.envia("multas", () -> {
+                this.controlador.anyadir(comando.split(" "));
+                return null;
+            }));
+        }
+        lector.join(5000);
+        assertFalse(lector.isAlive());
+        for (Future<?> escritura : escrituras) {
+            escritura.get(5, TimeUnit.SECONDS);
+        }
+        for (Future<?> lectura : lecturas) {
+            lectura.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(200, lecturas.size());
+        assertEquals(199 * 200 / 2, suma("sumas", "suma(cuantia)"), 0);
+        assertEquals(7, this.controlador.getTablas().get("sumas").getNumFilas());
+    }
+
+    @Test
+    public void mientrasHayUnComandoGlobalPendienteSeEnviaComoGlobal() throws Exception {
+        this.controlador.crearTabla("multas crea *id matricula cuantia".split(" "));
+        CountDownLatch suelta = new CountDownLatch(1);
+        Future<?> vista = this.cola.enviaGlobal(() -> {
+            assertTrue(suelta.await(5, TimeUnit.SECONDS));
+            this.controlador.crearVista("sumas vista multas matricula suma cuantia".split(" "));
+            return null;
+        });
+        // Cuando se envía aún no se sabe que sumas es una vista de multas
+        Future<String> lectura = this.cola.envia("sumas", () -> {
+            this.ejecutados.add("sumas");
+            return this.controlador.getTablas().get("sumas").buscaTodo().iterator().next().get("suma(cuantia)");
+        });
+        Future<String> escritura = this.cola.envia("multas", () -> {
+            this.ejecutados.add("multas");
+            this.controlador.anyadir("multas añade id=2 matricula=A cuantia=5".split(" "));
+            return "multas";
+        });
+        this.controlador.anyadir("multas añade id=1 matricula=A cuantia=10".split(" "));
+        suelta.countDown();
+        vista.get(5, TimeUnit.SECONDS);
+        assertEquals("10", lectura.get(5, TimeUnit.SECONDS));
+        assertEquals("multas", escritura.get(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("sumas", "multas"), this.ejecutados);
+    }
+}
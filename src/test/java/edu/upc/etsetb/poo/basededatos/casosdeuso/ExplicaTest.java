@@ -0,0 +1,72 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso;
+
+import edu.upc.etsetb.poo.basededatos.iu.InterfazUsuarioGrabadora;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas del comando 'explica': las filas encontradas y el plan que se
+ * muestra después
+ */
+public class ExplicaTest {
+
+    private Controlador controlador;
+    private InterfazUsuarioGrabadora iu;
+
+    @Before
+    public void setUp() {
+        this.controlador = new Controlador();
+        this.iu = new InterfazUsuarioGrabadora(this.controlador);
+        this.controlador.crearTabla("coches crea *matricula marca".split(" "));
+        this.controlador.anyadir("coches añade matricula=abc1 marca=Seat".split(" "));
+        this.controlador.anyadir("coches añade matricula=ABC1 marca=Kia".split(" "));
+        this.controlador.anyadir("coches añade matricula=xyz2 marca=Seat".split(" "));
+    }
+
+    private List<String> explica(String comando) {
+        this.iu.vacia();
+        this.controlador.explicar(comando.split(" "));
+        return this.iu.getMensajes();
+    }
+
+    @Test
+    public void muestraElPlanYLasFilas() {
+        List<String> mensajes = explica("coches explica matricula=XYZ2");
+        assertEquals(4, mensajes.size());
+        assertEquals("Plan: índice hash sobre la clave única 'matricula'", mensajes.get(0));
+        assertEquals("Filas examinadas: 1 estimadas, 1 reales", mensajes.get(1));
+        assertEquals("Filas devueltas: 1 estimadas, 1 reales", mensajes.get(2));
+        assertTrue(mensajes.get(3), mensajes.get(3).matches(
+                "Tiempo \\(µs\\): evaluación [0-9.]+, materialización [0-9.]+, presentación [0-9.]+"));
+        assertEquals(1, this.iu.getFilas().size());
+        assertEquals("xyz2", this.iu.getFilas().get(0).get("matricula"));
+
+        mensajes = explica("coches explica marca=seat");
+        assertEquals("Plan: recorrido completo de la tabla", mensajes.get(0));
+        assertEquals("Filas examinadas: 3 estimadas, 3 reales", mensajes.get(1));
+        assertEquals("Filas devueltas: 0 estimadas, 2 reales", mensajes.get(2));
+    }
+
+    @Test
+    public void avisaSiDescartaElIndice() {
+        List<String> mensajes = explica("coches explica matricula=Abc1");
+        assertEquals("Plan: índice hash sobre la clave única 'matricula', descartado por haber varios valores"
+                + " que sólo difieren en mayúsculas o acentos; recorrido completo de la tabla", mensajes.get(0));
+        assertEquals("Filas examinadas: 1 estimadas, 3 reales", mensajes.get(1));
+        assertEquals("Filas devueltas: 1 estimadas, 2 reales", mensajes.get(2));
+        assertEquals(Arrays.asList("abc1", "ABC1"), Arrays.asList(this.iu.getFilas().get(0).get("matricula"),
+                this.iu.getFilas().get(1).get("matricula")));
+    }
+
+    @Test
+    public void rechazaLosComandosMalFormados() {
+        assertEquals(Arrays.asList("La tabla motos no existe."), explica("motos explica"));
+        assertEquals(Arrays.asList("Error en formato del comando."), explica("coches explica marca"));
+        assertEquals(Arrays.asList("Error en formato del comando."), explica("coches explica a=1 b=2"));
+    }
+}
@@ -0,0 +1,185 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso;
+
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.Criterio;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Clave;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Esquema;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Plegado;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Tabla;
+import edu.upc.etsetb.poo.basededatos.iu.InterfazUsuarioGrabadora;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas del comando 'exporta': al volver a ejecutar los comandos del
+ * archivo exportado se obtiene la misma base de datos
+ */
+public class ExportaTest {
+
+    private Controlador controlador;
+    private Path archivo;
+
+    @Before
+    public void setUp() throws IOException {
+        this.controlador = new Controlador();
+        new InterfazUsuarioGrabadora(this.controlador);
+        this.archivo = Files.createTempFile("exporta", ".txt");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.archivo);
+    }
+
+    /**
+     * Ejecuta en un controlador nuevo los comandos del archivo exportado, como
+     * si se escribieran en la {@link edu.upc.etsetb.poo.basededatos.iu.InterfazUsuario}
+     */
+    private Controlador reimporta() throws IOException {
+        Controlador reimportado = new Controlador();
+        new InterfazUsuarioGrabadora(reimportado);
+        for (String linea : Files.readAllLines(this.archivo, StandardCharsets.UTF_8)) {
+            String[] palabras = linea.trim().split("\\s+");
+            switch (palabras[1]) {
+                case Controlador.CMD_CREA_TABLA:
+                    reimportado.crearTabla(palabras);
+                    break;
+                case Controlador.CMD_AÑADE:
+                    reimportado.anyadir(palabras);
+                    break;
+                case Controlador.CMD_PLIEGA:
+                    reimportado.plegar(palabras);
+                    break;
+                case Controlador.CMD_VISTA:
+                    reimportado.crearVista(palabras);
+                    break;
+                default:
+                    throw new IllegalArgumentException(linea);
+            }
+        }
+        return reimportado;
+    }
+
+    /**
+     * Valores de una columna de las filas encontradas, ordenados
+     */
+    private static List<String> busca(Controlador controlador, String comando, String columna) {
+        List<String> valores = new ArrayList<>();
+        for (FilaDatos fila : controlador.buscar(comando.split(" "))) {
+            valores.add(fila.get(columna));
+        }
+        Collections.sort(valores);
+        return valores;
+    }
+
+    @Test
+    public void elPlegadoDeLasColumnasSeConserva() throws IOException {
+        this.controlador.crearTabla("coches crea *matricula modelo".split(" "));
+        this.controlador.plegar("coches pliega modelo acentos".split(" "));
+        this.controlador.anyadir("coches añade matricula=1 modelo=Córdoba".split(" "));
+        this.controlador.anyadir("coches añade matricula=2 modelo=cordoba".split(" "));
+        this.controlador.anyadir("coches añade matricula=3 modelo=Ibiza".split(" "));
+        this.controlador.exporta(this.archivo.toString());
+
+        Controlador reimportado = reimporta();
+        assertEquals(Plegado.ACENTOS, reimportado.getTablas().get("coches").getPlegado("modelo"));
+        assertEquals(Plegado.MAYUSCULAS, reimportado.getTablas().get("coches").getPlegado("matricula"));
+        for (String comando : new String[]{"coches busca modelo=CORDOBA", "coches busca modelo#órd"}) {
+            List<String> esperadas = busca(this.controlador, comando, "matricula");
+            assertEquals(2, esperadas.size());
+            assertEquals(esperadas, busca(reimportado, comando, "matricula"));
+        }
+    }
+
+    @Test
+    public void variasTablasSeReimportanIguales() throws IOException {
+        this.controlador.crearTabla("coches crea *matricula marca modelo".split(" "));
+        this.controlador.crearTabla("multas crea *id matricula cuantia".split(" "));
+        this.controlador.crearTabla("vacia crea *id nombre".split(" "));
+        for (int i = 0; i < 500; i++) {
+            this.controlador.anyadir(("coches añade matricula=M" + i + " marca=Marca" + i % 7
+                    + " modelo=Modelo" + i % 13).split(" "));
+            this.controlador.anyadir(("multas añade id=" + i + " matricula=M" + i % 50
+                    + " cuantia=" + (i * 37 % 600)).split(" "));
+        }
+        this.controlador.ordenar("multas ordena cuantia desc".split(" "));
+        this.controlador.crearVista("sumas vista multas matricula suma cuantia".split(" "));
+        this.controlador.exporta(this.archivo.toString());
+
+        Controlador reimportado = reimporta();
+        assertEquals(this.controlador.getTablas().keySet(), reimportado.getTablas().keySet());
+        for (String nombreTabla : this.controlador.getTablas().keySet()) {
+            Tabla original = this.controlador.getTablas().get(nombreTabla);
+            Tabla copia = reimportado.getTablas().get(nombreTabla);
+            assertEquals(nombreTabla, original.getEsquema().getCabeceras(), copia.getEsquema().getCabeceras());
+            // Las filas se exportan en el orden de la tabla
+            assertEquals(nombreTabla, new ArrayList<>(original.buscaTodo()), new ArrayList<>(copia.buscaTodo()));
+        }
+        assertTrue(reimportado.getTablas().get("vacia").buscaTodo().isEmpty());
+        assertEquals(50, reimportado.getTablas().get("sumas").getNumFilas());
+    }
+
+    /**
+     * Tabla cuyas filas no se pueden leer, como si fallara la escritura al
+     * exportarla
+     */
+    private static class TablaIlegible extends Tabla {
+
+        TablaIlegible(String nombre, Esquema esquema) {
+            super(nombre, esquema);
+        }
+
+        @Override
+        public Iterator<FilaDatos> cursor(Criterio criterio) {
+            throw new UncheckedIOException(new IOException("disco lleno"));
+        }
+    }
+
+    /**
+     * Archivos temporales de exportación de unas tablas que hay en el
+     * directorio temporal
+     */
+    private static List<String> temporales(String... nombresTabla) throws IOException {
+        try (Stream<Path> archivos = Files.list(Paths.get(System.getProperty("java.io.tmpdir")))) {
+            return archivos.map(archivo -> archivo.getFileName().toString())
+                    .filter(nombre -> Arrays.stream(nombresTabla).anyMatch(t -> nombre.startsWith("exporta-" + t)))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void siFallaUnaTablaNoQuedanArchivosTemporales() throws Exception {
+        this.controlador.crearTabla("coches crea *matricula marca".split(" "));
+        this.controlador.crearTabla("motos crea *matricula marca".split(" "));
+        for (int i = 0; i < 100; i++) {
+            this.controlador.anyadir(("coches añade matricula=C" + i + " marca=Seat").split(" "));
+            this.controlador.anyadir(("motos añade matricula=M" + i + " marca=Honda").split(" "));
+        }
+        Esquema esquema = new Esquema();
+        esquema.addClave(new Clave("id", true));
+        this.controlador.getTablas().put("averiada", new TablaIlegible("averiada", esquema));
+        InterfazUsuarioGrabadora iu = new InterfazUsuarioGrabadora(this.controlador);
+        List<String> antes = temporales("coches", "motos", "averiada");
+
+        this.controlador.exporta(this.archivo.toString());
+        assertTrue(iu.getMensajes().contains("Error al exportar las tablas: java.io.IOException: disco lleno"));
+        assertEquals(antes, temporales("coches", "motos", "averiada"));
+    }
+}
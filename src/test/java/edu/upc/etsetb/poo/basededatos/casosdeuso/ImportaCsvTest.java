@@ -0,0 +1,91 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso;
+
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Tabla;
+import edu.upc.etsetb.poo.basededatos.iu.InterfazUsuarioGrabadora;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas del comando 'importa csv': la importación es de todo o nada y la
+ * cabecera debe coincidir con el esquema de una tabla existente
+ */
+public class ImportaCsvTest {
+
+    private Controlador controlador;
+    private InterfazUsuarioGrabadora iu;
+    private Path archivo;
+
+    @Before
+    public void setUp() throws IOException {
+        this.controlador = new Controlador();
+        this.iu = new InterfazUsuarioGrabadora(this.controlador);
+        this.archivo = Files.createTempFile("importa", ".csv");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.archivo);
+    }
+
+    private void escribe(String... lineas) throws IOException {
+        Files.write(this.archivo, Arrays.asList(lineas), StandardCharsets.UTF_8);
+    }
+
+    private void importa(String tabla) {
+        this.controlador.importaCsv(new String[]{"importa", "csv", tabla, this.archivo.toString()});
+    }
+
+    @Test
+    public void importaTodasLasFilasEnUnaTablaNueva() throws IOException {
+        escribe("*matricula,marca", "1,Seat", "2,Ford");
+        importa("coches");
+        Tabla coches = this.controlador.getTablas().get("coches");
+        assertEquals(2, coches.getNumFilas());
+        assertTrue(coches.esUnica("matricula"));
+        assertEquals("2 fila(s) importada(s) a la tabla coches.", this.iu.getUltimoMensaje());
+    }
+
+    @Test
+    public void unaClaveRepetidaNoImportaNinguna() throws IOException {
+        this.controlador.crearTabla("coches crea *matricula marca".split(" "));
+        this.controlador.anyadir("coches añade matricula=1 marca=Seat".split(" "));
+        escribe("*matricula,marca", "2,Ford", "3,Kia", "1,Opel");
+        importa("coches");
+        assertEquals(1, this.controlador.getTablas().get("coches").getNumFilas());
+        assertEquals("No se ha importado ninguna fila.", this.iu.getUltimoMensaje());
+    }
+
+    @Test
+    public void unaLineaMalFormadaNoCreaLaTabla() throws IOException {
+        escribe("*matricula,marca", "1,Seat", "2");
+        importa("coches");
+        assertFalse(this.controlador.getTablas().containsKey("coches"));
+        assertEquals("No se ha importado ninguna fila.", this.iu.getUltimoMensaje());
+    }
+
+    @Test
+    public void laCabeceraDebeIndicarLasMismasClavesUnicas() throws IOException {
+        this.controlador.crearTabla("coches crea *matricula marca".split(" "));
+        escribe("matricula,marca", "1,Seat");
+        importa("coches");
+        assertEquals(0, this.controlador.getTablas().get("coches").getNumFilas());
+        assertTrue(this.iu.getMensajes().contains(
+                "Error al importar: la columna matricula es clave única en la tabla coches."));
+
+        escribe("*matricula,*marca", "1,Seat");
+        importa("coches");
+        assertEquals(0, this.controlador.getTablas().get("coches").getNumFilas());
+        assertTrue(this.iu.getMensajes().contains(
+                "Error al importar: la columna marca no es clave única en la tabla coches."));
+    }
+}
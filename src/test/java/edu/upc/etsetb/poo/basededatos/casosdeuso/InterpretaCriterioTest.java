@@ -0,0 +1,111 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.Criterio;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioContiene;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioIgual;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioMayorQue;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioMenorQue;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import edu.upc.etsetb.poo.basededatos.iu.InterfazUsuarioGrabadora;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas de la interpretación de criterios en los comandos 'busca',
+ * 'elimina' y 'ejecuta'
+ */
+public class InterpretaCriterioTest {
+
+    private Controlador controlador;
+    private InterfazUsuarioGrabadora iu;
+
+    @Before
+    public void setUp() {
+        this.controlador = new Controlador();
+        this.iu = new InterfazUsuarioGrabadora(this.controlador);
+        this.controlador.crearTabla("multas crea *id cuantía motivo".split(" "));
+        this.controlador.anyadir("multas añade id=1 cuantía=50 motivo=velocidad".split(" "));
+        this.controlador.anyadir("multas añade id=2 cuantía=100 motivo=aparcar".split(" "));
+        this.controlador.anyadir("multas añade id=3 cuantía=60 motivo=velocidad".split(" "));
+        this.controlador.anyadir("multas añade id=4 cuantía=9.5 motivo=casco".split(" "));
+    }
+
+    private static Criterio interpreta(String criterio) {
+        return Controlador.interpretaCriterio(new String[]{"multas", "busca", criterio});
+    }
+
+    private static List<String> ids(List<FilaDatos> filas) {
+        List<String> ids = new ArrayList<>();
+        for (FilaDatos fila : filas) {
+            ids.add(fila.get("id"));
+        }
+        return ids;
+    }
+
+    @Test
+    public void cadaOperadorCreaSuCriterio() {
+        assertTrue(interpreta("motivo=casco") instanceof CriterioIgual);
+        assertTrue(interpreta("motivo#cas") instanceof CriterioContiene);
+        assertTrue(interpreta("cuantía>60") instanceof CriterioMayorQue);
+        assertTrue(interpreta("cuantía<60") instanceof CriterioMenorQue);
+    }
+
+    @Test
+    public void cuentaElPrimerOperador() {
+        Criterio criterio = interpreta("motivo=a>b");
+        assertTrue(criterio instanceof CriterioIgual);
+        assertEquals("motivo", criterio.getNombreClave());
+        assertEquals("a>b", criterio.getValorAComprobar());
+    }
+
+    @Test
+    public void criteriosMalFormados() {
+        assertNull(interpreta("cuantía"));
+        assertNull(interpreta("cuantía>mucho"));
+        assertNull(Controlador.interpretaCriterio(new String[]{"multas", "busca"}));
+    }
+
+    @Test
+    public void elMismoTextoDevuelveElMismoCriterio() {
+        assertSame(interpreta("cuantía>61"), interpreta("cuantía>61"));
+    }
+
+    @Test
+    public void losRangosComparanNumeros() {
+        assertEquals(Arrays.asList("2"),
+                ids(this.controlador.buscar("multas busca cuantía>60".split(" "))));
+        assertEquals(Arrays.asList("1", "4"),
+                ids(this.controlador.buscar("multas busca cuantía<60".split(" "))));
+    }
+
+    @Test
+    public void eliminaInterpretaSuCriterio() {
+        List<FilaDatos> eliminadas = this.controlador.eliminar("multas elimina cuantía>60".split(" "));
+        assertEquals(Arrays.asList("2"), ids(eliminadas));
+        assertEquals("1 fila(s) eliminada(s).", this.iu.getUltimoMensaje());
+        assertEquals(3, this.controlador.getTablas().get("multas").getNumFilas());
+
+        this.controlador.eliminar("multas elimina cuantía".split(" "));
+        assertEquals("Error en formato del criterio.", this.iu.getUltimoMensaje());
+    }
+
+    @Test
+    public void consultaPreparadaConParametro() {
+        this.controlador.preparar("prepara porMotivo multas busca motivo=?".split(" "));
+        assertEquals(Arrays.asList("1", "3"),
+                ids(this.controlador.ejecutar("ejecuta porMotivo velocidad".split(" "))));
+        assertEquals(Arrays.asList("4"),
+                ids(this.controlador.ejecutar("ejecuta porMotivo casco".split(" "))));
+
+        this.controlador.ejecutar("ejecuta porMotivo".split(" "));
+        assertEquals("Error en formato del comando.", this.iu.getUltimoMensaje());
+    }
+}
@@ -0,0 +1,147 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioIgual;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Tabla;
+import edu.upc.etsetb.poo.basededatos.iu.InterfazUsuarioGrabadora;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas de las opciones de paginación (<code>pagina</code> y
+ * <code>tamaño</code>) y de ancho automático (<code>ancho auto</code>) del
+ * comando 'busca', y de {@link Tabla#buscaPagina}
+ */
+public class PaginacionTest {
+
+    /**
+     * Número de filas de la tabla, más que {@link Controlador#MUESTRA_ANCHO}
+     */
+    private static final int NUM_FILAS = 250;
+
+    private Controlador controlador;
+    private InterfazUsuarioGrabadora iu;
+
+    /**
+     * Crea una tabla con las filas id=0..NUM_FILAS-1, con color=rojo en las
+     * pares y azul en las impares
+     */
+    @Before
+    public void setUp() {
+        this.controlador = new Controlador();
+        this.iu = new InterfazUsuarioGrabadora(this.controlador);
+        this.controlador.crearTabla("datos crea *id color".split(" "));
+        for (int i = 0; i < NUM_FILAS; i++) {
+            this.controlador.anyadir(("datos añade id=" + i + " color=" + (i % 2 == 0 ? "rojo" : "azul")).split(" "));
+        }
+    }
+
+    private List<FilaDatos> busca(String comando) {
+        this.iu.vacia();
+        return this.controlador.buscar(comando.split(" "));
+    }
+
+    /**
+     * Anchos de las columnas id y color en la última presentación
+     */
+    private int[] anchos() {
+        List<String> cabeceras = this.iu.getCabeceras();
+        int[] anchos = this.iu.getAnchos();
+        return new int[]{anchos[cabeceras.indexOf("id")], anchos[cabeceras.indexOf("color")]};
+    }
+
+    private static List<String> ids(List<FilaDatos> filas) {
+        List<String> ids = new ArrayList<>();
+        for (FilaDatos fila : filas) {
+            ids.add(fila.get("id"));
+        }
+        return ids;
+    }
+
+    @Test
+    public void buscaPaginaDevuelveLaVentanaPedida() {
+        Tabla tabla = this.controlador.getTablas().get("datos");
+        assertEquals(Arrays.asList("0", "1", "2"), ids(tabla.buscaPagina(null, 1, 3)));
+        assertEquals(Arrays.asList("6", "8", "10"), ids(tabla.buscaPagina(new CriterioIgual("color", "ROJO"), 2, 3)));
+        // La última página puede estar incompleta
+        assertEquals(Arrays.asList("246", "247", "248", "249"), ids(tabla.buscaPagina(null, 42, 6)));
+        assertTrue(tabla.buscaPagina(null, 43, 6).isEmpty());
+        assertTrue(tabla.buscaPagina(new CriterioIgual("color", "verde"), 1, 10).isEmpty());
+    }
+
+    @Test
+    public void unaPaginaDespuesDeLaUltimaNoTieneFilas() {
+        assertTrue(busca("datos busca color=azul pagina 14 tamaño 10").isEmpty());
+        assertEquals(Arrays.asList("No se encontraron filas que cumplan el criterio."), this.iu.getMensajes());
+        assertTrue(this.iu.getFilas().isEmpty());
+
+        List<FilaDatos> filas = busca("datos busca color=azul pagina 13 tamaño 9");
+        assertEquals(Arrays.asList("217", "219", "221", "223", "225", "227", "229", "231", "233"), ids(filas));
+        assertEquals("Página 13 (9 filas por página)", this.iu.getMensajes().get(0));
+    }
+
+    @Test
+    public void elTamañoSinPaginaMuestraLaPrimeraPagina() {
+        List<FilaDatos> filas = busca("datos busca tamaño 4");
+        assertEquals(Arrays.asList("0", "1", "2", "3"), ids(filas));
+        assertEquals("Página 1 (4 filas por página)", this.iu.getMensajes().get(0));
+        assertEquals(filas, this.iu.getFilas());
+    }
+
+    @Test
+    public void laPaginaSinTamañoUsaElTamañoPorDefecto() {
+        List<FilaDatos> filas = busca("datos busca pagina 2");
+        assertEquals(Controlador.TAMAÑO_PAGINA, filas.size());
+        assertEquals(String.valueOf(Controlador.TAMAÑO_PAGINA), filas.get(0).get("id"));
+        assertEquals("Página 2 (" + Controlador.TAMAÑO_PAGINA + " filas por página)", this.iu.getMensajes().get(0));
+    }
+
+    @Test
+    public void losValoresQueNoSonEnterosPositivosSeRechazan() {
+        for (String opciones : new String[]{"pagina 0", "tamaño 0", "pagina 0 tamaño 5", "pagina -1",
+            "tamaño -3", "pagina dos", "tamaño 5 pagina 1.5", "pagina 99999999999"}) {
+            assertTrue(opciones, busca("datos busca color=rojo " + opciones).isEmpty());
+            assertEquals(opciones, Arrays.asList("Error en formato del comando."), this.iu.getMensajes());
+            assertTrue(this.iu.getFilas().isEmpty());
+        }
+    }
+
+    @Test
+    public void elAnchoAutomaticoSoloMiraLaMuestra() {
+        // Un valor largo después de las primeras MUESTRA_ANCHO filas no cuenta
+        this.controlador.anyadir("datos añade id=1000 color=amarillo_limon".split(" "));
+        List<FilaDatos> filas = busca("datos busca ancho auto");
+        assertEquals(NUM_FILAS + 1, filas.size());
+        assertArrayEquals(new int[]{2, 5}, anchos());
+
+        // Dentro de la muestra sí, sin pasar del máximo
+        this.controlador.eliminar("datos elimina color=rojo".split(" "));
+        this.controlador.anyadir(("datos añade id=" + String.join("", Collections.nCopies(50, "9"))
+                + " color=x").split(" "));
+        busca("datos busca id#9999 ancho auto");
+        assertArrayEquals(new int[]{Controlador.ANCHO_MAXIMO_COLUMNA, 5}, anchos());
+
+        busca("datos busca color=amarillo_limon ancho auto");
+        assertArrayEquals(new int[]{4, 14}, anchos());
+
+        // Sin la opción se usa el ancho fijo
+        busca("datos busca color=amarillo_limon");
+        assertNull(this.iu.getAnchos());
+    }
+
+    @Test
+    public void elAnchoAutomaticoSeCombinaConLaPaginacion() {
+        List<FilaDatos> filas = busca("datos busca color=azul ancho auto pagina 3 tamaño 2");
+        assertEquals(Arrays.asList("9", "11"), ids(filas));
+        assertArrayEquals(new int[]{2, 5}, anchos());
+    }
+}
@@ -0,0 +1,149 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso;
+
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Tabla;
+import edu.upc.etsetb.poo.basededatos.iu.InterfazUsuarioGrabadora;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas de las búsquedas con lista de columnas a mostrar
+ * (<code>busca [columna,columna] ...</code>)
+ */
+public class ProyeccionTest {
+
+    private Controlador controlador;
+    private InterfazUsuarioGrabadora iu;
+
+    @Before
+    public void setUp() {
+        this.controlador = new Controlador();
+        this.iu = new InterfazUsuarioGrabadora(this.controlador);
+        this.controlador.crearTabla("coches crea *matricula marca modelo año".split(" "));
+        anyade("1", "Seat", "Ibiza", "2010");
+        anyade("2", "Ford", "Focus", "2018");
+        anyade("3", "Seat", "León", "2019");
+        anyade("4", "Kia", "Rio", "2016");
+        anyade("5", "Seat", "Arona", "2020");
+        anyade("6", "Ford", "Fiesta", "2012");
+        anyade("7", "Seat", "Toledo", "2014");
+    }
+
+    private void anyade(String matricula, String marca, String modelo, String año) {
+        this.controlador.anyadir(("coches añade matricula=" + matricula + " marca=" + marca
+                + " modelo=" + modelo + " año=" + año).split(" "));
+    }
+
+    private List<FilaDatos> busca(String comando) {
+        this.iu.vacia();
+        return this.controlador.buscar(comando.split(" "));
+    }
+
+    /**
+     * Valores de unas columnas de unas filas, como texto
+     */
+    private static List<String> comoTexto(List<FilaDatos> filas, String... columnas) {
+        List<String> texto = new ArrayList<>();
+        for (FilaDatos fila : filas) {
+            StringBuilder valores = new StringBuilder();
+            for (String columna : columnas) {
+                valores.append(fila.get(columna)).append(' ');
+            }
+            texto.add(valores.toString().trim());
+        }
+        return texto;
+    }
+
+    /**
+     * Comprueba que las filas sólo tienen las columnas pedidas
+     */
+    private static void compruebaSoloColumnas(List<FilaDatos> filas, List<String> columnas) {
+        for (FilaDatos fila : filas) {
+            for (String columna : Arrays.asList("matricula", "marca", "modelo", "año")) {
+                if (!columnas.contains(columna)) {
+                    assertNull(fila.get(columna));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void unaColumnaQueNoExisteSeRechaza() {
+        assertTrue(busca("coches busca [marca,color] marca=Seat").isEmpty());
+        assertEquals("La columna color no existe.", this.iu.getUltimoMensaje());
+        assertTrue(this.iu.getFilas().isEmpty());
+        assertTrue(busca("coches busca [marca,,modelo]").isEmpty());
+        assertEquals("Error en formato del comando.", this.iu.getUltimoMensaje());
+        assertTrue(busca("coches busca [] marca=Seat").isEmpty());
+        assertEquals("Error en formato del comando.", this.iu.getUltimoMensaje());
+    }
+
+    @Test
+    public void sinCriterioSeMuestranTodasLasFilasConLasColumnasPedidas() {
+        List<FilaDatos> filas = busca("coches busca [modelo,matricula]");
+        assertEquals(Arrays.asList("modelo", "matricula"), this.iu.getCabeceras());
+        assertEquals(Arrays.asList("Ibiza 1", "Focus 2", "León 3", "Rio 4", "Arona 5", "Fiesta 6", "Toledo 7"),
+                comoTexto(filas, "modelo", "matricula"));
+        compruebaSoloColumnas(filas, Arrays.asList("modelo", "matricula"));
+        // Las filas de la tabla no cambian
+        assertEquals("Seat", this.controlador.getTablas().get("coches").buscaUnica("matricula", "1").get("marca"));
+    }
+
+    @Test
+    public void enUnaTablaComprimidaSoloSeObtienenLasColumnasPedidas() {
+        this.controlador.ordenar("coches ordena marca".split(" "));
+        List<String> esperadas = comoTexto(busca("coches busca marca=seat año>2012"), "matricula", "modelo");
+        this.controlador.comprimir("coches comprime marca".split(" "));
+        Tabla tabla = this.controlador.getTablas().get("coches");
+        assertEquals("marca", tabla.getColumnaComprimida());
+
+        List<FilaDatos> filas = busca("coches busca [matricula,modelo] marca=seat año>2012");
+        assertEquals(Arrays.asList("matricula", "modelo"), this.iu.getCabeceras());
+        assertEquals(esperadas, comoTexto(filas, "matricula", "modelo"));
+        compruebaSoloColumnas(filas, Arrays.asList("matricula", "modelo"));
+        // Leer las filas proyectadas no descomprime la tabla
+        assertEquals("marca", tabla.getColumnaComprimida());
+
+        filas = busca("coches busca [año]");
+        assertEquals(7, filas.size());
+        compruebaSoloColumnas(filas, Arrays.asList("año"));
+        assertEquals("marca", tabla.getColumnaComprimida());
+    }
+
+    @Test
+    public void laProyeccionSeCombinaConLaPaginacion() {
+        List<FilaDatos> filas = busca("coches busca [matricula] marca=Seat pagina 2 tamaño 2");
+        assertEquals(Arrays.asList("5", "7"), comoTexto(filas, "matricula"));
+        compruebaSoloColumnas(filas, Arrays.asList("matricula"));
+        assertEquals("Página 2 (2 filas por página)", this.iu.getMensajes().get(0));
+        assertEquals(Arrays.asList("matricula"), this.iu.getCabeceras());
+
+        // El orden de las opciones y de la lista de columnas no importa
+        filas = busca("coches busca tamaño 3 [modelo] pagina 1");
+        assertEquals(Arrays.asList("Ibiza", "Focus", "León"), comoTexto(filas, "modelo"));
+
+        // Una página después de la última no tiene filas
+        assertTrue(busca("coches busca [matricula] marca=Seat pagina 3 tamaño 2").isEmpty());
+        assertEquals("No se encontraron filas que cumplan el criterio.", this.iu.getUltimoMensaje());
+    }
+
+    @Test
+    public void laProyeccionSeCombinaConVariosCriterios() {
+        List<FilaDatos> filas = busca("coches busca [matricula,año] marca=Seat año>2012 modelo#e");
+        assertEquals(Arrays.asList("3 2019", "7 2014"), comoTexto(filas, "matricula", "año"));
+        compruebaSoloColumnas(filas, Arrays.asList("matricula", "año"));
+
+        // Con el índice de la clave única como primer criterio
+        filas = busca("coches busca [modelo] matricula=3 año>2018");
+        assertEquals(Arrays.asList("León"), comoTexto(filas, "modelo"));
+        filas = busca("coches busca [modelo] matricula=1 año>2018");
+        assertTrue(filas.isEmpty());
+    }
+}
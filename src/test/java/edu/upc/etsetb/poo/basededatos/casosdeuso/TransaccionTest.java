@@ -0,0 +1,107 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso;
+
+import edu.upc.etsetb.poo.basededatos.iu.InterfazUsuarioGrabadora;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pruebas de las transacciones ('inicio', 'confirma' y 'aborta'): se añaden
+ * todas las filas pendientes o ninguna
+ */
+public class TransaccionTest {
+
+    private static final String ABORTADA = "Transacción abortada: no se ha añadido ninguna fila.";
+
+    private Controlador controlador;
+    private InterfazUsuarioGrabadora iu;
+
+    @Before
+    public void setUp() {
+        this.controlador = new Controlador();
+        this.iu = new InterfazUsuarioGrabadora(this.controlador);
+        this.controlador.crearTabla("coches crea *matricula marca".split(" "));
+        this.controlador.crearTabla("multas crea *id matricula".split(" "));
+        this.controlador.anyadir("coches añade matricula=1 marca=Seat".split(" "));
+    }
+
+    private void anyade(String comando) {
+        this.controlador.anyadir(comando.split(" "));
+    }
+
+    private int numFilas(String tabla) {
+        return this.controlador.getTablas().get(tabla).getNumFilas();
+    }
+
+    @Test
+    public void confirmaAnyadeTodasLasFilasPendientes() {
+        this.controlador.iniciar(new String[]{"inicio"});
+        anyade("coches añade matricula=2 marca=Ford");
+        anyade("multas añade id=1 matricula=2");
+        anyade("coches añade matricula=3 marca=Kia");
+        assertEquals(1, numFilas("coches"));
+        assertEquals(0, numFilas("multas"));
+        this.controlador.confirmar(new String[]{"confirma"});
+        assertEquals("Transacción confirmada: 3 filas añadidas.", this.iu.getUltimoMensaje());
+        assertEquals(3, numFilas("coches"));
+        assertEquals(1, numFilas("multas"));
+    }
+
+    @Test
+    public void unaClaveRepetidaEnElLoteNoAnyadeNinguna() {
+        this.controlador.iniciar(new String[]{"inicio"});
+        anyade("coches añade matricula=2 marca=Ford");
+        anyade("coches añade matricula=2 marca=Kia");
+        this.controlador.confirmar(new String[]{"confirma"});
+        assertEquals(ABORTADA, this.iu.getUltimoMensaje());
+        assertEquals(1, numFilas("coches"));
+    }
+
+    @Test
+    public void unErrorEnUnaTablaNoAnyadeLasFilasDeLasOtras() {
+        this.controlador.iniciar(new String[]{"inicio"});
+        anyade("multas añade id=1 matricula=2");
+        anyade("coches añade matricula=2 marca=Ford");
+        anyade("coches añade matricula=1 marca=Opel");
+        this.controlador.confirmar(new String[]{"confirma"});
+        assertEquals(ABORTADA, this.iu.getUltimoMensaje());
+        assertEquals(0, numFilas("multas"));
+        assertEquals(1, numFilas("coches"));
+        // La transacción queda cerrada
+        this.controlador.confirmar(new String[]{"confirma"});
+        assertEquals("No hay ninguna transacción abierta.", this.iu.getUltimoMensaje());
+    }
+
+    @Test
+    public void unaColumnaInexistenteNoAnyadeNinguna() {
+        this.controlador.iniciar(new String[]{"inicio"});
+        anyade("coches añade matricula=2 marca=Ford");
+        anyade("multas añade id=1 color=rojo");
+        this.controlador.confirmar(new String[]{"confirma"});
+        assertEquals(ABORTADA, this.iu.getUltimoMensaje());
+        assertEquals(1, numFilas("coches"));
+        assertEquals(0, numFilas("multas"));
+    }
+
+    @Test
+    public void laClaveUnicaDistingueMayusculasComoAlAnyadirUnaFila() {
+        this.controlador.crearTabla("marcas crea *nombre".split(" "));
+        anyade("marcas añade nombre=Seat");
+        this.controlador.iniciar(new String[]{"inicio"});
+        anyade("marcas añade nombre=SEAT");
+        anyade("marcas añade nombre=seat");
+        this.controlador.confirmar(new String[]{"confirma"});
+        assertEquals(3, numFilas("marcas"));
+    }
+
+    @Test
+    public void abortaDescartaLasFilasPendientes() {
+        this.controlador.iniciar(new String[]{"inicio"});
+        anyade("coches añade matricula=2 marca=Ford");
+        this.controlador.abortar(new String[]{"aborta"});
+        assertEquals(1, numFilas("coches"));
+        anyade("coches añade matricula=2 marca=Ford");
+        assertEquals(2, numFilas("coches"));
+    }
+}
@@ -0,0 +1,50 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso;
+
+import edu.upc.etsetb.poo.basededatos.iu.InterfazUsuarioGrabadora;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pruebas del comando 'une': el método elegido no depende del orden en que se
+ * escriben las tablas
+ */
+public class UneTest {
+
+    private Controlador controlador;
+    private InterfazUsuarioGrabadora iu;
+
+    @Before
+    public void setUp() {
+        this.controlador = new Controlador();
+        this.iu = new InterfazUsuarioGrabadora(this.controlador);
+        this.controlador.crearTabla("coches crea matricula marca".split(" "));
+        this.controlador.anyadir("coches añade matricula=1 marca=Seat".split(" "));
+        this.controlador.anyadir("coches añade matricula=2 marca=Ford".split(" "));
+        this.controlador.crearTabla("multas crea matricula cuantia".split(" "));
+        for (int i = 0; i < 6; i++) {
+            this.controlador.anyadir(("multas añade matricula=" + (i % 3) + " cuantia=" + i).split(" "));
+        }
+    }
+
+    @Test
+    public void sinClavesUnicasConstruyeElMapaConLaTablaMenor() {
+        this.controlador.unir("coches une multas matricula".split(" "));
+        assertEquals("4 fila(s) unida(s) mediante hash sobre la tabla coches.", this.iu.getUltimoMensaje());
+        this.controlador.unir("multas une coches matricula".split(" "));
+        assertEquals("4 fila(s) unida(s) mediante hash sobre la tabla coches.", this.iu.getUltimoMensaje());
+    }
+
+    @Test
+    public void conClaveUnicaBuscaEnSuIndice() {
+        this.controlador.crearTabla("propietarios crea *matricula nombre".split(" "));
+        this.controlador.anyadir("propietarios añade matricula=1 nombre=Ana".split(" "));
+        this.controlador.unir("multas une propietarios matricula".split(" "));
+        assertEquals("2 fila(s) unida(s) mediante índice de clave única de la tabla propietarios.",
+                this.iu.getUltimoMensaje());
+        this.controlador.unir("propietarios une multas matricula".split(" "));
+        assertEquals("2 fila(s) unida(s) mediante índice de clave única de la tabla propietarios.",
+                this.iu.getUltimoMensaje());
+    }
+}
@@ -0,0 +1,116 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.agregacion;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas de {@link Acumulador}
+ */
+public class AcumuladorTest {
+
+    private static final List<String> VALORES = Arrays.asList("7", null, "2.5", "abc", "-3", "zeta", "10", "7");
+
+    private static Acumulador acumula(String funcion, List<String> valores) {
+        Acumulador acumulador = new Acumulador(funcion);
+        for (String valor : valores) {
+            acumulador.acumula(valor);
+        }
+        return acumulador;
+    }
+
+    @Test
+    public void resultadoDeCadaFuncion() {
+        assertEquals("7", acumula(Acumulador.CUENTA, VALORES).resultado());
+        assertEquals("23.5", acumula(Acumulador.SUMA, VALORES).resultado());
+        assertEquals("4.7", acumula(Acumulador.MEDIA, VALORES).resultado());
+        assertEquals("-3", acumula(Acumulador.MINIMO, VALORES).resultado());
+        assertEquals("10", acumula(Acumulador.MAXIMO, VALORES).resultado());
+    }
+
+    @Test
+    public void sinValoresNumericos() {
+        List<String> textos = Arrays.asList("pera", null, "manzana", "uva");
+        assertEquals("3", acumula(Acumulador.CUENTA, textos).resultado());
+        assertNull(acumula(Acumulador.SUMA, textos).resultado());
+        assertNull(acumula(Acumulador.MEDIA, textos).resultado());
+        assertEquals("manzana", acumula(Acumulador.MINIMO, textos).resultado());
+        assertEquals("uva", acumula(Acumulador.MAXIMO, textos).resultado());
+        assertEquals("0", new Acumulador(Acumulador.CUENTA).resultado());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void funcionInexistente() {
+        new Acumulador("mediana");
+    }
+
+    @Test
+    public void laSumaCompensaElErrorDeRedondeo() {
+        Acumulador acumulador = new Acumulador(Acumulador.SUMA);
+        double ingenua = 0;
+        for (int i = 0; i < 1_000_000; i++) {
+            acumulador.acumula("0.1");
+            ingenua += 0.1;
+        }
+        // La suma sin compensar se aleja de 100000 en el sexto decimal
+        assertTrue(Math.abs(ingenua - 100000) > 1e-6);
+        assertEquals("100000", acumulador.resultado());
+    }
+
+    @Test
+    public void combinarEsComoAcumularloTodo() {
+        for (String funcion : Acumulador.FUNCIONES) {
+            for (int corte = 0; corte <= VALORES.size(); corte++) {
+                Acumulador primera = acumula(funcion, VALORES.subList(0, corte));
+                primera.combina(acumula(funcion, VALORES.subList(corte, VALORES.size())));
+                assertEquals(funcion + " cortando en " + corte,
+                        acumula(funcion, VALORES).resultado(), primera.resultado());
+            }
+        }
+    }
+
+    @Test
+    public void combinarConservaLaCompensacion() {
+        Acumulador total = new Acumulador(Acumulador.SUMA);
+        for (int parte = 0; parte < 10; parte++) {
+            Acumulador acumulador = new Acumulador(Acumulador.SUMA);
+            for (int i = 0; i < 100_000; i++) {
+                acumulador.acumula("0.1");
+            }
+            total.combina(acumulador);
+        }
+        assertEquals("100000", total.resultado());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void noSeCombinanFuncionesDistintas() {
+        new Acumulador(Acumulador.SUMA).combina(new Acumulador(Acumulador.MEDIA));
+    }
+
+    @Test
+    public void descontarDejaElResultadoSinElValor() {
+        for (String funcion : Arrays.asList(Acumulador.CUENTA, Acumulador.SUMA, Acumulador.MEDIA)) {
+            Acumulador acumulador = acumula(funcion, VALORES);
+            assertTrue(acumulador.descuenta("10"));
+            assertTrue(acumulador.descuenta(null));
+            assertEquals(funcion, acumula(funcion, Arrays.asList("7", "2.5", "abc", "-3", "zeta", "7")).resultado(),
+                    acumulador.resultado());
+        }
+    }
+
+    @Test
+    public void descontarUnExtremoPideRecalcular() {
+        Acumulador minimo = acumula(Acumulador.MINIMO, VALORES);
+        assertTrue(minimo.descuenta("7"));
+        assertEquals("-3", minimo.resultado());
+        assertFalse(minimo.descuenta("-3"));
+
+        Acumulador maximo = acumula(Acumulador.MAXIMO, Arrays.asList("pera", "uva"));
+        assertFalse(maximo.descuenta("uva"));
+    }
+}
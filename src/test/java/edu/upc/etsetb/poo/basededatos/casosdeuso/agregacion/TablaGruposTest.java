@@ -0,0 +1,59 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.agregacion;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pruebas de {@link TablaGrupos}
+ */
+public class TablaGruposTest {
+
+    private static List<String> claves(TablaGrupos grupos) {
+        List<String> claves = new ArrayList<>(grupos.getNumGrupos());
+        for (int i = 0; i < grupos.getNumGrupos(); i++) {
+            claves.add(grupos.getClave(i));
+        }
+        return claves;
+    }
+
+    @Test
+    public void conservaElOrdenDeAparicionAlAmpliarse() {
+        TablaGrupos grupos = new TablaGrupos(Acumulador.CUENTA);
+        List<String> esperadas = new ArrayList<>();
+        // Claves en orden descendente para que no coincida con el de dispersión
+        for (int i = 999; i >= 0; i--) {
+            String clave = i == 500 ? null : "g" + i;
+            esperadas.add(clave);
+            grupos.acumula(clave, "x");
+        }
+        for (int i = 0; i < 1000; i += 3) {
+            grupos.acumula(i == 500 ? null : "g" + i, "x");
+        }
+        assertEquals(1000, grupos.getNumGrupos());
+        assertEquals(esperadas, claves(grupos));
+        assertEquals("2", grupos.getAcumulador(0).resultado());
+        assertEquals("1", grupos.getAcumulador(1).resultado());
+    }
+
+    @Test
+    public void combinaAnyadeLosGruposNuevosAlFinal() {
+        TablaGrupos primera = new TablaGrupos(Acumulador.SUMA);
+        primera.acumula("b", "1");
+        primera.acumula("a", "2");
+        TablaGrupos segunda = new TablaGrupos(Acumulador.SUMA);
+        for (int i = 0; i < 40; i++) {
+            segunda.acumula("c" + i, "1");
+        }
+        segunda.acumula("a", "3");
+        primera.combina(segunda);
+        assertEquals(42, primera.getNumGrupos());
+        assertEquals("b", primera.getClave(0));
+        assertEquals("a", primera.getClave(1));
+        assertEquals("5", primera.getAcumulador(1).resultado());
+        assertEquals("c0", primera.getClave(2));
+        assertEquals("c39", primera.getClave(41));
+    }
+}
@@ -0,0 +1,79 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda;
+
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Plegado;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas de {@link BuscadorSubcadena}: debe encontrar el patrón exactamente
+ * en los mismos textos que {@link String#contains(CharSequence)} sobre el
+ * texto plegado con {@link Plegado#MAYUSCULAS}
+ */
+public class BuscadorSubcadenaTest {
+
+    /**
+     * Caracteres de los textos aleatorios: letras con y sin acento en
+     * mayúscula y minúscula, y parejas que comparten los 8 bits bajos
+     * ('a' y 'š', 'A' y 'Ł') y por tanto la entrada de la tabla de saltos
+     */
+    private static final String ALFABETO = "aAbBáÁñÑšŠłŁ ";
+
+    private static String aleatorio(Random aleatorio, int longitud) {
+        StringBuilder texto = new StringBuilder(longitud);
+        for (int i = 0; i < longitud; i++) {
+            texto.append(ALFABETO.charAt(aleatorio.nextInt(ALFABETO.length())));
+        }
+        return texto.toString();
+    }
+
+    private static void compruebaComoContains(String patron, String texto) {
+        String plegado = Plegado.MAYUSCULAS.pliega(patron);
+        BuscadorSubcadena buscador = new BuscadorSubcadena(plegado);
+        boolean esperado = Plegado.MAYUSCULAS.pliega(texto).contains(plegado);
+        assertEquals(patron + " en " + texto, esperado, buscador.estaEnSinMayusculas(texto));
+        assertEquals(patron + " en " + texto, esperado, buscador.estaEn(Plegado.MAYUSCULAS.pliega(texto)));
+    }
+
+    @Test
+    public void noDistingueMayusculas() {
+        BuscadorSubcadena buscador = new BuscadorSubcadena("ñand");
+        assertTrue(buscador.estaEnSinMayusculas("El ÑANDÚ"));
+        assertTrue(buscador.estaEnSinMayusculas("ñandú"));
+        assertFalse(buscador.estaEnSinMayusculas("nandu"));
+        assertFalse(buscador.estaEnSinMayusculas("ñan"));
+    }
+
+    @Test
+    public void patronesCortosYTextosVacios() {
+        assertTrue(new BuscadorSubcadena("").estaEnSinMayusculas(""));
+        assertTrue(new BuscadorSubcadena("").estaEnSinMayusculas("abc"));
+        assertTrue(new BuscadorSubcadena("é").estaEnSinMayusculas("CAFÉ"));
+        assertFalse(new BuscadorSubcadena("é").estaEnSinMayusculas("CAFE"));
+        assertFalse(new BuscadorSubcadena("ab").estaEnSinMayusculas(""));
+        assertTrue(new BuscadorSubcadena("ab").estaEnSinMayusculas("AB"));
+    }
+
+    @Test
+    public void caracteresConLaMismaEntradaEnLaTablaDeSaltos() {
+        assertEquals('a' & 0xFF, 'š' & 0xFF);
+        assertTrue(new BuscadorSubcadena("šab").estaEnSinMayusculas("aaŠAB"));
+        assertFalse(new BuscadorSubcadena("šab").estaEnSinMayusculas("aaAAB"));
+        assertTrue(new BuscadorSubcadena("aša").estaEnSinMayusculas("ššaŠaš"));
+    }
+
+    @Test
+    public void mismoResultadoQueContainsEnTextosAleatorios() {
+        Random aleatorio = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            String texto = aleatorio(aleatorio, aleatorio.nextInt(12));
+            String patron = aleatorio.nextInt(3) == 0 && texto.length() > 1
+                    ? texto.substring(aleatorio.nextInt(texto.length() / 2), texto.length() - 1)
+                    : aleatorio(aleatorio, 1 + aleatorio.nextInt(4));
+            compruebaComoContains(patron, texto);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.cache;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.Criterio;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioIgual;
+import edu.upc.etsetb.poo.basededatos.dominio.BaseDatosException;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Clave;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Esquema;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Plegado;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Tabla;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pruebas de {@link CacheResultados}: cualquier cambio en la tabla invalida
+ * sus resultados, y los límites de búsquedas y de filas desalojan las usadas
+ * hace más tiempo
+ */
+public class CacheResultadosTest {
+
+    private Tabla coches;
+    private Criterio seat;
+
+    @Before
+    public void setUp() throws BaseDatosException {
+        Esquema esquema = new Esquema();
+        esquema.addClave(new Clave("matricula", true));
+        esquema.addClave(new Clave("marca"));
+        this.coches = new Tabla("coches", esquema);
+        anyade(this.coches, "1", "Seat");
+        anyade(this.coches, "2", "Ford");
+        anyade(this.coches, "3", "Seat");
+        this.seat = new CriterioIgual("marca", "Seat");
+    }
+
+    private static FilaDatos anyade(Tabla tabla, String matricula, String marca) throws BaseDatosException {
+        FilaDatos fila = new FilaDatos();
+        fila.put("matricula", matricula);
+        fila.put("marca", marca);
+        tabla.anyade(fila);
+        return fila;
+    }
+
+    /**
+     * Comprueba que la búsqueda se sirve de la caché (un acierto más) y
+     * devuelve el número de filas indicado
+     */
+    private static void compruebaAcierto(CacheResultados cache, Tabla tabla, Criterio criterio, int filas) {
+        long aciertos = cache.getAciertos();
+        assertEquals(filas, cache.busca(tabla.getNombre(), tabla, criterio).size());
+        assertEquals("debería servirse de la caché", aciertos + 1, cache.getAciertos());
+    }
+
+    /**
+     * Comprueba que la búsqueda no se sirve de la caché (un fallo más) y
+     * devuelve el número de filas indicado
+     */
+    private static void compruebaFallo(CacheResultados cache, Tabla tabla, Criterio criterio, int filas) {
+        long fallos = cache.getFallos();
+        assertEquals(filas, cache.busca(tabla.getNombre(), tabla, criterio).size());
+        assertEquals("no debería servirse de la caché", fallos + 1, cache.getFallos());
+    }
+
+    private CacheResultados cacheConSeat() {
+        CacheResultados cache = new CacheResultados(10, 100);
+        compruebaFallo(cache, this.coches, this.seat, 2);
+        compruebaAcierto(cache, this.coches, this.seat, 2);
+        return cache;
+    }
+
+    @Test
+    public void anyadirInvalidaElResultado() throws BaseDatosException {
+        CacheResultados cache = cacheConSeat();
+        anyade(this.coches, "4", "Seat");
+        compruebaFallo(cache, this.coches, this.seat, 3);
+        compruebaAcierto(cache, this.coches, this.seat, 3);
+    }
+
+    @Test
+    public void eliminarInvalidaElResultado() {
+        CacheResultados cache = cacheConSeat();
+        this.coches.elimina(new CriterioIgual("matricula", "1"));
+        compruebaFallo(cache, this.coches, this.seat, 1);
+    }
+
+    @Test
+    public void ordenarInvalidaElResultado() {
+        CacheResultados cache = cacheConSeat();
+        this.coches.ordena("matricula", false);
+        long fallos = cache.getFallos();
+        List<FilaDatos> filas = cache.busca("coches", this.coches, this.seat);
+        assertEquals(fallos + 1, cache.getFallos());
+        assertEquals("3", filas.get(0).get("matricula"));
+        assertEquals("1", filas.get(1).get("matricula"));
+    }
+
+    @Test
+    public void plegarInvalidaElResultado() throws BaseDatosException {
+        anyade(this.coches, "5", "séat");
+        CacheResultados cache = cacheConSeat();
+        this.coches.pliega("marca", Plegado.ACENTOS);
+        compruebaFallo(cache, this.coches, this.seat, 3);
+    }
+
+    @Test
+    public void modificarInvalidaElResultado() throws BaseDatosException {
+        CacheResultados cache = cacheConSeat();
+        FilaDatos ford = this.coches.buscaUnica("matricula", "2");
+        this.coches.modifica(ford, "marca", "Seat");
+        compruebaFallo(cache, this.coches, this.seat, 3);
+    }
+
+    @Test
+    public void elLimiteDeBusquedasDesalojaLaUsadaHaceMasTiempo() {
+        CacheResultados cache = new CacheResultados(2, 100);
+        Criterio uno = new CriterioIgual("matricula", "1");
+        Criterio dos = new CriterioIgual("matricula", "2");
+        Criterio tres = new CriterioIgual("matricula", "3");
+        compruebaFallo(cache, this.coches, uno, 1);
+        compruebaFallo(cache, this.coches, dos, 1);
+        // Usar 'uno' hace que 'dos' sea la usada hace más tiempo
+        compruebaAcierto(cache, this.coches, uno, 1);
+        compruebaFallo(cache, this.coches, tres, 1);
+        compruebaAcierto(cache, this.coches, uno, 1);
+        compruebaAcierto(cache, this.coches, tres, 1);
+        compruebaFallo(cache, this.coches, dos, 1);
+    }
+
+    @Test
+    public void elLimiteDeFilasDesalojaLaUsadaHaceMasTiempo() {
+        CacheResultados cache = new CacheResultados(10, 3);
+        Criterio ford = new CriterioIgual("marca", "Ford");
+        Criterio uno = new CriterioIgual("matricula", "1");
+        compruebaFallo(cache, this.coches, this.seat, 2);
+        compruebaFallo(cache, this.coches, ford, 1);
+        compruebaAcierto(cache, this.coches, this.seat, 2);
+        // 2 + 1 + 1 filas superan el límite: sale 'ford', la usada hace más tiempo
+        compruebaFallo(cache, this.coches, uno, 1);
+        compruebaAcierto(cache, this.coches, this.seat, 2);
+        compruebaAcierto(cache, this.coches, uno, 1);
+        compruebaFallo(cache, this.coches, ford, 1);
+    }
+
+    @Test
+    public void losResultadosConDemasiadasFilasNoSeGuardan() {
+        CacheResultados cache = new CacheResultados(10, 1);
+        compruebaFallo(cache, this.coches, this.seat, 2);
+        compruebaFallo(cache, this.coches, this.seat, 2);
+        compruebaFallo(cache, this.coches, null, 3);
+        compruebaFallo(cache, this.coches, null, 3);
+    }
+}
@@ -0,0 +1,74 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.estadisticas;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.estadisticas.Estadisticas.Medidas;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pruebas de {@link Estadisticas}: las medidas se acumulan por comando y por
+ * tabla y comando, y las copias no cambian al registrar más ejecuciones
+ */
+public class EstadisticasTest {
+
+    private Estadisticas estadisticas;
+
+    @Before
+    public void setUp() {
+        this.estadisticas = new Estadisticas();
+        this.estadisticas.registra("busca", "coches", 3, 100);
+        this.estadisticas.registra("busca", "motos", 2, 300);
+        this.estadisticas.registra("busca", "coches", 0, 50);
+        this.estadisticas.registra("añade", "coches", 1, 20);
+        this.estadisticas.registra("lista", null, 0, 10);
+    }
+
+    @Test
+    public void porComandoSeSumanTodasLasTablas() {
+        Map<String, Medidas> porComando = this.estadisticas.getPorComando();
+        assertEquals(Arrays.asList("añade", "busca", "lista"), new ArrayList<>(porComando.keySet()));
+        Medidas busca = porComando.get("busca");
+        assertEquals(3, busca.getEjecuciones());
+        assertEquals(5, busca.getFilas());
+        assertEquals(300, busca.getLatencia().getMaximo());
+        assertEquals(150, busca.getLatencia().getMedia(), 1e-9);
+        // El cubo de 100 va de 100 a 101
+        assertEquals(101, busca.getLatencia().percentil(50));
+        assertEquals(1, porComando.get("lista").getEjecuciones());
+        assertEquals(0, porComando.get("lista").getFilas());
+    }
+
+    @Test
+    public void porTablaSoloCuentanLasEjecucionesDeEsaTabla() {
+        Map<String, Map<String, Medidas>> porTabla = this.estadisticas.getPorTabla();
+        // Los comandos que no son de una tabla sólo se cuentan por comando
+        assertEquals(Arrays.asList("coches", "motos"), new ArrayList<>(porTabla.keySet()));
+        Map<String, Medidas> coches = porTabla.get("coches");
+        assertEquals(Arrays.asList("añade", "busca"), new ArrayList<>(coches.keySet()));
+        assertEquals(2, coches.get("busca").getEjecuciones());
+        assertEquals(3, coches.get("busca").getFilas());
+        assertEquals(100, coches.get("busca").getLatencia().getMaximo());
+        assertEquals(1, coches.get("añade").getFilas());
+        Medidas motos = porTabla.get("motos").get("busca");
+        assertEquals(1, motos.getEjecuciones());
+        assertEquals(300, motos.getLatencia().percentil(99));
+    }
+
+    @Test
+    public void lasCopiasNoCambian() {
+        Map<String, Medidas> porComando = this.estadisticas.getPorComando();
+        Map<String, Map<String, Medidas>> porTabla = this.estadisticas.getPorTabla();
+        this.estadisticas.registra("busca", "coches", 7, 9000);
+        this.estadisticas.registra("elimina", "motos", 1, 40);
+        assertEquals(3, porComando.get("busca").getEjecuciones());
+        assertEquals(300, porComando.get("busca").getLatencia().getMaximo());
+        assertEquals(3, porTabla.get("coches").get("busca").getFilas());
+        assertEquals(1, porTabla.get("motos").size());
+        assertEquals(4, this.estadisticas.getPorComando().get("busca").getEjecuciones());
+        assertEquals(10, this.estadisticas.getPorTabla().get("coches").get("busca").getFilas());
+    }
+}
@@ -0,0 +1,109 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.estadisticas;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas de {@link Histograma}: los límites de los cubos, la precisión
+ * relativa y los percentiles de unas latencias conocidas
+ */
+public class HistogramaTest {
+
+    /**
+     * Percentil 50 de un histograma con un valor y otro mucho más alto, es
+     * decir, el mayor valor del cubo del primero
+     */
+    private static long limiteDelCubo(long valor) {
+        Histograma histograma = new Histograma();
+        histograma.registra(valor);
+        histograma.registra(Long.MAX_VALUE);
+        return histograma.percentil(50);
+    }
+
+    @Test
+    public void losValoresPequeñosSonExactos() {
+        for (long valor = 0; valor < Histograma.SUBCUBOS; valor++) {
+            assertEquals(valor, limiteDelCubo(valor));
+        }
+    }
+
+    @Test
+    public void cadaPotenciaDe2SeDivideEnCubosDelMismoAncho() {
+        // De 64 a 127 los cubos tienen ancho 2
+        assertEquals(65, limiteDelCubo(64));
+        assertEquals(65, limiteDelCubo(65));
+        assertEquals(67, limiteDelCubo(66));
+        assertEquals(127, limiteDelCubo(126));
+        assertEquals(127, limiteDelCubo(127));
+        // De 128 a 255, ancho 4
+        assertEquals(131, limiteDelCubo(128));
+        assertEquals(131, limiteDelCubo(131));
+        assertEquals(135, limiteDelCubo(132));
+        assertEquals(255, limiteDelCubo(252));
+        // De 1024 a 2047, ancho 32
+        assertEquals(1055, limiteDelCubo(1024));
+        assertEquals(1087, limiteDelCubo(1056));
+        assertEquals(Long.MAX_VALUE, limiteDelCubo(Long.MAX_VALUE - 1));
+    }
+
+    @Test
+    public void elErrorRelativoEsMenorDel3Coma2PorCiento() {
+        for (long valor = Histograma.SUBCUBOS; valor > 0 && valor < Long.MAX_VALUE / 3; valor = valor * 3 / 2 + 1) {
+            long limite = limiteDelCubo(valor);
+            assertTrue(valor + " -> " + limite, limite >= valor);
+            assertTrue(valor + " -> " + limite, (limite - valor) < 0.032 * valor);
+        }
+    }
+
+    @Test
+    public void percentilesDeLatenciasConocidas() {
+        Histograma histograma = new Histograma();
+        for (long valor = 1000; valor >= 1; valor--) {
+            histograma.registra(valor);
+        }
+        assertEquals(1000, histograma.getTotal());
+        assertEquals(1000, histograma.getMaximo());
+        assertEquals(500.5, histograma.getMedia(), 1e-9);
+        // El valor 500 está en el cubo 496..503, y el 990 en el 976..991
+        assertEquals(503, histograma.percentil(50));
+        assertEquals(991, histograma.percentil(99));
+        assertEquals(1000, histograma.percentil(100));
+        assertEquals(1, histograma.percentil(0));
+        assertEquals(10, histograma.percentil(1));
+    }
+
+    @Test
+    public void elPercentilNoPasaDelMaximo() {
+        Histograma histograma = new Histograma();
+        histograma.registra(100);
+        histograma.registra(130);
+        // El cubo de 130 llega hasta 131
+        assertEquals(130, histograma.percentil(99));
+        assertEquals(101, histograma.percentil(50));
+    }
+
+    @Test
+    public void unHistogramaVacioONegativo() {
+        Histograma histograma = new Histograma();
+        assertEquals(0, histograma.percentil(50));
+        assertEquals(0, histograma.getMaximo());
+        assertEquals(0, histograma.getMedia(), 0);
+        histograma.registra(-5);
+        assertEquals(1, histograma.getTotal());
+        assertEquals(0, histograma.percentil(100));
+    }
+
+    @Test
+    public void laCopiaEsIndependiente() {
+        Histograma histograma = new Histograma();
+        histograma.registra(10);
+        Histograma copia = new Histograma(histograma);
+        histograma.registra(2000);
+        assertEquals(1, copia.getTotal());
+        assertEquals(10, copia.getMaximo());
+        assertEquals(10, copia.percentil(100));
+        assertEquals(2, histograma.getTotal());
+    }
+}
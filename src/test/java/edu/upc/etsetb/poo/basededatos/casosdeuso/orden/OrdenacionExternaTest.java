@@ -0,0 +1,120 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.orden;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.ComparadorFilas;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Pruebas de {@link OrdenacionExterna}
+ */
+public class OrdenacionExternaTest {
+
+    private static final List<String> COLUMNAS = Arrays.asList("marca", "orden", "nota");
+
+    /**
+     * Filas con marcas repetidas y sin valor, numeradas en el orden en que se
+     * leen
+     */
+    private static List<FilaDatos> filas(int numFilas) {
+        String[] marcas = {"Seat", "Ford", null, "Škoda", "Kia", "Ford", "Ópel"};
+        List<FilaDatos> filas = new ArrayList<>(numFilas);
+        for (int i = 0; i < numFilas; i++) {
+            FilaDatos fila = new FilaDatos();
+            String marca = marcas[i * 5 % marcas.length];
+            if (marca != null) {
+                fila.put("marca", marca);
+            }
+            fila.put("orden", String.valueOf(i));
+            if (i % 4 == 0) {
+                fila.put("nota", "ñ " + i);
+            }
+            filas.add(fila);
+        }
+        return filas;
+    }
+
+    private static List<String> comoTexto(List<FilaDatos> filas) {
+        List<String> texto = new ArrayList<>(filas.size());
+        for (FilaDatos fila : filas) {
+            texto.add(fila.get("marca") + "|" + fila.get("orden") + "|" + fila.get("nota"));
+        }
+        return texto;
+    }
+
+    private static List<FilaDatos> lee(FilasOrdenadas ordenadas) {
+        List<FilaDatos> filas = new ArrayList<>();
+        while (ordenadas.hasNext()) {
+            filas.add(ordenadas.next());
+        }
+        return filas;
+    }
+
+    private static int archivosTemporales() throws IOException {
+        int numArchivos = 0;
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(
+                Paths.get(System.getProperty("java.io.tmpdir")), "ordena-*.tmp")) {
+            for (Path archivo : archivos) {
+                numArchivos++;
+            }
+        }
+        return numArchivos;
+    }
+
+    @Test
+    public void variosTramosDanElMismoOrdenEstableQueEnMemoria() throws IOException {
+        for (boolean ascendente : new boolean[]{true, false}) {
+            List<FilaDatos> filas = filas(100);
+            ComparadorFilas comparador = new ComparadorFilas("marca", ascendente);
+            List<FilaDatos> esperadas = new ArrayList<>(filas);
+            esperadas.sort(comparador);
+            int antes = archivosTemporales();
+            OrdenacionExterna ordenacion = new OrdenacionExterna(COLUMNAS, comparador, 7);
+            try (FilasOrdenadas ordenadas = ordenacion.ordena(filas.iterator())) {
+                assertEquals(15, ordenadas.getNumTramos());
+                assertEquals(antes + 15, archivosTemporales());
+                assertEquals(comoTexto(esperadas), comoTexto(lee(ordenadas)));
+            }
+            assertEquals(antes, archivosTemporales());
+        }
+    }
+
+    @Test
+    public void unSoloTramoSeOrdenaEnMemoria() throws IOException {
+        List<FilaDatos> filas = filas(7);
+        ComparadorFilas comparador = new ComparadorFilas("marca", true);
+        List<FilaDatos> esperadas = new ArrayList<>(filas);
+        esperadas.sort(comparador);
+        try (FilasOrdenadas ordenadas = new OrdenacionExterna(COLUMNAS, comparador, 7).ordena(filas.iterator())) {
+            assertEquals(1, ordenadas.getNumTramos());
+            List<FilaDatos> leidas = lee(ordenadas);
+            for (int i = 0; i < esperadas.size(); i++) {
+                assertSame(esperadas.get(i), leidas.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void sinFilas() throws IOException {
+        try (FilasOrdenadas ordenadas = new OrdenacionExterna(COLUMNAS,
+                new ComparadorFilas("marca", true), 3).ordena(new ArrayList<FilaDatos>().iterator())) {
+            assertFalse(ordenadas.hasNext());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void elTramoDebeTenerAlgunaFila() {
+        new OrdenacionExterna(COLUMNAS, new ComparadorFilas("marca", true), 0);
+    }
+}
@@ -0,0 +1,75 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.orden;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.ComparadorFilas;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Pruebas de {@link OrdenacionParalela}: debe dejar las filas exactamente en
+ * el mismo orden que {@link Collections#sort(List, java.util.Comparator)}
+ */
+public class OrdenacionParalelaTest {
+
+    /**
+     * Filas con valores numéricos, no numéricos, repetidos y sin valor
+     */
+    private static List<FilaDatos> filas(int numFilas, long semilla) {
+        Random aleatorio = new Random(semilla);
+        String[] textos = {"abc", "Abc", "zeta", "1e3", "-0", "0.0", "NaN", "10", "9", ""};
+        List<FilaDatos> filas = new ArrayList<>(numFilas);
+        for (int i = 0; i < numFilas; i++) {
+            FilaDatos fila = new FilaDatos();
+            int tipo = aleatorio.nextInt(4);
+            if (tipo == 0) {
+                fila.put("valor", textos[aleatorio.nextInt(textos.length)]);
+            } else if (tipo == 1) {
+                fila.put("valor", String.valueOf(aleatorio.nextInt(50) - 25));
+            } else if (tipo == 2) {
+                fila.put("valor", String.valueOf(aleatorio.nextInt(100) / 8.0));
+            }
+            fila.put("orden", String.valueOf(i));
+            filas.add(fila);
+        }
+        return filas;
+    }
+
+    private static void compruebaIgualQueCollectionsSort(List<FilaDatos> filas, boolean ascendente, int hilos) {
+        ComparadorFilas comparador = new ComparadorFilas("valor", ascendente);
+        List<FilaDatos> esperadas = new ArrayList<>(filas);
+        Collections.sort(esperadas, comparador);
+        OrdenacionParalela.ordena(filas, comparador, hilos);
+        assertEquals(esperadas.size(), filas.size());
+        for (int i = 0; i < esperadas.size(); i++) {
+            assertSame("posición " + i, esperadas.get(i), filas.get(i));
+        }
+    }
+
+    @Test
+    public void mismoOrdenQueCollectionsSort() {
+        for (int hilos : new int[]{1, 2, 3, 4, 7, 16}) {
+            for (boolean ascendente : new boolean[]{true, false}) {
+                compruebaIgualQueCollectionsSort(filas(10_007, hilos), ascendente, hilos);
+            }
+        }
+    }
+
+    @Test
+    public void masHilosQueFilas() {
+        for (int numFilas = 0; numFilas <= 5; numFilas++) {
+            compruebaIgualQueCollectionsSort(filas(numFilas, numFilas), true, 8);
+        }
+    }
+
+    @Test
+    public void ordenaUnaListaSinAccesoAleatorio() {
+        compruebaIgualQueCollectionsSort(new LinkedList<>(filas(1000, 42)), false, 4);
+    }
+}
@@ -0,0 +1,151 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.union;
+
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Clave;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Esquema;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Tabla;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas de {@link UnionMezcla}
+ */
+public class UnionMezclaTest {
+
+    private static final List<String> CABECERAS_COCHES = Arrays.asList("matricula", "marca");
+    private static final List<String> CABECERAS_MULTAS = Arrays.asList("matricula", "cuantia");
+
+    private static final EsquemaUnion ESQUEMA = new EsquemaUnion("coches", CABECERAS_COCHES, "matricula",
+            "multas", CABECERAS_MULTAS, "matricula");
+
+    private static FilaDatos fila(String... columnasYValores) {
+        FilaDatos fila = new FilaDatos();
+        for (int i = 0; i < columnasYValores.length; i += 2) {
+            if (columnasYValores[i + 1] != null) {
+                fila.put(columnasYValores[i], columnasYValores[i + 1]);
+            }
+        }
+        return fila;
+    }
+
+    private static Tabla tabla(String nombre, List<String> cabeceras, List<FilaDatos> filas) throws Exception {
+        Esquema esquema = new Esquema();
+        for (String cabecera : cabeceras) {
+            esquema.addClave(new Clave(cabecera));
+        }
+        Tabla tabla = new Tabla(nombre, esquema);
+        tabla.anyadeTodas(filas);
+        return tabla;
+    }
+
+    /**
+     * Filas unidas como texto, ordenadas, para comparar sus multiconjuntos
+     */
+    private static List<String> multiconjunto(Iterator<FilaDatos> union) {
+        List<String> filas = new ArrayList<>();
+        while (union.hasNext()) {
+            FilaDatos fila = union.next();
+            StringBuilder texto = new StringBuilder();
+            for (String cabecera : ESQUEMA.getCabeceras()) {
+                texto.append(cabecera).append('=').append(fila.get(cabecera)).append(' ');
+            }
+            filas.add(texto.toString());
+        }
+        Collections.sort(filas);
+        return filas;
+    }
+
+    private static UnionMezcla mezcla(List<FilaDatos> coches, List<FilaDatos> multas) {
+        return new UnionMezcla(ESQUEMA, coches.iterator(), "matricula", multas.iterator(), "matricula",
+                String::compareTo);
+    }
+
+    @Test
+    public void clavesRepetidasEnLasDosTablasDanTodasLasParejas() {
+        List<FilaDatos> coches = Arrays.asList(
+                fila("matricula", "1", "marca", "Seat"),
+                fila("matricula", "2", "marca", "Ford"),
+                fila("matricula", "2", "marca", "Opel"),
+                fila("matricula", "2", "marca", "Kia"),
+                fila("matricula", "4", "marca", "Fiat"));
+        List<FilaDatos> multas = Arrays.asList(
+                fila("matricula", "2", "cuantia", "10"),
+                fila("matricula", "2", "cuantia", "20"),
+                fila("matricula", "3", "cuantia", "30"),
+                fila("matricula", "4", "cuantia", "40"),
+                fila("matricula", "4", "cuantia", "50"));
+        List<String> unidas = multiconjunto(mezcla(coches, multas));
+        assertEquals(Arrays.asList(
+                "matricula=2 marca=Ford cuantia=10 ",
+                "matricula=2 marca=Ford cuantia=20 ",
+                "matricula=2 marca=Kia cuantia=10 ",
+                "matricula=2 marca=Kia cuantia=20 ",
+                "matricula=2 marca=Opel cuantia=10 ",
+                "matricula=2 marca=Opel cuantia=20 ",
+                "matricula=4 marca=Fiat cuantia=40 ",
+                "matricula=4 marca=Fiat cuantia=50 "), unidas);
+    }
+
+    @Test
+    public void lasFilasSinValorNoSeUnen() {
+        List<FilaDatos> coches = Arrays.asList(
+                fila("matricula", null, "marca", "Seat"),
+                fila("matricula", "1", "marca", "Ford"),
+                fila("matricula", null, "marca", "Kia"));
+        List<FilaDatos> multas = Arrays.asList(
+                fila("matricula", null, "cuantia", "10"),
+                fila("matricula", "1", "cuantia", "20"),
+                fila("matricula", null, "cuantia", "30"));
+        assertEquals(Collections.singletonList("matricula=1 marca=Ford cuantia=20 "),
+                multiconjunto(mezcla(coches, multas)));
+        assertTrue(multiconjunto(mezcla(coches.subList(0, 1), multas)).isEmpty());
+    }
+
+    @Test
+    public void valoresDelMismoLugarDelIndiceNoSeUnenSiSonDistintos() throws Exception {
+        Tabla coches = tabla("coches", CABECERAS_COCHES, Arrays.asList(
+                fila("matricula", "1", "marca", "Seat"),
+                fila("matricula", "1.0", "marca", "Ford"),
+                fila("matricula", "2", "marca", "Kia")));
+        Tabla multas = tabla("multas", CABECERAS_MULTAS, Arrays.asList(
+                fila("matricula", "1.0", "cuantia", "10"),
+                fila("matricula", "2.00", "cuantia", "20"),
+                fila("matricula", "1", "cuantia", "30")));
+        coches.indexa("matricula");
+        multas.indexa("matricula");
+        assertEquals(0, Tabla.comparaOrdenIndice("1", "1.0"));
+        UnionMezcla union = new UnionMezcla(ESQUEMA, coches.recorridoOrdenado("matricula"), "matricula",
+                multas.recorridoOrdenado("matricula"), "matricula", Tabla::comparaOrdenIndice);
+        assertEquals(Arrays.asList(
+                "matricula=1 marca=Seat cuantia=30 ",
+                "matricula=1.0 marca=Ford cuantia=10 "), multiconjunto(union));
+    }
+
+    @Test
+    public void daLasMismasFilasQueLaUnionHash() throws Exception {
+        List<FilaDatos> filasCoches = new ArrayList<>();
+        List<FilaDatos> filasMultas = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            filasCoches.add(fila("matricula", String.valueOf(i * 7 % 50), "marca", "m" + i));
+            filasMultas.add(fila("matricula", String.valueOf(i * 11 % 70), "cuantia", String.valueOf(i)));
+        }
+        filasMultas.add(fila("matricula", "05", "cuantia", "0"));
+        filasMultas.add(fila("matricula", "5.0", "cuantia", "0"));
+        Tabla coches = tabla("coches", CABECERAS_COCHES, filasCoches);
+        Tabla multas = tabla("multas", CABECERAS_MULTAS, filasMultas);
+        List<String> porMezcla = multiconjunto(new UnionMezcla(ESQUEMA,
+                UnionMezcla.ordenadas(coches, "matricula"), "matricula",
+                UnionMezcla.ordenadas(multas, "matricula"), "matricula", String::compareTo));
+        List<String> porHash = multiconjunto(new UnionHash(ESQUEMA, coches, "matricula",
+                multas, "matricula", true));
+        assertTrue(porMezcla.size() > 300);
+        assertEquals(porHash, porMezcla);
+    }
+}
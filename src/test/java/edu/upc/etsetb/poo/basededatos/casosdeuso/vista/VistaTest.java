@@ -0,0 +1,221 @@
+package edu.upc.etsetb.poo.basededatos.casosdeuso.vista;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.Controlador;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Plegado;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.Tabla;
+import edu.upc.etsetb.poo.basededatos.iu.InterfazUsuarioGrabadora;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Pruebas de {@link Vista}: el resultado mantenido con los avisos de la tabla
+ * de origen debe coincidir siempre con el que se obtiene al calcularla de
+ * nuevo
+ */
+public class VistaTest {
+
+    private Controlador controlador;
+    private InterfazUsuarioGrabadora iu;
+
+    @Before
+    public void setUp() {
+        this.controlador = new Controlador();
+        this.iu = new InterfazUsuarioGrabadora(this.controlador);
+        this.controlador.crearTabla("multas crea *id matricula cuantia".split(" "));
+        anyade("1", "A", "10");
+        anyade("2", "B", "5");
+        anyade("3", "A", "3");
+        anyade("4", "B", "7");
+        anyade("5", "A", "8");
+    }
+
+    private void anyade(String id, String matricula, String cuantia) {
+        this.controlador.anyadir(("multas añade id=" + id + " matricula=" + matricula
+                + " cuantia=" + cuantia).split(" "));
+    }
+
+    private void ejecuta(String comando) {
+        String[] palabras = comando.split(" ");
+        switch (palabras[1]) {
+            case "vista":
+                this.controlador.crearVista(palabras);
+                break;
+            case "elimina":
+                this.controlador.eliminar(palabras);
+                break;
+            case "ordena":
+                this.controlador.ordenar(palabras);
+                break;
+            case "pliega":
+                this.controlador.plegar(palabras);
+                break;
+            case "indexa":
+                this.controlador.indexar(palabras);
+                break;
+            default:
+                throw new IllegalArgumentException(comando);
+        }
+    }
+
+    private Tabla tabla(String nombre) {
+        return this.controlador.getTablas().get(nombre);
+    }
+
+    /**
+     * Filas de una vista como texto, en su orden: el valor del grupo, si lo
+     * hay, y el del agregado
+     */
+    private List<String> filas(String nombre) {
+        Tabla tabla = tabla(nombre);
+        List<String> cabeceras = new ArrayList<>(tabla.getCabeceras());
+        cabeceras.sort(Comparator.comparing((String cabecera) -> cabecera.contains("(")));
+        List<String> filas = new ArrayList<>();
+        for (FilaDatos fila : tabla.buscaTodo()) {
+            StringBuilder texto = new StringBuilder();
+            for (String cabecera : cabeceras) {
+                texto.append(fila.get(cabecera)).append(' ');
+            }
+            filas.add(texto.toString().trim());
+        }
+        return filas;
+    }
+
+    /**
+     * Crea otra vista con la misma definición, calculada desde cero, y
+     * comprueba que tiene las mismas filas (los grupos pueden estar en otro
+     * orden si se han eliminado las primeras filas de origen)
+     */
+    private void compruebaComoRecalculada(String nombre, String definicion) {
+        ejecuta(nombre + "Nueva vista " + definicion);
+        List<String> esperadas = filas(nombre + "Nueva");
+        List<String> mantenidas = filas(nombre);
+        Collections.sort(esperadas);
+        Collections.sort(mantenidas);
+        assertEquals(esperadas, mantenidas);
+    }
+
+    @Test
+    public void quitarElMinimoRecalculaSoloSuGrupo() {
+        ejecuta("minimos vista multas matricula min cuantia");
+        assertEquals(Arrays.asList("A 3", "B 5"), filas("minimos"));
+        FilaDatos filaA = tabla("minimos").buscaUnica("matricula", "A");
+        FilaDatos filaB = tabla("minimos").buscaUnica("matricula", "B");
+        ejecuta("multas elimina id=3");
+        assertEquals(Arrays.asList("A 8", "B 5"), filas("minimos"));
+        // Sólo se recalcula el grupo A, sin rehacer el resultado
+        assertSame(filaA, tabla("minimos").buscaUnica("matricula", "A"));
+        assertSame(filaB, tabla("minimos").buscaUnica("matricula", "B"));
+        compruebaComoRecalculada("minimos", "multas matricula min cuantia");
+    }
+
+    @Test
+    public void quitarElMaximoRecalculaSuGrupo() {
+        ejecuta("maximos vista multas matricula max cuantia");
+        ejecuta("multas elimina id=1");
+        ejecuta("multas elimina id=4");
+        assertEquals(Arrays.asList("A 8", "B 5"), filas("maximos"));
+        compruebaComoRecalculada("maximos", "multas matricula max cuantia");
+    }
+
+    @Test
+    public void unGrupoVacioDesaparece() {
+        ejecuta("porCoche vista multas matricula cuenta *");
+        assertEquals(Arrays.asList("A 3", "B 2"), filas("porCoche"));
+        ejecuta("multas elimina matricula=B");
+        assertEquals(Arrays.asList("A 3"), filas("porCoche"));
+        assertEquals(null, tabla("porCoche").buscaUnica("matricula", "B"));
+        anyade("6", "B", "1");
+        assertEquals(Arrays.asList("A 3", "B 1"), filas("porCoche"));
+    }
+
+    @Test
+    public void unaVistaSobreOtraVista() {
+        ejecuta("sumas vista multas matricula suma cuantia");
+        ejecuta("total vista sumas * max suma(cuantia)");
+        assertEquals(Arrays.asList("21"), filas("total"));
+        anyade("6", "B", "20");
+        assertEquals(Arrays.asList("A 21", "B 32"), filas("sumas"));
+        assertEquals(Arrays.asList("32"), filas("total"));
+        ejecuta("multas elimina matricula=B");
+        assertEquals(Arrays.asList("21"), filas("total"));
+        assertEquals("multas", this.controlador.getTablaBase("total"));
+    }
+
+    @Test
+    public void unCambioExternoDelOrigenRecalculaLaVista() throws Exception {
+        ejecuta("sumas vista multas matricula suma cuantia");
+        Field campo = Tabla.class.getDeclaredField("filas");
+        campo.setAccessible(true);
+        List<FilaDatos> filas = new ArrayList<>(tabla("multas").buscaTodo());
+        filas.remove(0);
+        FilaDatos nueva = new FilaDatos();
+        nueva.put("id", "9");
+        nueva.put("matricula", "C");
+        nueva.put("cuantia", "4");
+        filas.add(nueva);
+        FilaDatos filaA = tabla("sumas").buscaUnica("matricula", "A");
+        campo.set(tabla("multas"), filas);
+        // El cambio se detecta al volver a usar la tabla de origen
+        tabla("multas").getVersion();
+        assertEquals(Arrays.asList("B 12", "A 11", "C 4"), filas("sumas"));
+        assertNotSame(filaA, tabla("sumas").buscaUnica("matricula", "A"));
+    }
+
+    @Test
+    public void lasFilasConfirmadasLleganALaVista() {
+        ejecuta("sumas vista multas matricula suma cuantia");
+        this.controlador.iniciar(new String[]{"inicio"});
+        anyade("6", "C", "1");
+        anyade("7", "A", "2");
+        assertEquals(Arrays.asList("A 21", "B 12"), filas("sumas"));
+        this.controlador.confirmar(new String[]{"confirma"});
+        assertEquals(Arrays.asList("A 23", "B 12", "C 1"), filas("sumas"));
+        compruebaComoRecalculada("sumas", "multas matricula suma cuantia");
+    }
+
+    @Test
+    public void lasFilasCargadasLleganALaVista() throws Exception {
+        ejecuta("sumas vista multas matricula suma cuantia");
+        Path archivo = Files.createTempFile("carga", ".txt");
+        try {
+            Files.write(archivo, Arrays.asList("id=6 matricula=C cuantia=1", "id=7 matricula=B cuantia=2"),
+                    StandardCharsets.UTF_8);
+            this.controlador.cargar(new String[]{"multas", "carga", archivo.toString()});
+        } finally {
+            Files.deleteIfExists(archivo);
+        }
+        assertEquals(Arrays.asList("A 21", "B 14", "C 1"), filas("sumas"));
+        compruebaComoRecalculada("sumas", "multas matricula suma cuantia");
+    }
+
+    @Test
+    public void unaVistaNoSePuedeOrdenarPlegarNiIndexar() {
+        ejecuta("sumas vista multas matricula suma cuantia");
+        List<String> antes = filas("sumas");
+        for (String comando : new String[]{"sumas ordena suma(cuantia) desc", "sumas pliega matricula acentos",
+            "sumas indexa suma(cuantia)"}) {
+            ejecuta(comando);
+            assertEquals("La tabla sumas es una vista y no se puede modificar.", this.iu.getUltimoMensaje());
+        }
+        assertEquals(antes, filas("sumas"));
+        assertEquals(Plegado.MAYUSCULAS, tabla("sumas").getPlegado("matricula"));
+        assertFalse(tabla("sumas").tieneIndiceOrdenado("suma(cuantia)"));
+        anyade("6", "B", "20");
+        assertEquals(Arrays.asList("A 21", "B 32"), filas("sumas"));
+    }
+}
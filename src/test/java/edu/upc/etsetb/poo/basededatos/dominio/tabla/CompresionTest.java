@@ -0,0 +1,172 @@
+package edu.upc.etsetb.poo.basededatos.dominio.tabla;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.Criterio;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioContiene;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioIgual;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioMayorQue;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Clave;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Esquema;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Pruebas de {@link Tabla#comprime(String)}: una tabla sin ordenar, la misma
+ * ordenada y la misma comprimida deben devolver las mismas filas
+ */
+public class CompresionTest {
+
+    private static final String[] CIUDADES = {"Ávila", "avila", "Cádiz", "CADIZ", "cadiz", "León", "leon",
+        "Lérida", "Badajoz", "Córdoba", "cordoba", "Zamora", "Ourense", "Ávila del Río"};
+
+    private static final List<Criterio> CRITERIOS = Arrays.asList(
+            new CriterioIgual("ciudad", "cadiz"),
+            new CriterioIgual("ciudad", "CÁDIZ"),
+            new CriterioIgual("ciudad", "Avila"),
+            new CriterioIgual("ciudad", "León"),
+            new CriterioIgual("ciudad", "Madrid"),
+            new CriterioContiene("ciudad", "ÁVI"),
+            new CriterioContiene("ciudad", "ad"),
+            new CriterioContiene("ciudad", "rio"),
+            new CriterioIgual("pais", "es"),
+            new CriterioMayorQue("id", "900"));
+
+    /**
+     * Tabla con las filas en el orden en que se añaden, que no es el de la
+     * columna ciudad
+     */
+    private static Tabla tabla(Plegado plegado) throws Exception {
+        Esquema esquema = new Esquema();
+        esquema.addClave(new Clave("id", true));
+        esquema.addClave(new Clave("ciudad"));
+        esquema.addClave(new Clave("pais"));
+        Tabla tabla = new Tabla("ciudades", esquema);
+        List<FilaDatos> lote = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            FilaDatos fila = new FilaDatos();
+            fila.put("id", String.valueOf(i));
+            fila.put("ciudad", CIUDADES[i * 7 % CIUDADES.length]);
+            fila.put("pais", i % 3 == 0 ? "ES" : "pt");
+            lote.add(fila);
+        }
+        tabla.anyadeTodas(lote);
+        tabla.pliega("ciudad", plegado);
+        return tabla;
+    }
+
+    private static Tabla ordenada(Plegado plegado) throws Exception {
+        Tabla tabla = tabla(plegado);
+        tabla.ordena("ciudad", true);
+        return tabla;
+    }
+
+    private static Tabla comprimida(Plegado plegado) throws Exception {
+        Tabla tabla = ordenada(plegado);
+        assertTrue(tabla.comprime("ciudad"));
+        assertEquals("ciudad", tabla.getColumnaComprimida());
+        return tabla;
+    }
+
+    private static List<String> comoTexto(List<FilaDatos> filas) {
+        List<String> texto = new ArrayList<>(filas.size());
+        for (FilaDatos fila : filas) {
+            texto.add(fila.get("id") + "|" + fila.get("ciudad") + "|" + fila.get("pais"));
+        }
+        return texto;
+    }
+
+    private static List<String> ordenadas(List<FilaDatos> filas) {
+        List<String> texto = comoTexto(filas);
+        Collections.sort(texto);
+        return texto;
+    }
+
+    private static List<FilaDatos> seleccionadas(Tabla tabla, Criterio criterio) {
+        Seleccion seleccion = tabla.selecciona(criterio);
+        return tabla.materializa(seleccion, 0, seleccion.getNumFilas());
+    }
+
+    private static void compruebaMismasFilas(Plegado plegado) throws Exception {
+        Tabla sinOrdenar = tabla(plegado);
+        Tabla ordenada = ordenada(plegado);
+        Tabla comprimida = comprimida(plegado);
+        for (Criterio criterio : CRITERIOS) {
+            String mensaje = plegado + " " + criterio.getNombreClave() + " " + criterio.getValorAComprobar();
+            List<FilaDatos> esperadas = ordenada.busca(criterio);
+            assertEquals(mensaje, ordenadas(sinOrdenar.busca(criterio)), ordenadas(esperadas));
+            assertEquals(mensaje, comoTexto(esperadas), comoTexto(comprimida.busca(criterio)));
+            assertEquals(mensaje, comoTexto(esperadas), comoTexto(seleccionadas(comprimida, criterio)));
+            assertEquals(mensaje, comoTexto(esperadas), comoTexto(seleccionadas(ordenada, criterio)));
+            assertEquals(mensaje, ordenadas(esperadas), ordenadas(seleccionadas(sinOrdenar, criterio)));
+        }
+        for (String id : new String[]{"0", "1234", "2999", "3000", "01"}) {
+            FilaDatos esperada = sinOrdenar.buscaUnica("id", id);
+            assertEquals(id, filaComoTexto(esperada), filaComoTexto(comprimida.buscaUnica("id", id)));
+            assertEquals(id, filaComoTexto(esperada), filaComoTexto(ordenada.buscaUnica("id", id)));
+        }
+    }
+
+    private static List<String> filaComoTexto(FilaDatos fila) {
+        return fila == null ? null : comoTexto(Collections.singletonList(fila));
+    }
+
+    @Test
+    public void mismasFilasSinDistinguirMayusculas() throws Exception {
+        compruebaMismasFilas(Plegado.MAYUSCULAS);
+    }
+
+    @Test
+    public void mismasFilasSinDistinguirAcentos() throws Exception {
+        compruebaMismasFilas(Plegado.ACENTOS);
+        assertEquals(
+                ordenadas(tabla(Plegado.ACENTOS).busca(new CriterioIgual("ciudad", "cadiz"))),
+                ordenadas(comprimida(Plegado.ACENTOS).busca(new CriterioIgual("ciudad", "CÁDIZ"))));
+    }
+
+    @Test
+    public void noComprimeUnaTablaSinOrdenar() throws Exception {
+        Tabla tabla = tabla(Plegado.MAYUSCULAS);
+        assertFalse(tabla.comprime("ciudad"));
+        assertNull(tabla.getColumnaComprimida());
+        tabla.ordena("ciudad", false);
+        assertFalse(tabla.comprime("ciudad"));
+        tabla.ordena("ciudad", true);
+        assertFalse(tabla.comprime("pais"));
+        assertTrue(tabla.comprime("ciudad"));
+    }
+
+    @Test
+    public void alEscribirSeDescomprimeYSeRehacenLosIndices() throws Exception {
+        Tabla comprimida = comprimida(Plegado.ACENTOS);
+        List<String> antes = ordenadas(comprimida.busca(new CriterioIgual("ciudad", "leon")));
+        FilaDatos nueva = new FilaDatos();
+        nueva.put("id", "5000");
+        nueva.put("ciudad", "LEÓN");
+        nueva.put("pais", "ES");
+        comprimida.anyade(nueva);
+        assertNull(comprimida.getColumnaComprimida());
+        assertEquals(antes.size() + 1, comprimida.busca(new CriterioIgual("ciudad", "leon")).size());
+        // El índice de la clave única incluye las filas anteriores y la nueva
+        FilaDatos fila = comprimida.buscaUnica("id", "1234");
+        assertEquals("1234", fila.get("id"));
+        assertEquals("5000", comprimida.buscaUnica("id", "5000").get("id"));
+        try {
+            comprimida.anyade(nueva);
+            fail("Debe rechazar la clave repetida");
+        } catch (ValorClaveUnicaException e) {
+            assertEquals(3001, comprimida.getNumFilas());
+        }
+        // Las filas vuelven a ser las de la tabla y se pueden modificar
+        comprimida.modifica(fila, "ciudad", "Zaragoza");
+        assertEquals(1, comprimida.busca(new CriterioIgual("ciudad", "ZARAGOZA")).size());
+        assertEquals("Zaragoza", comprimida.buscaUnica("id", "1234").get("ciudad"));
+    }
+}
@@ -0,0 +1,152 @@
+package edu.upc.etsetb.poo.basededatos.dominio.tabla;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioContiene;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioIgual;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioMayorQue;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Clave;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Esquema;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas de {@link Tabla#explica}: el camino de acceso elegido para cada
+ * criterio, las filas que se estima examinar y devolver y las que se examinan
+ * y devuelven realmente
+ */
+public class ExplicacionTest {
+
+    /**
+     * Número de filas de la tabla: tres bloques, el último incompleto
+     */
+    private static final int NUM_FILAS = 3000;
+
+    private Tabla tabla;
+
+    /**
+     * Tabla con una clave única id, una columna numérica n (igual a id), una
+     * columna grupo cuyo valor "raro" sólo está en el primer bloque y una
+     * columna ciudad con pocos valores
+     */
+    @Before
+    public void setUp() throws Exception {
+        Esquema esquema = new Esquema();
+        esquema.addClave(new Clave("id", true));
+        esquema.addClave(new Clave("n"));
+        esquema.addClave(new Clave("grupo"));
+        esquema.addClave(new Clave("ciudad"));
+        this.tabla = new Tabla("datos", esquema);
+        List<FilaDatos> lote = new ArrayList<>();
+        for (int i = 0; i < NUM_FILAS; i++) {
+            FilaDatos fila = new FilaDatos();
+            fila.put("id", "k" + i);
+            fila.put("n", String.valueOf(i));
+            fila.put("grupo", i < 10 ? "raro" : "comun" + i);
+            fila.put("ciudad", i % 3 == 0 ? "Lugo" : i % 3 == 1 ? "Soria" : "Teruel");
+            lote.add(fila);
+        }
+        this.tabla.anyadeTodas(lote);
+    }
+
+    @Test
+    public void indiceHashDeUnaClaveUnica() {
+        Explicacion explicacion = this.tabla.explica(new CriterioIgual("id", "K42"));
+        assertEquals("índice hash sobre la clave única 'id'", explicacion.getRuta());
+        assertEquals(1, explicacion.getFilasExaminadasEstimadas());
+        assertEquals(1, explicacion.getFilasDevueltasEstimadas());
+        assertEquals(1, explicacion.getFilasExaminadas());
+        assertEquals(1, explicacion.getFilasDevueltas());
+        assertEquals("42", explicacion.getResultado().get(0).get("n"));
+
+        explicacion = this.tabla.explica(new CriterioIgual("id", "no existe"));
+        assertEquals(0, explicacion.getFilasExaminadas());
+        assertEquals(0, explicacion.getFilasDevueltas());
+    }
+
+    @Test
+    public void biseccionSobreLaColumnaComprimida() throws Exception {
+        this.tabla.ordena("ciudad", true);
+        assertTrue(this.tabla.comprime("ciudad"));
+        Explicacion explicacion = this.tabla.explica(new CriterioIgual("ciudad", "SORIA"));
+        assertEquals("bisección sobre la columna comprimida 'ciudad'", explicacion.getRuta());
+        assertEquals(300, explicacion.getFilasExaminadasEstimadas());
+        assertEquals(300, explicacion.getFilasDevueltasEstimadas());
+        // Sólo se examinan las filas con ese valor
+        assertEquals(1000, explicacion.getFilasExaminadas());
+        assertEquals(1000, explicacion.getFilasDevueltas());
+        assertEquals(this.tabla.busca(new CriterioIgual("ciudad", "SORIA")), explicacion.getResultado());
+    }
+
+    @Test
+    public void filtrosDeBloomParaLaIgualdad() {
+        Explicacion explicacion = this.tabla.explica(new CriterioIgual("grupo", "raro"));
+        assertEquals("filtros de Bloom por bloques de " + FiltrosBloque.FILAS_POR_BLOQUE
+                + " filas sobre 'grupo' (2 de 3 bloques saltados)", explicacion.getRuta());
+        assertEquals(FiltrosBloque.FILAS_POR_BLOQUE, explicacion.getFilasExaminadasEstimadas());
+        assertEquals(300, explicacion.getFilasDevueltasEstimadas());
+        assertEquals(FiltrosBloque.FILAS_POR_BLOQUE, explicacion.getFilasExaminadas());
+        assertEquals(10, explicacion.getFilasDevueltas());
+    }
+
+    @Test
+    public void mapasDeZonaParaLosRangos() {
+        Explicacion explicacion = this.tabla.explica(new CriterioMayorQue("n", "2500"));
+        assertEquals("mapas de zona por bloques de " + FiltrosBloque.FILAS_POR_BLOQUE
+                + " filas sobre 'n' (2 de 3 bloques saltados)", explicacion.getRuta());
+        // El último bloque está incompleto, pero se estima como entero
+        assertEquals(FiltrosBloque.FILAS_POR_BLOQUE, explicacion.getFilasExaminadasEstimadas());
+        assertEquals(1000, explicacion.getFilasDevueltasEstimadas());
+        assertEquals(NUM_FILAS - 2 * FiltrosBloque.FILAS_POR_BLOQUE, explicacion.getFilasExaminadas());
+        assertEquals(499, explicacion.getFilasDevueltas());
+    }
+
+    @Test
+    public void recorridoCompleto() {
+        Explicacion explicacion = this.tabla.explica(new CriterioContiene("ciudad", "ori"));
+        assertEquals("recorrido completo de la tabla", explicacion.getRuta());
+        assertEquals(NUM_FILAS, explicacion.getFilasExaminadasEstimadas());
+        assertEquals(750, explicacion.getFilasDevueltasEstimadas());
+        assertEquals(NUM_FILAS, explicacion.getFilasExaminadas());
+        assertEquals(1000, explicacion.getFilasDevueltas());
+
+        explicacion = this.tabla.explica(null);
+        assertEquals("recorrido completo de la tabla", explicacion.getRuta());
+        assertEquals(NUM_FILAS, explicacion.getFilasDevueltasEstimadas());
+        assertEquals(NUM_FILAS, explicacion.getFilasDevueltas());
+    }
+
+    @Test
+    public void elIndiceSeDescartaSiElPlegadoJuntaVariasClaves() throws Exception {
+        this.tabla.anyade(fila("KK1", "x"));
+        this.tabla.anyade(fila("kk1", "y"));
+        Explicacion explicacion = this.tabla.explica(new CriterioIgual("id", "Kk1"));
+        assertEquals("índice hash sobre la clave única 'id', descartado por haber varios valores que sólo"
+                + " difieren en mayúsculas o acentos; recorrido completo de la tabla", explicacion.getRuta());
+        assertEquals(1, explicacion.getFilasExaminadasEstimadas());
+        assertEquals(NUM_FILAS + 2, explicacion.getFilasExaminadas());
+        assertEquals(2, explicacion.getFilasDevueltas());
+        // Las filas se devuelven en el orden de la tabla
+        assertEquals("x", explicacion.getResultado().get(0).get("grupo"));
+        assertEquals("y", explicacion.getResultado().get(1).get("grupo"));
+
+        this.tabla.anyade(fila("león", "z"));
+        this.tabla.anyade(fila("LEON", "z"));
+        this.tabla.pliega("id", Plegado.ACENTOS);
+        explicacion = this.tabla.explica(new CriterioIgual("id", "Leon"));
+        assertTrue(explicacion.getRuta().endsWith("; recorrido completo de la tabla"));
+        assertEquals(2, explicacion.getFilasDevueltas());
+    }
+
+    private static FilaDatos fila(String id, String grupo) {
+        FilaDatos fila = new FilaDatos();
+        fila.put("id", id);
+        fila.put("n", "-1");
+        fila.put("grupo", grupo);
+        fila.put("ciudad", "Lugo");
+        return fila;
+    }
+}
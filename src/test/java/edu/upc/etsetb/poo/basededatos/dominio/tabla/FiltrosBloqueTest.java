@@ -0,0 +1,127 @@
+package edu.upc.etsetb.poo.basededatos.dominio.tabla;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.Criterio;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioIgual;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Clave;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Esquema;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas de {@link FiltrosBloque}: las búsquedas de igualdad que saltan
+ * bloques deben devolver las mismas filas que un recorrido completo
+ */
+public class FiltrosBloqueTest {
+
+    private static final int NUM_BLOQUES = 10;
+
+    private Tabla tabla;
+
+    private static FilaDatos fila(String ciudad, String bloque) {
+        FilaDatos fila = new FilaDatos();
+        fila.put("ciudad", ciudad);
+        fila.put("bloque", bloque);
+        return fila;
+    }
+
+    /**
+     * Tabla en la que cada bloque tiene sus propias ciudades
+     */
+    @Before
+    public void setUp() throws Exception {
+        Esquema esquema = new Esquema();
+        esquema.addClave(new Clave("ciudad"));
+        esquema.addClave(new Clave("bloque"));
+        this.tabla = new Tabla("ciudades", esquema);
+        List<FilaDatos> lote = new ArrayList<>();
+        for (int b = 0; b < NUM_BLOQUES; b++) {
+            for (int i = 0; i < FiltrosBloque.FILAS_POR_BLOQUE; i++) {
+                lote.add(fila("Ciudad" + b + "-" + (i % 100), String.valueOf(b)));
+            }
+        }
+        this.tabla.anyadeTodas(lote);
+    }
+
+    private List<FilaDatos> recorridoCompleto(Criterio criterio) {
+        List<FilaDatos> cumplen = new ArrayList<>();
+        for (FilaDatos fila : this.tabla.buscaTodo()) {
+            if (criterio.esCumplido(fila)) {
+                cumplen.add(fila);
+            }
+        }
+        return cumplen;
+    }
+
+    private long saltados(Criterio criterio) {
+        long antes = this.tabla.getBloquesSaltados();
+        assertEquals(recorridoCompleto(criterio), this.tabla.busca(criterio));
+        return this.tabla.getBloquesSaltados() - antes;
+    }
+
+    @Test
+    public void saltaLosBloquesQueNoTienenElValor() {
+        assertTrue(saltados(new CriterioIgual("ciudad", "CIUDAD3-7")) >= NUM_BLOQUES - 2);
+        assertTrue(saltados(new CriterioIgual("ciudad", "Madrid")) >= NUM_BLOQUES - 1);
+        assertEquals(FiltrosBloque.FILAS_POR_BLOQUE, this.tabla.busca(new CriterioIgual("bloque", "4")).size());
+    }
+
+    @Test
+    public void mismasFilasQueUnRecorridoCompleto() {
+        for (int b = 0; b < NUM_BLOQUES; b++) {
+            for (int i = 0; i < 100; i += 9) {
+                saltados(new CriterioIgual("ciudad", "ciudad" + b + "-" + i));
+            }
+        }
+    }
+
+    @Test
+    public void lasFilasAnyadidasDespuesEntranEnLosFiltros() throws Exception {
+        saltados(new CriterioIgual("ciudad", "Sevilla"));
+        this.tabla.anyade(fila("Sevilla", "nuevo"));
+        this.tabla.anyadeTodas(Arrays.asList(fila("Sevilla", "nuevo"), fila("Cádiz", "nuevo")));
+        assertEquals(2, this.tabla.busca(new CriterioIgual("ciudad", "sevilla")).size());
+        saltados(new CriterioIgual("ciudad", "CÁDIZ"));
+    }
+
+    @Test
+    public void usanElPlegadoDeLaColumna() throws Exception {
+        this.tabla.anyade(fila("Cádiz", "nuevo"));
+        assertEquals(0, this.tabla.busca(new CriterioIgual("ciudad", "cadiz")).size());
+        this.tabla.pliega("ciudad", Plegado.ACENTOS);
+        assertEquals(1, this.tabla.busca(new CriterioIgual("ciudad", "cadiz")).size());
+        saltados(new CriterioIgual("ciudad", "cadiz"));
+    }
+
+    @Test
+    public void unBloqueConFilasSinPlegarSiempreSeExamina() {
+        ColumnasPlegadas columnas = new ColumnasPlegadas(Arrays.asList("ciudad", "bloque"), null);
+        FiltrosBloque filtros = new FiltrosBloque(columnas);
+        for (int i = 0; i < 2 * FiltrosBloque.FILAS_POR_BLOQUE; i++) {
+            FilaDatos fila = fila("c" + i, "b");
+            // Las filas del primer bloque no se han añadido a ninguna tabla
+            if (i >= FiltrosBloque.FILAS_POR_BLOQUE) {
+                fila.pliega(columnas);
+            }
+            filtros.anyade(fila);
+        }
+        assertEquals(2, filtros.getNumBloques());
+        BitSet soloElPrimero = new BitSet();
+        soloElPrimero.set(0);
+        assertEquals(soloElPrimero, filtros.bloquesPosibles("ciudad", "x"));
+        List<FilaDatos> filas = Collections.nCopies(2 * FiltrosBloque.FILAS_POR_BLOQUE, fila("a", "b"));
+        int recorridas = 0;
+        for (Iterator<FilaDatos> it = FiltrosBloque.recorrido(filas, soloElPrimero); it.hasNext(); it.next()) {
+            recorridas++;
+        }
+        assertEquals(FiltrosBloque.FILAS_POR_BLOQUE, recorridas);
+    }
+}
@@ -0,0 +1,154 @@
+package edu.upc.etsetb.poo.basededatos.dominio.tabla;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioIgual;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Clave;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Esquema;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Pruebas de los lotes de filas: {@link Tabla#validaLote(List)} y
+ * {@link Tabla#anyadeTodas(List)}
+ */
+public class LoteTest {
+
+    private Tabla tabla;
+
+    private static FilaDatos fila(String matricula, String bastidor, String marca) {
+        FilaDatos fila = new FilaDatos();
+        fila.put("matricula", matricula);
+        fila.put("bastidor", bastidor);
+        fila.put("marca", marca);
+        return fila;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        Esquema esquema = new Esquema();
+        esquema.addClave(new Clave("matricula", true));
+        esquema.addClave(new Clave("bastidor", true));
+        esquema.addClave(new Clave("marca"));
+        this.tabla = new Tabla("coches", esquema);
+        this.tabla.anyade(fila("1", "B1", "Seat"));
+    }
+
+    private void compruebaRechazado(FilaDatos... lote) throws Exception {
+        int numFilas = this.tabla.getNumFilas();
+        long version = this.tabla.getVersion();
+        try {
+            this.tabla.validaLote(Arrays.asList(lote));
+            fail("El lote no es válido");
+        } catch (ValorClaveUnicaException | ClaveInexistenteException e) {
+            assertEquals(numFilas, this.tabla.getNumFilas());
+            assertEquals(version, this.tabla.getVersion());
+        }
+    }
+
+    @Test
+    public void aceptaUnLoteValidoSinAnyadirlo() throws Exception {
+        long version = this.tabla.getVersion();
+        this.tabla.validaLote(Arrays.asList(fila("2", "B2", "Ford"), fila("3", "B3", "Ford"),
+                fila("b1", "b1", "Seat")));
+        this.tabla.validaLote(Collections.<FilaDatos>emptyList());
+        assertEquals(1, this.tabla.getNumFilas());
+        assertEquals(version, this.tabla.getVersion());
+    }
+
+    @Test
+    public void rechazaUnaClaveRepetidaEnElLote() throws Exception {
+        compruebaRechazado(fila("2", "B2", "Ford"), fila("3", "B3", "Kia"), fila("2", "B4", "Opel"));
+        compruebaRechazado(fila("2", "B2", "Ford"), fila("3", "B2", "Kia"));
+    }
+
+    @Test
+    public void rechazaUnaClaveQueYaEstaEnLaTabla() throws Exception {
+        compruebaRechazado(fila("2", "B2", "Ford"), fila("1", "B3", "Kia"));
+        compruebaRechazado(fila("2", "B1", "Ford"));
+    }
+
+    @Test
+    public void rechazaFilasQueNoSonDelEsquema() throws Exception {
+        FilaDatos incompleta = new FilaDatos();
+        incompleta.put("matricula", "4");
+        compruebaRechazado(fila("2", "B2", "Ford"), incompleta);
+        FilaDatos otraColumna = fila("5", "B5", "Kia");
+        otraColumna.put("color", "rojo");
+        compruebaRechazado(otraColumna);
+    }
+
+    @Test
+    public void anyadeTodasLasFilasDeGolpe() throws Exception {
+        List<String> avisos = new ArrayList<>();
+        this.tabla.anyadeOyente(new OyenteTabla() {
+            @Override
+            public void filaAnyadida(Tabla tabla, FilaDatos fila) {
+                avisos.add(fila.get("matricula"));
+            }
+
+            @Override
+            public void filasEliminadas(Tabla tabla, List<FilaDatos> filas) {
+            }
+
+            @Override
+            public void tablaCambiada(Tabla tabla) {
+                avisos.add("cambiada");
+            }
+        });
+        long version = this.tabla.getVersion();
+        FilaDatos kia = fila("4", "B4", "Kia");
+        this.tabla.anyadeTodas(Arrays.asList(fila("2", "B2", "Ford"), fila("3", "B3", "Ford"), kia));
+        assertEquals(4, this.tabla.getNumFilas());
+        assertEquals(version + 1, this.tabla.getVersion());
+        assertEquals(Arrays.asList("2", "3", "4"), avisos);
+        // Las filas quedan indexadas y plegadas como con anyade
+        assertSame(kia, this.tabla.buscaUnica("bastidor", "B4"));
+        assertNotNull(kia.getColumnasPlegadas());
+        assertEquals(2, this.tabla.busca(new CriterioIgual("marca", "FORD")).size());
+        compruebaRechazado(fila("5", "b4", "Opel"), fila("6", "B4", "Opel"));
+    }
+
+    @Test
+    public void unLoteNoValidoNoAnyadeNinguna() throws Exception {
+        List<FilaDatos> lote = new ArrayList<>();
+        for (int i = 2; i < 1000; i++) {
+            lote.add(fila(String.valueOf(i), "B" + i, "Ford"));
+        }
+        lote.add(fila("1000", "B1", "Kia"));
+        long version = this.tabla.getVersion();
+        try {
+            this.tabla.anyadeTodas(lote);
+            fail("El lote repite el bastidor B1");
+        } catch (ValorClaveUnicaException e) {
+            assertEquals(1, this.tabla.getNumFilas());
+            assertEquals(version, this.tabla.getVersion());
+        }
+        // Ninguna fila del lote ha quedado en los índices
+        assertNull(this.tabla.buscaUnica("matricula", "2"));
+        lote.remove(lote.size() - 1);
+        this.tabla.anyadeTodas(lote);
+        assertEquals(999, this.tabla.getNumFilas());
+    }
+
+    @Test
+    public void anyadirAUnaTablaComprimidaLaDescomprime() throws Exception {
+        this.tabla.anyadeTodas(Arrays.asList(fila("2", "B2", "Ford"), fila("3", "B3", "Kia")));
+        this.tabla.ordena("marca", true);
+        assertTrue(this.tabla.comprime("marca"));
+        this.tabla.anyadeTodas(Arrays.asList(fila("4", "B4", "Audi")));
+        assertNull(this.tabla.getColumnaComprimida());
+        assertEquals(4, this.tabla.getNumFilas());
+        assertEquals("Audi", this.tabla.buscaUnica("matricula", "4").get("marca"));
+        assertEquals("Kia", this.tabla.buscaUnica("matricula", "3").get("marca"));
+    }
+}
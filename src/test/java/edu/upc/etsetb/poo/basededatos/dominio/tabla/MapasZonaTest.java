@@ -0,0 +1,111 @@
+package edu.upc.etsetb.poo.basededatos.dominio.tabla;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.Criterio;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioMayorQue;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioMenorQue;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Clave;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Esquema;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pruebas de {@link MapasZona}: las búsquedas de rango que saltan bloques
+ * deben devolver las mismas filas que un recorrido completo
+ */
+public class MapasZonaTest {
+
+    private static final int NUM_BLOQUES = 8;
+
+    private Tabla tabla;
+
+    private static FilaDatos fila(String precio, String nombre) {
+        FilaDatos fila = new FilaDatos();
+        fila.put("precio", precio);
+        fila.put("nombre", nombre);
+        return fila;
+    }
+
+    /**
+     * Tabla ordenada por precio, de 0 a NUM_BLOQUES * FILAS_POR_BLOQUE - 1
+     */
+    @Before
+    public void setUp() throws Exception {
+        Esquema esquema = new Esquema();
+        esquema.addClave(new Clave("precio"));
+        esquema.addClave(new Clave("nombre"));
+        this.tabla = new Tabla("productos", esquema);
+        List<FilaDatos> lote = new ArrayList<>();
+        for (int i = 0; i < NUM_BLOQUES * FiltrosBloque.FILAS_POR_BLOQUE; i++) {
+            lote.add(fila(String.valueOf(i), "p" + i));
+        }
+        this.tabla.anyadeTodas(lote);
+    }
+
+    private List<FilaDatos> recorridoCompleto(Criterio criterio) {
+        List<FilaDatos> cumplen = new ArrayList<>();
+        for (FilaDatos fila : this.tabla.buscaTodo()) {
+            if (criterio.esCumplido(fila)) {
+                cumplen.add(fila);
+            }
+        }
+        return cumplen;
+    }
+
+    private long saltados(Criterio criterio) {
+        long antes = this.tabla.getBloquesSaltados();
+        assertEquals(recorridoCompleto(criterio), this.tabla.busca(criterio));
+        return this.tabla.getBloquesSaltados() - antes;
+    }
+
+    @Test
+    public void saltaLosBloquesFueraDelRango() {
+        int ultimo = NUM_BLOQUES * FiltrosBloque.FILAS_POR_BLOQUE - 1;
+        assertEquals(NUM_BLOQUES - 1, saltados(new CriterioMayorQue("precio", String.valueOf(ultimo - 10))));
+        assertEquals(NUM_BLOQUES - 1, saltados(new CriterioMenorQue("precio", "10.5")));
+        assertEquals(NUM_BLOQUES, saltados(new CriterioMayorQue("precio", String.valueOf(ultimo))));
+        assertEquals(NUM_BLOQUES, saltados(new CriterioMenorQue("precio", "-0.5")));
+        // El límite es el máximo del primer bloque, que no lo cumple
+        assertEquals(1, saltados(new CriterioMayorQue("precio", String.valueOf(FiltrosBloque.FILAS_POR_BLOQUE - 1))));
+    }
+
+    @Test
+    public void mismasFilasQueUnRecorridoCompleto() throws Exception {
+        this.tabla.anyadeTodas(Arrays.asList(fila("-3.5", "a"), fila("+7", "b"), fila("12.", "c"),
+                fila("1e3", "d"), fila("doce", "e"), fila("", "f")));
+        for (String limite : new String[]{"-4", "-3.5", "0", "7", "12", "999.5", "1000", "5000"}) {
+            saltados(new CriterioMayorQue("precio", limite));
+            saltados(new CriterioMenorQue("precio", limite));
+        }
+    }
+
+    @Test
+    public void unBloqueConValoresNoDecimalesSiempreSeExamina() {
+        MapasZona zonas = new MapasZona(Arrays.asList("precio", "nombre"));
+        for (int i = 0; i < 3 * FiltrosBloque.FILAS_POR_BLOQUE; i++) {
+            zonas.anyade(fila(i == 5 ? "1e9" : String.valueOf(i), null));
+        }
+        assertEquals(3, zonas.getNumBloques());
+        BitSet esperados = new BitSet();
+        esperados.set(0);
+        assertEquals(esperados, zonas.bloquesPosibles("precio", 3 * FiltrosBloque.FILAS_POR_BLOQUE, true));
+        esperados.set(2);
+        assertEquals(esperados, zonas.bloquesPosibles("precio", 2 * FiltrosBloque.FILAS_POR_BLOQUE, true));
+        // Una columna sin valores no tiene filas en ningún rango
+        assertEquals(new BitSet(), zonas.bloquesPosibles("nombre", 0, false));
+    }
+
+    @Test
+    public void losMapasSeRehacenAlOrdenar() throws Exception {
+        this.tabla.ordena("precio", false);
+        int ultimo = NUM_BLOQUES * FiltrosBloque.FILAS_POR_BLOQUE - 1;
+        assertEquals(NUM_BLOQUES - 1, saltados(new CriterioMayorQue("precio", String.valueOf(ultimo - 10))));
+        this.tabla.anyade(fila("100000", "nuevo"));
+        assertEquals(1, this.tabla.busca(new CriterioMayorQue("precio", "99999")).size());
+    }
+}
@@ -0,0 +1,112 @@
+package edu.upc.etsetb.poo.basededatos.dominio.tabla;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioContiene;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioIgual;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Clave;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Esquema;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Pruebas de {@link Plegado} y de los valores plegados que guarda cada
+ * {@link FilaDatos} al añadirse a una {@link Tabla}
+ */
+public class PlegadoTest {
+
+    private Tabla tabla;
+    private FilaDatos cordoba;
+
+    private static FilaDatos fila(String ciudad, String pais) {
+        FilaDatos fila = new FilaDatos();
+        fila.put("ciudad", ciudad);
+        fila.put("pais", pais);
+        return fila;
+    }
+
+    private static String plegado(FilaDatos fila, String columna) {
+        return fila.getPlegado(fila.getColumnasPlegadas().posicion(columna), fila.get(columna));
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        Esquema esquema = new Esquema();
+        esquema.addClave(new Clave("ciudad", true));
+        esquema.addClave(new Clave("pais"));
+        this.tabla = new Tabla("ciudades", esquema);
+        this.cordoba = fila("Córdoba", "España");
+        this.tabla.anyade(this.cordoba);
+        this.tabla.anyade(fila("LEÓN", "España"));
+        this.tabla.anyade(fila("Cordoba", "Argentina"));
+    }
+
+    @Test
+    public void mayusculasEquivaleAEqualsIgnoreCase() {
+        String[] valores = {"abc", "ABC", "Córdoba", "CÓRDOBA", "straße", "STRASSE", "ǅ", "ǆ", "ı", "I", "i", "İ"};
+        for (String a : valores) {
+            for (String b : valores) {
+                assertEquals(a + " " + b, a.equalsIgnoreCase(b),
+                        Plegado.MAYUSCULAS.pliega(a).equals(Plegado.MAYUSCULAS.pliega(b)));
+            }
+        }
+    }
+
+    @Test
+    public void devuelveElMismoValorSiNoCambia() {
+        String minusculas = "córdoba";
+        String ascii = "leon";
+        assertSame(minusculas, Plegado.MAYUSCULAS.pliega(minusculas));
+        assertSame(ascii, Plegado.ACENTOS.pliega(ascii));
+        assertEquals("cordoba", Plegado.ACENTOS.pliega("CÓRDOBA"));
+        assertEquals("pinon", Plegado.ACENTOS.pliega("Piñón"));
+    }
+
+    @Test
+    public void nombresDeLosComandos() {
+        assertSame(Plegado.ACENTOS, Plegado.deNombre("acentos"));
+        assertSame(Plegado.MAYUSCULAS, Plegado.deNombre(Plegado.MAYUSCULAS.getNombre()));
+        assertNull(Plegado.deNombre("ACENTOS"));
+    }
+
+    @Test
+    public void laFilaGuardaElValorPlegadoAlAnyadirse() {
+        assertEquals("córdoba", plegado(this.cordoba, "ciudad"));
+        assertEquals("españa", plegado(this.cordoba, "pais"));
+        assertNull(new FilaDatos().getColumnasPlegadas());
+    }
+
+    @Test
+    public void putVuelveAPlegarElValor() {
+        this.cordoba.put("pais", "ESPAÑA");
+        assertEquals("españa", plegado(this.cordoba, "pais"));
+        this.cordoba.put("pais", null);
+        assertNull(plegado(this.cordoba, "pais"));
+    }
+
+    @Test
+    public void unValorQueNoEsElPlegadoNoTieneFormaPlegada() {
+        int posicion = this.cordoba.getColumnasPlegadas().posicion("ciudad");
+        assertNull(this.cordoba.getPlegado(posicion, new String("Córdoba")));
+        assertEquals("córdoba", this.cordoba.getPlegado(posicion, this.cordoba.get("ciudad")));
+    }
+
+    @Test
+    public void plegarUnaColumnaVuelveAPlegarSusFilas() throws Exception {
+        assertEquals(1, this.tabla.busca(new CriterioIgual("ciudad", "CÓRDOBA")).size());
+        assertEquals(0, this.tabla.busca(new CriterioContiene("ciudad", "leon")).size());
+        this.tabla.pliega("ciudad", Plegado.ACENTOS);
+        assertSame(Plegado.ACENTOS, this.tabla.getPlegado("ciudad"));
+        assertSame(Plegado.MAYUSCULAS, this.tabla.getPlegado("pais"));
+        assertEquals("cordoba", plegado(this.cordoba, "ciudad"));
+        assertEquals(2, this.tabla.busca(new CriterioIgual("ciudad", "CÓRDOBA")).size());
+        assertEquals(1, this.tabla.busca(new CriterioContiene("ciudad", "leon")).size());
+        // Las filas que se añaden después también se pliegan sin acentos
+        FilaDatos nueva = fila("Léon", "Francia");
+        this.tabla.anyade(nueva);
+        assertEquals("leon", plegado(nueva, "ciudad"));
+        assertEquals(2, this.tabla.busca(new CriterioContiene("ciudad", "LEON")).size());
+    }
+}
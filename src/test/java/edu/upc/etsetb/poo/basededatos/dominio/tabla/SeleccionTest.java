@@ -0,0 +1,90 @@
+package edu.upc.etsetb.poo.basededatos.dominio.tabla;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioContiene;
+import edu.upc.etsetb.poo.basededatos.casosdeuso.busqueda.CriterioIgual;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Clave;
+import edu.upc.etsetb.poo.basededatos.dominio.esquema.Esquema;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas de {@link Tabla#selecciona} cuando el criterio lo resuelve
+ * el índice de una clave única
+ */
+public class SeleccionTest {
+
+    private Tabla tabla;
+
+    @Before
+    public void setUp() throws Exception {
+        Esquema esquema = new Esquema();
+        esquema.addClave(new Clave("matricula", true));
+        esquema.addClave(new Clave("marca"));
+        this.tabla = new Tabla("coches", esquema);
+        List<FilaDatos> lote = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            FilaDatos fila = new FilaDatos();
+            fila.put("matricula", "M" + i);
+            fila.put("marca", i % 2 == 0 ? "Seat" : "Ford");
+            lote.add(fila);
+        }
+        this.tabla.anyadeTodas(lote);
+    }
+
+    private List<FilaDatos> todas(Seleccion seleccion) {
+        return this.tabla.materializa(seleccion, 0, seleccion.getNumFilas());
+    }
+
+    @Test
+    public void elIndiceDevuelveLaMismaFilaQueBuscaUnica() {
+        Seleccion seleccion = this.tabla.selecciona(new CriterioIgual("matricula", "m4321"));
+        assertEquals(1, seleccion.getNumFilas());
+        assertEquals(Collections.singletonList(this.tabla.buscaUnica("matricula", "M4321")), todas(seleccion));
+        assertSame(this.tabla.buscaUnica("matricula", "M4321"), todas(seleccion).get(0));
+        assertEquals(this.tabla.busca(new CriterioIgual("matricula", "m4321")), todas(seleccion));
+        assertTrue(this.tabla.materializa(seleccion, 1, 5).isEmpty());
+        assertEquals(0, this.tabla.selecciona(new CriterioIgual("matricula", "X1")).getNumFilas());
+    }
+
+    @Test
+    public void filtraYProyectaLaFilaDelIndice() throws Exception {
+        Seleccion seleccion = this.tabla.selecciona(new CriterioIgual("matricula", "M10"));
+        assertEquals(1, this.tabla.filtra(seleccion, new CriterioContiene("marca", "SEA")).getNumFilas());
+        Seleccion vacia = this.tabla.filtra(seleccion, new CriterioIgual("marca", "Ford"));
+        assertEquals(0, vacia.getNumFilas());
+        assertTrue(todas(vacia).isEmpty());
+        List<FilaDatos> proyectadas = this.tabla.materializa(seleccion, 0, 1, Arrays.asList("marca"));
+        assertEquals(1, proyectadas.size());
+        assertEquals("Seat", proyectadas.get(0).get("marca"));
+        assertEquals(null, proyectadas.get(0).get("matricula"));
+    }
+
+    @Test
+    public void laSeleccionSigueValiendoAlComprimirLaTabla() throws Exception {
+        this.tabla.ordena("marca", true);
+        Seleccion seleccion = this.tabla.selecciona(new CriterioIgual("matricula", "M77"));
+        assertTrue(this.tabla.comprime("marca"));
+        List<FilaDatos> proyectadas = this.tabla.materializa(seleccion, 0, 1, Arrays.asList("matricula"));
+        assertEquals("M77", proyectadas.get(0).get("matricula"));
+        assertEquals("M77", todas(seleccion).get(0).get("matricula"));
+        assertEquals(1, this.tabla.filtra(seleccion, new CriterioIgual("marca", "ford")).getNumFilas());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void laSeleccionDejaDeValerSiCambiaLaTabla() throws Exception {
+        Seleccion seleccion = this.tabla.selecciona(new CriterioIgual("matricula", "M1"));
+        FilaDatos fila = new FilaDatos();
+        fila.put("matricula", "nueva");
+        fila.put("marca", "Kia");
+        this.tabla.anyade(fila);
+        this.tabla.materializa(seleccion, 0, 1);
+    }
+}
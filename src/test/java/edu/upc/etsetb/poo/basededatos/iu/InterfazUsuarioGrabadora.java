@@ -0,0 +1,95 @@
+package edu.upc.etsetb.poo.basededatos.iu;
+
+import edu.upc.etsetb.poo.basededatos.casosdeuso.Controlador;
+import edu.upc.etsetb.poo.basededatos.dominio.tabla.FilaDatos;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Interfaz de usuario para las pruebas: en lugar de escribir en pantalla,
+ * guarda los mensajes y las filas presentadas para poder comprobarlos
+ */
+public class InterfazUsuarioGrabadora extends InterfazUsuario {
+
+    private final List<String> mensajes = new ArrayList<>();
+
+    private final List<FilaDatos> filas = new ArrayList<>();
+
+    private List<String> cabeceras;
+
+    private int[] anchos;
+
+    public InterfazUsuarioGrabadora(Controlador controlador) {
+        super(controlador);
+        controlador.setIu(this);
+    }
+
+    @Override
+    public synchronized void println(String texto) {
+        this.mensajes.add(texto);
+    }
+
+    @Override
+    public synchronized void presentaResultados(List<String> cabecerasTabla, List<FilaDatos> result) {
+        this.presentaResultados(cabecerasTabla, result.iterator(), null);
+    }
+
+    @Override
+    public synchronized long presentaResultados(List<String> cabecerasTabla, Iterator<FilaDatos> result, int[] anchos) {
+        this.cabeceras = new ArrayList<>(cabecerasTabla);
+        this.anchos = anchos == null ? null : anchos.clone();
+        long numFilas = 0;
+        while (result.hasNext()) {
+            this.filas.add(result.next());
+            numFilas++;
+        }
+        return numFilas;
+    }
+
+    /**
+     * Mensajes recibidos con {@link #println(String)}, en orden
+     */
+    public synchronized List<String> getMensajes() {
+        return new ArrayList<>(this.mensajes);
+    }
+
+    /**
+     * Último mensaje recibido, o <code>null</code> si no hay ninguno
+     */
+    public synchronized String getUltimoMensaje() {
+        return this.mensajes.isEmpty() ? null : this.mensajes.get(this.mensajes.size() - 1);
+    }
+
+    /**
+     * Filas presentadas desde la última llamada a {@link #vacia()}
+     */
+    public synchronized List<FilaDatos> getFilas() {
+        return new ArrayList<>(this.filas);
+    }
+
+    /**
+     * Cabeceras de la última presentación de resultados
+     */
+    public synchronized List<String> getCabeceras() {
+        return this.cabeceras;
+    }
+
+    /**
+     * Anchos de las columnas de la última presentación de resultados, o
+     * <code>null</code> si se usó el ancho fijo
+     */
+    public synchronized int[] getAnchos() {
+        return this.anchos;
+    }
+
+    /**
+     * Olvida los mensajes y las filas recibidos
+     */
+    public synchronized void vacia() {
+        this.mensajes.clear();
+        this.filas.clear();
+        this.cabeceras = null;
+        this.anchos = null;
+    }
+}